@@ -1,17 +1,17 @@
 package hierarchicalclustering;
 
+import extensibleclustering.dependencies.AlgorithmCapabilities;
+import extensibleclustering.dependencies.AlgorithmCapabilities.Complexity;
 import extensibleclustering.dependencies.Centroid;
 import extensibleclustering.dependencies.ClusteringAlgorithm;
 import extensibleclustering.dependencies.DirectoryHelper;
 import extensibleclustering.dependencies.IncomparableComponentsException;
 import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.WeightedPosition;
 import java.io.BufferedWriter;
-import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -33,6 +33,9 @@ public class SingleLinkHierarchicalAggloClustering implements ClusteringAlgorith
 
   /**
    * Performs Single Link Agglomerative Hierarchical Clustering.
+   * Weighted positions, e.g. collapsed duplicates, are output with the IDs of the positions 
+   * they stand for. Single link only uses the closest pair of positions, so the weights do 
+   * not change which clusters are merged.
    * @param data - Data to cluster
    * @param fileName - The file used to get the data. This is used for outputting results.
    * @return Centroid[] - An array with the single remaining centroid.
@@ -41,16 +44,30 @@ public class SingleLinkHierarchicalAggloClustering implements ClusteringAlgorith
   public Centroid[] clusterData(Position[] data, String fileName) {
     ArrayList<Centroid> clusterList = new ArrayList<>();
     
+    //Create the file the result will be stored in, counting the positions that 
+    //weighted positions stand for.
+    int originalLength = 0;
     for (Position pos : data) {
-      clusterList.add(new Centroid(pos.getID(), pos));
-      clusterList.get(clusterList.size() - 1).assignPosition(pos);
+      originalLength += WeightedPosition.getMemberIDs(pos).length;
     }
+    lastOutputPath = createOutputFile(originalLength, fileName);
     
-    //Create the file the result will be stored in.
-    lastOutputPath = createOutputFile(data.length, fileName);
+    int height = 1;
+    for (Position pos : data) {
+      //The positions a weighted position stands for are identical, so they would be merged
+      //first. Output these merges so the result has each of the original IDs.
+      String[] memberIds = WeightedPosition.getMemberIDs(pos);
+      String clusterId = memberIds[0];
+      for (int i = 1; i < memberIds.length; i++) {
+        appendClusterStatus(height, clusterId, memberIds[i]);
+        clusterId += "::" + memberIds[i];
+        height++;
+      }
+      clusterList.add(new Centroid(clusterId, pos));
+      clusterList.get(clusterList.size() - 1).assignPosition(pos);
+    }
     
     HashMap<String, Double> distancesMap = new HashMap<>(); 
-    int height = 1;
     while (clusterList.size() > 1) {
       try {
         performIteration(clusterList, distancesMap, height);
@@ -77,11 +94,10 @@ public class SingleLinkHierarchicalAggloClustering implements ClusteringAlgorith
     DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyy_HH:mm:ss");
     String startedTime = dateTime.format(dateFormatter);
     startedTime = startedTime.replace(":", "");
-    String fileName = getName() + "-" + startedTime + ".tsv";
     Path outputPath = null;
     try {
-      outputPath = Files.createFile(
-          Paths.get(outputDirectory.toString() + File.separator + fileName));
+      outputPath = DirectoryHelper.createOutputFile(outputDirectory, 
+          getName() + "-" + startedTime, ".tsv");
       BufferedWriter writeFile = new BufferedWriter(new FileWriter(outputPath.toFile()));
       String newLine = System.lineSeparator();
       
@@ -159,9 +175,12 @@ public class SingleLinkHierarchicalAggloClustering implements ClusteringAlgorith
       writeFile.append("Position ID" + entrySeparator + "Location" + lineSeparator);
       
       //Go through the last centroid and output all of the assigned positions.
+      //A weighted position is output once for each of the positions it stands for.
       for (Position pos : finalCluster.getAssignedPositions()) {
-        writeFile.append(pos.getID() + entrySeparator 
-            + Arrays.toString(pos.getComponents()) + lineSeparator);
+        String location = Arrays.toString(pos.getComponents());
+        for (String memberId : WeightedPosition.getMemberIDs(pos)) {
+          writeFile.append(memberId + entrySeparator + location + lineSeparator);
+        }
       }
       
     } catch (IOException ex) {
@@ -276,4 +295,16 @@ public class SingleLinkHierarchicalAggloClustering implements ClusteringAlgorith
         + " WARNING, this does not scale well to large data sets so will take a long time to run";
   }
 
+  /**
+   * Returns the capabilities of single link clustering. The distance between each pair of 
+   * positions is kept in a map, keyed by their IDs, and each iteration compares every pair, 
+   * so the memory is quadratic and the time cubic. This runs on a single thread.
+   * @return AlgorithmCapabilities - The capabilities of this algorithm.
+   */
+  @Override
+  public AlgorithmCapabilities getCapabilities() {
+    //About 128 bytes for the key, distance and entry of each pair, with half of the pairs kept.
+    return new AlgorithmCapabilities(Complexity.QUADRATIC, 64, Complexity.CUBIC, 1, false);
+  }
+
 }
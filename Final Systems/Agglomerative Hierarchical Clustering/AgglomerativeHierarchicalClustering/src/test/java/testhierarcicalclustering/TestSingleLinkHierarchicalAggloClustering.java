@@ -8,6 +8,7 @@ import extensibleclustering.dependencies.Centroid;
 import extensibleclustering.dependencies.ClusteringAlgorithm;
 import extensibleclustering.dependencies.IncomparableComponentsException;
 import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.WeightedPosition;
 import hierarchicalclustering.SingleLinkHierarchicalAggloClustering;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -17,6 +18,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Scanner;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -356,4 +358,25 @@ public class TestSingleLinkHierarchicalAggloClustering {
       ex.printStackTrace();
     }
   }
+  
+  /**
+   * Test to try and cluster weighted positions. The positions each weighted position stands
+   * for should be merged first, and each of their IDs should be in the data used.
+   * @throws IOException - Thrown if the output file cannot be read.
+   */
+  @Test
+  public void testClusterWeightedPositions() throws IOException {
+    Position[] weightedData = new Position[] {
+        new WeightedPosition(new Position("1", new Double[] {1.0}), 3.0, 
+            new String[] {"1", "1b", "1c"}),
+        new Position("2", new Double[] {5.0})};
+    testClustering.clusterData(weightedData, "Example-Data.txt");
+    List<String> lines = Files.readAllLines(testClustering.getLastOutputFile());
+    assertEquals("Could not count the positions the weighted position stands for",
+        "Number of data points used: 4", lines.get(2));
+    assertEquals("Could not merge the first duplicate", "1\t1\t1b", lines.get(6));
+    assertEquals("Could not merge the second duplicate", "2\t1::1b\t1c", lines.get(7));
+    assertEquals("Could not merge the remaining clusters", "3\t1::1b::1c\t2", lines.get(8));
+    assertTrue("Could not output each of the original IDs", lines.contains("1c\t[1.0]"));
+  }
 }
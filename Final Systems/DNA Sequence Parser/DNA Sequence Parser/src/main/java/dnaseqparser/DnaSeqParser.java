@@ -1,5 +1,8 @@
 package dnaseqparser;
 
+import extensibleclustering.dependencies.KmerCounter;
+import extensibleclustering.dependencies.MinHashSketcher;
+import extensibleclustering.dependencies.Parameter;
 import extensibleclustering.dependencies.Parser;
 import extensibleclustering.dependencies.Position;
 import java.io.BufferedReader;
@@ -7,39 +10,105 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.Vector;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Implements a DNA Sequence parser that converts GenBank .seq files with a character
  * set of 'acgt' to instances of the Position class that can be used to cluster the data.
+ * Each Position contains the frequency of each k-mer in the sequence, which are counted 
+ * using the KmerCounter. Alternatively the parser can produce a MinHash sketch of each 
+ * sequence, see setSketching. A character in a sequence that is not a base, e.g. the 
+ * ambiguous base N, breaks it, so the k-mers spanning it are skipped.
  * @author David Cook
  */
 public class DnaSeqParser implements Parser {
   
   /**
-   * Generates all of the combinations of the specified length from
-   * a given char set.
-   * @param set - The set of chars to generate the combinations from.
-   * @param prefix - The current string to use.
-   * @param length - The length the combinations should be, e.g. 3.
-   * @param generatedSet - The set to add the generated combinations to.
+   * The k-mers that can be counted, as the options of the overlap parameter.
    */
-  private void generateAllCombinations(char[] set, String prefix, int length,
-      Set<String> generatedSet) {
-    if (length == 0) {
-      generatedSet.add(prefix);
-      return;
-    }
-    
-    for (int i = 0; i < set.length; ++i) {
-      String newPrefix = prefix + set[i];
-      generateAllCombinations(set, newPrefix, length - 1, generatedSet);
+  private static final String READING_FRAME = "Reading frame";
+  private static final String OVERLAPPING = "Overlapping";
+
+  /**
+   * The parameters the parser can be given, matching the constructor and setters of the 
+   * same settings. The defaults are those of a parser created without any arguments.
+   */
+  private static final List<Parameter> PARAMETERS = Collections.unmodifiableList(Arrays.asList(
+      Parameter.ofInt("kmerLength", "The length of the k-mers to count in each sequence",
+          3, 1, KmerCounter.MAX_K),
+      Parameter.ofEnum("overlap", "Whether to count every overlapping k-mer, or only the "
+          + "k-mers in the reading frame starting at the first base", READING_FRAME,
+          READING_FRAME, OVERLAPPING),
+      Parameter.ofInt("sketchSize", "The number of hashes in the MinHash sketch of each "
+          + "sequence, or 0 to count the k-mer frequencies instead", 0, 0, Integer.MAX_VALUE),
+      Parameter.ofInt("sketchKmerLength", "The length of the k-mers to hash when sketching",
+          21, 1, MinHashSketcher.MAX_K),
+      Parameter.ofInt("threads", "The number of worker threads, or 0 to use one for each "
+          + "processor", 0, 0, 4096)));
+
+  private final int kmerLength;
+  private final boolean overlapping;
+  private int workerThreads = Runtime.getRuntime().availableProcessors();
+  private int sketchKmerLength = 21;
+  private int sketchSize = 0;
+  
+  /**
+   * Creates a parser that counts the codon triplets in each sequence, i.e. the 
+   * non-overlapping k-mers of length 3 in the reading frame starting at the first base.
+   */
+  public DnaSeqParser() {
+    this(3, false);
+  }
+  
+  /**
+   * Creates a parser that counts the k-mers of the given length in each sequence.
+   * Each parsed Position will have 4^k dimensions, in alphabetical order of the k-mers.
+   * @param kmerLength - The length of the k-mers to count, between 1 and KmerCounter.MAX_K.
+   * @param overlapping - True to count every overlapping k-mer, false to only count the 
+   *     k-mers in the reading frame starting at the first base, e.g. codons when k is 3.
+   */
+  public DnaSeqParser(int kmerLength, boolean overlapping) {
+    if (kmerLength < 1 || kmerLength > KmerCounter.MAX_K) {
+      throw new IllegalArgumentException("The k-mer length must be between 1 and " 
+          + KmerCounter.MAX_K);
     }
+    this.kmerLength = kmerLength;
+    this.overlapping = overlapping;
+  }
+
+  /**
+   * Parses a file with values for the k-mers, sketching and worker threads. A new parser 
+   * is created with these settings, so the settings of this parser are left unchanged.
+   * @param file - The file to parse the data from.
+   * @param parameters - The values of the parameters, see getParameters.
+   * @return Position[] - The Positions parsed from the file.
+   * @throws FileNotFoundException - Thrown if the file given cannot be located.
+   * @throws IOException - Thrown if there is an error when parsing data from the file.
+   */
+  @Override
+  public Position[] parseFile(File file, Map<String, Object> parameters) 
+      throws FileNotFoundException, IOException {
+    Map<String, Object> values = Parameter.resolve(PARAMETERS, parameters);
+    DnaSeqParser configured = new DnaSeqParser((Integer) values.get("kmerLength"),
+        OVERLAPPING.equals(values.get("overlap")));
+    configured.setSketching((Integer) values.get("sketchKmerLength"),
+        (Integer) values.get("sketchSize"));
+    int threads = (Integer) values.get("threads");
+    configured.setWorkerThreads(
+        threads == 0 ? Runtime.getRuntime().availableProcessors() : threads);
+    return configured.parseFile(file);
   }
 
   @Override
@@ -61,89 +130,126 @@ public class DnaSeqParser implements Parser {
       throw new IllegalArgumentException("File type is not supported");
     }
     
+    //The records are parsed with a producer / consumer pipeline.
+    //This thread reads and splits the records, then hands them to the worker threads 
+    //through a bounded queue. The workers count the k-mers of each sequence and drop it, 
+    //so only O(threads) sequences are held in memory rather than the whole file.
+    BlockingQueue<SequenceRecord> recordQueue = new ArrayBlockingQueue<>(workerThreads);
+    ConcurrentHashMap<Integer, Position> parsedPositions = new ConcurrentHashMap<>();
+    AtomicReference<Throwable> workerFailure = new AtomicReference<>();
+    ExecutorService workers = Executors.newFixedThreadPool(workerThreads);
+    for (int i = 0; i < workerThreads; i++) {
+      workers.execute(() -> countRecords(recordQueue, parsedPositions, workerFailure));
+    }
     
-    
-    //Generate the combinations of the alphabet {A,C,G,T} that are length 3.
-    HashSet<String> permSet = new HashSet<>();
-    generateAllCombinations(new char[]{'a', 'c', 'g', 't'}, "", 3, permSet);    
-    BufferedReader readFile = new BufferedReader(new FileReader(file));
-    String currentLine;
-    currentLine = readFile.readLine();
-    HashMap<String, String> dataMap = new HashMap<>();
-    Vector<Position> positionsVector = new Vector<>();
-    while (currentLine != null) {
-      if (currentLine.contains("LOCUS")) {
-        //Get the ID. This will be the second entry in the array when the line is split by spaces.
-        String[] splitLine = currentLine.split(" ");
-        String id = splitLine[7];
-        dataMap.put(id, parseSequence(readFile));
+    int recordCount = 0;
+    try (BufferedReader readFile = new BufferedReader(new FileReader(file))) {
+      String currentLine = readFile.readLine();
+      //Stop reading early if a worker has failed, e.g. by running out of memory.
+      while (currentLine != null && workerFailure.get() == null) {
+        if (currentLine.startsWith("LOCUS")) {
+          //Get the ID. This will be the second entry when the line is split by whitespace.
+          String id = currentLine.split("\\s+")[1];
+          recordQueue.put(new SequenceRecord(recordCount++, id, parseSequence(readFile)));
+        }
+        currentLine = readFile.readLine();
       }
-      currentLine = readFile.readLine();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while parsing the file");
+    } finally {
+      //Tell each of the workers there are no more records, then wait for them to finish.
+      stopWorkers(recordQueue, workers);
     }
-    
-    //Iterate through the 
-    dataMap.entrySet()
-            .parallelStream()
-            .forEach(entry -> {
-              //Get the string to the correct length
-              //Get the mod 3 result to see how many there should be.
-              int remainder = entry.getValue().length() % 3;
-  
-              //Trim the remainder off the end.
-              StringBuilder remainingTriplets = new StringBuilder(
-                  entry.getValue().substring(0, entry.getValue().length() - remainder));
-  
-              ArrayList<String> splitList = new ArrayList<>();
-              //Split the remaining triplets up into 3s.
-              while (remainingTriplets.length() != 0) {
-                splitList.add(remainingTriplets.substring(0, 3));
-                remainingTriplets.delete(0, 3);
-              }
-              
-              //All of the sets have now been split up into 3s. 
-              //The frequency of these out of the data length can now be calculated.
-              int dataCount = splitList.size();
-              //Gather the frequency of each.
-              HashMap<String, Double> freqMap = new HashMap<>();
-              //Add all of the items in the perm set to the map.
-              permSet.forEach(s -> freqMap.put(s, 0.0));
-              //Gather the frequency of each.
-              
-              //Go through each of the sets of 3, and calculate the total occurrences.
-              for (String key : splitList) {
-                try {
-                  freqMap.put(key, freqMap.get(key) + 1);
-                } catch (NullPointerException ex) {
-                  throw new IllegalArgumentException("The file given contained an "
-                      + "invalid character not in 'a,c,g,t'");
-                }
-              }
   
-              //Go through each entry in the map and divide it by the length of the triplets.
-              for (String freqKey : freqMap.keySet()) {
-                freqMap.put(freqKey, freqMap.get(freqKey) / dataCount);
-              }
+    Throwable failure = workerFailure.get();
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      //E.g. a worker ran out of memory, so the record it was counting is missing.
+      throw (Error) failure;
+    }
+    
+    //Return the positions in the order the records appear in the file.
+    Position[] positions = new Position[recordCount];
+    for (int i = 0; i < recordCount; i++) {
+      positions[i] = parsedPositions.get(i);
+    }
+    return positions;
+  }
   
-              //Now there is a map with the % of each triplet, 
-              //these can be converted to a double array, then converted to a position,
-              //and added to the vector.
+  /**
+   * Worker loop that takes records from the queue and counts or sketches their k-mers until 
+   * the end of the file is reached. If a record fails, the failure is stored and the 
+   * remaining records are drained so the reader is never blocked. Errors, e.g. running out 
+   * of memory, are stored too, so a record is never silently left out.
+   * @param recordQueue - The queue to take the records from.
+   * @param parsedPositions - Map of record index to the parsed Position.
+   * @param workerFailure - Stores the first exception or error thrown while counting a record.
+   */
+  private void countRecords(BlockingQueue<SequenceRecord> recordQueue, 
+      Map<Integer, Position> parsedPositions, AtomicReference<Throwable> workerFailure) {
+    //Each worker reuses its own counter, so there is no shared state between the threads.
+    KmerCounter counter = sketchSize > 0 ? null : new KmerCounter(kmerLength, overlapping);
+    MinHashSketcher sketcher = sketchSize > 0 
+        ? new MinHashSketcher(sketchKmerLength, sketchSize) : null;
+    try {
+      SequenceRecord record = recordQueue.take();
+      while (record != SequenceRecord.END_OF_FILE) {
+        if (workerFailure.get() == null) {
+          try {
+            if (sketcher != null) {
+              sketcher.reset();
+              sketcher.add(record.sequence);
+              parsedPositions.put(record.index, sketcher.toPosition(record.id));
+            } else {
+              counter.reset();
+              counter.add(record.sequence);
+              parsedPositions.put(record.index, 
+                  new Position(record.id, counter.getFrequencies()));
+            }
+          } catch (Throwable ex) {
+            workerFailure.compareAndSet(null, ex);
+          }
+        }
+        record = recordQueue.take();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
   
-              //Iterate thru the map and add the values to the list.
-              ArrayList<Double> components = new ArrayList<>(freqMap.values());
-              
-              //Create a new position and add it to the vector.
-              positionsVector.add(new Position(entry.getKey(), components.toArray(new Double[0])));
-            });
-    
-    //Manually invoke garbage collection to unnecessary memory usage, 
-    System.gc();
-    return positionsVector.toArray(new Position[0]);
+  /**
+   * Sends the end of file marker to each worker and waits for them to finish.
+   * @param recordQueue - The queue the workers are taking records from.
+   * @param workers - The workers to stop.
+   * @throws InterruptedIOException - Thrown if interrupted while waiting for the workers.
+   */
+  private void stopWorkers(BlockingQueue<SequenceRecord> recordQueue, ExecutorService workers) 
+      throws InterruptedIOException {
+    try {
+      for (int i = 0; i < workerThreads; i++) {
+        recordQueue.put(SequenceRecord.END_OF_FILE);
+      }
+      workers.shutdown();
+      workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException ex) {
+      workers.shutdownNow();
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while parsing the file");
+    }
   }
   
+  /**
+   * Reads the sequence of the current record, from the ORIGIN line to the '//' line.
+   * @param readFile - The reader, positioned inside the record.
+   * @return - The bases of the sequence without the spaces and base numbers.
+   * @throws IOException - Thrown if an error occurs reading the file.
+   */
   private String parseSequence(BufferedReader readFile) throws IOException {
     String currentLine;
     currentLine = readFile.readLine();
-    while (!currentLine.contains("ORIGIN")) {
+    while (currentLine != null && !currentLine.startsWith("ORIGIN")) {
       currentLine = readFile.readLine();
     }
     
@@ -153,24 +259,78 @@ public class DnaSeqParser implements Parser {
     StringBuilder sb = new StringBuilder();
   
     /* Last line of data is '//' */
-    String currentData = "";
-    currentData = readFile.readLine();
-    while (!currentData.equals("//")) {
+    String currentData = currentLine == null ? null : readFile.readLine();
+    while (currentData != null && !currentData.equals("//")) {
       //Handle this line, and add it to the string builder.
-      //Remove all of the spaces from the line
-      currentData = currentData.replaceAll("\\s+", "");
-      
-      //Remove all digits from the string as these are not required.
-      currentData = currentData.replaceAll("\\d", "");
-      
-      //Can now append it to the string builder.
-      sb.append(currentData);
+      //The spaces and base numbers are not required, so only letters are kept.
+      //This is done by checking each char as a regex replace is inefficient.
+      for (int i = 0; i < currentData.length(); i++) {
+        char currentChar = currentData.charAt(i);
+        if (!Character.isWhitespace(currentChar) && !Character.isDigit(currentChar)) {
+          sb.append(currentChar);
+        }
+      }
       
       currentData = readFile.readLine();
     }
     
     return sb.toString();
   }
+  
+  /**
+   * Sets the number of worker threads used to count the k-mers of the records.
+   * This is also the capacity of the queue between the reader and the workers, so at most
+   * around twice this many sequences are held in memory at once.
+   * @param workerThreads - The number of worker threads to use, must be at least 1.
+   */
+  public void setWorkerThreads(int workerThreads) {
+    if (workerThreads < 1) {
+      throw new IllegalArgumentException("At least one worker thread is required");
+    }
+    this.workerThreads = workerThreads;
+  }
+  
+  /**
+   * Sets the parser to produce a MinHash sketch of each record instead of its k-mer 
+   * frequencies. Each record becomes a SketchPosition holding the smallest hashes of its 
+   * canonical k-mers, whose distance is the Mash distance between the sequences.
+   * @param sketchKmerLength - The length of the k-mers to hash, e.g. 21, up to 
+   *     MinHashSketcher.MAX_K.
+   * @param sketchSize - The number of hashes in each sketch, e.g. 1000, or 0 to count the 
+   *     k-mer frequencies again.
+   */
+  public void setSketching(int sketchKmerLength, int sketchSize) {
+    if (sketchSize < 0) {
+      throw new IllegalArgumentException("The sketch size cannot be negative");
+    }
+    if (sketchKmerLength < 1 || sketchKmerLength > MinHashSketcher.MAX_K) {
+      throw new IllegalArgumentException("The k-mer length must be between 1 and " 
+          + MinHashSketcher.MAX_K);
+    }
+    this.sketchKmerLength = sketchKmerLength;
+    this.sketchSize = sketchSize;
+  }
+  
+  /**
+   * A single record read from the file that is waiting to be counted.
+   */
+  private static final class SequenceRecord {
+    
+    /**
+     * Marker placed on the queue once for each worker when the end of the file is reached.
+     */
+    static final SequenceRecord END_OF_FILE = new SequenceRecord(-1, "", "");
+    
+    final int index;
+    final String id;
+    final String sequence;
+    
+    SequenceRecord(int index, String id, String sequence) {
+      this.index = index;
+      this.id = id;
+      this.sequence = sequence;
+    }
+  }
 
   @Override
   public String getName() {
@@ -189,4 +349,9 @@ public class DnaSeqParser implements Parser {
         "*.seq"
         ));
   }
+
+  @Override
+  public List<Parameter> getParameters() {
+    return PARAMETERS;
+  }
 }
@@ -1,11 +1,14 @@
 package testdnaseqparser;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import dnaseqparser.DnaSeqParser;
+import extensibleclustering.dependencies.IncomparableComponentsException;
 import extensibleclustering.dependencies.Parser;
 import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SketchPosition;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -13,6 +16,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -31,6 +36,7 @@ public class TestDnaSeqParser {
   private static Path testGenBankDiffSample;
   private static Path testGenBankWrongChars;
   private static Path testEmptyPdf;
+  private static Path testKmerSample;
   private DnaSeqParser testParser;
   
   /**
@@ -75,6 +81,9 @@ public class TestDnaSeqParser {
     testEmptyPdf = Paths.get(rootTestResources.toString() 
         + File.separator + "empty-pdf.pdf");
     
+    testKmerSample = Paths.get(rootTestResources.toString() 
+        + File.separator + "KmerSample.seq");
+    
     assertTrue("Could not download GenBank 455 test file", testGenBankSample.toFile().exists());
     assertTrue("Could not download GenBank 400 test file", testGenBankDiffSample.toFile().exists());
     assertTrue("Could not download GenBank 101 test file", testGenBankWrongChars.toFile().exists());
@@ -198,13 +207,177 @@ public class TestDnaSeqParser {
   }
   
   /**
-   * Test to try and parse a file with invalid chars. 
-   * This should throw an illegal args exception.
+   * Test to try and parse a file with chars that are not bases, e.g. N. 
+   * The codons containing them should be skipped rather than the file being rejected, 
+   * so the frequencies of each record with a codon should still add up to 1.
    * @throws FileNotFoundException - Will be thrown if the file cannot be found.
    * @throws IOException - Thrown if an error occurs when reading the file.
    */
-  @Test (expected = IllegalArgumentException.class)
+  @Test
   public void testParseIllegalChars() throws FileNotFoundException, IOException {
-    testParser.parseFile(testGenBankWrongChars.toFile());
+    Position[] result = testParser.parseFile(testGenBankWrongChars.toFile());
+    assertTrue("Could not parse the records with chars that are not bases", 
+        result.length > 0);
+    for (Position position : result) {
+      double total = 0.0;
+      for (Double frequency : position.getComponents()) {
+        total += frequency;
+      }
+      assertTrue("Could not get frequencies adding up to 1 for " + position.getID(), 
+          Double.isNaN(total) || Math.abs(total - 1.0) < 1e-9);
+    }
+  }
+  
+  /**
+   * Test to try and parse a file counting codons, which is the default.
+   * The sequence 'acgacgacgt' has three 'acg' codons, with the 't' being ignored.
+   * The codon 'acg' is at index 6 as the k-mers are in alphabetical order.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseCodonFrequencies() throws FileNotFoundException, IOException {
+    Position[] result = testParser.parseFile(testKmerSample.toFile());
+    assertEquals("Could not get the expected id when parsing the k-mer sample",
+        "KMER0001", result[0].getID());
+    assertEquals("Could not get the expected frequency of 'acg'",
+        1.0, result[0].getComponents()[6], 0.0);
+  }
+  
+  /**
+   * Test to try and parse a file counting overlapping k-mers of length 2.
+   * This should return Positions with 16 dimensions. 
+   * The sequence has 9 overlapping 2-mers, 3 of which are 'ac'.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseOverlappingKmers() throws FileNotFoundException, IOException {
+    Position[] result = new DnaSeqParser(2, true).parseFile(testKmerSample.toFile());
+    assertEquals("Could not get the expected dimensions for overlapping 2-mers",
+        16, result[0].getComponents().length);
+    assertEquals("Could not get the expected frequency of 'ac'",
+        3.0 / 9.0, result[0].getComponents()[1], 1e-9);
+  }
+  
+  /**
+   * Test to try and create a parser with an unsupported k-mer length.
+   * This should throw an illegal argument exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testUnsupportedKmerLength() {
+    new DnaSeqParser(0, true);
+  }
+  
+  /**
+   * Test to check the records are returned in the order they appear in the file, 
+   * regardless of the number of worker threads used to count the k-mers.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseKeepsFileOrder() throws FileNotFoundException, IOException {
+    DnaSeqParser singleThreadParser = new DnaSeqParser();
+    singleThreadParser.setWorkerThreads(1);
+    DnaSeqParser multiThreadParser = new DnaSeqParser();
+    multiThreadParser.setWorkerThreads(4);
+    Position[] expected = singleThreadParser.parseFile(testGenBankSample.toFile());
+    Position[] result = multiThreadParser.parseFile(testGenBankSample.toFile());
+    assertEquals("Could not get the same number of records with more worker threads",
+        expected.length, result.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals("Could not get the records in file order", 
+          expected[i].getID(), result[i].getID());
+      assertArrayEquals("Could not get the same frequencies with more worker threads",
+          expected[i].getComponents(), result[i].getComponents());
+    }
+  }
+  
+  /**
+   * Test to try and parse a file with chars that are not bases using a single worker thread.
+   * This should give the same records as parsing it with several worker threads.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseIllegalCharsSingleWorker() throws FileNotFoundException, IOException {
+    DnaSeqParser singleThreadParser = new DnaSeqParser();
+    singleThreadParser.setWorkerThreads(1);
+    DnaSeqParser multiThreadParser = new DnaSeqParser();
+    multiThreadParser.setWorkerThreads(4);
+    assertArrayEquals("Could not get the same records with a single worker thread",
+        multiThreadParser.parseFile(testGenBankWrongChars.toFile()),
+        singleThreadParser.parseFile(testGenBankWrongChars.toFile()));
+  }
+  
+  /**
+   * Test to try and use less than one worker thread.
+   * This should throw an illegal argument exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidWorkerThreads() {
+    testParser.setWorkerThreads(0);
+  }
+  
+  /**
+   * Test to try and parse a file into MinHash sketches.
+   * The sequence 'acgacgacgt' has 7 overlapping 4-mers, of which 'acga' appears twice, 
+   * so the sketch should have at most 6 hashes.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   * @throws IncomparableComponentsException - Thrown if the sketches cannot be compared.
+   */
+  @Test
+  public void testParseSketches() throws FileNotFoundException, IOException, 
+      IncomparableComponentsException {
+    testParser.setSketching(4, 100);
+    Position[] result = testParser.parseFile(testKmerSample.toFile());
+    assertTrue("Could not get a sketch when sketching is enabled", 
+        result[0] instanceof SketchPosition);
+    SketchPosition sketch = (SketchPosition) result[0];
+    assertEquals("Could not get the expected id of the sketch", "KMER0001", sketch.getID());
+    assertEquals("Could not get the expected k-mer length of the sketch", 
+        4, sketch.getKmerLength());
+    assertTrue("Could not get the expected number of hashes", 
+        sketch.getHashes().length > 0 && sketch.getHashes().length <= 6);
+    assertEquals("Could not get a distance of 0 to the same sketch", 
+        0.0, sketch.getDistance(testParser.parseFile(testKmerSample.toFile())[0]), 0.0);
+  }
+  
+  /**
+   * Test to try and set a negative sketch size.
+   * This should throw an illegal argument exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidSketchSize() {
+    testParser.setSketching(21, -1);
+  }
+  
+  /**
+   * Test to try and parse a file with values for the parameters of the parser instead 
+   * of its settings. This should count the overlapping 2-mers, then sketch the 4-mers.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseWithParameters() throws FileNotFoundException, IOException {
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("kmerLength", 2);
+    parameters.put("overlap", "Overlapping");
+    parameters.put("threads", 1);
+    Position[] result = testParser.parseFile(testKmerSample.toFile(), parameters);
+    assertEquals("Could not get the dimensions of the k-mers given as parameters",
+        16, result[0].getComponents().length);
+    assertEquals("Could not get the expected frequency of 'ac'",
+        3.0 / 9.0, result[0].getComponents()[1], 1e-9);
+    parameters.put("sketchSize", 100);
+    parameters.put("sketchKmerLength", 4);
+    result = testParser.parseFile(testKmerSample.toFile(), parameters);
+    assertEquals("Could not sketch the k-mers given as parameters", 
+        4, ((SketchPosition) result[0]).getKmerLength());
+    assertEquals("Could not leave the settings of the parser unchanged", 
+        64, testParser.parseFile(testKmerSample.toFile())[0].getComponents().length);
+    assertEquals("Could not get the parameters of the parser", 5, 
+        testParser.getParameters().size());
   }
 }
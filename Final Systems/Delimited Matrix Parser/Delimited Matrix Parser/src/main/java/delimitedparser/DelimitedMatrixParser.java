@@ -0,0 +1,502 @@
+package delimitedparser;
+
+import extensibleclustering.dependencies.DoubleTokenParser;
+import extensibleclustering.dependencies.Parameter;
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Position;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Implements a parser for numeric matrices stored in delimited text files, e.g. CSV and TSV.
+ * Each line of the file after the header rows becomes a Position, with the ID taken from the
+ * ID column and the components from every other column. Values matching one of the missing
+ * value tokens are parsed as NaN. Blank lines are skipped, and surrounding spaces and double
+ * quotes are removed from each field, but quoted fields cannot contain the delimiter.
+ * The file is memory mapped and split into chunks that are parsed in parallel. Each chunk
+ * owns the lines that start inside it, so the rows are returned in file order.
+ * @author David Cook
+ */
+public class DelimitedMatrixParser implements Parser {
+
+  /**
+   * The smallest chunk of the file given to a worker, so small files are not split.
+   */
+  private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+  /**
+   * The largest chunk of the file given to a worker. This is half of the largest region
+   * that can be mapped, so the last line of a chunk can run past the end of it.
+   */
+  private static final long MAX_CHUNK_SIZE = 1 << 30;
+
+  /**
+   * The delimiters that can be chosen as a parameter, with the first chosen by extension.
+   */
+  private static final String[] DELIMITER_NAMES = {"Extension", "Comma", "Tab", "Semicolon",
+      "Space", "Pipe"};
+  private static final char[] DELIMITERS = {0, ',', '\t', ';', ' ', '|'};
+
+  /**
+   * The parameters the parser can be given, matching the setters of the same settings.
+   */
+  private static final List<Parameter> PARAMETERS = Collections.unmodifiableList(Arrays.asList(
+      Parameter.ofEnum("delimiter", "The character separating the columns, by default a "
+          + "comma for .csv files and a tab for .tsv and .tab files", DELIMITER_NAMES[0],
+          DELIMITER_NAMES),
+      Parameter.ofInt("idColumn", "The column containing the ID of each row, starting at 0, "
+          + "or -1 to use the row numbers", 0, -1, Integer.MAX_VALUE),
+      Parameter.ofInt("headerRows", "The number of lines to skip at the start of the file",
+          1, 0, Integer.MAX_VALUE),
+      Parameter.ofInt("threads", "The number of worker threads, or 0 to use one for each "
+          + "processor", 0, 0, 4096)));
+
+  private char delimiter = 0;
+  private int idColumn = 0;
+  private int headerRows = 1;
+  private byte[][] missingValueTokens = toTokens("", "NA", "NaN", "null");
+  private int workerThreads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Sets the character separating the columns. By default this is a comma for .csv files
+   * and a tab for .tsv and .tab files.
+   * @param delimiter - The delimiter, which cannot be a quote or a new line.
+   */
+  public void setDelimiter(char delimiter) {
+    if (delimiter == '"' || delimiter == '\n' || delimiter == '\r' || delimiter > 0x7f) {
+      throw new IllegalArgumentException("The delimiter must be an ASCII character that is "
+          + "not a quote or a new line");
+    }
+    this.delimiter = delimiter;
+  }
+
+  /**
+   * Sets the column containing the ID of each row. By default this is the first column.
+   * @param idColumn - The index of the ID column, starting at 0, or -1 if the file does not
+   *     have one, in which case each row is given its row number as its ID, starting at 1.
+   */
+  public void setIdColumn(int idColumn) {
+    if (idColumn < -1) {
+      throw new IllegalArgumentException("The ID column must be -1 or more");
+    }
+    this.idColumn = idColumn;
+  }
+
+  /**
+   * Sets the number of lines at the start of the file to skip, e.g. column names.
+   * By default this is 1.
+   * @param headerRows - The number of header rows, cannot be negative.
+   */
+  public void setHeaderRows(int headerRows) {
+    if (headerRows < 0) {
+      throw new IllegalArgumentException("The number of header rows cannot be negative");
+    }
+    this.headerRows = headerRows;
+  }
+
+  /**
+   * Sets the values that are treated as missing, and parsed as NaN. These are matched
+   * ignoring case. By default these are an empty value, NA, NaN and null.
+   * @param tokens - The missing value tokens.
+   */
+  public void setMissingValueTokens(String... tokens) {
+    if (tokens == null) {
+      throw new IllegalArgumentException("The missing value tokens cannot be null");
+    }
+    missingValueTokens = toTokens(tokens);
+  }
+
+  /**
+   * Sets the number of worker threads used to parse the chunks of the file.
+   * @param workerThreads - The number of worker threads to use, must be at least 1.
+   */
+  public void setWorkerThreads(int workerThreads) {
+    if (workerThreads < 1) {
+      throw new IllegalArgumentException("At least one worker thread is required");
+    }
+    this.workerThreads = workerThreads;
+  }
+
+  /**
+   * Parses a file with values for the delimiter, ID column, header rows and worker threads, 
+   * which replace the settings of the parser.
+   * @param file - The file to parse the data from.
+   * @param parameters - The values of the parameters, see getParameters.
+   * @return Position[] - The Positions parsed from the file.
+   * @throws FileNotFoundException - Thrown if the file given cannot be located.
+   * @throws IOException - Thrown if there is an error when parsing data from the file.
+   */
+  @Override
+  public Position[] parseFile(File file, Map<String, Object> parameters) 
+      throws FileNotFoundException, IOException {
+    Map<String, Object> values = Parameter.resolve(PARAMETERS, parameters);
+    int delimiterIndex = Arrays.asList(DELIMITER_NAMES).indexOf(values.get("delimiter"));
+    delimiter = DELIMITERS[delimiterIndex];
+    setIdColumn((Integer) values.get("idColumn"));
+    setHeaderRows((Integer) values.get("headerRows"));
+    int threads = (Integer) values.get("threads");
+    setWorkerThreads(threads == 0 ? Runtime.getRuntime().availableProcessors() : threads);
+    return parseFile(file);
+  }
+
+  @Override
+  public Position[] parseFile(File file) throws FileNotFoundException, IOException {
+    //Check that the file is not null before using it.
+    if (file == null) {
+      throw new IllegalArgumentException("File provided was null");
+    }
+
+    //Get and check the file extension.
+    String extension = "";
+    String fileName = file.getName();
+    int lastDot = fileName.lastIndexOf('.');
+    if (lastDot != -1) {
+      extension = fileName.substring(lastDot + 1).toLowerCase();
+    }
+
+    byte separator;
+    if (extension.equals("csv")) {
+      separator = (byte) (delimiter == 0 ? ',' : delimiter);
+    } else if (extension.equals("tsv") || extension.equals("tab")) {
+      separator = (byte) (delimiter == 0 ? '\t' : delimiter);
+    } else {
+      throw new IllegalArgumentException("File type is not supported");
+    }
+
+    if (!file.exists()) {
+      throw new FileNotFoundException();
+    }
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      long dataStart = skipHeaderRows(channel, size);
+
+      //Split the data into roughly equal chunks, with a few per thread.
+      long dataSize = size - dataStart;
+      long chunkCount = Math.max(Math.min(workerThreads * 4L, dataSize / MIN_CHUNK_SIZE),
+          (dataSize + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+      long chunkSize = Math.max(1, (dataSize + chunkCount - 1) / Math.max(1, chunkCount));
+
+      ExecutorService workers = Executors.newFixedThreadPool(workerThreads);
+      try {
+        List<Future<List<Row>>> chunks = new ArrayList<>();
+        for (long start = dataStart; start < size; start += chunkSize) {
+          long chunkStart = start;
+          long chunkEnd = Math.min(size, start + chunkSize);
+          chunks.add(workers.submit(() -> parseChunk(channel, size, dataStart, chunkStart,
+              chunkEnd, separator)));
+        }
+
+        //Join the chunks in order, so the rows are in the order of the file.
+        List<Position> positions = new ArrayList<>();
+        int width = -1;
+        for (Future<List<Row>> chunk : chunks) {
+          for (Row row : chunk.get()) {
+            if (width < 0) {
+              width = row.values.length;
+            } else if (row.values.length != width) {
+              throw new IllegalArgumentException("Row " + (positions.size() + 1)
+                  + " has " + row.values.length + " values, but the first row has " + width);
+            }
+            String id = row.id == null ? String.valueOf(positions.size() + 1) : row.id;
+            Double[] components = new Double[width];
+            for (int i = 0; i < width; i++) {
+              components[i] = row.values[i];
+            }
+            positions.add(new Position(id, components));
+          }
+        }
+        return positions.toArray(new Position[positions.size()]);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while parsing the file");
+      } catch (ExecutionException ex) {
+        //Throw the exception from the worker so the caller sees the original error.
+        if (ex.getCause() instanceof IOException) {
+          throw (IOException) ex.getCause();
+        } else if (ex.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) ex.getCause();
+        }
+        throw new IOException(ex.getCause());
+      } finally {
+        workers.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Finds the start of the data by skipping the header rows.
+   * @param channel - The channel of the file being parsed.
+   * @param size - The size of the file.
+   * @return - The position of the first byte after the header rows.
+   * @throws IOException - Thrown if an error occurs reading the file, or the header is too large.
+   */
+  private long skipHeaderRows(FileChannel channel, long size) throws IOException {
+    if (headerRows == 0) {
+      return 0;
+    }
+    long mapLength = Math.min(size, Integer.MAX_VALUE);
+    MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, mapLength);
+    int skipped = 0;
+    while (buffer.hasRemaining()) {
+      if (buffer.get() == '\n' && ++skipped == headerRows) {
+        return buffer.position();
+      }
+    }
+    if (mapLength < size) {
+      throw new IOException("The header of the file is too large to be parsed");
+    }
+    return size;
+  }
+
+  /**
+   * Parses the lines that start inside the given chunk of the file.
+   * The last line in the chunk is read to its end, even if that is past the chunk.
+   * @param channel - The channel of the file being parsed.
+   * @param size - The size of the file.
+   * @param dataStart - The position of the first line after the header rows.
+   * @param chunkStart - The position of the first byte of the chunk.
+   * @param chunkEnd - The position after the last byte of the chunk.
+   * @param separator - The delimiter between the columns.
+   * @return - The rows owned by the chunk, in file order.
+   * @throws IOException - Thrown if an error occurs reading the file, or a line is too large.
+   */
+  private List<Row> parseChunk(FileChannel channel, long size, long dataStart, long chunkStart,
+      long chunkEnd, byte separator) throws IOException {
+    //Map from the byte before the chunk so we know if the chunk starts on a new line.
+    //The mapping is lazily paged in, so mapping past the chunk only costs address space.
+    long mapStart = Math.max(dataStart, chunkStart - 1);
+    long mapLength = Math.min(size - mapStart, Integer.MAX_VALUE);
+    MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, mapStart, mapLength);
+    int limit = (int) mapLength;
+    int chunkLimit = (int) Math.min(chunkEnd - mapStart, limit);
+
+    //A line that started in the previous chunk belongs to the previous chunk.
+    int position = 0;
+    if (chunkStart > dataStart && buffer.get(position++) != '\n') {
+      while (position < limit && buffer.get(position) != '\n') {
+        position++;
+      }
+      position++;
+    }
+
+    List<Row> rows = new ArrayList<>();
+    LineTokeniser tokeniser = new LineTokeniser(separator);
+    while (position < chunkLimit) {
+      int lineEnd = position;
+      while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+        lineEnd++;
+      }
+      if (lineEnd == limit && mapStart + limit < size) {
+        throw new IOException("A line in the file is too large to be parsed");
+      }
+
+      Row row = tokeniser.parseLine(buffer, position, lineEnd);
+      if (row != null) {
+        rows.add(row);
+      }
+      position = lineEnd + 1;
+    }
+    return rows;
+  }
+
+  /**
+   * Parses a single value, returning NaN if it matches a missing value token.
+   * @param line - The bytes of the line containing the value.
+   * @param start - The index the value starts at.
+   * @param end - The index after the last byte of the value.
+   * @return - The parsed value, or NaN if it is missing.
+   */
+  private double parseValue(byte[] line, int start, int end) {
+    for (byte[] token : missingValueTokens) {
+      if (matchesIgnoreCase(line, start, end, token)) {
+        return Double.NaN;
+      }
+    }
+    try {
+      return DoubleTokenParser.parse(line, start, end);
+    } catch (NumberFormatException ex) {
+      throw new NumberFormatException("The value '"
+          + new String(line, start, end - start, StandardCharsets.UTF_8) + "' is not a number");
+    }
+  }
+
+  /**
+   * Checks if a value matches a token, ignoring the case of ASCII letters.
+   * @param line - The bytes of the line containing the value.
+   * @param start - The index the value starts at.
+   * @param end - The index after the last byte of the value.
+   * @param token - The token to compare the value to.
+   * @return - True if the value matches the token.
+   */
+  private boolean matchesIgnoreCase(byte[] line, int start, int end, byte[] token) {
+    if (end - start != token.length) {
+      return false;
+    }
+    for (int i = 0; i < token.length; i++) {
+      byte value = line[start + i];
+      boolean letter = (value | 0x20) >= 'a' && (value | 0x20) <= 'z';
+      if (value != token[i] && !(letter && (value ^ 0x20) == token[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Converts the missing value tokens to bytes so they can be compared to the file.
+   * @param tokens - The missing value tokens.
+   * @return - The bytes of each token.
+   */
+  private static byte[][] toTokens(String... tokens) {
+    byte[][] bytes = new byte[tokens.length][];
+    for (int i = 0; i < tokens.length; i++) {
+      bytes[i] = tokens[i].trim().getBytes(StandardCharsets.UTF_8);
+    }
+    return bytes;
+  }
+
+  @Override
+  public String getName() {
+    return "Delimited Numeric Matrix";
+  }
+
+  @Override
+  public String getDescription() {
+    return "Parses numeric matrices from CSV or TSV files, with one row per line";
+  }
+
+  @Override
+  public ArrayList<String> getSupportedFileExtensions() {
+    return new ArrayList<String>(Arrays.asList(
+        "Delimited Files (*.csv, *.tsv, *.tab)",
+        "*.csv",
+        "*.tsv",
+        "*.tab"
+        ));
+  }
+
+  @Override
+  public List<Parameter> getParameters() {
+    return PARAMETERS;
+  }
+
+  /**
+   * A row that has been parsed, before it is converted to a Position.
+   */
+  private static final class Row {
+
+    private final String id;
+    private final double[] values;
+
+    /**
+     * Creates a parsed row.
+     * @param id - The ID of the row, or null if the file has no ID column.
+     * @param values - The values of the row.
+     */
+    Row(String id, double[] values) {
+      this.id = id;
+      this.values = values;
+    }
+  }
+
+  /**
+   * Tokenises the lines of a chunk by walking the delimiters, reusing its buffers so only
+   * the values of each row are allocated.
+   */
+  private final class LineTokeniser {
+
+    private final byte separator;
+    private byte[] line = new byte[256];
+    private double[] values = new double[16];
+
+    /**
+     * Creates a tokeniser for lines separated by the given delimiter.
+     * @param separator - The delimiter between the columns.
+     */
+    LineTokeniser(byte separator) {
+      this.separator = separator;
+    }
+
+    /**
+     * Parses a single line of the mapped file.
+     * @param buffer - The mapped region of the file containing the line.
+     * @param lineStart - The index of the first byte of the line in the buffer.
+     * @param lineEnd - The index of the new line ending the line in the buffer.
+     * @return - The parsed row, or null if the line is blank.
+     */
+    Row parseLine(MappedByteBuffer buffer, int lineStart, int lineEnd) {
+      //Copy the line out of the mapping so it can be tokenised as an array.
+      int length = lineEnd - lineStart;
+      if (length > line.length) {
+        line = new byte[Math.max(length, line.length * 2)];
+      }
+      buffer.position(lineStart);
+      buffer.get(line, 0, length);
+      if (length > 0 && line[length - 1] == '\r') {
+        length--;
+      }
+      if (length == 0) {
+        return null;
+      }
+
+      String id = null;
+      int width = 0;
+      int column = 0;
+      int start = 0;
+      while (start <= length) {
+        int end = start;
+        while (end < length && line[end] != separator) {
+          end++;
+        }
+
+        //Remove any surrounding spaces and quotes from the field.
+        int fieldStart = start;
+        int fieldEnd = end;
+        while (fieldStart < fieldEnd && line[fieldStart] == ' ') {
+          fieldStart++;
+        }
+        while (fieldEnd > fieldStart && line[fieldEnd - 1] == ' ') {
+          fieldEnd--;
+        }
+        if (fieldEnd - fieldStart >= 2 && line[fieldStart] == '"'
+            && line[fieldEnd - 1] == '"') {
+          fieldStart++;
+          fieldEnd--;
+        }
+
+        if (column == idColumn) {
+          id = new String(line, fieldStart, fieldEnd - fieldStart, StandardCharsets.UTF_8);
+        } else {
+          if (width == values.length) {
+            values = Arrays.copyOf(values, width * 2);
+          }
+          values[width++] = parseValue(line, fieldStart, fieldEnd);
+        }
+        column++;
+        start = end + 1;
+      }
+
+      if (idColumn >= column) {
+        throw new IllegalArgumentException("A row in the file does not have an ID column");
+      }
+      return new Row(id, Arrays.copyOf(values, width));
+    }
+  }
+}
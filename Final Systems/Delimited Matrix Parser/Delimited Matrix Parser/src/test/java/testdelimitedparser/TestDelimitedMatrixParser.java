@@ -0,0 +1,373 @@
+package testdelimitedparser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import delimitedparser.DelimitedMatrixParser;
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Position;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test class for testing and development of the Delimited Matrix Parser.
+ * @author David Cook
+ */
+public class TestDelimitedMatrixParser {
+
+  private static Path rootTestResources;
+  private static Path testSample;
+  private static Path testWindowsLineEndings;
+  private static Path testNoHeader;
+  private static Path testRagged;
+  private static Path testNotNumeric;
+  private static Path testCustom;
+  private static Path testEmptyPdf;
+  private static Path testLargeSample;
+  private static List<Position> largeSamplePositions;
+  private DelimitedMatrixParser testParser;
+  private Position[] sampleResult;
+
+  /**
+   * Generates a CSV file large enough to be split into several chunks before
+   * all tests are run.
+   * @throws Exception - May be thrown writing the generated file.
+   */
+  @BeforeClass
+  public static void initialSetup() throws Exception {
+    rootTestResources = Paths.get("src" + File.separator + "test" + File.separator
+        + "resources");
+    testSample = Paths.get(rootTestResources.toString() + File.separator + "Sample.csv");
+    testWindowsLineEndings = Paths.get(rootTestResources.toString() + File.separator
+        + "WindowsLineEndings.tsv");
+    testNoHeader = Paths.get(rootTestResources.toString() + File.separator + "NoHeader.csv");
+    testRagged = Paths.get(rootTestResources.toString() + File.separator + "Ragged.csv");
+    testNotNumeric = Paths.get(rootTestResources.toString() + File.separator
+        + "NotNumeric.csv");
+    testCustom = Paths.get(rootTestResources.toString() + File.separator + "Custom.csv");
+    testEmptyPdf = Paths.get(rootTestResources.toString() + File.separator + "empty-pdf.pdf");
+    testLargeSample = Paths.get(rootTestResources.toString() + File.separator
+        + "LargeSample.csv");
+
+    //Write around 4MB of rows with a mix of number formats, so the rows cross the chunks.
+    largeSamplePositions = new ArrayList<>();
+    Random random = new Random(42);
+    try (BufferedWriter writer = Files.newBufferedWriter(testLargeSample)) {
+      writer.write("gene,s1,s2,s3,s4,s5,s6,s7,s8,s9,s10\n");
+      for (int i = 0; i < 25000; i++) {
+        Double[] components = new Double[10];
+        StringBuilder line = new StringBuilder("GENE" + i);
+        for (int j = 0; j < components.length; j++) {
+          double value = random.nextGaussian() * Math.pow(10, random.nextInt(12) - 6);
+          String written = j % 3 == 0 ? String.format(Locale.ROOT, "%.4f", value)
+              : String.valueOf(value);
+          components[j] = Double.parseDouble(written);
+          line.append(',').append(written);
+        }
+        largeSamplePositions.add(new Position("GENE" + i, components));
+        writer.write(line.append('\n').toString());
+      }
+    }
+    assertTrue("Could not generate the large CSV test file",
+        testLargeSample.toFile().length() > 2 * (1 << 20));
+  }
+
+  /**
+   * Creates the parser and parses the sample before each test.
+   * @throws Exception - Thrown if the sample cannot be parsed.
+   */
+  @Before
+  public void setUp() throws Exception {
+    testParser = new DelimitedMatrixParser();
+    sampleResult = testParser.parseFile(testSample.toFile());
+  }
+
+  /**
+   * Delete the generated test file after the tests have been completed.
+   * @throws Exception - Thrown if the file cannot be deleted.
+   */
+  @AfterClass
+  public static void finalTearDown() throws Exception {
+    Files.deleteIfExists(testLargeSample);
+  }
+
+  /**
+   * Test to try and get an instance of the Delimited Matrix Parser.
+   * This should implement the Parser Interface from the extensible clustering dependencies.
+   */
+  @Test
+  public void testImplementsParserInterface() {
+    assertTrue("The Delimited Matrix Parser does not implement the Parser interface",
+        testParser instanceof Parser);
+  }
+
+  /**
+   * Test to try and get the name of the parser.
+   */
+  @Test
+  public void testGetParserName() {
+    assertEquals("Could not get the expected name of the parser",
+        "Delimited Numeric Matrix", testParser.getName());
+  }
+
+  /**
+   * Test to try and get the description of the parser.
+   */
+  @Test
+  public void testGetParserDescription() {
+    assertEquals("Could not get the expected description of the parser",
+        "Parses numeric matrices from CSV or TSV files, with one row per line",
+        testParser.getDescription());
+  }
+
+  /**
+   * Test to try and get the supported file extensions of the parser.
+   */
+  @Test
+  public void testGetSupportedFileExtensions() {
+    List<String> extensions = testParser.getSupportedFileExtensions();
+    assertEquals("Could not get the expected description of the supported files",
+        "Delimited Files (*.csv, *.tsv, *.tab)", extensions.get(0));
+    assertTrue("Could not get the expected supported extensions",
+        extensions.contains("*.csv") && extensions.contains("*.tsv")
+        && extensions.contains("*.tab"));
+  }
+
+  /**
+   * Test to try and parse a small CSV file with a header row.
+   * The quotes and spaces should be removed, and NA parsed as a missing value.
+   */
+  @Test
+  public void testParseSample() {
+    Position[] expected = new Position[] {
+        new Position("r1", new Double[] {1.5, 2.0, 3.0}),
+        new Position("r2", new Double[] {-4.0, 5.25, 60.0}),
+        new Position("r3", new Double[] {7.0, Double.NaN, 9.0})
+    };
+    assertArrayEquals("Could not get the expected Positions from the sample",
+        expected, sampleResult);
+  }
+
+  /**
+   * Test to try and parse a TSV file with Windows line endings and a blank last line.
+   * This should give the same Positions as the CSV sample.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseWindowsLineEndings() throws IOException {
+    assertArrayEquals("Could not parse a TSV file with Windows line endings",
+        sampleResult, testParser.parseFile(testWindowsLineEndings.toFile()));
+  }
+
+  /**
+   * Test to try and parse a file without a header or ID column.
+   * Each row should be given its row number as its ID.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseWithoutHeaderOrIds() throws IOException {
+    testParser.setHeaderRows(0);
+    testParser.setIdColumn(-1);
+    Position[] expected = new Position[] {
+        new Position("1", new Double[] {1.0, 2.0}),
+        new Position("2", new Double[] {3.0, 4.0})
+    };
+    assertArrayEquals("Could not parse a file without a header or ID column",
+        expected, testParser.parseFile(testNoHeader.toFile()));
+  }
+
+  /**
+   * Test to try and parse a file with a custom delimiter, ID column, header rows
+   * and missing value tokens.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseCustomSettings() throws IOException {
+    testParser.setDelimiter(';');
+    testParser.setIdColumn(2);
+    testParser.setHeaderRows(2);
+    testParser.setMissingValueTokens("?", "-");
+    Position[] expected = new Position[] {
+        new Position("r1", new Double[] {1.0, Double.NaN}),
+        new Position("r2", new Double[] {Double.NaN, 2.0})
+    };
+    assertArrayEquals("Could not parse a file with custom settings",
+        expected, testParser.parseFile(testCustom.toFile()));
+  }
+
+  /**
+   * Test to try and parse a file with values for the parameters of the parser instead
+   * of its settings.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseWithParameters() throws IOException {
+    testParser.setMissingValueTokens("?", "-");
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("delimiter", "Semicolon");
+    parameters.put("idColumn", 2);
+    parameters.put("headerRows", 2);
+    parameters.put("threads", 1);
+    Position[] expected = new Position[] {
+        new Position("r1", new Double[] {1.0, Double.NaN}),
+        new Position("r2", new Double[] {Double.NaN, 2.0})
+    };
+    assertArrayEquals("Could not parse a file with the parameters given",
+        expected, testParser.parseFile(testCustom.toFile(), parameters));
+    assertEquals("Could not get the parameters of the parser", 4,
+        testParser.getParameters().size());
+  }
+
+  /**
+   * Test to try and parse a file with a parameter the parser does not have.
+   * This should throw an exception.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseUnknownParameter() throws IOException {
+    testParser.parseFile(testSample.toFile(), Collections.singletonMap("quote", "'"));
+  }
+
+  /**
+   * Test to try and parse a large file with several worker threads.
+   * The rows should be returned in file order with the values that were written.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseLargeFile() throws IOException {
+    testParser.setWorkerThreads(4);
+    assertArrayEquals("Could not get the expected Positions from the large file",
+        largeSamplePositions.toArray(new Position[0]),
+        testParser.parseFile(testLargeSample.toFile()));
+  }
+
+  /**
+   * Test to try and parse the large file with a single worker thread.
+   * This should give the same result as using several threads.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseLargeFileSingleWorker() throws IOException {
+    testParser.setWorkerThreads(1);
+    assertArrayEquals("Could not get the expected Positions with a single worker",
+        largeSamplePositions.toArray(new Position[0]),
+        testParser.parseFile(testLargeSample.toFile()));
+  }
+
+  /**
+   * Test to try and parse a file where a row has fewer values than the first.
+   * This should throw an IllegalArgumentException.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseRaggedRows() throws IOException {
+    testParser.parseFile(testRagged.toFile());
+  }
+
+  /**
+   * Test to try and parse a file containing a value that is not a number.
+   * This should throw a NumberFormatException naming the value.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseNotNumeric() throws IOException {
+    try {
+      testParser.parseFile(testNotNumeric.toFile());
+    } catch (NumberFormatException ex) {
+      assertEquals("Could not get the expected error for a value that is not a number",
+          "The value 'two' is not a number", ex.getMessage());
+      return;
+    }
+    throw new AssertionError("A value that is not a number was parsed");
+  }
+
+  /**
+   * Test to try and parse a file with an ID column that the rows do not have.
+   * This should throw an IllegalArgumentException.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testMissingIdColumn() throws IOException {
+    testParser.setIdColumn(10);
+    testParser.parseFile(testSample.toFile());
+  }
+
+  /**
+   * Test to try and parse a file type that is not supported.
+   * This should throw an IllegalArgumentException.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseUnsupportedFile() throws IOException {
+    testParser.parseFile(testEmptyPdf.toFile());
+  }
+
+  /**
+   * Test to try and parse a file that does not exist.
+   * This should throw a FileNotFoundException.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = FileNotFoundException.class)
+  public void testParseMissingFile() throws IOException {
+    testParser.parseFile(new File(rootTestResources.toString() + File.separator
+        + "Missing.csv"));
+  }
+
+  /**
+   * Test to try and parse a null file. This should throw an IllegalArgumentException.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseNullFile() throws IOException {
+    testParser.parseFile(null);
+  }
+
+  /**
+   * Test to try and set a quote as the delimiter. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidDelimiter() {
+    testParser.setDelimiter('"');
+  }
+
+  /**
+   * Test to try and set a negative number of header rows. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidHeaderRows() {
+    testParser.setHeaderRows(-1);
+  }
+
+  /**
+   * Test to try and set an ID column below -1. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidIdColumn() {
+    testParser.setIdColumn(-2);
+  }
+
+  /**
+   * Test to try and use 0 worker threads. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidWorkerThreads() {
+    testParser.setWorkerThreads(0);
+  }
+}
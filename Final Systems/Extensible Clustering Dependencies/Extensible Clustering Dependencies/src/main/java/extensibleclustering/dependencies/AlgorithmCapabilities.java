@@ -0,0 +1,148 @@
+package extensibleclustering.dependencies;
+
+/**
+ * Describes the resources a clustering algorithm needs, so the system can predict how much
+ * memory a job will use and how many threads to give it before any work is started.
+ * Estimates are in terms of the number of Positions being clustered, e.g. single link
+ * hierarchical clustering keeps the distance between every pair of Positions, so its memory
+ * is quadratic with the bytes held for each pair.
+ * @author David Cook
+ * @version 0.1
+ */
+public final class AlgorithmCapabilities {
+
+  /**
+   * The capabilities assumed for algorithms that do not describe themselves.
+   * These only count the data, and run the algorithm on a single thread.
+   */
+  public static final AlgorithmCapabilities UNKNOWN =
+      new AlgorithmCapabilities(Complexity.LINEAR, 0, Complexity.LINEAR, 1, false);
+
+  /**
+   * How an amount of memory or time grows with the number of Positions, n.
+   */
+  public enum Complexity {
+    CONSTANT, LINEAR, LINEARITHMIC, QUADRATIC, CUBIC;
+
+    /**
+     * Returns the number of units for n Positions, e.g. n * n for quadratic.
+     * @param n - The number of Positions.
+     * @return double - The number of units.
+     */
+    public double of(long n) {
+      switch (this) {
+        case CONSTANT:
+          return 1;
+        case LINEAR:
+          return n;
+        case LINEARITHMIC:
+          return n * Math.max(1, Math.log(n) / Math.log(2));
+        case QUADRATIC:
+          return (double) n * n;
+        default:
+          return (double) n * n * n;
+      }
+    }
+  }
+
+  private final Complexity memoryComplexity;
+  private final double bytesPerUnit;
+  private final Complexity timeComplexity;
+  private final int maxThreads;
+  private final boolean streaming;
+
+  /**
+   * Creates the capabilities of a clustering algorithm.
+   * @param memoryComplexity - How the working memory grows with the number of Positions.
+   * @param bytesPerUnit - The bytes of working memory for each unit, e.g. for each pair of
+   *     Positions if the memory is quadratic. This does not include the data itself.
+   * @param timeComplexity - How the time taken grows with the number of Positions.
+   * @param maxThreads - The most threads the algorithm can make use of, 1 if it is
+   *     sequential, or Integer.MAX_VALUE if it uses as many as it is given.
+   * @param streaming - True if clusterDatasetFile reads the data without loading it,
+   *     so the data does not need to fit in memory. This only applies to dense dataset
+   *     files, see DatasetFile.Columns.isDense, as other files are loaded.
+   */
+  public AlgorithmCapabilities(Complexity memoryComplexity, double bytesPerUnit,
+      Complexity timeComplexity, int maxThreads, boolean streaming) {
+    if (memoryComplexity == null || timeComplexity == null) {
+      throw new IllegalArgumentException("The memory and time complexity cannot be null");
+    }
+    if (bytesPerUnit < 0 || maxThreads < 1) {
+      throw new IllegalArgumentException("The bytes cannot be negative and there must be "
+          + "at least one thread");
+    }
+    this.memoryComplexity = memoryComplexity;
+    this.bytesPerUnit = bytesPerUnit;
+    this.timeComplexity = timeComplexity;
+    this.maxThreads = maxThreads;
+    this.streaming = streaming;
+  }
+
+  /**
+   * Estimates the working memory the algorithm needs to cluster Positions with clusterData,
+   * not including the Positions themselves.
+   * @param positions - The number of Positions to cluster.
+   * @return long - The estimated working memory in bytes.
+   */
+  public long estimateMemory(long positions) {
+    return (long) Math.ceil(bytesPerUnit * memoryComplexity.of(positions));
+  }
+
+  /**
+   * Estimates the number of operations the algorithm takes to cluster Positions,
+   * e.g. to decide if a job is large enough to be worth running on several threads.
+   * @param positions - The number of Positions to cluster.
+   * @param dimensions - The dimensions of each Position.
+   * @return double - The estimated number of operations.
+   */
+  public double estimateOperations(long positions, int dimensions) {
+    return timeComplexity.of(positions) * Math.max(1, dimensions);
+  }
+
+  /**
+   * Returns how the working memory grows with the number of Positions.
+   * @return Complexity - The memory complexity.
+   */
+  public Complexity getMemoryComplexity() {
+    return memoryComplexity;
+  }
+
+  /**
+   * Returns how the time taken grows with the number of Positions.
+   * @return Complexity - The time complexity.
+   */
+  public Complexity getTimeComplexity() {
+    return timeComplexity;
+  }
+
+  /**
+   * Returns the most threads the algorithm can make use of.
+   * @return int - The most threads, 1 if the algorithm is sequential.
+   */
+  public int getMaxThreads() {
+    return maxThreads;
+  }
+
+  /**
+   * Returns if clusterDatasetFile reads the data without loading it.
+   * This only applies to dense dataset files, as other files are loaded.
+   * @return boolean - True if the data does not need to fit in memory.
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  /**
+   * Returns these capabilities for data the algorithm has to load, e.g. a dataset file 
+   * that is not dense, which cannot be streamed even if the algorithm streams dense files.
+   * @return AlgorithmCapabilities - The same capabilities without streaming.
+   */
+  public AlgorithmCapabilities withoutStreaming() {
+    if (!streaming) {
+      return this;
+    }
+    return new AlgorithmCapabilities(memoryComplexity, bytesPerUnit, timeComplexity,
+        maxThreads, false);
+  }
+}
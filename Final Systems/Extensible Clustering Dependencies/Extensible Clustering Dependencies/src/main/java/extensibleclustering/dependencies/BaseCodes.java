@@ -0,0 +1,67 @@
+package extensibleclustering.dependencies;
+
+import java.util.Arrays;
+
+/**
+ * The 2-bit codes of the DNA bases, shared by the KmerCounter and the MinHashSketcher.
+ * The bases are coded as a=0, c=1, g=2 and t=3, ignoring case. Whitespace and digits are
+ * used for layout in sequence files, e.g. the base numbers in a GenBank ORIGIN section,
+ * so they are skipped. Any other character, e.g. the ambiguous base N or a gap, breaks
+ * the sequence, so no k-mer is read across it, as in Mash.
+ * @author David Cook
+ */
+final class BaseCodes {
+
+  /**
+   * The code of a character that is skipped.
+   */
+  static final byte SKIP = -1;
+
+  /**
+   * The code of a character that is not a base, which breaks the sequence.
+   */
+  static final byte BREAK = -2;
+
+  /**
+   * The bases in the order of their codes.
+   */
+  static final char[] BASES = {'a', 'c', 'g', 't'};
+
+  private static final byte[] CODES = new byte[128];
+
+  static {
+    Arrays.fill(CODES, BREAK);
+    for (int i = 0; i < BASES.length; i++) {
+      CODES[BASES[i]] = (byte) i;
+      CODES[Character.toUpperCase(BASES[i])] = (byte) i;
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      CODES[c] = SKIP;
+    }
+    CODES[' '] = SKIP;
+    CODES['\t'] = SKIP;
+    CODES['\r'] = SKIP;
+    CODES['\n'] = SKIP;
+  }
+
+  private BaseCodes() {
+  }
+
+  /**
+   * Returns the code of a character.
+   * @param base - The character to code.
+   * @return int - The 2-bit code of the base, SKIP or BREAK.
+   */
+  static int of(char base) {
+    return base < 128 ? CODES[base] : BREAK;
+  }
+
+  /**
+   * Returns the code of an ASCII encoded byte.
+   * @param base - The byte to code.
+   * @return int - The 2-bit code of the base, SKIP or BREAK.
+   */
+  static int of(byte base) {
+    return base >= 0 ? CODES[base] : BREAK;
+  }
+}
@@ -47,7 +47,7 @@ public class Centroid {
    */
   public void assignPosition(Position position) {
     if (position != null 
-        && position.getComponents().length == this.location.getComponents().length) {
+        && position.getDimensions() == this.location.getDimensions()) {
       this.assignedPositions.add(position);      
     }
   }
@@ -61,6 +61,19 @@ public class Centroid {
     return assignedPositions;
   }
   
+  /**
+   * Returns the total weight of the positions assigned to this centroid.
+   * This is the number of assigned positions unless some of them are weighted.
+   * @return - The sum of the weights of the assigned positions.
+   */
+  public double getAssignedWeight() {
+    double totalWeight = 0.0;
+    for (Position position : assignedPositions) {
+      totalWeight += WeightedPosition.getWeight(position);
+    }
+    return totalWeight;
+  }
+  
   /**
    * Clears the assigned positions from the centroid.
    * This can be used after the new centre has been set.
@@ -80,6 +93,7 @@ public class Centroid {
   /**
    * Method for setting the location of the centroid to the 
    * centre of all of the assigned positions.
+   * Weighted positions count as many times as their weight.
    * This can be used in K-Means clustering to change the location of 
    * the centroid after data has been assigned.
    */
@@ -92,20 +106,35 @@ public class Centroid {
     
     //Go though each of the items that have been assigned to the centroid.
     //Get the sum total for each dimension.
-    //Then divide each dimension by the number of assigned positions.
-    Double[] updatedLocation = new Double[this.location.getComponents().length];
+    //Then divide each dimension by the total weight of the assigned positions.
+    Double[] updatedLocation = new Double[this.location.getDimensions()];
     Arrays.fill(updatedLocation, 0.0);
+    double totalWeight = 0.0;
     
     for (Position currPos : this.assignedPositions) {
+      double weight = WeightedPosition.getWeight(currPos);
+      totalWeight += weight;
+      Position unweightedPos = WeightedPosition.unwrap(currPos);
+      //Only the non-zero components of sparse positions need to be added.
+      if (unweightedPos instanceof SparsePosition) {
+        SparsePosition sparsePos = (SparsePosition) unweightedPos;
+        int[] indices = sparsePos.getIndices();
+        double[] values = sparsePos.getValues();
+        for (int i = 0; i < indices.length; i++) {
+          updatedLocation[indices[i]] += weight * values[i];
+        }
+        continue;
+      }
+      Double[] components = unweightedPos.getComponents();
       for (int component = 0; component < updatedLocation.length; component++) {
-        updatedLocation[component] += currPos.getComponents()[component];
+        updatedLocation[component] += weight * components[component];
       }
     }
     
     //Go through each of the components and calculate the average by dividing
-    //the total by the number of assigned positions.
+    //the total by the total weight of the assigned positions.
     for (int i = 0; i < updatedLocation.length; i++) {
-      updatedLocation[i] /= this.assignedPositions.size();
+      updatedLocation[i] /= totalWeight;
     }
     
     //Preserve the ID of the position so it is not updated each time.
@@ -0,0 +1,132 @@
+package extensibleclustering.dependencies;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This interface will need to be implemented by
+ * all clustering algorithms so they can be used by 
+ * the system.
+ * @author David Cook
+ * @version 0.1
+ */
+public interface ClusteringAlgorithm {
+
+  /**
+   * This method will cluster the data. 
+   * This will need to output the results to a file so that they can then be 
+   * re-interpreted by the visualisation method.
+   * @param data - The Positions of the data to be clustered.
+   * @param fileName - The name of the file that is being parsed.
+   * @return - The File the data has been output to. 
+   */
+  public Centroid[] clusterData(Position[] data, String fileName);
+  
+  /**
+   * Clusters the data with values for the parameters of the algorithm, e.g. a fixed number 
+   * of clusters. Parameters that are not given take their default value.
+   * Algorithms with parameters should override this. By default the values are checked 
+   * against getParameters and the data is clustered with clusterData.
+   * @param data - The Positions of the data to be clustered.
+   * @param fileName - The name of the file that is being parsed.
+   * @param parameters - The values of the parameters, by the name of their parameter.
+   * @return - The resulting clusters.
+   * @throws IllegalArgumentException - Thrown if a value is not valid for its parameter.
+   */
+  public default Centroid[] clusterData(Position[] data, String fileName, 
+      Map<String, Object> parameters) {
+    Parameter.resolve(getParameters(), parameters);
+    return clusterData(data, fileName);
+  }
+  
+  /**
+   * Clusters the data from a source of Positions, which may still be being parsed.
+   * Single pass algorithms, e.g. mini-batch k-means, should override this to consume the 
+   * source incrementally. By default the source is read into an array and clustered with 
+   * clusterData. The source is not closed by this method.
+   * @param source - The source of the Positions to be clustered.
+   * @param fileName - The name of the file that is being parsed.
+   * @return - The resulting clusters.
+   */
+  public default Centroid[] clusterSource(PositionSource source, String fileName) {
+    return clusterData(source.toArray(), fileName);
+  }
+  
+  /**
+   * Clusters the data saved in a dataset file, e.g. an entry of the parsed data cache.
+   * Algorithms that can work out-of-core should override this to read the file a block at 
+   * a time, so data larger than the heap can be clustered. By default the file is loaded 
+   * into an array and clustered with clusterData.
+   * @param datasetFile - The dataset file containing the Positions to be clustered.
+   * @param fileName - The name of the file that was parsed.
+   * @return - The resulting clusters.
+   * @throws IOException - Thrown if the dataset file cannot be read.
+   */
+  public default Centroid[] clusterDatasetFile(Path datasetFile, String fileName) 
+      throws IOException {
+    return clusterData(DatasetFile.read(datasetFile), fileName);
+  }
+  
+  /**
+   * Clusters the data saved in a dataset file with values for the parameters of the 
+   * algorithm. By default the file is clustered with clusterDatasetFile if no values are 
+   * given, and is otherwise loaded and clustered with the values by clusterData.
+   * @param datasetFile - The dataset file containing the Positions to be clustered.
+   * @param fileName - The name of the file that was parsed.
+   * @param parameters - The values of the parameters, by the name of their parameter.
+   * @return - The resulting clusters.
+   * @throws IOException - Thrown if the dataset file cannot be read.
+   */
+  public default Centroid[] clusterDatasetFile(Path datasetFile, String fileName, 
+      Map<String, Object> parameters) throws IOException {
+    if (parameters == null || parameters.isEmpty()) {
+      return clusterDatasetFile(datasetFile, fileName);
+    }
+    return clusterData(DatasetFile.read(datasetFile), fileName, parameters);
+  }
+  
+  /**
+   * Gets the last file that the clustering algorithm output to.
+   * @return - The last file that this clustering algorithm output to.
+   */
+  public Path getLastOutputFile();
+  
+  /**
+   * Returns the name of the clustering algorithm so it can be displayed 
+   * to the user when they are choosing an algorithm to use.
+   * @return - The name of the clustering algorithm.
+   */
+  public String getName();
+  
+  /**
+   * Returns a brief description of the clustering algorithm.
+   * This will be displayed to users when they are choosing which algorithm to use.
+   * This could include the types of data this clustering algorithm works with for example.
+   * @return - Returns a description of the clustering algorithm.
+   */
+  public String getDescription();
+
+  /**
+   * Returns the resources the clustering algorithm needs, so the system can check a job
+   * will fit in memory and choose how many threads to run it with before it is started.
+   * Algorithms should override this to describe themselves. By default only the data is
+   * counted, and the algorithm is run on a single thread.
+   * @return - The capabilities of the clustering algorithm.
+   */
+  public default AlgorithmCapabilities getCapabilities() {
+    return AlgorithmCapabilities.UNKNOWN;
+  }
+
+  /**
+   * Returns the parameters the clustering algorithm can be given, so they can be shown 
+   * to the user. By default there are none.
+   * @return - The parameters of the clustering algorithm.
+   */
+  public default List<Parameter> getParameters() {
+    return Collections.emptyList();
+  }
+
+}
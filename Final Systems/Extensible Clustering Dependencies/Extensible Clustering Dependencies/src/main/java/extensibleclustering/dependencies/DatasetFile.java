@@ -0,0 +1,413 @@
+package extensibleclustering.dependencies;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Class for saving parsed Positions to a compact binary file and loading them back.
+ * The components are stored by column, i.e. every value of the first dimension followed by
+ * every value of the second, and are loaded by memory mapping the file.
+ * The file format is:
+ * a header (magic number, version, metadata, number of rows and width),
+ * the length and sketch k-mer length of each row, the ID of each row,
+ * then the columns of doubles starting on an 8 byte boundary.
+ * Rows shorter than the width, e.g. sketches, are padded with NaN.
+ * Only Positions and SketchPositions are supported.
+ * Files too large to load can be read a block of rows at a time with openColumns,
+ * or streamed as Positions with openSource.
+ * @author David Cook
+ * @version 0.1
+ */
+public final class DatasetFile {
+
+  private static final int MAGIC = 0x45434453;
+  private static final int VERSION = 1;
+  private static final int SOURCE_BLOCK_ROWS = 16 * Columns.PAGE_ROWS;
+
+  private DatasetFile() {
+  }
+
+  /**
+   * Checks if the given Positions can be saved to a dataset file.
+   * @param data - The Positions to check.
+   * @return boolean - True if every Position is a Position or SketchPosition.
+   */
+  public static boolean isSupported(Position[] data) {
+    if (data == null) {
+      return false;
+    }
+    for (Position position : data) {
+      if (position == null || (position.getClass() != Position.class
+          && position.getClass() != SketchPosition.class)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Saves the given Positions to a dataset file, replacing the file if it exists.
+   * @param file - The file to save the Positions to.
+   * @param data - The Positions to save.
+   * @param metadata - Text stored in the header that can be read without loading the data,
+   *     e.g. a description of where the data came from.
+   * @throws IOException - Thrown if the file cannot be written.
+   */
+  public static void write(Path file, Position[] data, String metadata) throws IOException {
+    if (file == null || metadata == null || !isSupported(data)) {
+      throw new IllegalArgumentException("Only Positions and SketchPositions can be saved");
+    }
+
+    //Get the components of each Position once, as a sketch creates them on each call.
+    Double[][] rows = new Double[data.length][];
+    int width = 0;
+    for (int row = 0; row < data.length; row++) {
+      rows[row] = data[row].getComponents();
+      width = Math.max(width, rows[row].length);
+    }
+
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+        Files.newOutputStream(file), 1 << 16))) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      writeString(output, metadata);
+      output.writeInt(data.length);
+      output.writeInt(width);
+      for (Double[] components : rows) {
+        output.writeInt(components.length);
+      }
+      for (Position position : data) {
+        output.writeInt(position instanceof SketchPosition
+            ? ((SketchPosition) position).getKmerLength() : 0);
+      }
+      for (Position position : data) {
+        writeString(output, position.getID());
+      }
+
+      //Align the columns so they can be viewed as doubles.
+      while (output.size() % Double.BYTES != 0) {
+        output.writeByte(0);
+      }
+
+      for (int column = 0; column < width; column++) {
+        for (Double[] components : rows) {
+          output.writeDouble(column < components.length ? components[column] : Double.NaN);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the metadata from the header of a dataset file without loading the data.
+   * @param file - The dataset file.
+   * @return String - The metadata saved with the data.
+   * @throws IOException - Thrown if the file cannot be read or is not a dataset file.
+   */
+  public static String readMetadata(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return readString(mapHeader(channel));
+    }
+  }
+
+  /**
+   * Loads the Positions saved in a dataset file.
+   * @param file - The dataset file.
+   * @return Position[] - The Positions in the order they were saved.
+   * @throws IOException - Thrown if the file cannot be read or is not a dataset file.
+   */
+  public static Position[] read(Path file) throws IOException {
+    try (PositionSource source = openSource(file)) {
+      return source.toArray();
+    }
+  }
+
+  /**
+   * Opens a dataset file as a source of its Positions, which are read from the columns a
+   * block of rows at a time, so the whole file is not loaded before it is consumed.
+   * The source must be closed once used.
+   * @param file - The dataset file.
+   * @return PositionSource - A SIZED source of the Positions in the order they were saved.
+   * @throws IOException - Thrown if the file cannot be read or is not a dataset file.
+   */
+  public static PositionSource openSource(Path file) throws IOException {
+    Columns columns = openColumns(file);
+    try {
+      Iterator<String> ids = columns.readIDs();
+      Spliterator<Position> positions = new Spliterators.AbstractSpliterator<Position>(
+          columns.getRows(), Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED) {
+        private int row = 0;
+        private int blockStart = 0;
+        private int blockEnd = 0;
+        private DoubleBuffer[] block;
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Position> action) {
+          if (row == columns.getRows()) {
+            return false;
+          }
+          try {
+            if (row == blockEnd) {
+              blockStart = row;
+              blockEnd = Math.min(row + SOURCE_BLOCK_ROWS, columns.getRows());
+              block = columns.mapBlock(blockStart, blockEnd);
+            }
+          } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+          }
+          action.accept(columns.readPosition(row, ids.next(), block, row - blockStart));
+          row++;
+          return true;
+        }
+      };
+      return new PositionSource() {
+        @Override
+        public Spliterator<Position> spliterator() {
+          return positions;
+        }
+
+        @Override
+        public void close() throws IOException {
+          columns.close();
+        }
+      };
+    } catch (IOException | RuntimeException ex) {
+      columns.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Opens a dataset file so its columns can be read a block of rows at a time,
+   * without loading the Positions. The Columns must be closed once used.
+   * @param file - The dataset file.
+   * @return Columns - The open columns of the file.
+   * @throws IOException - Thrown if the file cannot be read or is not a dataset file.
+   */
+  public static Columns openColumns(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return new Columns(channel);
+    } catch (IOException | RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * The columns of an open dataset file, which are memory mapped a block of rows at a time
+   * so only the block being read needs to be in memory.
+   * Blocks whose number of rows is a multiple of PAGE_ROWS cover whole pages of each column.
+   */
+  public static final class Columns implements Closeable {
+
+    /**
+     * The number of values of a column in a 4096 byte page.
+     */
+    public static final int PAGE_ROWS = 4096 / Double.BYTES;
+
+    private final FileChannel channel;
+    private final int rows;
+    private final int width;
+    private final boolean dense;
+    private final ByteBuffer rowInfo;
+    private final long idsStart;
+    private final long columnsStart;
+
+    /**
+     * Reads the header and row information of a dataset file.
+     * @param channel - The channel of the dataset file.
+     * @throws IOException - Thrown if the file is not a dataset file of this version.
+     */
+    private Columns(FileChannel channel) throws IOException {
+      this.channel = channel;
+      MappedByteBuffer header = mapHeader(channel);
+      readString(header);
+      rows = header.getInt();
+      width = header.getInt();
+
+      //Check every row is a full width Position, reading the lengths from the mapping.
+      long rowsStart = header.position();
+      rowInfo = channel.map(MapMode.READ_ONLY, rowsStart,
+          Math.min(channel.size() - rowsStart, Integer.MAX_VALUE));
+      boolean allDense = true;
+      for (int row = 0; row < rows && allDense; row++) {
+        allDense = rowInfo.getInt(row * Integer.BYTES) == width
+            && rowInfo.getInt((rows + row) * Integer.BYTES) == 0;
+      }
+      dense = allDense;
+
+      //Skip over the IDs to find the start of the columns.
+      idsStart = rowsStart + 2L * rows * Integer.BYTES;
+      rowInfo.position(2 * rows * Integer.BYTES);
+      for (int row = 0; row < rows; row++) {
+        rowInfo.position(rowInfo.position() + Integer.BYTES + rowInfo.getInt(rowInfo.position()));
+      }
+      long idsEnd = rowsStart + rowInfo.position();
+      columnsStart = idsEnd + (Double.BYTES - idsEnd % Double.BYTES) % Double.BYTES;
+    }
+
+    /**
+     * Returns the number of rows in the file.
+     * @return int - The number of rows.
+     */
+    public int getRows() {
+      return rows;
+    }
+
+    /**
+     * Returns the number of columns in the file.
+     * @return int - The length of the longest row.
+     */
+    public int getWidth() {
+      return width;
+    }
+
+    /**
+     * Checks if every row is a Position with a value in every column, i.e. there are no
+     * sketches or shorter rows padded with NaN.
+     * @return boolean - True if every row is a full width Position.
+     */
+    public boolean isDense() {
+      return dense;
+    }
+
+    /**
+     * Maps a block of rows of each column.
+     * @param startRow - The first row of the block.
+     * @param endRow - The row after the last row of the block.
+     * @return DoubleBuffer[] - The values of the block for each column, indexed from 0.
+     * @throws IOException - Thrown if the block cannot be mapped.
+     */
+    public DoubleBuffer[] mapBlock(int startRow, int endRow) throws IOException {
+      if (startRow < 0 || endRow > rows || startRow > endRow) {
+        throw new IllegalArgumentException("The block must be within the rows of the file");
+      }
+      long columnBytes = (long) rows * Double.BYTES;
+      DoubleBuffer[] block = new DoubleBuffer[width];
+      for (int column = 0; column < width; column++) {
+        block[column] = channel.map(MapMode.READ_ONLY,
+            columnsStart + column * columnBytes + (long) startRow * Double.BYTES,
+            (long) (endRow - startRow) * Double.BYTES).asDoubleBuffer();
+      }
+      return block;
+    }
+
+    /**
+     * Creates the Position saved in a row from a block mapped with mapBlock.
+     * Sketches are created from the values directly, rather than from their components.
+     * @param row - The row in the file.
+     * @param id - The ID of the row.
+     * @param block - The mapped block containing the row.
+     * @param index - The index of the row within the block.
+     * @return Position - The Position or SketchPosition saved in the row.
+     */
+    private Position readPosition(int row, String id, DoubleBuffer[] block, int index) {
+      int length = rowInfo.getInt(row * Integer.BYTES);
+      int kmerLength = rowInfo.getInt((rows + row) * Integer.BYTES);
+      if (kmerLength > 0) {
+        long[] hashes = new long[length];
+        for (int column = 0; column < length; column++) {
+          hashes[column] = (long) block[column].get(index);
+        }
+        return new SketchPosition(id, hashes, kmerLength);
+      }
+      Double[] components = new Double[length];
+      for (int column = 0; column < length; column++) {
+        components[column] = block[column].get(index);
+      }
+      return new Position(id, components);
+    }
+
+    /**
+     * Returns an iterator over the ID of each row, in the order of the rows.
+     * The IDs are read from the file as the iterator is advanced.
+     * @return Iterator - The IDs of the rows.
+     * @throws IOException - Thrown if the IDs cannot be mapped.
+     */
+    public Iterator<String> readIDs() throws IOException {
+      ByteBuffer ids = channel.map(MapMode.READ_ONLY, idsStart, columnsStart - idsStart);
+      return new Iterator<String>() {
+        private int row = 0;
+
+        @Override
+        public boolean hasNext() {
+          return row < rows;
+        }
+
+        @Override
+        public String next() {
+          if (row == rows) {
+            throw new NoSuchElementException();
+          }
+          row++;
+          return readString(ids);
+        }
+      };
+    }
+
+    /**
+     * Closes the dataset file.
+     * @throws IOException - Thrown if the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  /**
+   * Maps the start of a dataset file and checks the magic number and version.
+   * @param channel - The channel of the dataset file.
+   * @return MappedByteBuffer - The start of the file, positioned after the version.
+   * @throws IOException - Thrown if the file is not a dataset file of this version.
+   */
+  private static MappedByteBuffer mapHeader(FileChannel channel) throws IOException {
+    MappedByteBuffer header = channel.map(MapMode.READ_ONLY, 0,
+        Math.min(channel.size(), Integer.MAX_VALUE));
+    if (header.remaining() < 2 * Integer.BYTES || header.getInt() != MAGIC
+        || header.getInt() != VERSION) {
+      throw new IOException("The file is not a dataset file supported by this version");
+    }
+    return header;
+  }
+
+  /**
+   * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+   * @param output - The stream to write to.
+   * @param value - The string to write.
+   * @throws IOException - Thrown if the string cannot be written.
+   */
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Reads a string written by writeString.
+   * @param buffer - The buffer to read from.
+   * @return String - The string that was read.
+   */
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -2,6 +2,7 @@ package extensibleclustering.dependencies;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -26,6 +27,9 @@ public class DirectoryHelper {
   Path pluginsDirectory = Paths.get(extensibleHome.toString() + File.separator
       + "Plugins");
   
+  Path cacheDirectory = Paths.get(extensibleHome.toString() + File.separator
+      + "Cache");
+  
   public boolean correctFolderStructureExists() {
     return Files.exists(outputDirectory) && Files.exists(pluginsDirectory);
   }
@@ -60,5 +64,37 @@ public class DirectoryHelper {
   public Path getPlugInDirectory() {
     return pluginsDirectory;
   }
+  
+  /**
+   * Returns the Path for the Cache directory, where parsed data can be saved so it does not 
+   * need to be parsed again. This is not created with the required directories, 
+   * so it should be created before it is used.
+   * @return Path - Location of the Cache directory.
+   */
+  public Path getCacheDirectory() {
+    return cacheDirectory;
+  }
+  
+  /**
+   * Creates a new output file, adding -2, -3 and so on to the name if a file with the name 
+   * already exists, e.g. when several files are clustered within the same second. 
+   * The file is created atomically, so two jobs never write to the same file.
+   * @param directory - The directory to create the file in.
+   * @param name - The name of the file, without its extension.
+   * @param extension - The extension of the file, e.g. .tsv.
+   * @return Path - The file that was created.
+   * @throws IOException - Thrown if the file cannot be created.
+   */
+  public static Path createOutputFile(Path directory, String name, String extension) 
+      throws IOException {
+    for (int copy = 1; ; copy++) {
+      try {
+        return Files.createFile(directory.resolve(
+            (copy == 1 ? name : name + "-" + copy) + extension));
+      } catch (FileAlreadyExistsException e) {
+        //Try the next name.
+      }
+    }
+  }
 
 }
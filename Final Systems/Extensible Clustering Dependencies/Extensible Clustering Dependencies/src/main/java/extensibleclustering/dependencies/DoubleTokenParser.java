@@ -0,0 +1,133 @@
+package extensibleclustering.dependencies;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers straight from the bytes of a file, without creating a String.
+ * Plain decimals with up to 18 significant digits and a small exponent, which covers nearly
+ * every value written by spreadsheets and analysis tools, are converted with a single
+ * multiplication or division. This is exact, as both the digits and the power of ten can be
+ * represented exactly as a double. Any other token is passed to Double.parseDouble, so the
+ * result is always the same as Double.parseDouble would give.
+ * @author David Cook
+ */
+public final class DoubleTokenParser {
+
+  /**
+   * The largest number of significant digits kept in the mantissa.
+   */
+  private static final int MAX_DIGITS = 18;
+
+  /**
+   * The largest mantissa that can be held exactly in a double.
+   */
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  /**
+   * The powers of ten that can be held exactly in a double.
+   */
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private DoubleTokenParser() {
+  }
+
+  /**
+   * Parses the number in the given range of bytes.
+   * @param bytes - The bytes containing the number.
+   * @param start - The index of the first byte of the number.
+   * @param end - The index after the last byte of the number.
+   * @return double - The parsed number.
+   * @throws NumberFormatException - Thrown if the bytes are not a number.
+   */
+  public static double parse(byte[] bytes, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+      negative = bytes[i] == '-';
+      i++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean anyDigits = false;
+    boolean truncated = false;
+
+    //Read the integer part, leading zeros are not counted as significant digits.
+    while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+      if (digits < MAX_DIGITS) {
+        mantissa = mantissa * 10 + (bytes[i] - '0');
+        if (mantissa != 0) {
+          digits++;
+        }
+      } else {
+        exponent++;
+        truncated |= bytes[i] != '0';
+      }
+      anyDigits = true;
+      i++;
+    }
+
+    //Read the fractional part, each digit moves the exponent down by one.
+    if (i < end && bytes[i] == '.') {
+      i++;
+      while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+        if (digits < MAX_DIGITS) {
+          mantissa = mantissa * 10 + (bytes[i] - '0');
+          if (mantissa != 0) {
+            digits++;
+          }
+          exponent--;
+        } else {
+          truncated |= bytes[i] != '0';
+        }
+        anyDigits = true;
+        i++;
+      }
+    }
+
+    if (anyDigits && i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+        negativeExponent = bytes[i] == '-';
+        i++;
+      }
+      int exponentStart = i;
+      int written = 0;
+      while (i < end && bytes[i] >= '0' && bytes[i] <= '9' && written < 10000) {
+        written = written * 10 + (bytes[i] - '0');
+        i++;
+      }
+      if (i == exponentStart) {
+        return parseSlowly(bytes, start, end);
+      }
+      exponent += negativeExponent ? -written : written;
+    }
+
+    //Anything unusual, e.g. NaN, hex or a very long number, is left to Double.parseDouble.
+    if (!anyDigits || i != end || truncated || mantissa > MAX_EXACT_MANTISSA
+        || exponent < -(POWERS_OF_TEN.length - 1) || exponent > POWERS_OF_TEN.length - 1) {
+      return parseSlowly(bytes, start, end);
+    }
+
+    double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent]
+        : mantissa * POWERS_OF_TEN[exponent];
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parses the number using Double.parseDouble.
+   * @param bytes - The bytes containing the number.
+   * @param start - The index of the first byte of the number.
+   * @param end - The index after the last byte of the number.
+   * @return double - The parsed number.
+   * @throws NumberFormatException - Thrown if the bytes are not a number.
+   */
+  private static double parseSlowly(byte[] bytes, int start, int end) {
+    return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+  }
+}
@@ -0,0 +1,162 @@
+package extensibleclustering.dependencies;
+
+import java.util.Arrays;
+
+/**
+ * Counts the k-mers in DNA sequences.
+ * Each base is encoded as 2 bits, so a k-mer can be kept as a rolling integer code and
+ * counted by incrementing an int array of length 4^k. This avoids creating a String for each
+ * k-mer and boxing the counts.
+ * The counter can either count every overlapping k-mer, or only count the k-mers in the
+ * reading frame starting at the first base, e.g. codons when k is 3.
+ * @author David Cook
+ */
+public class KmerCounter {
+
+  /**
+   * The largest k that is supported. This is limited so the counts fit in an int array of
+   * a reasonable size, as 4^12 is 16,777,216.
+   */
+  public static final int MAX_K = 12;
+
+  private final int kmerLength;
+  private final boolean overlapping;
+  private final int mask;
+  private final int[] counts;
+  private long totalKmers;
+  private int code;
+  private int filled;
+  private int valid;
+
+  /**
+   * Creates a new k-mer counter.
+   * @param kmerLength - The length of the k-mers to count, between 1 and MAX_K.
+   * @param overlapping - True to count every overlapping k-mer, false to only count the
+   *     k-mers in the reading frame starting at the first base.
+   */
+  public KmerCounter(int kmerLength, boolean overlapping) {
+    if (kmerLength < 1 || kmerLength > MAX_K) {
+      throw new IllegalArgumentException("The k-mer length must be between 1 and " + MAX_K);
+    }
+    this.kmerLength = kmerLength;
+    this.overlapping = overlapping;
+    this.mask = (1 << (2 * kmerLength)) - 1;
+    this.counts = new int[1 << (2 * kmerLength)];
+  }
+
+  /**
+   * Adds all of the bases in the given characters to the counter.
+   * Whitespace and digits are skipped, and any other character that is not a base breaks
+   * the sequence, so the k-mers spanning it are not counted. The sequence is treated as 
+   * continuing from any bases that have already been added.
+   * @param sequence - The characters to add.
+   */
+  public void add(CharSequence sequence) {
+    for (int i = 0; i < sequence.length(); i++) {
+      int baseCode = BaseCodes.of(sequence.charAt(i));
+      if (baseCode != BaseCodes.SKIP) {
+        addCode(baseCode);
+      }
+    }
+  }
+
+  /**
+   * Adds all of the bases in a range of ASCII encoded bytes to the counter.
+   * This behaves the same as adding the equivalent characters.
+   * @param bytes - The bytes to read the bases from.
+   * @param offset - The index of the first byte to add.
+   * @param length - The number of bytes to add.
+   */
+  public void add(byte[] bytes, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      int baseCode = BaseCodes.of(bytes[i]);
+      if (baseCode != BaseCodes.SKIP) {
+        addCode(baseCode);
+      }
+    }
+  }
+
+  /**
+   * Rolls the 2-bit code of a single base into the current k-mer and counts it
+   * if a full k-mer has been read. A break is still a position in the reading frame, so 
+   * the k-mers after it stay in frame, but every k-mer spanning it is skipped.
+   * @param baseCode - The 2-bit code of the base, or BaseCodes.BREAK.
+   */
+  private void addCode(int baseCode) {
+    if (baseCode == BaseCodes.BREAK) {
+      valid = 0;
+    } else {
+      code = ((code << 2) | baseCode) & mask;
+      valid = Math.min(valid + 1, kmerLength);
+    }
+    if (filled == kmerLength - 1) {
+      if (valid == kmerLength) {
+        counts[code]++;
+        totalKmers++;
+      }
+      if (!overlapping) {
+        filled = 0;
+      }
+    } else {
+      filled++;
+    }
+  }
+
+  /**
+   * Returns the count of each k-mer, indexed by its 2-bit code.
+   * The code of a k-mer is its bases read as a base 4 number where a=0, c=1, g=2 and t=3,
+   * so the counts are in alphabetical order of the k-mers.
+   * @return - The counts of each k-mer. This is the array used by the counter, not a copy.
+   */
+  public int[] getCounts() {
+    return counts;
+  }
+
+  /**
+   * Returns the total number of k-mers that have been counted.
+   * @return - Total number of k-mers counted.
+   */
+  public long getTotalKmers() {
+    return totalKmers;
+  }
+
+  /**
+   * Returns the frequency of each k-mer out of all of the k-mers counted, in the same
+   * order as getCounts. If no k-mers have been counted, the frequencies will be NaN.
+   * @return - The frequency of each k-mer.
+   */
+  public Double[] getFrequencies() {
+    Double[] frequencies = new Double[counts.length];
+    double total = totalKmers;
+    for (int i = 0; i < counts.length; i++) {
+      frequencies[i] = counts[i] / total;
+    }
+    return frequencies;
+  }
+
+  /**
+   * Clears the counts and the current k-mer so the counter can be used for another sequence.
+   */
+  public void reset() {
+    Arrays.fill(counts, 0);
+    totalKmers = 0;
+    code = 0;
+    filled = 0;
+    valid = 0;
+  }
+
+  /**
+   * Converts a k-mer code back into its bases.
+   * @param kmerCode - The code of the k-mer.
+   * @param kmerLength - The length of the k-mer.
+   * @return - The bases of the k-mer in lower case, e.g. "acg".
+   */
+  public static String decode(int kmerCode, int kmerLength) {
+    char[] kmer = new char[kmerLength];
+    for (int i = kmerLength - 1; i >= 0; i--) {
+      kmer[i] = BaseCodes.BASES[kmerCode & 3];
+      kmerCode >>>= 2;
+    }
+    return new String(kmer);
+  }
+}
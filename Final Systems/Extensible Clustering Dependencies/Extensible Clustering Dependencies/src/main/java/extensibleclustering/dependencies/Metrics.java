@@ -14,6 +14,7 @@ public class Metrics {
    * Calculate the variance within the clusters.
    * This requires the clusters to have assigned data, 
    * as otherwise this will return 0.
+   * Weighted positions count as many times as their weight.
    * @param clusters - The clusters to calculate the total within variance for.
    * @return - Total within cluster variance for all of the given clusters.
    */
@@ -50,7 +51,7 @@ public class Metrics {
         } catch (IncomparableComponentsException e) {
           e.printStackTrace();
         }
-        clusterTotal += Math.pow(distanceBetween, 2);
+        clusterTotal += WeightedPosition.getWeight(currPos) * Math.pow(distanceBetween, 2);
       }
       
       //Once we have completed it for each assigned position, we can add the clusterTotal
@@ -64,6 +65,7 @@ public class Metrics {
   /**
    * Method that calculates the between cluster variance.
    * This requires at least 2 clusters.
+   * Weighted positions count as many times as their weight.
    * @param clusters - The clusters to calculate the between variance for.
    * @return - The total between cluster variance.
    */
@@ -80,19 +82,21 @@ public class Metrics {
     
     //Calculate the average position of all of the pieces of data.
     //This can then be transformed into a position.
-    int numOfData = 0;
+    double numOfData = 0;
     Double[] totalOfData = new Double[clusters[0].getLocation().getComponents().length];
     Arrays.fill(totalOfData, 0.0);
     
     for (Centroid cluster : clusters) {
       Vector<Position> assignedPositions = cluster.getAssignedPositions();
-      numOfData += assignedPositions.size();
+      numOfData += cluster.getAssignedWeight();
       
       //Want to go through each positions components, and add to total.
+      //Weighted positions are added as many times as their weight.
       for (Position currPos : assignedPositions) {
+        double weight = WeightedPosition.getWeight(currPos);
         Double[] components = currPos.getComponents();
         for (int i = 0; i < components.length; i++) {
-          totalOfData[i] += components[i];
+          totalOfData[i] += weight * components[i];
         }
       }
     }
@@ -124,9 +128,9 @@ public class Metrics {
         e.printStackTrace();
       }
       
-      //Square this distance, then multiply it by the count of data assigned to the cluster.
+      //Square this distance, then multiply it by the weight of data assigned to the cluster.
       clusterB = Math.pow(clusterB, 2);
-      clusterB *= cluster.getAssignedPositions().size();
+      clusterB *= cluster.getAssignedWeight();
       
       //Then add this value to the total.
       totalB += clusterB;
@@ -138,7 +142,7 @@ public class Metrics {
   /**
    * Calculate the CH score for given clusters and num of positions.
    * @param clusters - clusters to use in the calculation. K is determined from the array.
-   * @param numPositions - Number of positions in the data.
+   * @param numPositions - Number of positions in the data, or their total weight if weighted.
    * @return - The CH score for these number of clusters and positions.
    */
   public Double calinskiHarabasz(Centroid[] clusters, Integer numPositions) {
@@ -0,0 +1,156 @@
+package extensibleclustering.dependencies;
+
+import java.util.Arrays;
+
+/**
+ * Builds MinHash sketches of DNA sequences, as used by Mash.
+ * Each overlapping k-mer is read as a 2-bit rolling code along with its reverse complement,
+ * and the smaller of the two (the canonical k-mer) is hashed, so a sequence and its
+ * reverse complement have the same sketch. The sketch keeps the smallest distinct hashes.
+ * @author David Cook
+ */
+public class MinHashSketcher {
+
+  /**
+   * The largest k that is supported, as the 2-bit code of the k-mer must fit in a long.
+   */
+  public static final int MAX_K = 32;
+
+  private final int kmerLength;
+  private final int sketchSize;
+  private final long mask;
+  private final int reverseShift;
+  private final long[] sketch;
+  private int size;
+  private long forward;
+  private long reverse;
+  private int filled;
+
+  /**
+   * Creates a new MinHash sketcher.
+   * @param kmerLength - The length of the k-mers to hash, between 1 and MAX_K.
+   * @param sketchSize - The number of hashes to keep in each sketch, at least 1.
+   */
+  public MinHashSketcher(int kmerLength, int sketchSize) {
+    if (kmerLength < 1 || kmerLength > MAX_K) {
+      throw new IllegalArgumentException("The k-mer length must be between 1 and " + MAX_K);
+    }
+    if (sketchSize < 1) {
+      throw new IllegalArgumentException("The sketch size must be at least 1");
+    }
+    this.kmerLength = kmerLength;
+    this.sketchSize = sketchSize;
+    this.mask = kmerLength == MAX_K ? -1L : (1L << (2 * kmerLength)) - 1;
+    this.reverseShift = 2 * (kmerLength - 1);
+    this.sketch = new long[sketchSize];
+  }
+
+  /**
+   * Adds all of the bases in the given characters to the sketch.
+   * Whitespace and digits are skipped, and any other character that is not a base breaks
+   * the sequence, so the k-mers spanning it are not hashed. The sequence is treated as 
+   * continuing from any bases that have already been added.
+   * @param sequence - The characters to add.
+   */
+  public void add(CharSequence sequence) {
+    for (int i = 0; i < sequence.length(); i++) {
+      int baseCode = BaseCodes.of(sequence.charAt(i));
+      if (baseCode != BaseCodes.SKIP) {
+        addCode(baseCode);
+      }
+    }
+  }
+
+  /**
+   * Adds all of the bases in a range of ASCII encoded bytes to the sketch.
+   * This behaves the same as adding the equivalent characters.
+   * @param bytes - The bytes to read the bases from.
+   * @param offset - The index of the first byte to add.
+   * @param length - The number of bytes to add.
+   */
+  public void add(byte[] bytes, int offset, int length) {
+    for (int i = offset; i < offset + length; i++) {
+      int baseCode = BaseCodes.of(bytes[i]);
+      if (baseCode != BaseCodes.SKIP) {
+        addCode(baseCode);
+      }
+    }
+  }
+
+  /**
+   * Rolls the 2-bit code of a single base into the current k-mer and its reverse complement,
+   * and hashes the canonical k-mer if a full k-mer has been read. A break starts a new 
+   * k-mer, so the k-mers spanning it are not hashed.
+   * @param baseCode - The 2-bit code of the base, or BaseCodes.BREAK.
+   */
+  private void addCode(int baseCode) {
+    if (baseCode == BaseCodes.BREAK) {
+      filled = 0;
+      return;
+    }
+    forward = ((forward << 2) | baseCode) & mask;
+    //The complement of a base is 3 - code, which enters the reverse k-mer at the front.
+    reverse = (reverse >>> 2) | ((long) (3 - baseCode) << reverseShift);
+    if (filled < kmerLength - 1) {
+      filled++;
+      return;
+    }
+    long canonical = Long.compareUnsigned(forward, reverse) <= 0 ? forward : reverse;
+    offer(hash(canonical));
+  }
+
+  /**
+   * Adds a hash to the sketch if it is one of the smallest seen so far.
+   * The sketch is kept sorted, so most hashes are rejected by a single comparison.
+   * @param hash - The hash of a k-mer.
+   */
+  private void offer(long hash) {
+    if (size == sketchSize && hash >= sketch[size - 1]) {
+      return;
+    }
+    int index = Arrays.binarySearch(sketch, 0, size, hash);
+    if (index >= 0) {
+      return;
+    }
+    index = -index - 1;
+    int moved = Math.min(size, sketchSize - 1) - index;
+    System.arraycopy(sketch, index, sketch, index + 1, moved);
+    sketch[index] = hash;
+    size = Math.min(size + 1, sketchSize);
+  }
+
+  /**
+   * Hashes a k-mer code with the 64-bit finaliser of MurmurHash3, keeping the lowest 53 bits
+   * so the hash can be stored exactly in a SketchPosition.
+   * @param code - The code of the k-mer.
+   * @return - The hash of the k-mer.
+   */
+  private static long hash(long code) {
+    long hash = code;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash & (SketchPosition.HASH_LIMIT - 1);
+  }
+
+  /**
+   * Creates a Position from the current sketch.
+   * @param id - The ID of the sequence that was sketched.
+   * @return - SketchPosition containing the smallest hashes in ascending order.
+   */
+  public SketchPosition toPosition(String id) {
+    return new SketchPosition(id, Arrays.copyOf(sketch, size), kmerLength);
+  }
+
+  /**
+   * Clears the sketch and the current k-mer so the sketcher can be used for another sequence.
+   */
+  public void reset() {
+    size = 0;
+    forward = 0;
+    reverse = 0;
+    filled = 0;
+  }
+}
@@ -0,0 +1,280 @@
+package extensibleclustering.dependencies;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes a parameter a plug-in can be given, so the system can show it to the user,
+ * e.g. in a form, and check the value before the plug-in is run.
+ * A parameter is an int or double within a range, one of a list of options, or free text,
+ * e.g. a file path, and has a default value that is used when it is not given. Values are 
+ * Integers, Doubles or Strings respectively.
+ * @author David Cook
+ * @version 0.1
+ */
+public final class Parameter {
+
+  /**
+   * The type of the value of a parameter.
+   */
+  public enum Type {
+    INT, DOUBLE, ENUM, TEXT
+  }
+
+  private final String name;
+  private final String description;
+  private final Type type;
+  private final double min;
+  private final double max;
+  private final Object defaultValue;
+  private final List<String> options;
+
+  /**
+   * Creates a parameter that has been checked by one of the factory methods.
+   * @param name - The name the value of the parameter is given with.
+   * @param description - The description of the parameter.
+   * @param type - The type of the value.
+   * @param min - The smallest value, for int and double parameters.
+   * @param max - The largest value, for int and double parameters.
+   * @param defaultValue - The value used when the parameter is not given.
+   * @param options - The values an enum parameter can have.
+   */
+  private Parameter(String name, String description, Type type, double min, double max,
+      Object defaultValue, List<String> options) {
+    if (name == null || name.isEmpty() || description == null) {
+      throw new IllegalArgumentException("The name and description must be given");
+    }
+    this.name = name;
+    this.description = description;
+    this.type = type;
+    this.min = min;
+    this.max = max;
+    this.options = options;
+    this.defaultValue = check(defaultValue);
+  }
+
+  /**
+   * Creates an int parameter.
+   * @param name - The name the value of the parameter is given with, e.g. clusters.
+   * @param description - The description of the parameter.
+   * @param defaultValue - The value used when the parameter is not given.
+   * @param min - The smallest value.
+   * @param max - The largest value.
+   * @return Parameter - The int parameter.
+   */
+  public static Parameter ofInt(String name, String description, int defaultValue, int min,
+      int max) {
+    return new Parameter(name, description, Type.INT, min, max, defaultValue,
+        Collections.emptyList());
+  }
+
+  /**
+   * Creates a double parameter.
+   * @param name - The name the value of the parameter is given with, e.g. tolerance.
+   * @param description - The description of the parameter.
+   * @param defaultValue - The value used when the parameter is not given.
+   * @param min - The smallest value.
+   * @param max - The largest value.
+   * @return Parameter - The double parameter.
+   */
+  public static Parameter ofDouble(String name, String description, double defaultValue,
+      double min, double max) {
+    return new Parameter(name, description, Type.DOUBLE, min, max, defaultValue,
+        Collections.emptyList());
+  }
+
+  /**
+   * Creates an enum parameter, whose value is one of a list of options.
+   * @param name - The name the value of the parameter is given with, e.g. delimiter.
+   * @param description - The description of the parameter.
+   * @param defaultValue - The option used when the parameter is not given.
+   * @param options - The options the value can be.
+   * @return Parameter - The enum parameter.
+   */
+  public static Parameter ofEnum(String name, String description, String defaultValue,
+      String... options) {
+    if (options == null || options.length == 0) {
+      throw new IllegalArgumentException("An enum parameter must have options");
+    }
+    return new Parameter(name, description, Type.ENUM, 0, 0, defaultValue,
+        Collections.unmodifiableList(Arrays.asList(options.clone())));
+  }
+
+  /**
+   * Creates a text parameter, whose value can be any text, e.g. a file path.
+   * @param name - The name the value of the parameter is given with, e.g. idFile.
+   * @param description - The description of the parameter.
+   * @param defaultValue - The text used when the parameter is not given.
+   * @return Parameter - The text parameter.
+   */
+  public static Parameter ofText(String name, String description, String defaultValue) {
+    return new Parameter(name, description, Type.TEXT, 0, 0, defaultValue,
+        Collections.emptyList());
+  }
+
+  /**
+   * Checks the values given for a plug-in against its parameters, and adds the default
+   * value of each parameter that was not given.
+   * @param parameters - The parameters of the plug-in.
+   * @param values - The values given, by the name of their parameter. Null is treated
+   *     as no values.
+   * @return Map - The value of every parameter, in the order of the parameters.
+   * @throws IllegalArgumentException - Thrown if a value is not one of the parameters, or
+   *     is not valid for its parameter.
+   */
+  public static Map<String, Object> resolve(List<Parameter> parameters,
+      Map<String, ?> values) {
+    Map<String, ?> given = values == null ? Collections.emptyMap() : values;
+    Map<String, Object> resolved = new LinkedHashMap<>();
+    for (Parameter parameter : parameters) {
+      Object value = given.get(parameter.getName());
+      resolved.put(parameter.getName(),
+          value == null ? parameter.getDefaultValue() : parameter.check(value));
+    }
+    for (String name : given.keySet()) {
+      if (!resolved.containsKey(name)) {
+        throw new IllegalArgumentException("There is no parameter named " + name);
+      }
+    }
+    return Collections.unmodifiableMap(resolved);
+  }
+
+  /**
+   * Parses the value of the parameter from text, e.g. a field of a form or an argument.
+   * @param text - The text of the value.
+   * @return Object - The value, an Integer, Double or String.
+   * @throws IllegalArgumentException - Thrown if the text is not a valid value.
+   */
+  public Object parse(String text) {
+    if (text == null) {
+      throw new IllegalArgumentException("The value of " + name + " must be given");
+    }
+    try {
+      switch (type) {
+        case INT:
+          return check(Integer.valueOf(text.trim()));
+        case DOUBLE:
+          return check(Double.valueOf(text.trim()));
+        default:
+          return check(text);
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("The value of " + name + " must be a number", e);
+    }
+  }
+
+  /**
+   * Checks a value is valid for the parameter. Ints are accepted for double parameters.
+   * @param value - The value to check.
+   * @return Object - The value, converted to a Double for double parameters.
+   * @throws IllegalArgumentException - Thrown if the value is not valid.
+   */
+  public Object check(Object value) {
+    switch (type) {
+      case INT:
+        if (!(value instanceof Integer)) {
+          throw new IllegalArgumentException("The value of " + name + " must be an int");
+        }
+        checkRange(((Integer) value).doubleValue());
+        return value;
+      case DOUBLE:
+        if (!(value instanceof Double || value instanceof Integer)) {
+          throw new IllegalArgumentException("The value of " + name + " must be a number");
+        }
+        double number = ((Number) value).doubleValue();
+        checkRange(number);
+        return number;
+      case TEXT:
+        if (!(value instanceof String)) {
+          throw new IllegalArgumentException("The value of " + name + " must be text");
+        }
+        return value;
+      default:
+        if (!options.contains(value)) {
+          throw new IllegalArgumentException("The value of " + name + " must be one of "
+              + options);
+        }
+        return value;
+    }
+  }
+
+  /**
+   * Checks a number is within the range of the parameter.
+   * @param number - The number to check.
+   * @throws IllegalArgumentException - Thrown if the number is outside of the range.
+   */
+  private void checkRange(double number) {
+    if (!(number >= min && number <= max)) {
+      throw new IllegalArgumentException("The value of " + name + " must be between "
+          + format(min) + " and " + format(max));
+    }
+  }
+
+  /**
+   * Formats a bound of the range, without a decimal point for int parameters.
+   * @param bound - The bound to format.
+   * @return String - The formatted bound.
+   */
+  private String format(double bound) {
+    return type == Type.INT ? String.valueOf((long) bound) : String.valueOf(bound);
+  }
+
+  /**
+   * Returns the name the value of the parameter is given with.
+   * @return String - The name of the parameter.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the description of the parameter, which can be shown to the user.
+   * @return String - The description of the parameter.
+   */
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Returns the type of the value of the parameter.
+   * @return Type - The type of the parameter.
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Returns the smallest value of an int or double parameter.
+   * @return double - The smallest value.
+   */
+  public double getMin() {
+    return min;
+  }
+
+  /**
+   * Returns the largest value of an int or double parameter.
+   * @return double - The largest value.
+   */
+  public double getMax() {
+    return max;
+  }
+
+  /**
+   * Returns the value used when the parameter is not given.
+   * @return Object - The default value, an Integer, Double or String.
+   */
+  public Object getDefaultValue() {
+    return defaultValue;
+  }
+
+  /**
+   * Returns the values an enum parameter can have.
+   * @return List - The options, empty for int, double and text parameters.
+   */
+  public List<String> getOptions() {
+    return options;
+  }
+}
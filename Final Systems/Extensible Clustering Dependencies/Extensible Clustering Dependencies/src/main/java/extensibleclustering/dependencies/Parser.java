@@ -0,0 +1,91 @@
+package extensibleclustering.dependencies;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This interface will need to be implemented by all parsers.
+ * This allows them all to have a common method that the system can use.
+ * @author David Cook
+ * @version 0.1
+ */
+public interface Parser {
+  
+  /**
+   * Parses a given file and returns the data in a Position format that
+   * can be interpreted by the program.
+   * @param file - The file to parse the data from.
+   * @return - An array of Positions that have been parsed from the file.
+   * @throws FileNotFoundException - Thrown if the file given cannot be located.
+   * @throws IOException - Thrown if there is an error when parsing data from the file.
+   */
+  public Position[] parseFile(File file) throws FileNotFoundException, IOException;
+  
+  /**
+   * Parses a given file with values for the parameters of the parser, e.g. the delimiter. 
+   * Parameters that are not given take their default value.
+   * Parsers with parameters should override this. By default the values are checked 
+   * against getParameters and the file is parsed with parseFile.
+   * @param file - The file to parse the data from.
+   * @param parameters - The values of the parameters, by the name of their parameter.
+   * @return - An array of Positions that have been parsed from the file.
+   * @throws FileNotFoundException - Thrown if the file given cannot be located.
+   * @throws IOException - Thrown if there is an error when parsing data from the file.
+   */
+  public default Position[] parseFile(File file, Map<String, Object> parameters) 
+      throws FileNotFoundException, IOException {
+    Parameter.resolve(getParameters(), parameters);
+    return parseFile(file);
+  }
+  
+  /**
+   * Opens a source that parses the Positions from a given file as they are read, so they can 
+   * be consumed before the whole file has been parsed. The source must be closed once used.
+   * Parsers that can stream their data should override this. By default this parses the 
+   * whole file with parseFile and returns a source of the resulting array.
+   * @param file - The file to parse the data from.
+   * @return - A source of the Positions parsed from the file.
+   * @throws FileNotFoundException - Thrown if the file given cannot be located.
+   * @throws IOException - Thrown if there is an error when opening the file.
+   */
+  public default PositionSource openSource(File file) throws FileNotFoundException, IOException {
+    return PositionSource.of(parseFile(file));
+  }
+  
+  /**
+   * Returns a formatted name for the parser.
+   * This is required for displaying to the user when they are picking a parser.
+   * @return String - formatted name for the parser.
+   */
+  public String getName();
+  
+  /**
+   * Returns a formatted description for the parser.
+   * This is required so a description can be put alongside the parser.
+   * @return String - formatted description for the parser.
+   */
+  public String getDescription();
+  
+  /**
+   * Returns the supported file extensions the parser supports.
+   * The first element of the array list should be the description, 
+   * with the rest of the items being the supported extensions, e.g. '.txt'.
+   * @return - ArrayList containing the description and supported extensions for the parser.
+   */
+  public ArrayList<String> getSupportedFileExtensions();
+  
+  /**
+   * Returns the parameters the parser can be given, so they can be shown to the user. 
+   * By default there are none.
+   * @return - The parameters of the parser.
+   */
+  public default List<Parameter> getParameters() {
+    return Collections.emptyList();
+  }
+
+}
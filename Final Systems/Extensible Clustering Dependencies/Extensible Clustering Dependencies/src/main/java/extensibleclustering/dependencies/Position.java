@@ -0,0 +1,177 @@
+package extensibleclustering.dependencies;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Class for storing a position.
+ * This will handle storing different dimensions of data.
+ * This will also have an ID to identify the position.
+ * @author David Cook
+ * @version 0.1
+ */
+public class Position {
+  
+  private String id = "";
+  private Double[] components;
+  
+  /**
+   * Creates a new instance of the position class.
+   * @param id - ID for the new position.
+   * @param components - The components for the new position.
+   */
+  public Position(String id, Double[] components) {
+    if (id == null || components == null) {
+      throw new IllegalArgumentException();
+    }
+    this.id = id;
+    this.components = components.clone();
+  }
+  
+  /**
+   * Creates a new position whose components are stored by a subclass in another form,
+   * e.g. a SparsePosition. The subclass must override getComponents, getDimensions, 
+   * getDistance, the getDistanceTo methods, hashCode, equals and equalComponents.
+   * @param id - ID for the new position.
+   */
+  protected Position(String id) {
+    if (id == null) {
+      throw new IllegalArgumentException();
+    }
+    this.id = id;
+  }
+  
+  /**
+   * Returns the ID for this position.
+   * @return String - ID for this position.
+   */
+  public String getID() {
+    return id;
+  }
+  
+  /**
+   * Return the components for this position.
+   * @return Double[] - The components for this position.
+   */
+  public Double[] getComponents() {
+    return components;
+  }
+  
+  /**
+   * Returns the number of dimensions of this position.
+   * @return int - The number of components in this position.
+   */
+  public int getDimensions() {
+    return components.length;
+  }
+  
+  /**
+   * Calculates the euclidean distance between two positions.
+   * The other position calculates the distance to this one with getDistanceToDense, so 
+   * each type of position can choose how its distance to a Position is calculated, e.g.
+   * a SparsePosition skips its zeros.
+   * @param otherPosition - Position to get the distance between.
+   * @return Double - Euclidean distance between the two positions.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  public Double getDistance(Position otherPosition) throws IncomparableComponentsException {
+    if (otherPosition == null) {
+      throw new IncomparableComponentsException();
+    }
+    return otherPosition.getDistanceToDense(this);
+  }
+  
+  /**
+   * Calculates the distance between this position and a Position that stores all of its 
+   * components. This is called by getDistance of the Position.
+   * @param densePosition - The Position to get the distance to.
+   * @return Double - Euclidean distance between the two positions.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  protected Double getDistanceToDense(Position densePosition) 
+      throws IncomparableComponentsException {
+    Double[] otherComponents = densePosition.getComponents();
+    if (components.length != otherComponents.length) {
+      throw new IncomparableComponentsException();
+    }
+    double total = 0.0;
+    for (int i = 0; i < components.length; i++) {
+      double difference = components[i] - otherComponents[i];
+      total += difference * difference;
+    }
+    return Math.sqrt(total);
+  }
+  
+  /**
+   * Calculates the distance between this position and a SparsePosition. This is called by 
+   * getDistance of the SparsePosition. By default the sparse position visits each of the 
+   * components of this position once.
+   * @param sparsePosition - The SparsePosition to get the distance to.
+   * @return Double - Euclidean distance between the two positions.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  protected Double getDistanceToSparse(SparsePosition sparsePosition) 
+      throws IncomparableComponentsException {
+    return sparsePosition.getDistanceToDense(this);
+  }
+  
+  /**
+   * Calculates the distance between this position and a SketchPosition. This is called by 
+   * getDistance of the SketchPosition. The components of a sketch are hashes rather than 
+   * coordinates, so by default the positions cannot be compared.
+   * @param sketchPosition - The SketchPosition to get the distance to.
+   * @return Double - The distance between the two positions.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  protected Double getDistanceToSketch(SketchPosition sketchPosition) 
+      throws IncomparableComponentsException {
+    throw new IncomparableComponentsException();
+  }
+  
+  /**
+   * Generates a hash code for the Position Object.
+   * @return int - hash code for this Position.
+   */
+  @Override
+  public int hashCode() {
+    /* This method requires the use of both Objects.hash and Arrays.hashCode
+     * as Objects.hash does not handle Arrays well and generates different hash codes 
+     * for the same array, for example, {0.0} and {0.0} generate different hash codes.
+     */
+    return Objects.hash(id) + Arrays.hashCode(components);
+  }
+  
+  /**
+   * Returns the values of the Position in a formatted String.
+   * @return String - formatted values of the Position.
+   */
+  @Override
+  public String toString() {
+    return "ID: " + id + ", Components: " + Arrays.toString(components);
+  }
+  
+  /**
+   * Returns the equality of an Object and this Position.
+   * The components are compared by the other Position, so a type of position that can 
+   * only equal its own type, e.g. a SketchPosition, is never equal to a Position.
+   * @param obj - Object to compare the Position against.
+   * @return boolean - Result of the equality test between the Object and Position.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof Position)) {
+      return false;
+    }
+    Position otherPos = (Position) obj;
+    return id.equals(otherPos.getID()) && otherPos.equalComponents(this);
+  }
+  
+  /**
+   * Checks if the components of two Positions are equal.
+   * @param other - The Position to compare against.
+   * @return - Result of the equality check between the components.
+   */
+  public boolean equalComponents(Position other) {
+    return Arrays.equals(components, other.getComponents());
+  }
+}
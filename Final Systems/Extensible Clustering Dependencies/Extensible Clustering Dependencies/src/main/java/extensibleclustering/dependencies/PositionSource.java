@@ -0,0 +1,96 @@
+package extensibleclustering.dependencies;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A single pass source of Positions, so data can be clustered while it is still being parsed
+ * rather than waiting for the whole file to be read into an array.
+ * The Positions are exposed as a Spliterator, which is SIZED if the number of Positions is
+ * known up front. The source should be closed once it has been consumed, so any file it is
+ * reading from is released.
+ * @author David Cook
+ * @version 0.1
+ */
+public interface PositionSource extends Closeable {
+
+  /**
+   * Returns the Spliterator of the Positions in the source.
+   * This can only be called once, as the Positions are only read once.
+   * @return Spliterator - The Positions in the source.
+   */
+  public Spliterator<Position> spliterator();
+
+  /**
+   * Returns a sequential stream of the Positions in the source.
+   * @return Stream - The Positions in the source.
+   */
+  public default Stream<Position> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /**
+   * Passes the Positions in the source to the action in chunks, so the consumer can
+   * process a batch at a time, e.g. for mini-batch clustering.
+   * The last chunk may be smaller than the chunk size.
+   * @param chunkSize - The largest number of Positions in each chunk.
+   * @param action - The action to pass each chunk to.
+   */
+  public default void forEachChunk(int chunkSize, Consumer<Position[]> action) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("The chunk size must be at least 1");
+    }
+    Spliterator<Position> positions = spliterator();
+    List<Position> chunk = new ArrayList<>(chunkSize);
+    while (positions.tryAdvance(chunk::add)) {
+      if (chunk.size() == chunkSize) {
+        action.accept(chunk.toArray(new Position[chunkSize]));
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      action.accept(chunk.toArray(new Position[chunk.size()]));
+    }
+  }
+
+  /**
+   * Reads all of the remaining Positions in the source into an array.
+   * @return Position[] - The Positions in the order they were read.
+   */
+  public default Position[] toArray() {
+    Spliterator<Position> positions = spliterator();
+    long size = positions.getExactSizeIfKnown();
+    List<Position> data = new ArrayList<>(size < 0 || size > Integer.MAX_VALUE ? 16 : (int) size);
+    positions.forEachRemaining(data::add);
+    return data.toArray(new Position[data.size()]);
+  }
+
+  /**
+   * Releases anything held by the source. By default there is nothing to release.
+   * @throws IOException - Thrown if the source cannot be closed.
+   */
+  @Override
+  public default void close() throws IOException {
+  }
+
+  /**
+   * Creates a source of Positions that have already been read into an array.
+   * This is used to adapt parsers that only implement parseFile.
+   * @param data - The Positions in the source.
+   * @return PositionSource - A SIZED source of the Positions.
+   */
+  public static PositionSource of(Position[] data) {
+    if (data == null) {
+      throw new IllegalArgumentException("The data cannot be null");
+    }
+    return () -> Spliterators.spliterator(data, Spliterator.ORDERED | Spliterator.NONNULL
+        | Spliterator.IMMUTABLE);
+  }
+}
@@ -0,0 +1,233 @@
+package extensibleclustering.dependencies;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Class for storing a MinHash sketch of a sequence as a position.
+ * The components are the smallest k-mer hashes of the sequence in ascending order.
+ * Only the hashes are stored. They are below 2^53, so they can be given exactly as Doubles
+ * when the components are asked for, but these are created each time getComponents is
+ * called, so algorithms should avoid calling it repeatedly.
+ * The distance between two sketches is the Mash distance estimated from their Jaccard index,
+ * so it only costs O(sketch size) regardless of the length of the sequences.
+ * As the components are hashes, sketches are suited to algorithms that only use the
+ * distances between positions, such as agglomerative hierarchical clustering.
+ * @author David Cook
+ * @version 0.1
+ */
+public class SketchPosition extends Position {
+
+  /**
+   * The hashes must be below this value so they can be stored exactly as Doubles.
+   */
+  public static final long HASH_LIMIT = 1L << 53;
+
+  private final long[] hashes;
+  private final int kmerLength;
+
+  /**
+   * Creates a new instance of the sketch position class.
+   * @param id - ID for the new position.
+   * @param hashes - The smallest k-mer hashes of the sequence in ascending order.
+   * @param kmerLength - The length of the k-mers that were hashed.
+   */
+  public SketchPosition(String id, long[] hashes, int kmerLength) {
+    super(id);
+    if (hashes == null) {
+      throw new IllegalArgumentException();
+    }
+    for (int i = 0; i < hashes.length; i++) {
+      if (hashes[i] < 0 || hashes[i] >= HASH_LIMIT) {
+        throw new IllegalArgumentException("The hashes must be between 0 and 2^53");
+      }
+      if (i > 0 && hashes[i] <= hashes[i - 1]) {
+        throw new IllegalArgumentException("The hashes must be distinct and in ascending order");
+      }
+    }
+    if (kmerLength < 1) {
+      throw new IllegalArgumentException("The k-mer length must be at least 1");
+    }
+    this.hashes = hashes.clone();
+    this.kmerLength = kmerLength;
+  }
+
+  /**
+   * Creates the components of this position, which are the hashes as Doubles.
+   * A new array is created each time.
+   * @return Double[] - The hashes in ascending order.
+   */
+  @Override
+  public Double[] getComponents() {
+    Double[] components = new Double[hashes.length];
+    for (int i = 0; i < hashes.length; i++) {
+      components[i] = (double) hashes[i];
+    }
+    return components;
+  }
+
+  /**
+   * Returns the number of dimensions of this position.
+   * @return int - The number of hashes in the sketch.
+   */
+  @Override
+  public int getDimensions() {
+    return hashes.length;
+  }
+
+  /**
+   * Returns the hashes in the sketch.
+   * @return long[] - The hashes in ascending order.
+   */
+  public long[] getHashes() {
+    return hashes.clone();
+  }
+
+  /**
+   * Returns the length of the k-mers that were hashed.
+   * @return int - The k-mer length of the sketch.
+   */
+  public int getKmerLength() {
+    return kmerLength;
+  }
+
+  /**
+   * Estimates the Jaccard index of the k-mers of two sketched sequences.
+   * This is the fraction of the smallest hashes of the union of both sketches that
+   * are in both sketches, where the number of hashes used is the size of the smaller sketch.
+   * @param other - The sketch to compare against.
+   * @return Double - Estimated Jaccard index between 0 and 1.
+   * @throws IncomparableComponentsException - Thrown if the sketches use different k-mers.
+   */
+  public Double getJaccardIndex(SketchPosition other) throws IncomparableComponentsException {
+    if (other == null || kmerLength != other.kmerLength) {
+      throw new IncomparableComponentsException();
+    }
+    int sketchSize = Math.min(hashes.length, other.hashes.length);
+    if (sketchSize == 0) {
+      return hashes.length == other.hashes.length ? 1.0 : 0.0;
+    }
+
+    //Merge the two sorted sketches, counting the shared hashes in the smallest of the union.
+    int shared = 0;
+    int i = 0;
+    int j = 0;
+    for (int taken = 0; taken < sketchSize && i < hashes.length && j < other.hashes.length;
+        taken++) {
+      if (hashes[i] == other.hashes[j]) {
+        shared++;
+        i++;
+        j++;
+      } else if (hashes[i] < other.hashes[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return (double) shared / sketchSize;
+  }
+
+  /**
+   * Calculates the Mash distance between two sketches, which estimates the mutation rate
+   * between the sequences from the Jaccard index of their k-mers.
+   * @param otherPosition - Position to get the distance between, which must be a sketch.
+   * @return Double - Mash distance between 0 and 1.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  @Override
+  public Double getDistance(Position otherPosition) throws IncomparableComponentsException {
+    if (otherPosition == null) {
+      throw new IncomparableComponentsException();
+    }
+    return otherPosition.getDistanceToSketch(this);
+  }
+
+  /**
+   * Calculates the distance to a Position, which cannot be compared to a sketch as its 
+   * components are coordinates rather than hashes.
+   * @param densePosition - The Position to get the distance to.
+   * @return Double - Never returned.
+   * @throws IncomparableComponentsException - Always thrown.
+   */
+  @Override
+  protected Double getDistanceToDense(Position densePosition)
+      throws IncomparableComponentsException {
+    throw new IncomparableComponentsException();
+  }
+
+  /**
+   * Calculates the distance to a SparsePosition, which cannot be compared to a sketch as 
+   * its components are coordinates rather than hashes.
+   * @param sparsePosition - The SparsePosition to get the distance to.
+   * @return Double - Never returned.
+   * @throws IncomparableComponentsException - Always thrown.
+   */
+  @Override
+  protected Double getDistanceToSparse(SparsePosition sparsePosition)
+      throws IncomparableComponentsException {
+    throw new IncomparableComponentsException();
+  }
+
+  /**
+   * Calculates the Mash distance between this and another sketch.
+   * @param sketchPosition - The sketch to get the distance to.
+   * @return Double - Mash distance between 0 and 1.
+   * @throws IncomparableComponentsException - Thrown if the sketches use different k-mers.
+   */
+  @Override
+  protected Double getDistanceToSketch(SketchPosition sketchPosition)
+      throws IncomparableComponentsException {
+    double jaccard = getJaccardIndex(sketchPosition);
+    if (jaccard == 0.0) {
+      return 1.0;
+    }
+    double distance = -Math.log(2.0 * jaccard / (1.0 + jaccard)) / kmerLength;
+    return Math.min(1.0, distance);
+  }
+
+  /**
+   * Generates a hash code for the Sketch Position Object.
+   * @return int - hash code for this Sketch Position.
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(getID()) + Arrays.hashCode(hashes) + kmerLength;
+  }
+
+  /**
+   * Returns the values of the Sketch Position in a formatted String.
+   * @return String - formatted values of the Sketch Position.
+   */
+  @Override
+  public String toString() {
+    return "ID: " + getID() + ", K-mer length: " + kmerLength + ", Hashes: "
+        + Arrays.toString(hashes);
+  }
+
+  /**
+   * Returns the equality of an Object and this Sketch Position.
+   * A sketch is only equal to another sketch, so it is never equal to a Position whose 
+   * components happen to be the same numbers as its hashes.
+   * @param obj - Object to compare the Sketch Position against.
+   * @return boolean - Result of the equality test between the Object and Sketch Position.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof Position && getID().equals(((Position) obj).getID())
+        && equalComponents((Position) obj);
+  }
+
+  /**
+   * Checks if this and another Position are sketches of the same k-mers with equal hashes.
+   * @param other - The Position to compare against.
+   * @return - Result of the equality check between the sketches.
+   */
+  @Override
+  public boolean equalComponents(Position other) {
+    if (other == null || other.getClass() != getClass()) {
+      return false;
+    }
+    SketchPosition otherSketch = (SketchPosition) other;
+    return kmerLength == otherSketch.kmerLength && Arrays.equals(hashes, otherSketch.hashes);
+  }
+}
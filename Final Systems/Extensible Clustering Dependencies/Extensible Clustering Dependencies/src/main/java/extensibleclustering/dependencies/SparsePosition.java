@@ -0,0 +1,250 @@
+package extensibleclustering.dependencies;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Class for storing a position where most of the components are zero, e.g. the gene
+ * counts of a single cell. Only the non-zero components are stored, as a sorted array of
+ * their indices and an array of their values, so the memory used is proportional to the
+ * number of non-zero components rather than the number of dimensions.
+ * The euclidean distance to another sparse position only visits the non-zero components
+ * of both positions. The dense components are only created when getComponents is called,
+ * so algorithms should avoid calling it repeatedly.
+ * @author David Cook
+ * @version 0.1
+ */
+public class SparsePosition extends Position {
+
+  private final int dimensions;
+  private final int[] indices;
+  private final double[] values;
+
+  /**
+   * Creates a new instance of the sparse position class.
+   * Any components given with a value of zero are not stored.
+   * @param id - ID for the new position.
+   * @param dimensions - The number of dimensions of the position.
+   * @param indices - The indices of the non-zero components, in ascending order.
+   * @param values - The values of the non-zero components, in the same order as the indices.
+   */
+  public SparsePosition(String id, int dimensions, int[] indices, double[] values) {
+    super(id);
+    if (indices == null || values == null || indices.length != values.length
+        || dimensions < 0) {
+      throw new IllegalArgumentException("The indices and values must be the same length");
+    }
+    int nonZero = 0;
+    for (int i = 0; i < indices.length; i++) {
+      if (indices[i] < 0 || indices[i] >= dimensions) {
+        throw new IllegalArgumentException("The indices must be between 0 and the dimensions");
+      }
+      if (i > 0 && indices[i] <= indices[i - 1]) {
+        throw new IllegalArgumentException("The indices must be distinct and in ascending order");
+      }
+      if (values[i] != 0.0) {
+        nonZero++;
+      }
+    }
+
+    this.dimensions = dimensions;
+    this.indices = new int[nonZero];
+    this.values = new double[nonZero];
+    int stored = 0;
+    for (int i = 0; i < indices.length; i++) {
+      if (values[i] != 0.0) {
+        this.indices[stored] = indices[i];
+        this.values[stored] = values[i];
+        stored++;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of dimensions of this position.
+   * @return int - The number of dimensions, including the zero components.
+   */
+  @Override
+  public int getDimensions() {
+    return dimensions;
+  }
+
+  /**
+   * Returns the number of non-zero components of this position.
+   * @return int - The number of components that are stored.
+   */
+  public int getNonZeroCount() {
+    return indices.length;
+  }
+
+  /**
+   * Returns the indices of the non-zero components.
+   * @return int[] - The indices in ascending order.
+   */
+  public int[] getIndices() {
+    return indices.clone();
+  }
+
+  /**
+   * Returns the values of the non-zero components.
+   * @return double[] - The values in the same order as the indices.
+   */
+  public double[] getValues() {
+    return values.clone();
+  }
+
+  /**
+   * Creates the dense components of this position, including the zeros.
+   * A new array is created each time, so this costs memory proportional to the dimensions.
+   * @return Double[] - The components for this position.
+   */
+  @Override
+  public Double[] getComponents() {
+    Double[] components = new Double[dimensions];
+    Arrays.fill(components, 0.0);
+    for (int i = 0; i < indices.length; i++) {
+      components[indices[i]] = values[i];
+    }
+    return components;
+  }
+
+  /**
+   * Calculates the euclidean distance between this and another position.
+   * The other position calculates the distance with getDistanceToSparse, so against a 
+   * sparse position only the non-zero components of both are visited, and otherwise the 
+   * dense components of the other position are visited once.
+   * @param otherPosition - Position to get the distance between.
+   * @return Double - Euclidean distance between the two positions.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  @Override
+  public Double getDistance(Position otherPosition) throws IncomparableComponentsException {
+    if (otherPosition == null) {
+      throw new IncomparableComponentsException();
+    }
+    return otherPosition.getDistanceToSparse(this);
+  }
+
+  /**
+   * Calculates the distance between this and another sparse position, only visiting the 
+   * non-zero components of both.
+   * @param other - The SparsePosition to get the distance to.
+   * @return Double - Euclidean distance between the two positions.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  @Override
+  protected Double getDistanceToSparse(SparsePosition other)
+      throws IncomparableComponentsException {
+    if (dimensions != other.dimensions) {
+      throw new IncomparableComponentsException();
+    }
+    double total = 0.0;
+    //Merge the two sorted index arrays, a component only in one position is its own value.
+    int i = 0;
+    int j = 0;
+    while (i < indices.length && j < other.indices.length) {
+      double difference;
+      if (indices[i] == other.indices[j]) {
+        difference = values[i++] - other.values[j++];
+      } else if (indices[i] < other.indices[j]) {
+        difference = values[i++];
+      } else {
+        difference = other.values[j++];
+      }
+      total += difference * difference;
+    }
+    for (; i < indices.length; i++) {
+      total += values[i] * values[i];
+    }
+    for (; j < other.indices.length; j++) {
+      total += other.values[j] * other.values[j];
+    }
+    return Math.sqrt(total);
+  }
+
+  /**
+   * Calculates the distance between this and a Position that stores all of its components, 
+   * visiting the dense components of the Position once.
+   * @param densePosition - The Position to get the distance to.
+   * @return Double - Euclidean distance between the two positions.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  @Override
+  protected Double getDistanceToDense(Position densePosition)
+      throws IncomparableComponentsException {
+    Double[] otherComponents = densePosition.getComponents();
+    if (dimensions != otherComponents.length) {
+      throw new IncomparableComponentsException();
+    }
+    double total = 0.0;
+    int next = 0;
+    for (int component = 0; component < dimensions; component++) {
+      double difference = otherComponents[component];
+      if (next < indices.length && indices[next] == component) {
+        difference -= values[next++];
+      }
+      total += difference * difference;
+    }
+    return Math.sqrt(total);
+  }
+
+  /**
+   * Generates a hash code for the Sparse Position Object.
+   * This is the same as the hash code of a Position with the same dense components.
+   * @return int - hash code for this Sparse Position.
+   */
+  @Override
+  public int hashCode() {
+    //Follows Arrays.hashCode, where a zero component has a hash code of 0.
+    int componentsHash = 1;
+    int next = 0;
+    for (int component = 0; component < dimensions; component++) {
+      componentsHash *= 31;
+      if (next < indices.length && indices[next] == component) {
+        componentsHash += Double.hashCode(values[next++]);
+      }
+    }
+    return Objects.hash(getID()) + componentsHash;
+  }
+
+  /**
+   * Returns the values of the Sparse Position in a formatted String.
+   * @return String - formatted values of the Sparse Position.
+   */
+  @Override
+  public String toString() {
+    return "ID: " + getID() + ", Dimensions: " + dimensions + ", Indices: "
+        + Arrays.toString(indices) + ", Values: " + Arrays.toString(values);
+  }
+
+  /**
+   * Returns the equality of an Object and this Sparse Position.
+   * A sparse position is equal to a Position with the same ID and dense components.
+   * @param obj - Object to compare the Sparse Position against.
+   * @return boolean - Result of the equality test between the Object and Sparse Position.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof Position)) {
+      return false;
+    }
+    Position otherPos = (Position) obj;
+    return getID().equals(otherPos.getID()) && otherPos.equalComponents(this);
+  }
+
+  /**
+   * Checks if the components of this and another Position are equal.
+   * @param other - The Position to compare against.
+   * @return - Result of the equality check between the components.
+   */
+  @Override
+  public boolean equalComponents(Position other) {
+    other = WeightedPosition.unwrap(other);
+    if (other instanceof SparsePosition) {
+      SparsePosition otherSparse = (SparsePosition) other;
+      return dimensions == otherSparse.dimensions && Arrays.equals(indices, otherSparse.indices)
+          && Arrays.equals(values, otherSparse.values);
+    }
+    return Arrays.equals(getComponents(), other.getComponents());
+  }
+}
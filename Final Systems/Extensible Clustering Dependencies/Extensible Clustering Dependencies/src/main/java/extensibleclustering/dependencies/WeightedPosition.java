@@ -0,0 +1,204 @@
+package extensibleclustering.dependencies;
+
+import java.util.Arrays;
+
+/**
+ * Class for storing a position that stands in for several positions of the original data,
+ * e.g. when duplicate positions have been collapsed into one.
+ * The weight is the number of positions it stands in for, and is used by clustering
+ * algorithms when averaging positions. The IDs of the positions it stands in for are kept,
+ * so the results can be output with the original IDs.
+ * The ID and components are those of the position it wraps, so a weighted position is
+ * equal to the position it wraps, whatever its weight.
+ * @author David Cook
+ * @version 0.1
+ */
+public class WeightedPosition extends Position {
+
+  private final Position position;
+  private final double weight;
+  private final String[] memberIds;
+
+  /**
+   * Creates a new instance of the weighted position class.
+   * @param position - The position that stands in for the members.
+   * @param weight - The weight of the position, must be positive.
+   * @param memberIds - The IDs of the positions this stands in for.
+   */
+  public WeightedPosition(Position position, double weight, String[] memberIds) {
+    super(position == null ? null : position.getID());
+    if (position instanceof WeightedPosition || position instanceof SketchPosition) {
+      throw new IllegalArgumentException("Only positions with components can be weighted");
+    }
+    if (!(weight > 0.0) || Double.isInfinite(weight)) {
+      throw new IllegalArgumentException("The weight must be a positive number");
+    }
+    if (memberIds == null || memberIds.length == 0 || Arrays.asList(memberIds).contains(null)) {
+      throw new IllegalArgumentException("There must be at least one member ID");
+    }
+    this.position = position;
+    this.weight = weight;
+    this.memberIds = memberIds.clone();
+  }
+
+  /**
+   * Returns the weight of a position, which is 1 for a position that is not weighted.
+   * @param position - The position to get the weight of.
+   * @return double - The weight of the position.
+   */
+  public static double getWeight(Position position) {
+    return position instanceof WeightedPosition ? ((WeightedPosition) position).weight : 1.0;
+  }
+
+  /**
+   * Returns the IDs of the original positions a position stands in for.
+   * This is only the ID of the position if it is not weighted.
+   * @param position - The position to get the member IDs of.
+   * @return String[] - The IDs of the original positions.
+   */
+  public static String[] getMemberIDs(Position position) {
+    return position instanceof WeightedPosition ? ((WeightedPosition) position).getMemberIDs()
+        : new String[] {position.getID()};
+  }
+
+  /**
+   * Returns the position that is wrapped by a position, or the position itself if it is
+   * not weighted.
+   * @param position - The position to unwrap.
+   * @return Position - The position without its weight.
+   */
+  public static Position unwrap(Position position) {
+    return position instanceof WeightedPosition ? ((WeightedPosition) position).position
+        : position;
+  }
+
+  /**
+   * Returns the weight of this position.
+   * @return double - The weight of this position.
+   */
+  public double getWeight() {
+    return weight;
+  }
+
+  /**
+   * Returns the IDs of the original positions this position stands in for.
+   * @return String[] - The IDs of the original positions.
+   */
+  public String[] getMemberIDs() {
+    return memberIds.clone();
+  }
+
+  /**
+   * Returns the position this position wraps.
+   * @return Position - The position without its weight.
+   */
+  public Position getPosition() {
+    return position;
+  }
+
+  /**
+   * Return the components for this position.
+   * @return Double[] - The components of the position that is wrapped.
+   */
+  @Override
+  public Double[] getComponents() {
+    return position.getComponents();
+  }
+
+  /**
+   * Returns the number of dimensions of this position.
+   * @return int - The number of dimensions of the position that is wrapped.
+   */
+  @Override
+  public int getDimensions() {
+    return position.getDimensions();
+  }
+
+  /**
+   * Calculates the distance between the wrapped position and another position.
+   * The weights do not change the distance.
+   * @param otherPosition - Position to get the distance between.
+   * @return Double - Euclidean distance between the two positions.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  @Override
+  public Double getDistance(Position otherPosition) throws IncomparableComponentsException {
+    return position.getDistance(unwrap(otherPosition));
+  }
+
+  /**
+   * Calculates the distance between the wrapped position and a Position.
+   * @param densePosition - The Position to get the distance to.
+   * @return Double - The distance between the two positions.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  @Override
+  protected Double getDistanceToDense(Position densePosition)
+      throws IncomparableComponentsException {
+    return position.getDistanceToDense(densePosition);
+  }
+
+  /**
+   * Calculates the distance between the wrapped position and a SparsePosition.
+   * @param sparsePosition - The SparsePosition to get the distance to.
+   * @return Double - The distance between the two positions.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  @Override
+  protected Double getDistanceToSparse(SparsePosition sparsePosition)
+      throws IncomparableComponentsException {
+    return position.getDistanceToSparse(sparsePosition);
+  }
+
+  /**
+   * Calculates the distance between the wrapped position and a SketchPosition.
+   * @param sketchPosition - The SketchPosition to get the distance to.
+   * @return Double - The distance between the two positions.
+   * @throws IncomparableComponentsException - Thrown if the Positions cannot be compared.
+   */
+  @Override
+  protected Double getDistanceToSketch(SketchPosition sketchPosition)
+      throws IncomparableComponentsException {
+    return position.getDistanceToSketch(sketchPosition);
+  }
+
+  /**
+   * Generates a hash code for the Weighted Position Object.
+   * @return int - hash code of the position that is wrapped.
+   */
+  @Override
+  public int hashCode() {
+    return position.hashCode();
+  }
+
+  /**
+   * Returns the values of the Weighted Position in a formatted String.
+   * @return String - formatted values of the Weighted Position.
+   */
+  @Override
+  public String toString() {
+    return position.toString() + ", Weight: " + weight + ", Members: "
+        + Arrays.toString(memberIds);
+  }
+
+  /**
+   * Returns the equality of an Object and this Weighted Position.
+   * The weights are not compared, so this is equal to the position it wraps.
+   * @param obj - Object to compare the Weighted Position against.
+   * @return boolean - Result of the equality test between the Object and the wrapped position.
+   */
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof Position && position.equals(unwrap((Position) obj));
+  }
+
+  /**
+   * Checks if the components of the wrapped position and another Position are equal.
+   * @param other - The Position to compare against.
+   * @return - Result of the equality check between the components.
+   */
+  @Override
+  public boolean equalComponents(Position other) {
+    return position.equalComponents(unwrap(other));
+  }
+}
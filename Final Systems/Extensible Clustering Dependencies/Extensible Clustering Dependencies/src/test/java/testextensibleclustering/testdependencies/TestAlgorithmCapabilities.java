@@ -0,0 +1,82 @@
+package testextensibleclustering.testdependencies;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.AlgorithmCapabilities;
+import extensibleclustering.dependencies.AlgorithmCapabilities.Complexity;
+import org.junit.Test;
+
+/**
+ * Test class for creating / developing the algorithm capabilities class.
+ * @author David Cook
+ */
+public class TestAlgorithmCapabilities {
+
+  /**
+   * Test the number of units of each complexity.
+   */
+  @Test
+  public void testComplexity() {
+    assertEquals("Could not get the units of constant", 1.0, Complexity.CONSTANT.of(8), 0.0);
+    assertEquals("Could not get the units of linear", 8.0, Complexity.LINEAR.of(8), 0.0);
+    assertEquals("Could not get the units of linearithmic", 24.0,
+        Complexity.LINEARITHMIC.of(8), 1e-9);
+    assertEquals("Could not get the units of quadratic", 64.0, Complexity.QUADRATIC.of(8), 0.0);
+    assertEquals("Could not get the units of cubic", 512.0, Complexity.CUBIC.of(8), 0.0);
+  }
+
+  /**
+   * Test the memory and operations estimated from the capabilities.
+   */
+  @Test
+  public void testEstimates() {
+    AlgorithmCapabilities capabilities = new AlgorithmCapabilities(Complexity.QUADRATIC, 8,
+        Complexity.CUBIC, Integer.MAX_VALUE, true);
+    assertEquals("Could not estimate the memory", 80_000L, capabilities.estimateMemory(100));
+    assertEquals("Could not estimate the operations", 3_000_000.0,
+        capabilities.estimateOperations(100, 3), 0.0);
+    assertEquals("Could not get the most threads", Integer.MAX_VALUE,
+        capabilities.getMaxThreads());
+    assertTrue("Could not get if the algorithm streams", capabilities.isStreaming());
+  }
+
+  /**
+   * Test the capabilities of an algorithm for data it has to load, which should be the
+   * same apart from streaming.
+   */
+  @Test
+  public void testWithoutStreaming() {
+    AlgorithmCapabilities capabilities = new AlgorithmCapabilities(Complexity.LINEAR, 32,
+        Complexity.QUADRATIC, 4, true).withoutStreaming();
+    assertFalse("Could not stop streaming", capabilities.isStreaming());
+    assertEquals("Could not keep the memory", 3200L, capabilities.estimateMemory(100));
+    assertEquals("Could not keep the operations", 20_000.0,
+        capabilities.estimateOperations(100, 2), 0.0);
+    assertEquals("Could not keep the most threads", 4, capabilities.getMaxThreads());
+    assertSame("Could not keep capabilities that do not stream",
+        AlgorithmCapabilities.UNKNOWN, AlgorithmCapabilities.UNKNOWN.withoutStreaming());
+  }
+
+  /**
+   * Test the capabilities of an algorithm that does not describe itself.
+   */
+  @Test
+  public void testUnknown() {
+    assertEquals("Could not count only the data", 0L,
+        AlgorithmCapabilities.UNKNOWN.estimateMemory(1_000_000));
+    assertEquals("Could not run on a single thread", 1,
+        AlgorithmCapabilities.UNKNOWN.getMaxThreads());
+    assertFalse("Could not load the data", AlgorithmCapabilities.UNKNOWN.isStreaming());
+  }
+
+  /**
+   * Test to create capabilities without any threads. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testNoThreads() {
+    new AlgorithmCapabilities(Complexity.LINEAR, 8, Complexity.LINEAR, 0, false);
+  }
+}
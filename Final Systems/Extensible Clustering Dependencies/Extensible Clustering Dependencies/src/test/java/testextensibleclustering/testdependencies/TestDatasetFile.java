@@ -0,0 +1,203 @@
+package testextensibleclustering.testdependencies;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.DatasetFile;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import extensibleclustering.dependencies.SketchPosition;
+import java.io.File;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for saving and loading Positions with the dataset file class.
+ * @author David Cook
+ */
+public class TestDatasetFile {
+
+  private Path testFile;
+  private Position[] testData;
+
+  /**
+   * Setup the file and data before they are used in each test.
+   */
+  @Before
+  public void setUp() {
+    testFile = Paths.get("target" + File.separator + "TestDatasetFile.ecds");
+    testData = new Position[] {
+        new Position("1", new Double[] {1.0, 2.0, 3.0}),
+        new Position("ID with spaces é", new Double[] {-4.5, Double.NaN, 6.25}),
+        new Position("3", new Double[] {0.0, 0.0, Double.MAX_VALUE})
+    };
+  }
+
+  /**
+   * Remove the file created in the tests if it exists.
+   * @throws IOException - Thrown if the file cannot be deleted.
+   */
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(testFile);
+  }
+
+  /**
+   * Test to try and save and load Positions.
+   * The loaded Positions should be equal to those saved, in the same order.
+   * @throws IOException - Thrown if the file cannot be written or read.
+   */
+  @Test
+  public void testWriteAndRead() throws IOException {
+    DatasetFile.write(testFile, testData, "metadata");
+    assertArrayEquals("Could not load the same Positions that were saved",
+        testData, DatasetFile.read(testFile));
+  }
+
+  /**
+   * Test to try and read the metadata saved with the Positions.
+   * @throws IOException - Thrown if the file cannot be written or read.
+   */
+  @Test
+  public void testReadMetadata() throws IOException {
+    DatasetFile.write(testFile, testData, "parser=Test|version=1");
+    assertEquals("Could not read the metadata saved with the Positions",
+        "parser=Test|version=1", DatasetFile.readMetadata(testFile));
+  }
+
+  /**
+   * Test to try and save and load sketches of different sizes.
+   * The sketches should be loaded as SketchPositions with the same hashes and k-mer length.
+   * @throws IOException - Thrown if the file cannot be written or read.
+   */
+  @Test
+  public void testWriteAndReadSketches() throws IOException {
+    Position[] sketches = new Position[] {
+        new SketchPosition("1", new long[] {1, 5, SketchPosition.HASH_LIMIT - 1}, 21),
+        new SketchPosition("2", new long[] {2}, 21),
+        new SketchPosition("3", new long[] {}, 21)
+    };
+    DatasetFile.write(testFile, sketches, "");
+    Position[] result = DatasetFile.read(testFile);
+    assertArrayEquals("Could not load the same sketches that were saved", sketches, result);
+    assertTrue("Could not load the sketches as SketchPositions",
+        result[0] instanceof SketchPosition);
+  }
+
+  /**
+   * Test to try and save and load an empty dataset.
+   * @throws IOException - Thrown if the file cannot be written or read.
+   */
+  @Test
+  public void testWriteAndReadEmpty() throws IOException {
+    DatasetFile.write(testFile, new Position[0], "");
+    assertEquals("Could not load an empty dataset", 0, DatasetFile.read(testFile).length);
+  }
+
+  /**
+   * Test to check which data is supported.
+   * Positions and SketchPositions are supported, but null data and subclasses are not.
+   */
+  @Test
+  public void testIsSupported() {
+    assertTrue("Could not support Positions", DatasetFile.isSupported(testData));
+    assertFalse("Null data should not be supported", DatasetFile.isSupported(null));
+    assertFalse("Unknown subclasses of Position should not be supported",
+        DatasetFile.isSupported(new Position[] {new Position("1", new Double[] {1.0}) { }}));
+  }
+
+  /**
+   * Test to try and read a block of rows from the columns of a dataset file,
+   * along with the IDs of the rows.
+   * @throws IOException - Thrown if the file cannot be written or read.
+   */
+  @Test
+  public void testReadColumns() throws IOException {
+    DatasetFile.write(testFile, testData, "metadata");
+    try (DatasetFile.Columns columns = DatasetFile.openColumns(testFile)) {
+      assertEquals("Could not get the number of rows", 3, columns.getRows());
+      assertEquals("Could not get the number of columns", 3, columns.getWidth());
+      assertTrue("Could not find every row is full width", columns.isDense());
+      DoubleBuffer[] block = columns.mapBlock(1, 3);
+      assertEquals("Could not map the block of rows", 2, block[0].remaining());
+      assertEquals("Could not read the first column of the block", -4.5, block[0].get(0), 0.0);
+      assertEquals("Could not read the last column of the block",
+          Double.MAX_VALUE, block[2].get(1), 0.0);
+      Iterator<String> ids = columns.readIDs();
+      for (Position position : testData) {
+        assertEquals("Could not read the IDs in order", position.getID(), ids.next());
+      }
+      assertFalse("Could not stop after the last ID", ids.hasNext());
+    }
+  }
+
+  /**
+   * Test the columns of sketches of different sizes are not dense.
+   * @throws IOException - Thrown if the file cannot be written or read.
+   */
+  @Test
+  public void testReadColumnsSketches() throws IOException {
+    DatasetFile.write(testFile, new Position[] {new SketchPosition("1", new long[] {1, 2}, 21),
+        new SketchPosition("2", new long[] {3}, 21)}, "");
+    try (DatasetFile.Columns columns = DatasetFile.openColumns(testFile)) {
+      assertFalse("Sketches should not be dense", columns.isDense());
+    }
+  }
+
+  /**
+   * Test to try and stream the Positions and sketches saved in a dataset file.
+   * The source should know how many Positions there are, and give them in order.
+   * @throws IOException - Thrown if the file cannot be written or read.
+   */
+  @Test
+  public void testOpenSource() throws IOException {
+    Position[] mixed = {testData[0], new SketchPosition("2", new long[] {1, 2}, 21),
+        new SketchPosition("3", new long[] {3}, 15)};
+    DatasetFile.write(testFile, mixed, "");
+    try (PositionSource source = DatasetFile.openSource(testFile)) {
+      Spliterator<Position> positions = source.spliterator();
+      assertEquals("Could not get the number of Positions", 3,
+          positions.getExactSizeIfKnown());
+      List<Position> streamed = new ArrayList<>();
+      positions.forEachRemaining(streamed::add);
+      assertArrayEquals("Could not stream the Positions in order", mixed,
+          streamed.toArray(new Position[0]));
+      assertEquals("Could not read the k-mer length of the sketch", 15,
+          ((SketchPosition) streamed.get(2)).getKmerLength());
+    }
+  }
+
+  /**
+   * Test to try and read the columns of a file that is not a dataset file.
+   * This should throw an IOException.
+   * @throws IOException - Thrown as the file is not a dataset file.
+   */
+  @Test (expected = IOException.class)
+  public void testReadColumnsInvalidFile() throws IOException {
+    Files.write(testFile, "Not a dataset".getBytes());
+    DatasetFile.openColumns(testFile);
+  }
+
+  /**
+   * Test to try and read a file that is not a dataset file.
+   * This should throw an IOException.
+   * @throws IOException - Thrown as the file is not a dataset file.
+   */
+  @Test (expected = IOException.class)
+  public void testReadInvalidFile() throws IOException {
+    Files.write(testFile, "Not a dataset".getBytes());
+    DatasetFile.read(testFile);
+  }
+}
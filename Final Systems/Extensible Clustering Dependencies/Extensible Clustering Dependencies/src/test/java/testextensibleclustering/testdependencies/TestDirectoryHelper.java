@@ -27,6 +27,7 @@ public class TestDirectoryHelper {
   static Path extensibleHome;
   static Path outputDirectory;
   static Path pluginDirectory;
+  static Path cacheDirectory;
   
   /**
    * Remove all of the files if there are some existing from before the tests are run, 
@@ -60,6 +61,8 @@ public class TestDirectoryHelper {
         + "Output");
     pluginDirectory = Paths.get(extensibleHome.toString() + File.separator
         + "Plugins");
+    cacheDirectory = Paths.get(extensibleHome.toString() + File.separator
+        + "Cache");
   }
   
   /**
@@ -128,5 +131,33 @@ public class TestDirectoryHelper {
     assertEquals("Could not get the correct plugin folder path",
         pluginDirectory.toString(), testHelper.getPlugInDirectory().toString());
   }
+  
+  /**
+   * Test to try and get the cache folder path.
+   * This should be the same as the folder in the test class.
+   */
+  @Test
+  public void testGetCacheDirectory() {
+    assertEquals("Could not get the correct cache folder path",
+        cacheDirectory.toString(), testHelper.getCacheDirectory().toString());
+  }
+  
+  /**
+   * Test to try and create output files with the same name.
+   * Each should be given a different file.
+   * @throws IOException - Thrown if the files cannot be created.
+   */
+  @Test
+  public void testCreateOutputFile() throws IOException {
+    Path directory = Files.createTempDirectory("output");
+    Path first = DirectoryHelper.createOutputFile(directory, "K-Means", ".tsv");
+    Path second = DirectoryHelper.createOutputFile(directory, "K-Means", ".tsv");
+    assertEquals("Could not create the output file", directory.resolve("K-Means.tsv"), first);
+    assertEquals("Could not create a second output file with the same name",
+        directory.resolve("K-Means-2.tsv"), second);
+    Files.delete(first);
+    Files.delete(second);
+    Files.delete(directory);
+  }
 
 }
@@ -0,0 +1,103 @@
+package testextensibleclustering.testdependencies;
+
+import static org.junit.Assert.assertEquals;
+
+import extensibleclustering.dependencies.DoubleTokenParser;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Test class for parsing numbers from bytes with the double token parser.
+ * @author David Cook
+ */
+public class TestDoubleTokenParser {
+
+  /**
+   * Parses the whole of a string with the double token parser.
+   * @param value - The string to parse.
+   * @return - The parsed number.
+   */
+  private double parse(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+    return DoubleTokenParser.parse(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Test to parse simple integers and decimals.
+   */
+  @Test
+  public void testParseDecimals() {
+    assertEquals("Could not parse an integer", 42.0, parse("42"), 0.0);
+    assertEquals("Could not parse a decimal", 1.05, parse("1.05"), 0.0);
+    assertEquals("Could not parse a negative decimal", -0.001, parse("-0.001"), 0.0);
+    assertEquals("Could not parse a positive sign", 3.5, parse("+3.5"), 0.0);
+    assertEquals("Could not parse a number without an integer part", 0.5, parse(".5"), 0.0);
+    assertEquals("Could not parse a number without a fractional part", 7.0, parse("7."), 0.0);
+  }
+
+  /**
+   * Test to parse numbers with exponents.
+   */
+  @Test
+  public void testParseExponents() {
+    assertEquals("Could not parse a positive exponent", 6e10, parse("6e10"), 0.0);
+    assertEquals("Could not parse a negative exponent", 1.5e-7, parse("1.5E-7"), 0.0);
+    assertEquals("Could not parse a large exponent", 1e300, parse("1e300"), 0.0);
+  }
+
+  /**
+   * Test to parse tokens that are handled by Double.parseDouble.
+   */
+  @Test
+  public void testParseSpecialValues() {
+    assertEquals("Could not parse NaN", Double.NaN, parse("NaN"), 0.0);
+    assertEquals("Could not parse infinity", Double.POSITIVE_INFINITY,
+        parse("Infinity"), 0.0);
+    assertEquals("Could not parse a long number",
+        Double.parseDouble("3.14159265358979323846264338"),
+        parse("3.14159265358979323846264338"), 0.0);
+  }
+
+  /**
+   * Test to check random numbers are parsed exactly as Double.parseDouble would.
+   */
+  @Test
+  public void testMatchesParseDouble() {
+    Random random = new Random(7);
+    for (int i = 0; i < 100000; i++) {
+      double value = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+      String written = i % 2 == 0 ? String.valueOf(value)
+          : String.format(Locale.ROOT, "%." + random.nextInt(10) + "f", value);
+      assertEquals("Could not parse " + written + " exactly",
+          Double.parseDouble(written), parse(written), 0.0);
+    }
+  }
+
+  /**
+   * Test to parse a number from the middle of a line.
+   */
+  @Test
+  public void testParseRange() {
+    byte[] line = "id,12.5,3".getBytes(StandardCharsets.ISO_8859_1);
+    assertEquals("Could not parse a number from the middle of a line",
+        12.5, DoubleTokenParser.parse(line, 3, 7), 0.0);
+  }
+
+  /**
+   * Test to parse a token that is not a number. This should throw a NumberFormatException.
+   */
+  @Test (expected = NumberFormatException.class)
+  public void testParseNotNumber() {
+    parse("1.2.3");
+  }
+
+  /**
+   * Test to parse an exponent without digits. This should throw a NumberFormatException.
+   */
+  @Test (expected = NumberFormatException.class)
+  public void testParseEmptyExponent() {
+    parse("1e");
+  }
+}
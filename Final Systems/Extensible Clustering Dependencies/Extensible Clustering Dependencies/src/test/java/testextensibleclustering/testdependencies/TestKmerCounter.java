@@ -0,0 +1,159 @@
+package testextensibleclustering.testdependencies;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import extensibleclustering.dependencies.KmerCounter;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/**
+ * Test class for the k-mer counting kernel used by the DNA and FASTA parsers.
+ * @author David Cook
+ */
+public class TestKmerCounter {
+  
+  /**
+   * Test to try and count codons in a sequence. 
+   * The incomplete codon at the end should not be counted.
+   */
+  @Test
+  public void testCountCodons() {
+    KmerCounter counter = new KmerCounter(3, false);
+    counter.add("acgacgtt");
+    assertEquals("Could not get the expected number of codons",
+        2, counter.getTotalKmers());
+    assertEquals("Could not get the expected count for 'acg'",
+        2, counter.getCounts()[6]);
+  }
+  
+  /**
+   * Test to try and count overlapping k-mers in a sequence.
+   * A sequence of length n should have n - k + 1 overlapping k-mers.
+   */
+  @Test
+  public void testCountOverlapping() {
+    KmerCounter counter = new KmerCounter(2, true);
+    counter.add("aaca");
+    assertEquals("Could not get the expected number of overlapping k-mers",
+        3, counter.getTotalKmers());
+    //aa = 0, ac = 1, ca = 4
+    assertEquals("Could not get the count for 'aa'", 1, counter.getCounts()[0]);
+    assertEquals("Could not get the count for 'ac'", 1, counter.getCounts()[1]);
+    assertEquals("Could not get the count for 'ca'", 1, counter.getCounts()[4]);
+  }
+  
+  /**
+   * Test to try and count a sequence that contains GenBank layout characters and upper case.
+   * The whitespace and digits should be skipped.
+   */
+  @Test
+  public void testSkipLayoutCharacters() {
+    KmerCounter withLayout = new KmerCounter(3, true);
+    withLayout.add("        1 ACGTA cgtac\n");
+    KmerCounter withoutLayout = new KmerCounter(3, true);
+    withoutLayout.add("acgtacgtac");
+    assertArrayEquals("Could not skip the layout characters in a sequence",
+        withoutLayout.getCounts(), withLayout.getCounts());
+  }
+  
+  /**
+   * Test to try and count bases given as ASCII bytes.
+   * This should give the same counts as the equivalent characters.
+   */
+  @Test
+  public void testCountBytes() {
+    byte[] bytes = ">ggcatt\n".getBytes(StandardCharsets.US_ASCII);
+    KmerCounter byteCounter = new KmerCounter(2, true);
+    byteCounter.add(bytes, 1, bytes.length - 1);
+    KmerCounter charCounter = new KmerCounter(2, true);
+    charCounter.add("ggcatt");
+    assertArrayEquals("Could not get the same counts from bytes and characters",
+        charCounter.getCounts(), byteCounter.getCounts());
+  }
+  
+  /**
+   * Test to try and get the frequencies of the k-mers.
+   * The frequencies should be the count divided by the total.
+   */
+  @Test
+  public void testGetFrequencies() {
+    KmerCounter counter = new KmerCounter(1, true);
+    counter.add("aacg");
+    assertArrayEquals("Could not get the expected frequencies",
+        new Double[] {0.5, 0.25, 0.25, 0.0}, counter.getFrequencies());
+  }
+  
+  /**
+   * Test to try and reset the counter so it can be used for another sequence.
+   */
+  @Test
+  public void testReset() {
+    KmerCounter counter = new KmerCounter(3, true);
+    counter.add("acgt");
+    counter.reset();
+    counter.add("ac");
+    assertEquals("Could not reset the counter", 0, counter.getTotalKmers());
+  }
+  
+  /**
+   * Test to try and use the largest supported k.
+   * This should have 4^12 counts.
+   */
+  @Test
+  public void testMaxKmerLength() {
+    KmerCounter counter = new KmerCounter(KmerCounter.MAX_K, true);
+    counter.add("tttttttttttttt");
+    assertEquals("Could not get the expected number of counts for the largest k",
+        16777216, counter.getCounts().length);
+    assertEquals("Could not count the k-mer of t's", 3, counter.getCounts()[16777215]);
+  }
+  
+  /**
+   * Test to try and decode a k-mer code back into its bases.
+   */
+  @Test
+  public void testDecode() {
+    assertEquals("Could not decode the k-mer code", "acgt", KmerCounter.decode(27, 4));
+  }
+  
+  /**
+   * Test to try and count overlapping k-mers in a sequence with a character that is not a
+   * base. The k-mers spanning it should be skipped, so only 'ac' and 'ga' are counted.
+   */
+  @Test
+  public void testInvalidCharacter() {
+    KmerCounter counter = new KmerCounter(2, true);
+    counter.add("acNga");
+    assertEquals("Could not skip the k-mers spanning the character", 2,
+        counter.getTotalKmers());
+    assertEquals("Could not count the k-mer before the character", 1, counter.getCounts()[1]);
+    assertEquals("Could not count the k-mer after the character", 1, counter.getCounts()[8]);
+  }
+
+  /**
+   * Test to try and count the k-mers in the reading frame of a sequence with a character 
+   * that is not a base. Only the codon containing it should be skipped, so the codons after 
+   * it stay in frame.
+   */
+  @Test
+  public void testInvalidCharacterInReadingFrame() {
+    KmerCounter counter = new KmerCounter(3, false);
+    byte[] bytes = "acg-ttaaagg".getBytes();
+    counter.add(bytes, 0, bytes.length);
+    assertEquals("Could not skip the codon containing the character", 2,
+        counter.getTotalKmers());
+    assertEquals("Could not count the codon before the character", 1, counter.getCounts()[6]);
+    assertEquals("Could not keep the codons after the character in frame", 1,
+        counter.getCounts()[0]);
+  }
+  
+  /**
+   * Test to try and create a counter with a k that is too large.
+   * This should throw an illegal argument exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testKmerLengthTooLarge() {
+    new KmerCounter(KmerCounter.MAX_K + 1, true);
+  }
+}
@@ -0,0 +1,173 @@
+package testextensibleclustering.testdependencies;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.IncomparableComponentsException;
+import extensibleclustering.dependencies.MinHashSketcher;
+import extensibleclustering.dependencies.SketchPosition;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for testing and development of the MinHash Sketcher.
+ * @author David Cook
+ */
+public class TestMinHashSketcher {
+
+  private MinHashSketcher testSketcher;
+  private String randomSequence;
+
+  @Before
+  public void setUp() throws Exception {
+    testSketcher = new MinHashSketcher(21, 100);
+    StringBuilder sequence = new StringBuilder();
+    Random random = new Random(7);
+    for (int i = 0; i < 5000; i++) {
+      sequence.append("acgt".charAt(random.nextInt(4)));
+    }
+    randomSequence = sequence.toString();
+  }
+
+  /**
+   * Sketches a sequence with a new sketcher of the same settings as the test sketcher.
+   * @param id - The ID of the sketch.
+   * @param sequence - The sequence to sketch.
+   * @return - The sketch of the sequence.
+   */
+  private SketchPosition sketch(String id, String sequence) {
+    MinHashSketcher sketcher = new MinHashSketcher(21, 100);
+    sketcher.add(sequence);
+    return sketcher.toPosition(id);
+  }
+
+  /**
+   * Test to check a long sequence produces a full sketch with the hashes in ascending order.
+   */
+  @Test
+  public void testSketchSize() {
+    testSketcher.add(randomSequence);
+    long[] hashes = testSketcher.toPosition("1").getHashes();
+    assertEquals("Could not get a full sketch", 100, hashes.length);
+    for (int i = 1; i < hashes.length; i++) {
+      assertTrue("Could not get the hashes in ascending order", hashes[i - 1] < hashes[i]);
+    }
+  }
+
+  /**
+   * Test to check a sequence shorter than k produces an empty sketch, and a sequence with
+   * fewer k-mers than the sketch size keeps every distinct k-mer.
+   */
+  @Test
+  public void testShortSequences() {
+    testSketcher.add("acgt");
+    assertEquals("Could not get an empty sketch for a short sequence",
+        0, testSketcher.toPosition("1").getHashes().length);
+    testSketcher.reset();
+    testSketcher.add(randomSequence.substring(0, 30));
+    assertEquals("Could not get a hash for each k-mer of the sequence",
+        10, testSketcher.toPosition("1").getHashes().length);
+  }
+
+  /**
+   * Test to check a sequence and its reverse complement have the same sketch,
+   * as the canonical k-mers are hashed.
+   */
+  @Test
+  public void testReverseComplement() {
+    StringBuilder reverseComplement = new StringBuilder();
+    for (int i = randomSequence.length() - 1; i >= 0; i--) {
+      reverseComplement.append("tgca".charAt("acgt".indexOf(randomSequence.charAt(i))));
+    }
+    assertArrayEquals("Could not get the same sketch for the reverse complement",
+        sketch("1", randomSequence).getHashes(),
+        sketch("2", reverseComplement.toString()).getHashes());
+  }
+
+  /**
+   * Test to check the sketch is not affected by case, whitespace or base numbers,
+   * and that bytes are sketched the same as characters.
+   */
+  @Test
+  public void testLayoutAndBytes() {
+    SketchPosition expected = sketch("1", randomSequence);
+    String layout = "1 " + randomSequence.substring(0, 2500).toUpperCase() + "\n61 "
+        + randomSequence.substring(2500);
+    assertArrayEquals("Could not get the same sketch with layout characters",
+        expected.getHashes(), sketch("1", layout).getHashes());
+    byte[] bytes = layout.getBytes();
+    testSketcher.add(bytes, 0, bytes.length);
+    assertArrayEquals("Could not get the same sketch from bytes",
+        expected.getHashes(), testSketcher.toPosition("1").getHashes());
+  }
+
+  /**
+   * Test to check a sequence with a few mutations is closer to the original than an
+   * unrelated sequence.
+   * @throws IncomparableComponentsException - Thrown if the sketches cannot be compared.
+   */
+  @Test
+  public void testMutatedSequenceIsCloser() throws IncomparableComponentsException {
+    char[] mutated = randomSequence.toCharArray();
+    for (int i = 0; i < mutated.length; i += 500) {
+      mutated[i] = mutated[i] == 'a' ? 'c' : 'a';
+    }
+    StringBuilder unrelated = new StringBuilder(randomSequence).reverse();
+    SketchPosition original = sketch("1", randomSequence);
+    double mutatedDistance = original.getDistance(sketch("2", new String(mutated)));
+    double unrelatedDistance = original.getDistance(sketch("3", unrelated.toString()));
+    assertTrue("Could not get a small distance to the mutated sequence",
+        mutatedDistance > 0.0 && mutatedDistance < 0.05);
+    assertTrue("Could not get a larger distance to the unrelated sequence",
+        unrelatedDistance > mutatedDistance);
+  }
+
+  /**
+   * Test to try and sketch a sequence with a character that is not a base.
+   * The k-mers spanning it should not be hashed, so the sketch should be the same as 
+   * sketching the bases before it, as there are too few bases after it for a k-mer.
+   */
+  @Test
+  public void testInvalidCharacter() {
+    String before = randomSequence.substring(0, 25);
+    testSketcher.add(before + "N" + randomSequence.substring(26, 40));
+    assertArrayEquals("Could not skip the k-mers spanning the character",
+        sketch("1", before).getHashes(), testSketcher.toPosition("1").getHashes());
+    testSketcher.reset();
+    byte[] bytes = (before + "-" + randomSequence.substring(26, 40)).getBytes();
+    testSketcher.add(bytes, 0, bytes.length);
+    assertArrayEquals("Could not skip the k-mers spanning the byte",
+        sketch("1", before).getHashes(), testSketcher.toPosition("1").getHashes());
+  }
+
+  /**
+   * Test to try and create a sketcher with an unsupported k-mer length.
+   * This should throw an illegal argument exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testUnsupportedKmerLength() {
+    new MinHashSketcher(MinHashSketcher.MAX_K + 1, 100);
+  }
+
+  /**
+   * Test to try and create a sketcher with an empty sketch size.
+   * This should throw an illegal argument exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidSketchSize() {
+    new MinHashSketcher(21, 0);
+  }
+
+  /**
+   * Test to check the largest k-mer length can be sketched.
+   */
+  @Test
+  public void testLargestKmerLength() {
+    MinHashSketcher sketcher = new MinHashSketcher(MinHashSketcher.MAX_K, 10);
+    sketcher.add(randomSequence);
+    assertEquals("Could not get a full sketch with the largest k-mer length",
+        10, sketcher.toPosition("1").getHashes().length);
+  }
+}
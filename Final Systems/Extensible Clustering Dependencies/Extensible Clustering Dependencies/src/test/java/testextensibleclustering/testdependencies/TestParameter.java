@@ -0,0 +1,107 @@
+package testextensibleclustering.testdependencies;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import extensibleclustering.dependencies.Parameter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for creating / developing the parameter class.
+ * @author David Cook
+ */
+public class TestParameter {
+
+  private Parameter clusters;
+  private Parameter tolerance;
+  private Parameter delimiter;
+  private Parameter idFile;
+  private List<Parameter> schema;
+
+  /**
+   * Setup the parameters before they are used in each test.
+   */
+  @Before
+  public void setUp() {
+    clusters = Parameter.ofInt("clusters", "The number of clusters", 0, 0, 100);
+    tolerance = Parameter.ofDouble("tolerance", "The tolerance", 0.05, 0.0, 1.0);
+    delimiter = Parameter.ofEnum("delimiter", "The delimiter", "Comma", "Comma", "Tab");
+    idFile = Parameter.ofText("idFile", "The file of IDs", "");
+    schema = Arrays.asList(clusters, tolerance, delimiter);
+  }
+
+  /**
+   * Test the defaults are used for the parameters that are not given.
+   */
+  @Test
+  public void testResolveDefaults() {
+    Map<String, Object> values = new HashMap<>();
+    values.put("clusters", 12);
+    Map<String, Object> resolved = Parameter.resolve(schema, values);
+    assertEquals("Could not resolve the values in the order of the parameters",
+        Arrays.asList("clusters", "tolerance", "delimiter"),
+        Arrays.asList(resolved.keySet().toArray()));
+    assertEquals("Could not keep the value given", 12, resolved.get("clusters"));
+    assertEquals("Could not use the default double", 0.05, resolved.get("tolerance"));
+    assertEquals("Could not use the default option", "Comma", resolved.get("delimiter"));
+    assertEquals("Could not resolve no values", 3, Parameter.resolve(schema, null).size());
+  }
+
+  /**
+   * Test values are parsed from text and converted to their type.
+   */
+  @Test
+  public void testParse() {
+    assertEquals("Could not parse an int", 12, clusters.parse(" 12"));
+    assertEquals("Could not parse a double", 0.5, tolerance.parse("0.5"));
+    assertEquals("Could not parse an option", "Tab", delimiter.parse("Tab"));
+    assertEquals("Could not parse text", " ids 1.txt", idFile.parse(" ids 1.txt"));
+    assertEquals("Could not accept an int for a double", 1.0, tolerance.check(1));
+  }
+
+  /**
+   * Test invalid values are rejected with a message naming the parameter.
+   */
+  @Test
+  public void testInvalidValues() {
+    assertInvalid(() -> clusters.parse("101"), "The value of clusters must be between 0 and 100");
+    assertInvalid(() -> clusters.parse("two"), "The value of clusters must be a number");
+    assertInvalid(() -> clusters.check(1.5), "The value of clusters must be an int");
+    assertInvalid(() -> tolerance.check(Double.NaN),
+        "The value of tolerance must be between 0.0 and 1.0");
+    assertInvalid(() -> delimiter.parse("Space"),
+        "The value of delimiter must be one of [Comma, Tab]");
+    assertInvalid(() -> idFile.check(1), "The value of idFile must be text");
+    assertInvalid(() -> Parameter.resolve(schema, Collections.singletonMap("k", 2)),
+        "There is no parameter named k");
+  }
+
+  /**
+   * Test to create a parameter with a default outside of its range.
+   * This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidDefault() {
+    Parameter.ofInt("clusters", "The number of clusters", -1, 0, 100);
+  }
+
+  /**
+   * Asserts that running the code throws an IllegalArgumentException with the message.
+   * @param invalid - The code that should throw the exception.
+   * @param message - The message the exception should have.
+   */
+  private void assertInvalid(Runnable invalid, String message) {
+    try {
+      invalid.run();
+      fail("Could not reject the value: " + message);
+    } catch (IllegalArgumentException e) {
+      assertEquals("Could not describe the invalid value", message, e.getMessage());
+    }
+  }
+}
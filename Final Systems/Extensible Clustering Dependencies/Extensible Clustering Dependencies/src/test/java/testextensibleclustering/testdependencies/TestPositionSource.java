@@ -0,0 +1,156 @@
+package testextensibleclustering.testdependencies;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.Centroid;
+import extensibleclustering.dependencies.ClusteringAlgorithm;
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for streaming Positions with the position source interface.
+ * @author David Cook
+ */
+public class TestPositionSource {
+
+  private Position[] testData;
+
+  /**
+   * Setup the data before it is used in each test.
+   */
+  @Before
+  public void setUp() {
+    testData = new Position[5];
+    for (int i = 0; i < testData.length; i++) {
+      testData[i] = new Position(String.valueOf(i), new Double[] {(double) i, (double) -i});
+    }
+  }
+
+  /**
+   * Test to check a source of an array is sized and keeps the order of the array.
+   */
+  @Test
+  public void testOfArray() {
+    Spliterator<Position> positions = PositionSource.of(testData).spliterator();
+    assertTrue("Could not get a sized source of an array",
+        positions.hasCharacteristics(Spliterator.SIZED | Spliterator.ORDERED));
+    assertEquals("Could not get the size of the source", 5, positions.getExactSizeIfKnown());
+    assertArrayEquals("Could not stream the Positions in order",
+        testData, PositionSource.of(testData).stream().toArray(Position[]::new));
+  }
+
+  /**
+   * Test to try and create a source of a null array. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testOfNull() {
+    PositionSource.of(null);
+  }
+
+  /**
+   * Test to read a source into an array.
+   */
+  @Test
+  public void testToArray() {
+    assertArrayEquals("Could not read the source into an array",
+        testData, PositionSource.of(testData).toArray());
+  }
+
+  /**
+   * Test to read a source in chunks. The last chunk should hold the remaining Positions.
+   */
+  @Test
+  public void testForEachChunk() {
+    List<Position[]> chunks = new ArrayList<>();
+    PositionSource.of(testData).forEachChunk(2, chunks::add);
+    assertEquals("Could not get the expected number of chunks", 3, chunks.size());
+    assertArrayEquals("Could not get the expected first chunk",
+        new Position[] {testData[0], testData[1]}, chunks.get(0));
+    assertArrayEquals("Could not get the expected last chunk",
+        new Position[] {testData[4]}, chunks.get(2));
+  }
+
+  /**
+   * Test to try and read a source in chunks of 0. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidChunkSize() {
+    PositionSource.of(testData).forEachChunk(0, chunk -> { });
+  }
+
+  /**
+   * Test the default source of a parser, which should return the Positions from parseFile.
+   * @throws IOException - Thrown if the file cannot be parsed.
+   */
+  @Test
+  public void testParserDefaultSource() throws IOException {
+    Parser parser = new Parser() {
+      @Override
+      public Position[] parseFile(File file) {
+        return testData;
+      }
+
+      @Override
+      public String getName() {
+        return "Test";
+      }
+
+      @Override
+      public String getDescription() {
+        return "Test";
+      }
+
+      @Override
+      public ArrayList<String> getSupportedFileExtensions() {
+        return new ArrayList<>();
+      }
+    };
+    try (PositionSource source = parser.openSource(null)) {
+      assertArrayEquals("Could not get the parsed Positions from the default source",
+          testData, source.toArray());
+    }
+  }
+
+  /**
+   * Test the default streaming clustering, which should cluster every Position in the source.
+   */
+  @Test
+  public void testClusteringDefaultSource() {
+    ClusteringAlgorithm algorithm = new ClusteringAlgorithm() {
+      @Override
+      public Centroid[] clusterData(Position[] data, String fileName) {
+        assertArrayEquals("Could not pass every Position to the clustering algorithm",
+            testData, data);
+        return new Centroid[0];
+      }
+
+      @Override
+      public Path getLastOutputFile() {
+        return null;
+      }
+
+      @Override
+      public String getName() {
+        return "Test";
+      }
+
+      @Override
+      public String getDescription() {
+        return "Test";
+      }
+    };
+    assertEquals("Could not get the clusters from the default streaming clustering",
+        0, algorithm.clusterSource(PositionSource.of(testData), "Test").length);
+  }
+}
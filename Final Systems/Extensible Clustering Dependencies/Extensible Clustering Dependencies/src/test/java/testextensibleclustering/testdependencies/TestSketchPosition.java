@@ -0,0 +1,181 @@
+package testextensibleclustering.testdependencies;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.IncomparableComponentsException;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SketchPosition;
+import extensibleclustering.dependencies.SparsePosition;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for creating / developing the sketch position class.
+ * @author David Cook
+ */
+public class TestSketchPosition {
+
+  private SketchPosition testSketch;
+  private SketchPosition duplicateSketch;
+  private SketchPosition halfSharedSketch;
+  private SketchPosition disjointSketch;
+
+  /**
+   * Setup the variables before they are used in each test.
+   * @throws Exception - thrown if the classes cannot be constructed.
+   */
+  @Before
+  public void setUp() throws Exception {
+    testSketch = new SketchPosition("1", new long[] {1, 3, 5, 7}, 21);
+    duplicateSketch = new SketchPosition("2", new long[] {1, 3, 5, 7}, 21);
+    halfSharedSketch = new SketchPosition("3", new long[] {1, 2, 3, 4}, 21);
+    disjointSketch = new SketchPosition("4", new long[] {8, 9, 10, 11}, 21);
+  }
+
+  /**
+   * Test to check the hashes are stored exactly as the components.
+   */
+  @Test
+  public void testComponentsAreHashes() {
+    long largestHash = SketchPosition.HASH_LIMIT - 1;
+    SketchPosition sketch = new SketchPosition("1", new long[] {0, largestHash}, 21);
+    assertArrayEquals("Could not get the hashes as the components",
+        new Double[] {0.0, (double) largestHash}, sketch.getComponents());
+    assertEquals("Could not get the largest hash back from the components",
+        largestHash, sketch.getComponents()[1].longValue());
+    assertArrayEquals("Could not get the hashes of the sketch",
+        new long[] {0, largestHash}, sketch.getHashes());
+  }
+
+  /**
+   * Test to check the Jaccard index of identical sketches is 1, and the distance is 0.
+   * @throws IncomparableComponentsException - Thrown if the sketches cannot be compared.
+   */
+  @Test
+  public void testIdenticalSketches() throws IncomparableComponentsException {
+    assertEquals("Could not get the expected Jaccard index of identical sketches",
+        1.0, testSketch.getJaccardIndex(duplicateSketch), 0.0);
+    assertEquals("Could not get the expected distance between identical sketches",
+        0.0, testSketch.getDistance(duplicateSketch), 0.0);
+  }
+
+  /**
+   * Test to check the Jaccard index of sketches sharing some hashes.
+   * The smallest 4 hashes of the union are 1, 2, 3 and 4, of which 1 and 3 are shared.
+   * @throws IncomparableComponentsException - Thrown if the sketches cannot be compared.
+   */
+  @Test
+  public void testPartiallySharedSketches() throws IncomparableComponentsException {
+    assertEquals("Could not get the expected Jaccard index",
+        0.5, testSketch.getJaccardIndex(halfSharedSketch), 0.0);
+    double expected = -Math.log(2.0 * 0.5 / 1.5) / 21;
+    assertEquals("Could not get the expected Mash distance",
+        expected, testSketch.getDistance(halfSharedSketch), 1e-12);
+    assertEquals("Could not get a symmetric Mash distance",
+        halfSharedSketch.getDistance(testSketch), testSketch.getDistance(halfSharedSketch));
+  }
+
+  /**
+   * Test to check sketches with no shared hashes have the largest distance of 1.
+   * @throws IncomparableComponentsException - Thrown if the sketches cannot be compared.
+   */
+  @Test
+  public void testDisjointSketches() throws IncomparableComponentsException {
+    assertEquals("Could not get the expected distance between disjoint sketches",
+        1.0, testSketch.getDistance(disjointSketch), 0.0);
+  }
+
+  /**
+   * Test to try and get the distance between sketches of different k-mer lengths.
+   * This should throw an incomparable components exception.
+   * @throws IncomparableComponentsException - Thrown if the sketches cannot be compared.
+   */
+  @Test (expected = IncomparableComponentsException.class)
+  public void testDifferentKmerLengths() throws IncomparableComponentsException {
+    testSketch.getDistance(new SketchPosition("5", new long[] {1, 3, 5, 7}, 16));
+  }
+
+  /**
+   * Test to try and get the distance between a sketch and a Position that is not a sketch.
+   * This should throw an incomparable components exception.
+   * @throws IncomparableComponentsException - Thrown if the positions cannot be compared.
+   */
+  @Test (expected = IncomparableComponentsException.class)
+  public void testDistanceToPosition() throws IncomparableComponentsException {
+    testSketch.getDistance(new Position("5", new Double[] {1.0, 3.0, 5.0, 7.0}));
+  }
+
+  /**
+   * Test to try and get the distance from a Position that is not a sketch to a sketch
+   * with the same number of components. This should throw an incomparable components
+   * exception rather than treating the hashes as coordinates.
+   * @throws IncomparableComponentsException - Thrown if the positions cannot be compared.
+   */
+  @Test (expected = IncomparableComponentsException.class)
+  public void testDistanceFromPosition() throws IncomparableComponentsException {
+    new Position("5", new Double[] {1.0, 3.0, 5.0, 7.0}).getDistance(testSketch);
+  }
+
+  /**
+   * Test to try and get the distance from a Sparse Position to a sketch.
+   * This should throw an incomparable components exception.
+   * @throws IncomparableComponentsException - Thrown if the positions cannot be compared.
+   */
+  @Test (expected = IncomparableComponentsException.class)
+  public void testDistanceFromSparsePosition() throws IncomparableComponentsException {
+    new SparsePosition("5", 4, new int[] {0}, new double[] {1.0}).getDistance(testSketch);
+  }
+
+  /**
+   * Test to try and create a sketch with hashes that are not in ascending order.
+   * This should throw an illegal argument exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testUnsortedHashes() {
+    new SketchPosition("1", new long[] {3, 1}, 21);
+  }
+
+  /**
+   * Test to try and create a sketch with a hash that cannot be stored exactly as a Double.
+   * This should throw an illegal argument exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testHashTooLarge() {
+    new SketchPosition("1", new long[] {SketchPosition.HASH_LIMIT}, 21);
+  }
+
+  /**
+   * Test to check the equality of sketches.
+   */
+  @Test
+  public void testEquality() {
+    assertTrue("Could not get equality of the same sketch",
+        testSketch.equals(new SketchPosition("1", new long[] {1, 3, 5, 7}, 21)));
+    assertFalse("Sketches with different IDs should not be equal",
+        testSketch.equals(duplicateSketch));
+    assertFalse("Sketches with different k-mer lengths should not be equal",
+        testSketch.equals(new SketchPosition("1", new long[] {1, 3, 5, 7}, 16)));
+    assertEquals("Could not get the same hash code for equal sketches",
+        testSketch.hashCode(), new SketchPosition("1", new long[] {1, 3, 5, 7}, 21).hashCode());
+  }
+
+  /**
+   * Test to check a sketch is not equal to a Position whose components are the same 
+   * numbers as its hashes, whichever of the two is compared against the other.
+   */
+  @Test
+  public void testEqualityWithPosition() {
+    Position position = new Position("1", new Double[] {1.0, 3.0, 5.0, 7.0});
+    SparsePosition sparse = new SparsePosition("1", 4, new int[] {0, 1, 2, 3},
+        new double[] {1.0, 3.0, 5.0, 7.0});
+    assertFalse("A sketch should not equal a Position", testSketch.equals(position));
+    assertFalse("A Position should not equal a sketch", position.equals(testSketch));
+    assertFalse("A sketch should not equal a Sparse Position", testSketch.equals(sparse));
+    assertFalse("A Sparse Position should not equal a sketch", sparse.equals(testSketch));
+    assertEquals("Could not get the number of hashes as the dimensions",
+        4, testSketch.getDimensions());
+  }
+}
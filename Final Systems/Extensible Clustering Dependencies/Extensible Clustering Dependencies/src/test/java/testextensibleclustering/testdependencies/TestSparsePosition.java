@@ -0,0 +1,194 @@
+package testextensibleclustering.testdependencies;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.Centroid;
+import extensibleclustering.dependencies.IncomparableComponentsException;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SketchPosition;
+import extensibleclustering.dependencies.SparsePosition;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for creating / developing the sparse position class.
+ * @author David Cook
+ */
+public class TestSparsePosition {
+
+  private SparsePosition testSparse;
+  private SparsePosition otherSparse;
+  private Position denseEquivalent;
+
+  /**
+   * Setup the variables before they are used in each test.
+   */
+  @Before
+  public void setUp() {
+    testSparse = new SparsePosition("1", 6, new int[] {1, 4}, new double[] {2.0, -3.0});
+    otherSparse = new SparsePosition("2", 6, new int[] {0, 4}, new double[] {1.0, 1.0});
+    denseEquivalent = new Position("1", new Double[] {0.0, 2.0, 0.0, 0.0, -3.0, 0.0});
+  }
+
+  /**
+   * Test to check the dense components include the zeros.
+   */
+  @Test
+  public void testGetComponents() {
+    assertArrayEquals("Could not get the dense components of the sparse position",
+        denseEquivalent.getComponents(), testSparse.getComponents());
+    assertEquals("Could not get the dimensions of the sparse position",
+        6, testSparse.getDimensions());
+    assertEquals("Could not get the number of non-zero components",
+        2, testSparse.getNonZeroCount());
+  }
+
+  /**
+   * Test to check zero values are not stored.
+   */
+  @Test
+  public void testZerosNotStored() {
+    SparsePosition sparse = new SparsePosition("1", 6, new int[] {1, 3, 4},
+        new double[] {2.0, 0.0, -3.0});
+    assertArrayEquals("Could not drop the zero value", new int[] {1, 4}, sparse.getIndices());
+    assertArrayEquals("Could not drop the zero value",
+        new double[] {2.0, -3.0}, sparse.getValues(), 0.0);
+  }
+
+  /**
+   * Test the distance between two sparse positions.
+   * This should be the same as the distance between the dense positions.
+   * @throws IncomparableComponentsException - Thrown if the positions cannot be compared.
+   */
+  @Test
+  public void testSparseSparseDistance() throws IncomparableComponentsException {
+    //Differences of (-1, 2, 0, 0, -4, 0) give a distance of sqrt(21).
+    assertEquals("Could not get the distance between two sparse positions",
+        Math.sqrt(21), testSparse.getDistance(otherSparse), 1e-12);
+    assertEquals("Could not get the same distance in both directions",
+        testSparse.getDistance(otherSparse), otherSparse.getDistance(testSparse), 0.0);
+  }
+
+  /**
+   * Test the distance between a sparse and dense position in both directions.
+   * @throws IncomparableComponentsException - Thrown if the positions cannot be compared.
+   */
+  @Test
+  public void testSparseDenseDistance() throws IncomparableComponentsException {
+    Position dense = new Position("2", new Double[] {1.0, 0.0, 0.0, 0.0, 1.0, 0.0});
+    assertEquals("Could not get the distance from a sparse to a dense position",
+        Math.sqrt(21), testSparse.getDistance(dense), 1e-12);
+    assertEquals("Could not get the distance from a dense to a sparse position",
+        Math.sqrt(21), dense.getDistance(testSparse), 1e-12);
+  }
+
+  /**
+   * Test random sparse positions give the same distances as their dense components.
+   * @throws IncomparableComponentsException - Thrown if the positions cannot be compared.
+   */
+  @Test
+  public void testRandomDistances() throws IncomparableComponentsException {
+    Random random = new Random(3);
+    for (int test = 0; test < 100; test++) {
+      SparsePosition first = randomSparse(random, 50);
+      SparsePosition second = randomSparse(random, 50);
+      Position firstDense = new Position("1", first.getComponents());
+      Position secondDense = new Position("2", second.getComponents());
+      assertEquals("Could not get the same distance as the dense positions",
+          firstDense.getDistance(secondDense), first.getDistance(second), 1e-9);
+      assertEquals("Could not get the same distance as the dense positions",
+          firstDense.getDistance(secondDense), first.getDistance(secondDense), 1e-9);
+    }
+  }
+
+  /**
+   * Test the distance to a position with different dimensions. This should throw an exception.
+   * @throws IncomparableComponentsException - Thrown as the positions cannot be compared.
+   */
+  @Test (expected = IncomparableComponentsException.class)
+  public void testDifferentDimensions() throws IncomparableComponentsException {
+    testSparse.getDistance(new SparsePosition("2", 5, new int[0], new double[0]));
+  }
+
+  /**
+   * Test the distance to a sketch. This should throw an exception.
+   * @throws IncomparableComponentsException - Thrown as the positions cannot be compared.
+   */
+  @Test (expected = IncomparableComponentsException.class)
+  public void testSketchDistance() throws IncomparableComponentsException {
+    testSparse.getDistance(new SketchPosition("2", new long[] {1, 2, 3, 4, 5, 6}, 21));
+  }
+
+  /**
+   * Test a sparse position is equal to a dense position with the same components,
+   * with the same hash code.
+   */
+  @Test
+  public void testEqualsDense() {
+    assertTrue("Could not get a sparse position equal to the dense position",
+        testSparse.equals(denseEquivalent));
+    assertTrue("Could not get a dense position equal to the sparse position",
+        denseEquivalent.equals(testSparse));
+    assertEquals("Could not get the same hash code as the dense position",
+        denseEquivalent.hashCode(), testSparse.hashCode());
+    assertFalse("Sparse positions with different values should not be equal",
+        testSparse.equals(otherSparse));
+  }
+
+  /**
+   * Test the centre of sparse positions assigned to a centroid.
+   */
+  @Test
+  public void testCentroidCentre() {
+    Centroid centroid = new Centroid("1", denseEquivalent);
+    centroid.assignPosition(testSparse);
+    centroid.assignPosition(otherSparse);
+    centroid.setCentre();
+    assertArrayEquals("Could not get the centre of the sparse positions",
+        new Double[] {0.5, 1.0, 0.0, 0.0, -1.0, 0.0}, centroid.getLocation().getComponents());
+  }
+
+  /**
+   * Test to try and create a sparse position with unsorted indices.
+   * This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testUnsortedIndices() {
+    new SparsePosition("1", 6, new int[] {4, 1}, new double[] {1.0, 1.0});
+  }
+
+  /**
+   * Test to try and create a sparse position with an index outside the dimensions.
+   * This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testIndexOutOfRange() {
+    new SparsePosition("1", 6, new int[] {6}, new double[] {1.0});
+  }
+
+  /**
+   * Test to try and create a sparse position with fewer values than indices.
+   * This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testMismatchedValues() {
+    new SparsePosition("1", 6, new int[] {1, 2}, new double[] {1.0});
+  }
+
+  /**
+   * Creates a random sparse position with around a fifth of the components non-zero.
+   * @param random - The random number generator to use.
+   * @param dimensions - The number of dimensions of the position.
+   * @return - The random sparse position.
+   */
+  private SparsePosition randomSparse(Random random, int dimensions) {
+    int[] indices = random.ints(0, dimensions).limit(dimensions / 5).distinct().sorted()
+        .toArray();
+    double[] values = random.doubles(indices.length, -10, 10).toArray();
+    return new SparsePosition("random", dimensions, indices, values);
+  }
+}
@@ -0,0 +1,151 @@
+package testextensibleclustering.testdependencies;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.Centroid;
+import extensibleclustering.dependencies.IncomparableComponentsException;
+import extensibleclustering.dependencies.Metrics;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SketchPosition;
+import extensibleclustering.dependencies.SparsePosition;
+import extensibleclustering.dependencies.WeightedPosition;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for creating / developing the weighted position class.
+ * @author David Cook
+ */
+public class TestWeightedPosition {
+
+  private Position position;
+  private WeightedPosition testWeighted;
+
+  /**
+   * Setup the variables before they are used in each test.
+   */
+  @Before
+  public void setUp() {
+    position = new Position("A", new Double[] {1.0, 2.0});
+    testWeighted = new WeightedPosition(position, 3.0, new String[] {"A", "B", "C"});
+  }
+
+  /**
+   * Test the weight, members and components of a weighted position.
+   */
+  @Test
+  public void testGetWeightAndMembers() {
+    assertEquals("Could not get the weight", 3.0, testWeighted.getWeight(), 0.0);
+    assertArrayEquals("Could not get the member IDs", new String[] {"A", "B", "C"},
+        testWeighted.getMemberIDs());
+    assertEquals("Could not get the ID of the wrapped position", "A", testWeighted.getID());
+    assertArrayEquals("Could not get the components of the wrapped position",
+        position.getComponents(), testWeighted.getComponents());
+    assertSame("Could not unwrap the position", position, WeightedPosition.unwrap(testWeighted));
+  }
+
+  /**
+   * Test the weight and members of a position that is not weighted.
+   */
+  @Test
+  public void testUnweightedPosition() {
+    assertEquals("Could not get a weight of 1", 1.0, WeightedPosition.getWeight(position), 0.0);
+    assertArrayEquals("Could not get the ID as the only member", new String[] {"A"},
+        WeightedPosition.getMemberIDs(position));
+    assertSame("Could not unwrap a position that is not weighted", position,
+        WeightedPosition.unwrap(position));
+  }
+
+  /**
+   * Test the distance is that of the wrapped positions in both directions.
+   * @throws IncomparableComponentsException - Thrown if the positions cannot be compared.
+   */
+  @Test
+  public void testDistance() throws IncomparableComponentsException {
+    Position other = new Position("D", new Double[] {4.0, 6.0});
+    assertEquals("Could not get the distance from a weighted position",
+        5.0, testWeighted.getDistance(other), 0.0);
+    assertEquals("Could not get the distance to a weighted position",
+        5.0, other.getDistance(testWeighted), 0.0);
+    SparsePosition sparse = new SparsePosition("E", 2, new int[] {1}, new double[] {6.0});
+    WeightedPosition weightedSparse = new WeightedPosition(sparse, 2.0, new String[] {"E"});
+    assertEquals("Could not get the distance to a weighted sparse position",
+        Math.sqrt(17), weightedSparse.getDistance(testWeighted), 1e-12);
+    assertEquals("Could not get the distance from a sparse to a weighted position",
+        Math.sqrt(17), sparse.getDistance(testWeighted), 1e-12);
+  }
+
+  /**
+   * Test a weighted position is equal to the position it wraps in both directions.
+   */
+  @Test
+  public void testEquals() {
+    assertTrue("Could not get a weighted position equal to its position",
+        testWeighted.equals(position));
+    assertTrue("Could not get a position equal to its weighted position",
+        position.equals(testWeighted));
+    assertEquals("Could not get the hash code of the wrapped position",
+        position.hashCode(), testWeighted.hashCode());
+  }
+
+  /**
+   * Test the centre of a centroid counts a weighted position as many times as its weight.
+   */
+  @Test
+  public void testWeightedCentre() {
+    Centroid centroid = new Centroid("1", position);
+    centroid.assignPosition(testWeighted);
+    centroid.assignPosition(new Position("D", new Double[] {5.0, 6.0}));
+    centroid.setCentre();
+    assertArrayEquals("Could not get the weighted centre", new Double[] {2.0, 3.0},
+        centroid.getLocation().getComponents());
+    assertEquals("Could not get the assigned weight", 4.0, centroid.getAssignedWeight(), 0.0);
+  }
+
+  /**
+   * Test the within cluster variance is the same as with the duplicates left in.
+   */
+  @Test
+  public void testWeightedVariance() {
+    Centroid weighted = new Centroid("1", position);
+    weighted.assignPosition(testWeighted);
+    weighted.assignPosition(new Position("D", new Double[] {5.0, 6.0}));
+    Centroid duplicated = new Centroid("1", position);
+    duplicated.assignPosition(position);
+    duplicated.assignPosition(new Position("B", new Double[] {1.0, 2.0}));
+    duplicated.assignPosition(new Position("C", new Double[] {1.0, 2.0}));
+    duplicated.assignPosition(new Position("D", new Double[] {5.0, 6.0}));
+    Metrics metrics = new Metrics();
+    assertEquals("Could not get the same variance as the duplicated data",
+        metrics.withinClusterVariance(new Centroid[] {duplicated}),
+        metrics.withinClusterVariance(new Centroid[] {weighted}), 1e-12);
+  }
+
+  /**
+   * Test to try and weight a sketch. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testWeightSketch() {
+    new WeightedPosition(new SketchPosition("S", new long[] {1, 2}, 21), 2.0,
+        new String[] {"S"});
+  }
+
+  /**
+   * Test to try and create a weighted position with no weight. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testZeroWeight() {
+    new WeightedPosition(position, 0.0, new String[] {"A"});
+  }
+
+  /**
+   * Test to try and create a weighted position with no members. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testNoMembers() {
+    new WeightedPosition(position, 1.0, new String[0]);
+  }
+}
@@ -0,0 +1,560 @@
+package extensibleclustering.application;
+
+import extensibleclustering.dependencies.DatasetFile;
+import extensibleclustering.dependencies.Parameter;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import extensibleclustering.plugins.ImportedPlugins;
+import extensibleclustering.plugins.PluginLoader;
+import extensibleclustering.preprocessing.CoresetStage;
+import extensibleclustering.preprocessing.DuplicateCollapsingStage;
+import extensibleclustering.preprocessing.PcaStage;
+import extensibleclustering.preprocessing.RandomProjectionStage;
+import extensibleclustering.preprocessing.StandardisationStage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point that parses, clusters and exports files from the command line,
+ * e.g. on a compute node without a display. The plug-ins are loaded once by the
+ * PluginLoader and run by a ClusteringHelper, as they are by the model, so JavaFX is never
+ * started, parsed data is kept in the parsed data cache, and each clustering job is planned
+ * and run out-of-core or in a child JVM if it does not fit in the heap. Every input, or
+ * every file in an input directory, is processed in the same JVM.
+ * The arguments can also be read from a job file, with an option and its value or an input
+ * on each line, so names and paths can contain spaces, and lines starting with # ignored.
+ * Run with --help for the arguments.
+ * @author David Cook
+ */
+public final class BatchRunner {
+
+  static final String USAGE = String.join(System.lineSeparator(),
+      "Usage: batch --parser NAME [--algorithm NAME] [--export DIRECTORY]",
+      "             [--parser-param NAME=VALUE]... [--param NAME=VALUE]...",
+      "             [--log] [--standardise] [--project DIMENSIONS] [--pca COMPONENTS]",
+      "             [--collapse TOLERANCE] [--coreset POSITIONS] [--isolate OPTIONS]",
+      "             [--out-of-core] [--stream] [--job FILE] INPUT...",
+      "       batch --list",
+      "  --parser        The parser to parse each input with.",
+      "  --algorithm     The clustering algorithm to cluster the parsed data with.",
+      "  --export        The directory to copy each output file to. Without an algorithm,",
+      "                  the parsed data is saved there as a dataset file instead.",
+      "  --parser-param  The value of a parameter of the parser.",
+      "  --param         The value of a parameter of the clustering algorithm.",
+      "  --log           Log transforms the parsed data before it is clustered or saved.",
+      "  --standardise   Centres and scales each feature of the parsed data.",
+      "  --project       Randomly projects the parsed data into this many dimensions,",
+      "                  e.g. for k-mer counts with too many dimensions for PCA.",
+      "  --pca           Reduces the parsed data to this many principal components.",
+      "  --collapse      Collapses the positions whose components round to the same",
+      "                  multiple of this, or are the same if it is 0, into one.",
+      "  --coreset       Samples this many weighted positions from the parsed data, so",
+      "                  very large data can be clustered quickly with k-means.",
+      "  --isolate       Runs the clustering algorithm in a child JVM with these options,",
+      "                  e.g. \"-Xmx24g -XX:+UseParallelGC\".",
+      "  --out-of-core   Clusters the parsed data from the cache even if it fits in memory.",
+      "  --stream        Clusters each file while it is parsed, without caching it.",
+      "  --job           A file of further arguments, an option and its value or an",
+      "                  input on each line.",
+      "  --list          Lists the plug-ins and their parameters.",
+      "  INPUT           A file, or a directory of files the parser supports.");
+
+  private final ClusteringHelper helper;
+  private final PrintStream out;
+  private final PrintStream err;
+
+  private String parserName;
+  private String clusteringAlgorithmName;
+  private Path exportDirectory;
+  private boolean listPlugins;
+  private boolean logTransform;
+  private boolean standardise;
+  private boolean stream;
+  private boolean outOfCore;
+  private int projectedDimensions;
+  private int pcaComponents;
+  //The tolerance duplicates are collapsed with, null to keep the duplicates.
+  private Double duplicateTolerance;
+  private int coresetSize;
+  private List<String> isolatedJvmOptions;
+  private final List<String> parserValues = new ArrayList<>();
+  private final List<String> clusteringValues = new ArrayList<>();
+  private final List<Path> inputs = new ArrayList<>();
+
+  /**
+   * Creates a batch runner for the plug-ins given.
+   * @param importedPlugins - The plug-ins that can be used.
+   * @param out - The stream the result of each input is printed to.
+   * @param err - The stream errors are printed to.
+   */
+  public BatchRunner(ImportedPlugins importedPlugins, PrintStream out, PrintStream err) {
+    this(importedPlugins == null ? null : new ClusteringHelper(importedPlugins), out, err);
+  }
+
+  /**
+   * Creates a batch runner that parses and clusters with the helper given.
+   * @param helper - The helper the plug-ins are run with.
+   * @param out - The stream the result of each input is printed to.
+   * @param err - The stream errors are printed to.
+   */
+  public BatchRunner(ClusteringHelper helper, PrintStream out, PrintStream err) {
+    if (helper == null || out == null || err == null) {
+      throw new IllegalArgumentException("The plug-ins and streams cannot be null");
+    }
+    this.helper = helper;
+    this.out = out;
+    this.err = err;
+  }
+
+  /**
+   * Main method for the headless entry-point. The JVM exits with 0 if every input was
+   * processed, 1 if any input failed and 2 if the arguments were not valid.
+   * @param args - The arguments, see USAGE.
+   */
+  public static void main(String[] args) {
+    if (args.length == 0 || args[0].equals("--help")) {
+      System.out.println(USAGE);
+      return;
+    }
+    ImportedPlugins plugins = new PluginLoader().loadPlugins();
+    System.exit(new BatchRunner(plugins, System.out, System.err).run(Arrays.asList(args)));
+  }
+
+  /**
+   * Runs the steps given by the arguments on each input.
+   * @param args - The arguments, see USAGE.
+   * @return int - 0 if every input was processed, 1 if any input failed, or 2 if the
+   *     arguments were not valid.
+   */
+  public int run(List<String> args) {
+    List<Path> files;
+    Map<String, Object> parserParameters;
+    Map<String, Object> clusteringParameters;
+    try {
+      clearArguments();
+      readArguments(args);
+      if (listPlugins) {
+        listPlugins();
+        return 0;
+      }
+      if (parserName == null || inputs.isEmpty()) {
+        throw new IllegalArgumentException("A parser and at least one input must be given");
+      }
+      ImportedPlugins importedPlugins = helper.getImportedPlugins();
+      checkPlugin(importedPlugins.getImportedParsers(), parserName, "parser");
+      parserParameters = parseValues(parserValues, helper.getParserParameters(parserName));
+      clusteringParameters = Collections.emptyMap();
+      if (clusteringAlgorithmName != null) {
+        checkPlugin(importedPlugins.getImportedClusteringAlgorithms(),
+            clusteringAlgorithmName, "clustering algorithm");
+        clusteringParameters = parseValues(clusteringValues,
+            helper.getClusteringParameters(clusteringAlgorithmName));
+      } else if (!clusteringValues.isEmpty()) {
+        throw new IllegalArgumentException("--param cannot be given without --algorithm");
+      }
+      if (stream && (clusteringAlgorithmName == null || !parserValues.isEmpty()
+          || !clusteringValues.isEmpty())) {
+        throw new IllegalArgumentException("--stream must be given --algorithm, "
+            + "and cannot be given --parser-param or --param");
+      }
+      setPreprocessingStages();
+      helper.setIsolatedJvmOptions(isolatedJvmOptions);
+      if (exportDirectory != null) {
+        Files.createDirectories(exportDirectory);
+      }
+      files = findFiles();
+    } catch (Exception e) {
+      err.println(e.getMessage());
+      err.println(USAGE);
+      return 2;
+    }
+
+    int failures = 0;
+    for (Path file : files) {
+      try {
+        out.println(file + ": " + process(file, parserParameters, clusteringParameters));
+      } catch (Exception e) {
+        //Keep going, so one bad file does not stop the rest of the batch.
+        failures++;
+        Throwable cause = e.getCause() == null ? e : e.getCause();
+        err.println(file + ": " + (cause.getMessage() == null
+            ? cause.getClass().getName() : cause.getMessage()));
+      }
+    }
+    if (files.isEmpty()) {
+      err.println("There were no files to process");
+    }
+    return failures == 0 && !files.isEmpty() ? 0 : 1;
+  }
+
+  /**
+   * Clears the arguments of the last run, so the runner can be run again.
+   */
+  private void clearArguments() {
+    parserName = null;
+    clusteringAlgorithmName = null;
+    exportDirectory = null;
+    listPlugins = false;
+    logTransform = false;
+    standardise = false;
+    stream = false;
+    outOfCore = false;
+    projectedDimensions = 0;
+    pcaComponents = 0;
+    duplicateTolerance = null;
+    coresetSize = 0;
+    isolatedJvmOptions = null;
+    parserValues.clear();
+    clusteringValues.clear();
+    inputs.clear();
+  }
+
+  /**
+   * Reads the arguments, including those in any job files.
+   * @param args - The arguments to read.
+   * @throws IOException - Thrown if a job file cannot be read.
+   */
+  private void readArguments(List<String> args) throws IOException {
+    for (int i = 0; i < args.size(); i++) {
+      String arg = args.get(i);
+      if (arg.equals("--list")) {
+        listPlugins = true;
+      } else if (arg.equals("--log")) {
+        logTransform = true;
+      } else if (arg.equals("--standardise")) {
+        standardise = true;
+      } else if (arg.equals("--stream")) {
+        stream = true;
+      } else if (arg.equals("--out-of-core")) {
+        outOfCore = true;
+      } else if (arg.startsWith("--")) {
+        if (i + 1 == args.size()) {
+          throw new IllegalArgumentException(arg + " must be given a value");
+        }
+        String value = args.get(++i);
+        switch (arg) {
+          case "--parser":
+            parserName = value;
+            break;
+          case "--algorithm":
+            clusteringAlgorithmName = value;
+            break;
+          case "--export":
+            exportDirectory = Paths.get(value);
+            break;
+          case "--parser-param":
+            parserValues.add(value);
+            break;
+          case "--param":
+            clusteringValues.add(value);
+            break;
+          case "--project":
+            projectedDimensions = parseCount(arg, value, "dimension");
+            break;
+          case "--pca":
+            pcaComponents = parseCount(arg, value, "component");
+            break;
+          case "--collapse":
+            duplicateTolerance = parseTolerance(value);
+            break;
+          case "--coreset":
+            coresetSize = parseCount(arg, value, "position");
+            break;
+          case "--isolate":
+            isolatedJvmOptions = value.trim().isEmpty() ? Collections.emptyList()
+                : Arrays.asList(value.trim().split("\\s+"));
+            break;
+          case "--job":
+            readArguments(readJobFile(Paths.get(value)));
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown argument " + arg);
+        }
+      } else {
+        inputs.add(Paths.get(arg));
+      }
+    }
+  }
+
+  /**
+   * Parses a number of at least one given to an option, e.g. the number of principal
+   * components to keep.
+   * @param arg - The option the number was given to.
+   * @param value - The value given.
+   * @param unit - What the number is of, shown in the error message.
+   * @return int - The number.
+   */
+  private static int parseCount(String arg, String value, String unit) {
+    try {
+      int count = Integer.parseInt(value.trim());
+      if (count >= 1) {
+        return count;
+      }
+    } catch (NumberFormatException e) {
+      //Reported below with the other invalid values.
+    }
+    throw new IllegalArgumentException(arg + " must be given at least one " + unit);
+  }
+
+  /**
+   * Parses the tolerance duplicates are collapsed with.
+   * @param value - The value given.
+   * @return double - The tolerance.
+   */
+  private static double parseTolerance(String value) {
+    try {
+      double tolerance = Double.parseDouble(value.trim());
+      if (tolerance >= 0.0 && !Double.isInfinite(tolerance)) {
+        return tolerance;
+      }
+    } catch (NumberFormatException e) {
+      //Reported below with the other invalid values.
+    }
+    throw new IllegalArgumentException("--collapse must be given a positive number or 0");
+  }
+
+  /**
+   * Replaces the preprocessing stages of the helper with those given by the arguments.
+   * The log transform and standardisation are run before the principal components are
+   * found, so they are found from the transformed features. The random projection is run
+   * before PCA, so PCA is given the fewer dimensions. Duplicates are collapsed after every
+   * stage that changes the components, and the coreset is sampled last, by the weights of
+   * the collapsed Positions.
+   */
+  private void setPreprocessingStages() {
+    helper.clearPreprocessingStages();
+    if (logTransform || standardise) {
+      StandardisationStage standardisation = new StandardisationStage();
+      standardisation.setLogTransform(logTransform);
+      standardisation.setCentre(standardise);
+      standardisation.setScale(standardise);
+      helper.addPreprocessingStage(standardisation);
+    }
+    if (projectedDimensions > 0) {
+      RandomProjectionStage projection = new RandomProjectionStage();
+      projection.setDimensions(projectedDimensions);
+      helper.addPreprocessingStage(projection);
+    }
+    if (pcaComponents > 0) {
+      PcaStage pca = new PcaStage();
+      pca.setComponents(pcaComponents);
+      helper.addPreprocessingStage(pca);
+    }
+    if (duplicateTolerance != null) {
+      DuplicateCollapsingStage collapsing = new DuplicateCollapsingStage();
+      collapsing.setTolerance(duplicateTolerance);
+      helper.addPreprocessingStage(collapsing);
+    }
+    if (coresetSize > 0) {
+      CoresetStage coreset = new CoresetStage();
+      coreset.setSampleSize(coresetSize);
+      helper.addPreprocessingStage(coreset);
+    }
+  }
+
+  /**
+   * Reads the arguments in a job file, splitting each option from the rest of its line, 
+   * which is its value, and skipping blank lines and comments.
+   * @param jobFile - The job file to read.
+   * @return List - The arguments in the job file.
+   * @throws IOException - Thrown if the job file cannot be read.
+   */
+  private static List<String> readJobFile(Path jobFile) throws IOException {
+    try (Stream<String> lines = Files.lines(jobFile, StandardCharsets.UTF_8)) {
+      return lines.map(String::trim)
+          .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+          .flatMap(line -> Arrays.stream(line.startsWith("--")
+              ? line.split("\\s+", 2) : new String[] {line}))
+          .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Checks there is a plug-in with the name given.
+   * @param plugins - The imported plug-ins of a type, by their names.
+   * @param name - The name of the plug-in.
+   * @param type - The type of the plug-in, for the error message.
+   */
+  private static void checkPlugin(Map<String, Class<?>> plugins, String name, String type) {
+    if (!plugins.containsKey(name)) {
+      throw new IllegalArgumentException("There is no " + type + " named " + name
+          + ", the " + type + "s are " + plugins.keySet());
+    }
+  }
+
+  /**
+   * Parses values given as NAME=VALUE with the parameters of a plug-in.
+   * @param values - The values given.
+   * @param parameters - The parameters of the plug-in.
+   * @return Map - The values, by the name of their parameter.
+   */
+  private static Map<String, Object> parseValues(List<String> values,
+      List<Parameter> parameters) {
+    Map<String, Object> parsed = new LinkedHashMap<>();
+    for (String value : values) {
+      String[] nameValue = value.split("=", 2);
+      if (nameValue.length < 2) {
+        throw new IllegalArgumentException(value + " must be given as NAME=VALUE");
+      }
+      Parameter parameter = parameters.stream()
+          .filter(p -> p.getName().equals(nameValue[0])).findFirst()
+          .orElseThrow(() -> new IllegalArgumentException("There is no parameter named "
+              + nameValue[0]));
+      parsed.put(nameValue[0], parameter.parse(nameValue[1]));
+    }
+    return parsed;
+  }
+
+  /**
+   * Finds the files to process, expanding each input directory to the files in it that
+   * the parser supports, in order of their names.
+   * @return List - The files to process.
+   * @throws IOException - Thrown if a directory cannot be read.
+   */
+  private List<Path> findFiles() throws IOException {
+    List<String> extensions = helper.getImportedPlugins().getParserSupportedFileTypes()
+        .getOrDefault(parserName, Collections.emptyList());
+    List<Path> files = new ArrayList<>();
+    for (Path input : inputs) {
+      if (Files.isDirectory(input)) {
+        try (Stream<Path> children = Files.list(input)) {
+          children.filter(Files::isRegularFile)
+              .filter(child -> isSupported(child, extensions))
+              .sorted().forEach(files::add);
+        }
+      } else if (Files.isRegularFile(input)) {
+        files.add(input);
+      } else {
+        throw new IllegalArgumentException(input + " does not exist");
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Checks if a file matches one of the file extensions of the parser, e.g. *.csv.
+   * @param file - The file to check.
+   * @param extensions - The file extensions the parser supports, all if there are none.
+   * @return boolean - True if the file is supported.
+   */
+  private static boolean isSupported(Path file, List<String> extensions) {
+    String name = file.getFileName().toString().toLowerCase();
+    if (extensions.isEmpty()) {
+      return true;
+    }
+    for (String extension : extensions) {
+      String suffix = extension.toLowerCase().replace("*", "");
+      if (suffix.isEmpty() || suffix.equals(".") || name.endsWith(suffix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Parses a file, and clusters and exports the data if asked to. Any preprocessing is run
+   * on the data before it is clustered or exported.
+   * The parsed data is clustered in memory if it fits, and is otherwise clustered from the
+   * parsed data cache, as it is if out-of-core clustering was asked for, so out-of-core
+   * algorithms do not need to load it. If the data is streamed, it is clustered while it is
+   * parsed and is not cached.
+   * @param file - The file to process.
+   * @param parserParameters - The values of the parameters of the parser.
+   * @param clusteringParameters - The values of the parameters of the clustering algorithm.
+   * @return String - The result, to be printed.
+   * @throws Exception - May be thrown by the plug-ins, or if the output cannot be exported.
+   */
+  private String process(Path file, Map<String, Object> parserParameters,
+      Map<String, Object> clusteringParameters) throws Exception {
+    File input = file.toFile();
+    Path output;
+    if (stream) {
+      try (PositionSource source = helper.openSource(parserName, input)) {
+        output = helper.clusterSource(source, input.getName(), clusteringAlgorithmName);
+      }
+      return exportOutput("streamed", output);
+    }
+    Position[] data = helper.parseFile(parserName, input, parserParameters);
+    if (data == null || data.length == 0) {
+      throw new IllegalStateException("No positions were parsed");
+    }
+    String result = "parsed " + data.length + " positions";
+    if (clusteringAlgorithmName != null) {
+      output = helper.clusterParsedFile(data, parserName, input, clusteringAlgorithmName,
+          parserParameters, clusteringParameters, outOfCore);
+      return exportOutput(result, output);
+    }
+    if (exportDirectory == null) {
+      return result;
+    }
+    output = exportDirectory.resolve(input.getName() + ".dataset");
+    DatasetFile.write(output, helper.preprocessData(data), input.getName());
+    return result + ", exported to " + output;
+  }
+
+  /**
+   * Copies the output file of a clustering algorithm to the export directory, if one was
+   * given.
+   * @param result - The result so far, to be printed.
+   * @param output - The output file of the clustering algorithm, or null if there is none.
+   * @return String - The result, to be printed.
+   * @throws IOException - Thrown if the output cannot be exported.
+   */
+  private String exportOutput(String result, Path output) throws IOException {
+    if (output == null) {
+      return result + ", clustered without an output file";
+    }
+    result += ", clustered to " + output;
+    if (exportDirectory == null) {
+      return result;
+    }
+    Path exported = exportDirectory.resolve(output.getFileName());
+    Files.copy(output, exported, StandardCopyOption.REPLACE_EXISTING);
+    return result + ", exported to " + exported;
+  }
+
+  /**
+   * Prints the parsers and clustering algorithms, with their parameters.
+   * @throws Exception - May be thrown by the plug-ins.
+   */
+  private void listPlugins() throws Exception {
+    out.println("Parsers:");
+    ImportedPlugins importedPlugins = helper.getImportedPlugins();
+    for (String parser : importedPlugins.getImportedParsers().keySet()) {
+      out.println("  " + parser);
+      listParameters(helper.getParserParameters(parser));
+    }
+    out.println("Clustering algorithms:");
+    for (String algorithm : importedPlugins.getImportedClusteringAlgorithms().keySet()) {
+      out.println("  " + algorithm);
+      listParameters(helper.getClusteringParameters(algorithm));
+    }
+  }
+
+  /**
+   * Prints the parameters of a plug-in with their defaults and descriptions.
+   * @param parameters - The parameters of the plug-in.
+   */
+  private void listParameters(List<Parameter> parameters) {
+    for (Parameter parameter : parameters) {
+      String values = parameter.getType() == Parameter.Type.ENUM
+          ? String.join("|", parameter.getOptions()) : parameter.getType().toString();
+      out.println("    " + parameter.getName() + "=" + values + " (default "
+          + parameter.getDefaultValue() + ") - " + parameter.getDescription());
+    }
+  }
+}
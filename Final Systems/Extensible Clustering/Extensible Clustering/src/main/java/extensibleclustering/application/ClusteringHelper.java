@@ -0,0 +1,548 @@
+package extensibleclustering.application;
+
+import extensibleclustering.dependencies.AlgorithmCapabilities;
+import extensibleclustering.dependencies.ClusteringAlgorithm;
+import extensibleclustering.dependencies.DatasetFile;
+import extensibleclustering.dependencies.Parameter;
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import extensibleclustering.plugins.ImportedPlugins;
+import extensibleclustering.plugins.PluginExecutor;
+import extensibleclustering.preprocessing.PreprocessingStage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+/**
+ * Parses and clusters files with the imported plug-ins without needing a display, so it is
+ * shared by the ExtensibleClusteringModel and the headless BatchRunner.
+ * Parsed data is kept in the parsed data cache, and is passed through the preprocessing
+ * stages before it is clustered. Each clustering job is planned from the capabilities of
+ * the algorithm, so it is run in this JVM, redirected to a child JVM or refused before
+ * any work is started, and files in the cache can be clustered without loading them.
+ * @author David Cook
+ */
+public class ClusteringHelper {
+
+  private final Supplier<ImportedPlugins> importedPlugins;
+  private final PluginExecutor execPlugin;
+  private final ParsedDataCache parsedDataCache;
+  private final List<PreprocessingStage> preprocessingStages;
+
+  /**
+   * Creates a helper for the plug-ins given, with its own plug-in executor and the parsed
+   * data cache in the cache directory.
+   * @param importedPlugins - The plug-ins that can be used.
+   */
+  public ClusteringHelper(ImportedPlugins importedPlugins) {
+    this(() -> importedPlugins, new PluginExecutor(), new ParsedDataCache());
+  }
+
+  /**
+   * Creates a helper for plug-ins that may be reloaded, e.g. by a PluginWatcher.
+   * @param importedPlugins - Supplies the latest plug-ins each time one is used.
+   * @param execPlugin - The executor the plug-ins are run with.
+   * @param parsedDataCache - The cache the parsed data is kept in.
+   */
+  public ClusteringHelper(Supplier<ImportedPlugins> importedPlugins, PluginExecutor execPlugin,
+      ParsedDataCache parsedDataCache) {
+    if (importedPlugins == null || execPlugin == null || parsedDataCache == null) {
+      throw new IllegalArgumentException("The plug-ins, executor and cache cannot be null");
+    }
+    this.importedPlugins = importedPlugins;
+    this.execPlugin = execPlugin;
+    this.parsedDataCache = parsedDataCache;
+    //Stages may be changed from the UI thread while a job is running on another.
+    preprocessingStages = new CopyOnWriteArrayList<>();
+  }
+
+  /**
+   * Returns the latest plug-ins.
+   * @return - ImportedPlugins, plug-ins that have been imported to the system.
+   */
+  public ImportedPlugins getImportedPlugins() {
+    return importedPlugins.get();
+  }
+
+  /**
+   * Method that parses a specified file using a specified parser, loading it from the
+   * parsed data cache if it has been parsed already.
+   * @param parserName - Name of the parser that has been imported to use.
+   * @param fileToParse - File to parsed.
+   * @return - Position[] - Positions that have been parsed.
+   * @throws Exception - May be thrown by the plugin, exception type unknown.
+   */
+  public Position[] parseFile(String parserName, File fileToParse) throws Exception {
+    return parseFile(parserName, fileToParse, Collections.emptyMap());
+  }
+
+  /**
+   * Method that parses a specified file using a specified parser and values for the
+   * parameters of the parser. If no values are given and the file has already been parsed
+   * with the parser, and neither have changed, the data is loaded from the parsed data
+   * cache instead of being parsed again. The cache is not used if values are given, as the
+   * values may change the data that is parsed.
+   * @param parserName - Name of the parser that has been imported to use.
+   * @param fileToParse - File to parsed.
+   * @param parameters - The values of the parameters of the parser.
+   * @return - Position[] - Positions that have been parsed.
+   * @throws Exception - May be thrown by the plugin, exception type unknown.
+   */
+  public Position[] parseFile(String parserName, File fileToParse,
+      Map<String, Object> parameters) throws Exception {
+    ImportedPlugins plugins = importedPlugins.get();
+    if (parserName == null || fileToParse == null || parameters == null
+        || !plugins.getImportedParsers().containsKey(parserName)) {
+      throw new IllegalArgumentException("An Illegal argument was provided. "
+          + "This may be due to the file not existing or the parser not existing");
+    }
+    Class<?> parser = plugins.getImportedParsers().get(parserName);
+    if (!parameters.isEmpty()) {
+      return execPlugin.execParser(fileToParse, parser, parameters);
+    }
+    Position[] cachedData = parsedDataCache.get(fileToParse, parser);
+    if (cachedData != null) {
+      return cachedData;
+    }
+    Position[] parsedData = execPlugin.execParser(fileToParse, parser);
+    try {
+      parsedDataCache.put(fileToParse, parser, parsedData);
+    } catch (IOException e) {
+      //The data has still been parsed, it just will not be loaded from the cache next time.
+      e.printStackTrace();
+    }
+    return parsedData;
+  }
+
+  /**
+   * Returns the parameters the specified parser can be given.
+   * @param parserName - Name of the parser that has been imported.
+   * @return - List of the parameters of the parser.
+   * @throws Exception - May be thrown by the plugin, exception type unknown.
+   */
+  public List<Parameter> getParserParameters(String parserName) throws Exception {
+    ImportedPlugins plugins = importedPlugins.get();
+    if (parserName == null || !plugins.getImportedParsers().containsKey(parserName)) {
+      throw new IllegalArgumentException("An Illegal argument was provided. "
+          + "This occured because the parser does not exist");
+    }
+    return execPlugin.getParameters(plugins.getImportedParsers().get(parserName),
+        Parser.class);
+  }
+
+  /**
+   * Returns the parameters the specified clustering algorithm can be given.
+   * @param clusteringAlgorithmName - Name of the clustering algorithm that has been imported.
+   * @return - List of the parameters of the clustering algorithm.
+   * @throws Exception - May be thrown by the plugin, exception type unknown.
+   */
+  public List<Parameter> getClusteringParameters(String clusteringAlgorithmName)
+      throws Exception {
+    return execPlugin.getParameters(getClusteringAlgorithm(clusteringAlgorithmName),
+        ClusteringAlgorithm.class);
+  }
+
+  /**
+   * Adds a preprocessing stage, which is run on the data after it is parsed and before
+   * it is clustered. The stages are run in the order they are added.
+   * @param stage - The preprocessing stage to add.
+   */
+  public void addPreprocessingStage(PreprocessingStage stage) {
+    if (stage == null) {
+      throw new IllegalArgumentException("The preprocessing stage cannot be null");
+    }
+    preprocessingStages.add(stage);
+  }
+
+  /**
+   * Removes all of the preprocessing stages, so the parsed data is clustered unchanged.
+   */
+  public void clearPreprocessingStages() {
+    preprocessingStages.clear();
+  }
+
+  /**
+   * Returns the preprocessing stages run before clustering.
+   * @return - List of the preprocessing stages, in the order they are run.
+   */
+  public List<PreprocessingStage> getPreprocessingStages() {
+    return Collections.unmodifiableList(preprocessingStages);
+  }
+
+  /**
+   * Sets if clustering algorithms are run in a child JVM with their own heap, e.g. so a
+   * large job can be given more memory than the rest of the system, or a crash in an
+   * algorithm only stops the job.
+   * @param jvmOptions - The options of the child JVM, e.g. -Xmx24g, or null to run
+   *     clustering algorithms in this JVM.
+   */
+  public void setIsolatedJvmOptions(List<String> jvmOptions) {
+    execPlugin.setIsolation(jvmOptions);
+  }
+
+  /**
+   * Plans a clustering job from the capabilities of the clustering algorithm, predicting
+   * the memory it needs, where it will run and how many threads it will be given.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @param positions - The number of Positions to cluster.
+   * @param dimensions - The dimensions of each Position.
+   * @param loaded - True if the Positions are already in memory, or false if they are
+   *     read from the parsed data cache.
+   * @return - JobPlan - The plan of the job.
+   * @throws Exception - May be thrown from the clustering algorithm or due to an illegal argument.
+   */
+  public JobPlan planJob(String clusteringAlgorithmName, long positions, int dimensions,
+      boolean loaded) throws Exception {
+    return planJob(clusteringAlgorithmName, positions, dimensions, loaded, true);
+  }
+
+  /**
+   * Plans a clustering job as planJob does, for data that may not be dense.
+   * Algorithms only stream dense dataset files, so a file that is not dense, e.g. one
+   * holding sketches, is planned as if the algorithm loads it.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @param positions - The number of Positions to cluster.
+   * @param dimensions - The dimensions of each Position.
+   * @param loaded - True if the Positions are already in memory, or false if they are
+   *     read from the parsed data cache.
+   * @param dense - True if every Position has a value for every dimension.
+   * @return - JobPlan - The plan of the job.
+   * @throws Exception - May be thrown from the clustering algorithm or due to an illegal argument.
+   */
+  public JobPlan planJob(String clusteringAlgorithmName, long positions, int dimensions,
+      boolean loaded, boolean dense) throws Exception {
+    AlgorithmCapabilities capabilities =
+        execPlugin.getCapabilities(getClusteringAlgorithm(clusteringAlgorithmName));
+    if (!dense) {
+      capabilities = capabilities.withoutStreaming();
+    }
+    return JobPlan.plan(capabilities, positions, dimensions, loaded, execPlugin.isIsolated());
+  }
+
+  /**
+   * Runs each of the preprocessing stages on a copy of the data. The stages may change the
+   * Positions they are given in place, so the components of dense Positions are copied
+   * before the first stage, and the data given is left unchanged, e.g. so it can be
+   * clustered again with other stages. Other types of Position are not changed by the
+   * stages, so they are not copied.
+   * @param data - The parsed data to preprocess.
+   * @return - Position[] - The preprocessed data, or the data given if there are no stages.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  public Position[] preprocessData(Position[] data) throws InterruptedException {
+    if (data == null) {
+      throw new IllegalArgumentException("The data to preprocess cannot be null");
+    }
+    List<PreprocessingStage> stages = new ArrayList<>(preprocessingStages);
+    if (stages.isEmpty()) {
+      return data;
+    }
+    Position[] copy = new Position[data.length];
+    for (int i = 0; i < data.length; i++) {
+      Position position = data[i];
+      //The constructor of a Position copies its components.
+      copy[i] = position != null && position.getClass() == Position.class
+          ? new Position(position.getID(), position.getComponents()) : position;
+    }
+    for (PreprocessingStage stage : stages) {
+      copy = stage.process(copy);
+    }
+    return copy;
+  }
+
+  /**
+   * Clusters data with the data, filename and clustering algorithm provided, as
+   * clusterData with no values for the parameters of the clustering algorithm.
+   * @param data - The data to cluster.
+   * @param fileName - The file name the data was parsed from.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the clustering algorithm or due to an illegal argument.
+   */
+  public Path clusterData(Position[] data, String fileName,
+      String clusteringAlgorithmName) throws Exception {
+    return clusterData(data, fileName, clusteringAlgorithmName, Collections.emptyMap());
+  }
+
+  /**
+   * Clusters data with the data, filename, clustering algorithm and values for the
+   * parameters of the clustering algorithm provided.
+   * The data is preprocessed first by any preprocessing stages that have been added.
+   * The job is then planned, so it is run in a child JVM, or refused, if it would not fit
+   * in the heap, and is otherwise run with the threads planned for it.
+   * @param data - The data to cluster.
+   * @param fileName - The file name the data was parsed from.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @param parameters - The values of the parameters of the clustering algorithm.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the clustering algorithm or due to an illegal argument.
+   */
+  public Path clusterData(Position[] data, String fileName, String clusteringAlgorithmName,
+      Map<String, Object> parameters) throws Exception {
+    if (data == null || fileName == null || parameters == null)  {
+      throw new IllegalArgumentException("An Illegal argument was provided. "
+          + "This occured because the data, file name or clustering algorothm were not provided");
+    }
+    Class<?> algorithm = getClusteringAlgorithm(clusteringAlgorithmName);
+    Position[] preprocessed = preprocessData(data);
+    JobPlan plan = planJob(clusteringAlgorithmName, preprocessed.length,
+        preprocessed.length == 0 ? 0 : preprocessed[0].getDimensions(), true, true);
+    if (plan.getMode() == JobPlan.Mode.ISOLATED && !DatasetFile.isSupported(preprocessed)) {
+      throw new IllegalStateException("There is not enough memory to cluster this data, "
+          + "and it cannot be given to a child JVM: " + plan);
+    }
+    return runJob(plan,
+        () -> execPlugin.execClustering(preprocessed, fileName, algorithm, parameters),
+        options -> execPlugin.execClusteringIsolated(preprocessed, fileName, algorithm,
+            parameters, options));
+  }
+
+  /**
+   * Opens a source of the Positions in a file with a specified parser, so they can be
+   * clustered while the file is still being parsed. If the file is in the parsed data cache
+   * the source streams the cached data instead, without loading all of it.
+   * The source must be closed once used.
+   * @param parserName - Name of the parser that has been imported to use.
+   * @param fileToParse - File to parsed.
+   * @return - PositionSource - The source of the Positions in the file.
+   * @throws Exception - May be thrown by the plugin, exception type unknown.
+   */
+  public PositionSource openSource(String parserName, File fileToParse) throws Exception {
+    ImportedPlugins plugins = importedPlugins.get();
+    if (parserName == null || fileToParse == null
+        || !plugins.getImportedParsers().containsKey(parserName)) {
+      throw new IllegalArgumentException("An Illegal argument was provided. "
+          + "This may be due to the file not existing or the parser not existing");
+    }
+    Class<?> parser = plugins.getImportedParsers().get(parserName);
+    Path entry = parsedDataCache.getEntry(fileToParse, parser);
+    if (entry != null) {
+      try {
+        return DatasetFile.openSource(entry);
+      } catch (IOException | RuntimeException ex) {
+        //A damaged entry is treated as missing, so the file is parsed instead.
+      }
+    }
+    return execPlugin.execParserSource(fileToParse, parser);
+  }
+
+  /**
+   * Clusters the data from a source with the filename and clustering algorithm provided.
+   * The source is passed through any preprocessing stages that have been added first.
+   * Stages that need all of the data read the whole source before it is clustered.
+   * The size of the source is not known until it is read, so the job is not planned,
+   * but it is given as many threads as the clustering algorithm can use.
+   * @param source - The source of the data to cluster.
+   * @param fileName - The file name the data was parsed from.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the clustering algorithm or due to an illegal argument.
+   */
+  public Path clusterSource(PositionSource source, String fileName,
+      String clusteringAlgorithmName) throws Exception {
+    if (source == null || fileName == null)  {
+      throw new IllegalArgumentException("An Illegal argument was provided. "
+          + "This occured because the data, file name or clustering algorothm were not provided");
+    }
+    Class<?> algorithm = getClusteringAlgorithm(clusteringAlgorithmName);
+    for (PreprocessingStage stage : preprocessingStages) {
+      source = stage.processSource(source);
+    }
+    PositionSource preprocessed = source;
+    int threads = Math.min(Runtime.getRuntime().availableProcessors(),
+        execPlugin.getCapabilities(algorithm).getMaxThreads());
+    return runInPool(threads, () -> execPlugin.execClustering(preprocessed, fileName, algorithm));
+  }
+
+  /**
+   * Clusters a file parsed with a specified parser from its entry in the parsed data cache,
+   * as clusterCachedFile with no values for the parameters of the plug-ins.
+   * @param parserName - Name of the parser that has been imported to use.
+   * @param fileToParse - File to parsed.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the plug-ins or due to an illegal argument.
+   */
+  public Path clusterCachedFile(String parserName, File fileToParse,
+      String clusteringAlgorithmName) throws Exception {
+    return clusterCachedFile(parserName, fileToParse, clusteringAlgorithmName,
+        Collections.emptyMap(), Collections.emptyMap());
+  }
+
+  /**
+   * Clusters a file parsed with a specified parser from its entry in the parsed data cache,
+   * so algorithms that work out-of-core can read the data without loading it all.
+   * The file is parsed and cached first if it has not been cached. If any preprocessing
+   * stages have been added, or the data cannot be cached, the data is loaded and
+   * clustered with clusterData instead, as it is if values are given for the parser.
+   * The job is planned with the size of the cached data.
+   * @param parserName - Name of the parser that has been imported to use.
+   * @param fileToParse - File to parsed.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @param parserParameters - The values of the parameters of the parser.
+   * @param clusteringParameters - The values of the parameters of the clustering algorithm.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the plug-ins or due to an illegal argument.
+   */
+  public Path clusterCachedFile(String parserName, File fileToParse,
+      String clusteringAlgorithmName, Map<String, Object> parserParameters,
+      Map<String, Object> clusteringParameters) throws Exception {
+    ImportedPlugins plugins = importedPlugins.get();
+    if (parserName == null || fileToParse == null || parserParameters == null
+        || clusteringParameters == null || !plugins.getImportedParsers().containsKey(parserName)) {
+      throw new IllegalArgumentException("An Illegal argument was provided. "
+          + "This may be due to the file, parser or clustering algorithm not existing");
+    }
+    Class<?> algorithm = getClusteringAlgorithm(clusteringAlgorithmName);
+    Class<?> parser = plugins.getImportedParsers().get(parserName);
+    Path entry = parsedDataCache.getEntry(fileToParse, parser);
+    if (entry == null || !preprocessingStages.isEmpty() || !parserParameters.isEmpty()) {
+      Position[] data = parseFile(parserName, fileToParse, parserParameters);
+      entry = parsedDataCache.getEntry(fileToParse, parser);
+      if (entry == null || !preprocessingStages.isEmpty() || !parserParameters.isEmpty()) {
+        return clusterData(data, fileToParse.getName(), clusteringAlgorithmName,
+            clusteringParameters);
+      }
+    }
+    JobPlan plan;
+    try (DatasetFile.Columns columns = DatasetFile.openColumns(entry)) {
+      plan = planJob(clusteringAlgorithmName, columns.getRows(), columns.getWidth(), false,
+          columns.isDense());
+    }
+    Path datasetFile = entry;
+    String fileName = fileToParse.getName();
+    return runJob(plan,
+        () -> execPlugin.execClusteringFile(datasetFile, fileName, algorithm,
+            clusteringParameters),
+        options -> execPlugin.execClusteringFileIsolated(datasetFile, fileName, algorithm,
+            clusteringParameters, options));
+  }
+
+  /**
+   * Clusters data that has been parsed from a file with a specified parser. The data is
+   * clustered in memory with clusterData while the job planned for it fits in this JVM,
+   * so the clustering algorithm is given all of the data. Otherwise, or if out-of-core
+   * clustering is asked for, the file is clustered from its entry in the parsed data cache
+   * with clusterCachedFile, so algorithms that work out-of-core do not need to load it.
+   * @param data - The data parsed from the file.
+   * @param parserName - Name of the parser the file was parsed with.
+   * @param fileToParse - File the data was parsed from.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @param parserParameters - The values of the parameters of the parser.
+   * @param clusteringParameters - The values of the parameters of the clustering algorithm.
+   * @param outOfCore - True to cluster the file from the cache even if the data fits.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the plug-ins or due to an illegal argument.
+   */
+  public Path clusterParsedFile(Position[] data, String parserName, File fileToParse,
+      String clusteringAlgorithmName, Map<String, Object> parserParameters,
+      Map<String, Object> clusteringParameters, boolean outOfCore) throws Exception {
+    if (data == null || fileToParse == null || clusteringParameters == null) {
+      throw new IllegalArgumentException("An Illegal argument was provided. "
+          + "This occured because the data, file or clustering algorithm were not provided");
+    }
+    if (!outOfCore && data.length > 0) {
+      JobPlan plan = planJob(clusteringAlgorithmName, data.length, data[0].getDimensions(),
+          true, true);
+      outOfCore = plan.getMode() != JobPlan.Mode.IN_PROCESS;
+    }
+    if (outOfCore) {
+      return clusterCachedFile(parserName, fileToParse, clusteringAlgorithmName,
+          parserParameters, clusteringParameters);
+    }
+    return clusterData(data, fileToParse.getName(), clusteringAlgorithmName,
+        clusteringParameters);
+  }
+
+  /**
+   * Returns the class of the clustering algorithm with the name given.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm.
+   * @return Class - The clustering algorithm class.
+   */
+  private Class<?> getClusteringAlgorithm(String clusteringAlgorithmName) {
+    Class<?> algorithm = clusteringAlgorithmName == null ? null
+        : importedPlugins.get().getImportedClusteringAlgorithms().get(clusteringAlgorithmName);
+    if (algorithm == null) {
+      throw new IllegalArgumentException("An Illegal argument was provided. "
+          + "This occured because the clustering algorithm does not exist");
+    }
+    return algorithm;
+  }
+
+  /**
+   * Runs a planned clustering job in this JVM or a child JVM, or refuses it if there is not
+   * enough memory for it. If clustering algorithms are isolated, the child JVM is started
+   * with their options after those of the plan, so they take precedence.
+   * @param plan - The plan of the job.
+   * @param inProcess - Runs the job in this JVM.
+   * @param isolated - Runs the job in a child JVM with the options given.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the clustering algorithm, or if the job is refused.
+   */
+  private Path runJob(JobPlan plan, Callable<Path> inProcess, IsolatedJob isolated)
+      throws Exception {
+    switch (plan.getMode()) {
+      case IN_PROCESS:
+        return runInPool(plan.getThreads(), inProcess);
+      case ISOLATED:
+        List<String> options = new ArrayList<>(plan.getJvmOptions());
+        if (execPlugin.isIsolated()) {
+          options.addAll(execPlugin.getIsolatedJvmOptions());
+        }
+        return isolated.run(options);
+      default:
+        throw new IllegalStateException("There is not enough memory to run the clustering "
+            + "algorithm on this data: " + plan);
+    }
+  }
+
+  /**
+   * Runs a clustering job on a fork join pool with the number of threads given, so the
+   * parallel streams of the clustering algorithm use that many threads.
+   * @param threads - The number of threads to run the job with.
+   * @param job - The job to run.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - Thrown by the job.
+   */
+  private static Path runInPool(int threads, Callable<Path> job) throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    //A FutureTask keeps the exception thrown by the job, rather than a copy of it.
+    FutureTask<Path> task = new FutureTask<>(job);
+    try {
+      pool.execute(task);
+      return task.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw (Exception) e.getCause();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * A clustering job run in a child JVM.
+   */
+  private interface IsolatedJob {
+
+    /**
+     * Runs the job in a child JVM.
+     * @param jvmOptions - The options of the child JVM.
+     * @return - Path - The path of the resultant file from clustering.
+     * @throws Exception - May be thrown from the clustering algorithm.
+     */
+    Path run(List<String> jvmOptions) throws Exception;
+  }
+}
@@ -1,16 +1,28 @@
 package extensibleclustering.application;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Class that acts as the entry point for the application.
  * This is required to create a JAR with the JavaFX dependencies included.
+ * If the first argument is batch, the rest are given to the headless BatchRunner instead, 
+ * so JavaFX is not started.
  * @author David Cook
  */
 public class EntryPoint {
   
+  /**
+   * Starts the user interface, or the batch runner if the first argument is batch.
+   * @param args - The arguments, which are given to the batch runner after batch.
+   * @throws IOException - Thrown if the fxml file cannot be loaded.
+   */
   public static void main(String[] args) throws IOException {
-    Main.main(args);
+    if (args.length > 0 && args[0].equals("batch")) {
+      BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+    } else {
+      Main.main(args);
+    }
   }
 
 }
@@ -1,9 +1,14 @@
 package extensibleclustering.application;
 
+import extensibleclustering.dependencies.Parameter;
 import extensibleclustering.dependencies.Position;
 import extensibleclustering.plugins.ImportedPlugins;
+import extensibleclustering.preprocessing.PreprocessingStage;
 import java.io.File;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Label;
 import javafx.scene.text.Font;
@@ -35,8 +40,13 @@ public final class ExtensibleClusteringController {
     standardView.addUpdateParsersObserver(this::loadPlugins);
     standardView.addClusterDataObserver(this::clusterData);
     standardView.addVisualisationObserver(this::visualiseData);
+    standardView.addParametersObservers(this::getParserParameters, 
+        this::getClusteringParameters);
     standardView.setParentStage(primaryStage);
-    standardView.setImportedPlugins(ecModel.importedPlugins);
+    standardView.setImportedPlugins(ecModel.getImportedPlugins());
+    //Update the combo boxes on the UI thread when the plug-in jars change.
+    ecModel.addPluginObserver(plugins -> 
+        Platform.runLater(() -> standardView.setImportedPlugins(plugins)));
     standardView.setButtonActions();
   }
   
@@ -51,7 +61,8 @@ public final class ExtensibleClusteringController {
     try {
       //Clear last parsed data to allow to check to see if parsing has been successful.
       lastParsedData = null;
-      lastParsedData = ecModel.parseFile(selectedParser, selectedFile);
+      lastParsedData = ecModel.parseFile(selectedParser, selectedFile, 
+          standardView.getParserParameters());
       return "Parsed " + lastParsedData.length + " positions, each with " 
           + lastParsedData[0].getComponents().length + " dimensions";      
     } catch (Exception ex) {
@@ -61,6 +72,10 @@ public final class ExtensibleClusteringController {
   
   /**
    * Clusters data by using the selected parser and then clustering the data.
+   * The file is parsed first, so it is in the parsed data cache and parsing errors are 
+   * shown. The parsed data is clustered in memory if the job fits in the heap. Otherwise, 
+   * or if the user chose to cluster out-of-core, it is clustered from its entry in the 
+   * cache, so algorithms that work out-of-core do not need the parsed data in memory.
    * This will output to the user where the output file for the clustering is,
    * or will output an appropriate error message.
    * @return The result from the clustering process. Is output to user.
@@ -74,8 +89,16 @@ public final class ExtensibleClusteringController {
       return parserError;
     }
     try {
-      lastClusterOutput = ecModel.clusterData(lastParsedData, 
-          standardView.getSelectedFile().getName(), standardView.getSelectedClusteringAlgoName());
+      ecModel.setIsolatedJvmOptions(standardView.getIsolatedJvmOptions());
+      //Run the preprocessing chosen in the view, on a copy of the parsed data.
+      ecModel.clearPreprocessingStages();
+      for (PreprocessingStage stage : standardView.getPreprocessingStages()) {
+        ecModel.addPreprocessingStage(stage);
+      }
+      lastClusterOutput = ecModel.clusterParsedFile(lastParsedData,
+          standardView.getSelectedParserName(), standardView.getSelectedFile(),
+          standardView.getSelectedClusteringAlgoName(), standardView.getParserParameters(),
+          standardView.getClusteringParameters(), standardView.isOutOfCore());
       return ("Successfuly completed clustering. Output file can be found at:  "
           + lastClusterOutput.toFile().getName());
       
@@ -100,6 +123,31 @@ public final class ExtensibleClusteringController {
     }
   }
 
+  /**
+   * Returns the parameters of a parser, so the view can create a form for them.
+   * @param parserName - The name of the parser.
+   * @return - The parameters of the parser, empty if the parser cannot be found.
+   */
+  public List<Parameter> getParserParameters(String parserName) {
+    try {
+      return ecModel.getParserParameters(parserName);
+    } catch (Exception ex) {
+      return Collections.emptyList();
+    }
+  }
+  
+  /**
+   * Returns the parameters of a clustering algorithm, so the view can create a form for them.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm.
+   * @return - The parameters of the clustering algorithm, empty if it cannot be found.
+   */
+  public List<Parameter> getClusteringParameters(String clusteringAlgorithmName) {
+    try {
+      return ecModel.getClusteringParameters(clusteringAlgorithmName);
+    } catch (Exception ex) {
+      return Collections.emptyList();
+    }
+  }
   
   /**
    * Re-load the plug-ins into the system.
@@ -110,8 +158,7 @@ public final class ExtensibleClusteringController {
    * @return Imported Plugins loaded by the model.
    */
   public ImportedPlugins loadPlugins() {
-    ecModel.importPlugins();
-    return ecModel.importedPlugins;
+    return ecModel.importPlugins();
   }
   
   /**
@@ -125,8 +172,9 @@ public final class ExtensibleClusteringController {
     } else {
       //Find the cause for the exception, and use the message. 
       //If the error occurs when clustering, the message from the there will be in the cause.
-      Throwable cause = ex.getCause();
-      return cause == null || cause.getMessage() == null ? "An error occured "
+      //Plug-ins are called through their interfaces, so their own exceptions have no cause.
+      Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+      return cause.getMessage() == null ? "An error occured "
             + "but the plugin did not provide an error message" : cause.getMessage();
     }
   }
@@ -1,32 +1,53 @@
 package extensibleclustering.application;
 
 import extensibleclustering.dependencies.DirectoryHelper;
+import extensibleclustering.dependencies.Parameter;
 import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
 import extensibleclustering.plugins.ImportedPlugins;
 import extensibleclustering.plugins.PluginExecutor;
 import extensibleclustering.plugins.PluginLoader;
+import extensibleclustering.plugins.PluginWatcher;
+import extensibleclustering.preprocessing.PreprocessingStage;
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import javafx.scene.Scene;
 
 public class ExtensibleClusteringModel {
   
   DirectoryHelper dirHelper;
-  ImportedPlugins importedPlugins;
   PluginLoader pluginLoader;
+  PluginWatcher pluginWatcher;
   PluginExecutor execPlugin;
+  ClusteringHelper helper;
   
   /**
    * Constructor for the ExtensibleClusteringModel.
    * This creates the required support classes and loads the plug-ins into the system.
    * If the directories for the output / plug-ins folder do not exist, the load plug-ins 
    * class will create them (needs to create the plug-in folder to read from).
+   * Parsing and clustering is done by a ClusteringHelper, which always uses the latest 
+   * plug-ins published by the plug-in watcher.
    */
   public ExtensibleClusteringModel() {
     dirHelper = new DirectoryHelper();
     pluginLoader = new PluginLoader();
-    importedPlugins = pluginLoader.loadPlugins();
+    //Reload the jars that change in the plug-ins directory while the system is running.
+    pluginWatcher = new PluginWatcher(pluginLoader, dirHelper.getPlugInDirectory(), 
+        pluginLoader.loadPlugins());
+    try {
+      pluginWatcher.start();
+    } catch (IOException e) {
+      //The plug-ins can still be reloaded with the reload button.
+      e.printStackTrace();
+    }
     execPlugin = new PluginExecutor();
+    helper = new ClusteringHelper(pluginWatcher::getImportedPlugins, execPlugin, 
+        new ParsedDataCache());
   }
   
   /**
@@ -34,37 +55,164 @@ public class ExtensibleClusteringModel {
    * @return - ImportedPlugins, plug-ins that have been imported to the system.
    */
   public ImportedPlugins getImportedPlugins() {
-    return importedPlugins;
+    return pluginWatcher.getImportedPlugins();
   }
   
   /**
    * Import the plug-ins and update the importedPlugins object.
    * This method could be used to update the plug-ins after the user may 
    * have added more to the plug-in directory.
+   * The plug-ins are published through the plug-in watcher, so they cannot be replaced by 
+   * a reload of the changed jars that was loaded before them.
+   * @return ImportedPlugins - The plug-ins that were imported.
    */
-  public void importPlugins() {
-    importedPlugins = pluginLoader.loadPlugins();
+  public ImportedPlugins importPlugins() {
+    return pluginWatcher.loadPlugins();
+  }
+  
+  /**
+   * Adds an observer that is given the new plug-ins each time jars in the plug-ins 
+   * directory are created, modified or deleted. The observer is not called on the UI thread.
+   * @param observer - The observer to give the reloaded plug-ins to.
+   */
+  public void addPluginObserver(Consumer<ImportedPlugins> observer) {
+    pluginWatcher.addObserver(observer);
   }
   
   /**
    * Method that parses a specified file using a specified parser.
+   * If the file has already been parsed with the parser and neither have changed, 
+   * the data is loaded from the parsed data cache instead of being parsed again.
    * @param parserName - Name of the parser that has been imported to use.
    * @param fileToParse - File to parsed.
    * @return - Position[] - Positions that have been parsed.
    * @throws Exception - May be thrown by the plugin, exception type unknown.
    */
   public Position[] parseFile(String parserName, File fileToParse) throws Exception {
-    if (parserName == null || fileToParse == null 
-        || !importedPlugins.getImportedParsers().containsKey(parserName)) {
-      throw new IllegalArgumentException("An Illegal argument was provided. "
-          + "This may be due to the file not existing or the parser not existing");
-    }
-    return execPlugin.execParser(fileToParse, 
-          importedPlugins.getImportedParsers().get(parserName));
+    return helper.parseFile(parserName, fileToParse);
+  }
+  
+  /**
+   * Method that parses a specified file using a specified parser and values for the 
+   * parameters of the parser. The parsed data cache is only used if no values are given, 
+   * as the values may change the data that is parsed.
+   * @param parserName - Name of the parser that has been imported to use.
+   * @param fileToParse - File to parsed.
+   * @param parameters - The values of the parameters of the parser.
+   * @return - Position[] - Positions that have been parsed.
+   * @throws Exception - May be thrown by the plugin, exception type unknown.
+   */
+  public Position[] parseFile(String parserName, File fileToParse, 
+      Map<String, Object> parameters) throws Exception {
+    return helper.parseFile(parserName, fileToParse, parameters);
+  }
+  
+  /**
+   * Returns the parameters the specified parser can be given.
+   * @param parserName - Name of the parser that has been imported.
+   * @return - List of the parameters of the parser.
+   * @throws Exception - May be thrown by the plugin, exception type unknown.
+   */
+  public List<Parameter> getParserParameters(String parserName) throws Exception {
+    return helper.getParserParameters(parserName);
+  }
+  
+  /**
+   * Returns the parameters the specified clustering algorithm can be given.
+   * @param clusteringAlgorithmName - Name of the clustering algorithm that has been imported.
+   * @return - List of the parameters of the clustering algorithm.
+   * @throws Exception - May be thrown by the plugin, exception type unknown.
+   */
+  public List<Parameter> getClusteringParameters(String clusteringAlgorithmName) 
+      throws Exception {
+    return helper.getClusteringParameters(clusteringAlgorithmName);
+  }
+  
+  /**
+   * Adds a preprocessing stage, which is run on the data after it is parsed and before 
+   * it is clustered. The stages are run in the order they are added.
+   * @param stage - The preprocessing stage to add.
+   */
+  public void addPreprocessingStage(PreprocessingStage stage) {
+    helper.addPreprocessingStage(stage);
+  }
+  
+  /**
+   * Removes all of the preprocessing stages, so the parsed data is clustered unchanged.
+   */
+  public void clearPreprocessingStages() {
+    helper.clearPreprocessingStages();
+  }
+  
+  /**
+   * Returns the preprocessing stages run before clustering.
+   * @return - List of the preprocessing stages, in the order they are run.
+   */
+  public List<PreprocessingStage> getPreprocessingStages() {
+    return helper.getPreprocessingStages();
+  }
+  
+  /**
+   * Sets if clustering algorithms are run in a child JVM with their own heap, e.g. so a 
+   * large job can be given more memory than the rest of the system, or a crash in an 
+   * algorithm only stops the job.
+   * @param jvmOptions - The options of the child JVM, e.g. -Xmx24g, or null to run 
+   *     clustering algorithms in this JVM.
+   */
+  public void setIsolatedJvmOptions(List<String> jvmOptions) {
+    helper.setIsolatedJvmOptions(jvmOptions);
+  }
+  
+  /**
+   * Plans a clustering job from the capabilities of the clustering algorithm, predicting 
+   * the memory it needs, where it will run and how many threads it will be given.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @param positions - The number of Positions to cluster.
+   * @param dimensions - The dimensions of each Position.
+   * @param loaded - True if the Positions are already in memory, or false if they are 
+   *     read from the parsed data cache.
+   * @return - JobPlan - The plan of the job.
+   * @throws Exception - May be thrown from the clustering algorithm or due to an illegal argument.
+   */
+  public JobPlan planJob(String clusteringAlgorithmName, long positions, int dimensions, 
+      boolean loaded) throws Exception {
+    return helper.planJob(clusteringAlgorithmName, positions, dimensions, loaded);
+  }
+  
+  /**
+   * Plans a clustering job as planJob does, for data read from a dataset file that may 
+   * not be dense. Algorithms only stream dense files, so a file that is not dense, e.g. 
+   * one holding sketches, is planned as if the algorithm loads it.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @param positions - The number of Positions to cluster.
+   * @param dimensions - The dimensions of each Position.
+   * @param loaded - True if the Positions are already in memory, or false if they are 
+   *     read from the parsed data cache.
+   * @param dense - True if every Position has a value for every dimension.
+   * @return - JobPlan - The plan of the job.
+   * @throws Exception - May be thrown from the clustering algorithm or due to an illegal argument.
+   */
+  public JobPlan planJob(String clusteringAlgorithmName, long positions, int dimensions, 
+      boolean loaded, boolean dense) throws Exception {
+    return helper.planJob(clusteringAlgorithmName, positions, dimensions, loaded, dense);
+  }
+  
+  /**
+   * Runs each of the preprocessing stages on a copy of the data, so the data given is 
+   * left unchanged.
+   * @param data - The parsed data to preprocess.
+   * @return - Position[] - The preprocessed data, or the data given if there are no stages.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  public Position[] preprocessData(Position[] data) throws InterruptedException {
+    return helper.preprocessData(data);
   }
   
   /**
    * Clusters data with the data, filename and clustering algorithm provided.
+   * The data is preprocessed first by any preprocessing stages that have been added. 
+   * The job is then planned, so it is run in a child JVM, or refused, if it would not fit 
+   * in the heap, and is otherwise run with the threads planned for it.
    * @param data - The data to cluster.
    * @param fileName - The file name the data was parsed from.
    * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
@@ -73,14 +221,110 @@ public class ExtensibleClusteringModel {
    */
   public Path clusterData(Position[] data, String fileName, 
       String clusteringAlgorithmName) throws Exception {
-    if (data == null || fileName == null || clusteringAlgorithmName == null 
-        || !importedPlugins.getImportedClusteringAlgorithms()
-        .containsKey(clusteringAlgorithmName))  {
-      throw new IllegalArgumentException("An Illegal argument was provided. "
-          + "This occured because the data, file name or clustering algorothm were not provided");
-    }
-    return execPlugin.execClustering(data, fileName, 
-        importedPlugins.getImportedClusteringAlgorithms().get(clusteringAlgorithmName));
+    return helper.clusterData(data, fileName, clusteringAlgorithmName);
+  }
+  
+  /**
+   * Clusters data with the data, filename, clustering algorithm and values for the 
+   * parameters of the clustering algorithm provided, as clusterData.
+   * @param data - The data to cluster.
+   * @param fileName - The file name the data was parsed from.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @param parameters - The values of the parameters of the clustering algorithm.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the clustering algorithm or due to an illegal argument.
+   */
+  public Path clusterData(Position[] data, String fileName, String clusteringAlgorithmName, 
+      Map<String, Object> parameters) throws Exception {
+    return helper.clusterData(data, fileName, clusteringAlgorithmName, parameters);
+  }
+  
+  /**
+   * Opens a source of the Positions in a file with a specified parser, so they can be 
+   * clustered while the file is still being parsed. If the file is in the parsed data cache 
+   * the source is of the cached data instead. The source must be closed once used.
+   * @param parserName - Name of the parser that has been imported to use.
+   * @param fileToParse - File to parsed.
+   * @return - PositionSource - The source of the Positions in the file.
+   * @throws Exception - May be thrown by the plugin, exception type unknown.
+   */
+  public PositionSource openSource(String parserName, File fileToParse) throws Exception {
+    return helper.openSource(parserName, fileToParse);
+  }
+  
+  /**
+   * Clusters the data from a source with the filename and clustering algorithm provided.
+   * This is named differently to clusterData so calls passing null data are not ambiguous.
+   * The source is passed through any preprocessing stages that have been added first. 
+   * Stages that need all of the data read the whole source before it is clustered. 
+   * The size of the source is not known until it is read, so the job is not planned, 
+   * but it is given as many threads as the clustering algorithm can use.
+   * @param source - The source of the data to cluster.
+   * @param fileName - The file name the data was parsed from.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the clustering algorithm or due to an illegal argument.
+   */
+  public Path clusterSource(PositionSource source, String fileName, 
+      String clusteringAlgorithmName) throws Exception {
+    return helper.clusterSource(source, fileName, clusteringAlgorithmName);
+  }
+  
+  /**
+   * Clusters a file parsed with a specified parser from its entry in the parsed data cache, 
+   * so algorithms that work out-of-core can read the data without loading it all. 
+   * The file is parsed and cached first if it has not been cached. If any preprocessing 
+   * stages have been added, or the data cannot be cached, the data is loaded and 
+   * clustered with clusterData instead. The job is planned with the size of the cached data.
+   * @param parserName - Name of the parser that has been imported to use.
+   * @param fileToParse - File to parsed.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the plug-ins or due to an illegal argument.
+   */
+  public Path clusterCachedFile(String parserName, File fileToParse, 
+      String clusteringAlgorithmName) throws Exception {
+    return helper.clusterCachedFile(parserName, fileToParse, clusteringAlgorithmName);
+  }
+  
+  /**
+   * Clusters a file parsed with a specified parser from its entry in the parsed data cache, 
+   * as clusterCachedFile, with values for the parameters of the parser and clustering 
+   * algorithm. If values are given for the parser the file is not cached, so it is 
+   * clustered with clusterData.
+   * @param parserName - Name of the parser that has been imported to use.
+   * @param fileToParse - File to parsed.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @param parserParameters - The values of the parameters of the parser.
+   * @param clusteringParameters - The values of the parameters of the clustering algorithm.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the plug-ins or due to an illegal argument.
+   */
+  public Path clusterCachedFile(String parserName, File fileToParse, 
+      String clusteringAlgorithmName, Map<String, Object> parserParameters, 
+      Map<String, Object> clusteringParameters) throws Exception {
+    return helper.clusterCachedFile(parserName, fileToParse, clusteringAlgorithmName,
+        parserParameters, clusteringParameters);
+  }
+
+  /**
+   * Clusters data parsed from a file in memory while it fits, or otherwise from the entry
+   * of the file in the parsed data cache, as clusterCachedFile does.
+   * @param data - The data parsed from the file.
+   * @param parserName - Name of the parser the file was parsed with.
+   * @param fileToParse - File the data was parsed from.
+   * @param clusteringAlgorithmName - The name of the clustering algorithm to use.
+   * @param parserParameters - The values of the parameters of the parser.
+   * @param clusteringParameters - The values of the parameters of the clustering algorithm.
+   * @param outOfCore - True to cluster the file from the cache even if the data fits.
+   * @return - Path - The path of the resultant file from clustering.
+   * @throws Exception - May be thrown from the plug-ins or due to an illegal argument.
+   */
+  public Path clusterParsedFile(Position[] data, String parserName, File fileToParse,
+      String clusteringAlgorithmName, Map<String, Object> parserParameters,
+      Map<String, Object> clusteringParameters, boolean outOfCore) throws Exception {
+    return helper.clusterParsedFile(data, parserName, fileToParse, clusteringAlgorithmName,
+        parserParameters, clusteringParameters, outOfCore);
   }
   
   /**
@@ -91,6 +335,7 @@ public class ExtensibleClusteringModel {
    * @throws Exception - May be thrown by the visualisation method or due to an illegal argument.
    */
   public Scene visualiseData(File outputFile, String visualisationMethodName) throws Exception {
+    ImportedPlugins importedPlugins = getImportedPlugins();
     if (outputFile == null || visualisationMethodName == null 
         || !importedPlugins.getImportedVisualisationMethods()
         .containsKey(visualisationMethodName)) {
@@ -0,0 +1,172 @@
+package extensibleclustering.application;
+
+import com.sun.management.OperatingSystemMXBean;
+import extensibleclustering.dependencies.AlgorithmCapabilities;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plan of where a clustering job runs and with how many threads, predicted from the
+ * capabilities of the clustering algorithm before any work is started.
+ * A job runs in this JVM if the memory it needs fits in the free heap. Otherwise it is
+ * redirected to a child JVM with a heap sized for the job, if that fits in the memory of
+ * the machine, or refused, rather than running out of memory part way through.
+ * @author David Cook
+ */
+public final class JobPlan {
+
+  /**
+   * Where a job is run.
+   */
+  public enum Mode {
+    IN_PROCESS, ISOLATED, REFUSED
+  }
+
+  //Approximate heap used by a Position with its ID, and by each of its boxed components.
+  static final long POSITION_BYTES = 112;
+  static final long COMPONENT_BYTES = 24;
+  //Heap a child JVM needs besides the job, e.g. for the classes of the plug-in.
+  static final long CHILD_BYTES = 64L << 20;
+  //The estimates are rough, so a quarter more memory than predicted must be free.
+  static final double HEADROOM = 1.25;
+  //Jobs estimated to take fewer operations than this are not worth running in parallel.
+  static final double PARALLEL_OPERATIONS = 1e7;
+  private static final long MEGABYTE = 1L << 20;
+
+  private final Mode mode;
+  private final long predictedMemory;
+  private final int threads;
+
+  /**
+   * Creates a plan that has been checked against the memory available.
+   * @param mode - Where the job is run.
+   * @param predictedMemory - The memory the job needs where it is run, in bytes.
+   * @param threads - The threads the job is run with.
+   */
+  private JobPlan(Mode mode, long predictedMemory, int threads) {
+    this.mode = mode;
+    this.predictedMemory = predictedMemory;
+    this.threads = threads;
+  }
+
+  /**
+   * Plans a clustering job with the memory and processors of this JVM and machine.
+   * @param capabilities - The capabilities of the clustering algorithm.
+   * @param positions - The number of Positions to cluster.
+   * @param dimensions - The dimensions of each Position.
+   * @param loaded - True if the Positions are already in the heap of this JVM, or false if
+   *     they are read from a dataset file.
+   * @param isolated - True if the job must run in a child JVM.
+   * @return JobPlan - The plan of the job.
+   */
+  public static JobPlan plan(AlgorithmCapabilities capabilities, long positions,
+      int dimensions, boolean loaded, boolean isolated) {
+    Runtime runtime = Runtime.getRuntime();
+    long freeHeap = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    return plan(capabilities, positions, dimensions, loaded, isolated, freeHeap,
+        getFreeMachineMemory(), runtime.availableProcessors());
+  }
+
+  /**
+   * Returns the memory of the machine a child JVM can be given. This is the physical memory
+   * that is free now, less the heap this JVM may still grow to, so other processes and
+   * other jobs already running are taken into account.
+   * @return long - The bytes of memory a child JVM can be given, 0 if it is not known.
+   */
+  @SuppressWarnings("deprecation")
+  public static long getFreeMachineMemory() {
+    if (!(ManagementFactory.getOperatingSystemMXBean() instanceof OperatingSystemMXBean)) {
+      return 0;
+    }
+    //Renamed getFreeMemorySize after Java 11, which is still supported.
+    long freePhysical = ((OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+        .getFreePhysicalMemorySize();
+    Runtime runtime = Runtime.getRuntime();
+    return Math.max(0, freePhysical - (runtime.maxMemory() - runtime.totalMemory()));
+  }
+
+  /**
+   * Plans a clustering job with the memory and processors given, e.g. those of the machine 
+   * a batch of jobs will be run on.
+   * @param capabilities - The capabilities of the clustering algorithm.
+   * @param positions - The number of Positions to cluster.
+   * @param dimensions - The dimensions of each Position.
+   * @param loaded - True if the Positions are already in the heap of this JVM.
+   * @param isolated - True if the job must run in a child JVM.
+   * @param freeHeap - The bytes of heap free in this JVM.
+   * @param freeMachine - The bytes of memory a child JVM can be given.
+   * @param processors - The number of processors available.
+   * @return JobPlan - The plan of the job.
+   */
+  public static JobPlan plan(AlgorithmCapabilities capabilities, long positions, int dimensions,
+      boolean loaded, boolean isolated, long freeHeap, long freeMachine, int processors) {
+    if (capabilities == null || positions < 0 || dimensions < 0) {
+      throw new IllegalArgumentException("The capabilities must be given, and the size of "
+          + "the data cannot be negative");
+    }
+    long data = positions * (POSITION_BYTES + dimensions * COMPONENT_BYTES);
+    long working = capabilities.estimateMemory(positions);
+    //Streaming algorithms read a dataset file a block at a time rather than loading it.
+    long inProcess = capabilities.isStreaming() && !loaded ? 0
+        : working + (loaded ? 0 : data);
+    //The child always reads the data from a dataset file.
+    long child = CHILD_BYTES + (capabilities.isStreaming() ? 0 : working + data);
+
+    int threads = 1;
+    if (capabilities.estimateOperations(positions, dimensions) >= PARALLEL_OPERATIONS) {
+      threads = Math.max(1, Math.min(processors, capabilities.getMaxThreads()));
+    }
+    if (!isolated && inProcess * HEADROOM <= freeHeap) {
+      return new JobPlan(Mode.IN_PROCESS, inProcess, threads);
+    }
+    if (child * HEADROOM <= freeMachine) {
+      return new JobPlan(Mode.ISOLATED, child, threads);
+    }
+    return new JobPlan(Mode.REFUSED, isolated ? child : Math.min(inProcess, child), threads);
+  }
+
+  /**
+   * Returns where the job is run.
+   * @return Mode - Where the job is run.
+   */
+  public Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * Returns the memory the job is predicted to need where it is run.
+   * @return long - The predicted memory in bytes.
+   */
+  public long getPredictedMemory() {
+    return predictedMemory;
+  }
+
+  /**
+   * Returns the number of threads the job is run with.
+   * @return int - The number of threads, 1 if the job is run sequentially.
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Returns the options of a child JVM sized for the job, with room for the estimate to
+   * be out, and the processors limited to the threads of the job.
+   * @return List - The options of the child JVM.
+   */
+  public List<String> getJvmOptions() {
+    long heap = (long) Math.ceil(predictedMemory * HEADROOM / MEGABYTE);
+    return Arrays.asList("-Xmx" + heap + "m", "-XX:ActiveProcessorCount=" + threads);
+  }
+
+  /**
+   * Returns a description of the plan, e.g. to tell the user why a job was refused.
+   * @return String - The description of the plan.
+   */
+  @Override
+  public String toString() {
+    return String.format("%s job needing about %d MB with %d thread(s)",
+        mode, (predictedMemory + MEGABYTE - 1) / MEGABYTE, threads);
+  }
+}
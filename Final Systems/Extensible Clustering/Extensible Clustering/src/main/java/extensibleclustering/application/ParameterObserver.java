@@ -0,0 +1,21 @@
+package extensibleclustering.application;
+
+import extensibleclustering.dependencies.Parameter;
+import java.util.List;
+
+/**
+ * Functional interface for returning the parameters of a plug-in to the view, 
+ * so a form can be created for them.
+ * @author David Cook
+ */
+@FunctionalInterface
+public interface ParameterObserver {
+
+  /**
+   * Returns the parameters of the plug-in with the name given.
+   * @param pluginName - The name of the plug-in.
+   * @return - The parameters of the plug-in, empty if it has none or cannot be found.
+   */
+  public List<Parameter> callMethod(String pluginName);
+
+}
@@ -0,0 +1,205 @@
+package extensibleclustering.application;
+
+import extensibleclustering.dependencies.DatasetFile;
+import extensibleclustering.dependencies.DirectoryHelper;
+import extensibleclustering.dependencies.Position;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Cache of parsed data, so a file does not need to be parsed again each time it is clustered.
+ * Each file and parser has one entry in the cache directory, saved as a DatasetFile.
+ * The entry stores the size and modified time of the file along with the version of the
+ * parser, so an entry is only used if neither the file nor the parser have changed.
+ * @author David Cook
+ */
+public class ParsedDataCache {
+
+  private static final String EXTENSION = ".ecds";
+
+  private final Path cacheDirectory;
+
+  /**
+   * Creates a cache in the cache directory of the Extensible Clustering home directory.
+   */
+  public ParsedDataCache() {
+    this(new DirectoryHelper().getCacheDirectory());
+  }
+
+  /**
+   * Creates a cache in the given directory. The directory is created when data is first
+   * saved to the cache.
+   * @param cacheDirectory - The directory to save the parsed data to.
+   */
+  public ParsedDataCache(Path cacheDirectory) {
+    if (cacheDirectory == null) {
+      throw new IllegalArgumentException("The cache directory cannot be null");
+    }
+    this.cacheDirectory = cacheDirectory;
+  }
+
+  /**
+   * Returns the cached data for a file parsed with a parser.
+   * @param file - The file that was parsed.
+   * @param parser - The parser class used to parse the file.
+   * @return Position[] - The cached data, or null if the file has not been cached with this
+   *     parser, or the file or parser have changed since it was cached.
+   */
+  public Position[] get(File file, Class<?> parser) {
+    Path entry = getEntry(file, parser);
+    if (entry == null) {
+      return null;
+    }
+    try {
+      return DatasetFile.read(entry);
+    } catch (IOException | RuntimeException ex) {
+      //A damaged entry is treated as missing, and will be replaced when the file is parsed.
+      return null;
+    }
+  }
+
+  /**
+   * Returns the dataset file of the cached data for a file parsed with a parser, so it can
+   * be read without loading all of the data, e.g. by an out-of-core clustering algorithm.
+   * @param file - The file that was parsed.
+   * @param parser - The parser class used to parse the file.
+   * @return Path - The entry in the cache, or null if the file has not been cached with this
+   *     parser, or the file or parser have changed since it was cached.
+   */
+  public Path getEntry(File file, Class<?> parser) {
+    if (file == null || parser == null || !file.isFile()) {
+      return null;
+    }
+    Path entry = getEntryPath(file, parser);
+    if (!Files.exists(entry)) {
+      return null;
+    }
+    try {
+      return getKey(file, parser).equals(DatasetFile.readMetadata(entry)) ? entry : null;
+    } catch (IOException | RuntimeException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Saves the data parsed from a file with a parser to the cache, replacing any older entry.
+   * Data that cannot be saved as a DatasetFile, e.g. a custom Position type, is not cached.
+   * @param file - The file that was parsed.
+   * @param parser - The parser class used to parse the file.
+   * @param data - The data parsed from the file.
+   * @throws IOException - Thrown if the data cannot be saved to the cache directory.
+   */
+  public void put(File file, Class<?> parser, Position[] data) throws IOException {
+    if (file == null || parser == null || !file.isFile() || !DatasetFile.isSupported(data)) {
+      return;
+    }
+    Files.createDirectories(cacheDirectory);
+    Path entry = getEntryPath(file, parser);
+
+    //Write to a temporary file first, so a partly written entry is never read.
+    Path temporary = Files.createTempFile(cacheDirectory, "entry", ".tmp");
+    try {
+      DatasetFile.write(temporary, data, getKey(file, parser));
+      try {
+        Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Removes all of the entries from the cache.
+   * @throws IOException - Thrown if an entry cannot be deleted.
+   */
+  public void clear() throws IOException {
+    if (!Files.isDirectory(cacheDirectory)) {
+      return;
+    }
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(cacheDirectory,
+        "*" + EXTENSION)) {
+      for (Path entry : entries) {
+        Files.deleteIfExists(entry);
+      }
+    }
+  }
+
+  /**
+   * Returns the directory the cache is saved in.
+   * @return Path - The cache directory.
+   */
+  public Path getCacheDirectory() {
+    return cacheDirectory;
+  }
+
+  /**
+   * Returns the key that must match for an entry to be used. This contains the path, size
+   * and modified time of the file, and the name and version of the parser.
+   * @param file - The file that was parsed.
+   * @param parser - The parser class used to parse the file.
+   * @return String - The key for the file and parser.
+   */
+  private String getKey(File file, Class<?> parser) {
+    return file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified()
+        + "|" + parser.getName() + "|" + getParserVersion(parser);
+  }
+
+  /**
+   * Returns the version of a parser. This is the implementation version of its package if
+   * it has one, along with the size and modified time of the jar or folder it was loaded from,
+   * so replacing the plug-in jar invalidates the entries it created.
+   * @param parser - The parser class.
+   * @return String - The version of the parser.
+   */
+  private String getParserVersion(Class<?> parser) {
+    String version = parser.getPackage() == null ? null
+        : parser.getPackage().getImplementationVersion();
+    CodeSource source = parser.getProtectionDomain().getCodeSource();
+    if (source != null && source.getLocation() != null) {
+      try {
+        File location = Paths.get(source.getLocation().toURI()).toFile();
+        version += "|" + location.length() + "|" + location.lastModified();
+      } catch (URISyntaxException | IllegalArgumentException ex) {
+        version += "|" + source.getLocation();
+      }
+    }
+    return version;
+  }
+
+  /**
+   * Returns the path of the entry for a file and parser, which is named with a hash of the
+   * path of the file and the name of the parser.
+   * @param file - The file that was parsed.
+   * @param parser - The parser class used to parse the file.
+   * @return Path - The path of the entry in the cache directory.
+   */
+  private Path getEntryPath(File file, Class<?> parser) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest((file.getAbsolutePath() + "|" + parser.getName())
+          .getBytes(StandardCharsets.UTF_8));
+      StringBuilder name = new StringBuilder();
+      for (int i = 0; i < 16; i++) {
+        name.append(String.format("%02x", hash[i]));
+      }
+      return cacheDirectory.resolve(name + EXTENSION);
+    } catch (NoSuchAlgorithmException ex) {
+      //Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(ex);
+    }
+  }
+}
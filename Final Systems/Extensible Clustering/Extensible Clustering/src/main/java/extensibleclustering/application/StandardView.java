@@ -1,23 +1,44 @@
 package extensibleclustering.application;
 
+import extensibleclustering.dependencies.Parameter;
 import extensibleclustering.plugins.ImportedPlugins;
+import extensibleclustering.preprocessing.CoresetStage;
+import extensibleclustering.preprocessing.DuplicateCollapsingStage;
+import extensibleclustering.preprocessing.PcaStage;
+import extensibleclustering.preprocessing.PreprocessingStage;
+import extensibleclustering.preprocessing.RandomProjectionStage;
+import extensibleclustering.preprocessing.StandardisationStage;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import javafx.collections.FXCollections;
 import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
+import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Control;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.TextField;
 import javafx.scene.control.Tooltip;
+import javafx.scene.layout.GridPane;
+import javafx.scene.text.Font;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
@@ -34,6 +55,21 @@ public class StandardView implements StandardViewInterface {
   private Set<String> clusteringNames = new HashSet<>();
   private Set<String> visualisationNames = new HashSet<>();
   private ImportedPlugins lastImportedPlugins;
+  //The values chosen for the parameters of each plug-in, read when a task is run.
+  private Map<String, Map<String, Object>> parserValues = new ConcurrentHashMap<>();
+  private Map<String, Map<String, Object>> clusteringValues = new ConcurrentHashMap<>();
+  //The preprocessing chosen by the user, read when the data is clustered.
+  private volatile boolean logTransform = false;
+  private volatile boolean standardise = false;
+  private volatile int projectedDimensions = 0;
+  private volatile int pcaComponents = 0;
+  private volatile boolean collapseDuplicates = false;
+  private volatile double duplicateTolerance = 0.0;
+  private volatile int coresetSize = 0;
+  //The options of the child JVM clustering algorithms are run in, null to run them here.
+  private volatile List<String> isolatedJvmOptions = null;
+  //If the parsed data is clustered from the parsed data cache even if it fits in memory.
+  private volatile boolean outOfCore = false;
   
   @FXML
   private ComboBox<String> parserDropDown;
@@ -65,6 +101,9 @@ public class StandardView implements StandardViewInterface {
   @FXML
   private Button visualisationBtn;
   
+  @FXML
+  private Button parametersBtn;
+  
   @FXML
   private ProgressIndicator progressIndicator;
   
@@ -83,6 +122,7 @@ public class StandardView implements StandardViewInterface {
     prevStates.put(reloadBtn, false);
     prevStates.put(clusterBtn, false); 
     prevStates.put(visualisationBtn, false);
+    prevStates.put(parametersBtn, false);
     selectBtn.setOnAction(new EventHandler<ActionEvent>() {
       @Override
       public void handle(ActionEvent event) {
@@ -267,6 +307,7 @@ public class StandardView implements StandardViewInterface {
           reloadBtn.setDisable(true);
           selectBtn.setDisable(true);
           visualisationBtn.setDisable(true);
+          parametersBtn.setDisable(true);
         });
         
         reloadTask.setOnSucceeded((succeededEvent) -> {
@@ -365,4 +406,334 @@ public class StandardView implements StandardViewInterface {
       }
     });
   }
-}
\ No newline at end of file
+
+  /**
+   * Handles the parameters btn event by opening a form for the parameters of the selected 
+   * parser and clustering algorithm. The values are kept for each plug-in, so they are 
+   * used again when the plug-in is selected again.
+   */
+  @Override
+  public void addParametersObservers(ParameterObserver parserObserver, 
+      ParameterObserver clusteringObserver) {
+    parametersBtn.setOnAction(new EventHandler<ActionEvent>() {
+      @Override
+      public void handle(ActionEvent event) {
+        GridPane form = new GridPane();
+        form.setHgap(10);
+        form.setVgap(8);
+        form.setPadding(new Insets(15));
+        String parserName = getSelectedParserName();
+        String clusteringName = getSelectedClusteringAlgoName();
+        Supplier<Map<String, Object>> parserForm = 
+            addParameterRows(form, "Parser", parserName, parserObserver, parserValues);
+        Supplier<Map<String, Object>> clusteringForm = addParameterRows(form, 
+            "Clustering Algorithm", clusteringName, clusteringObserver, clusteringValues);
+        Runnable preprocessingForm = addPreprocessingRows(form);
+        Runnable memoryForm = addMemoryRows(form);
+        
+        Stage parametersStage = new Stage();
+        Label errorLabel = new Label();
+        errorLabel.setWrapText(true);
+        Button saveBtn = new Button("Save");
+        saveBtn.setOnAction(saveEvent -> {
+          try {
+            Map<String, Object> parserChosen = parserForm.get();
+            Map<String, Object> clusteringChosen = clusteringForm.get();
+            preprocessingForm.run();
+            memoryForm.run();
+            if (parserName != null) {
+              parserValues.put(parserName, parserChosen);
+            }
+            if (clusteringName != null) {
+              clusteringValues.put(clusteringName, clusteringChosen);
+            }
+            parametersStage.close();
+          } catch (IllegalArgumentException e) {
+            errorLabel.setText(e.getMessage());
+          }
+        });
+        int row = form.getRowCount();
+        form.add(errorLabel, 0, row, 2, 1);
+        form.add(saveBtn, 1, row + 1);
+        
+        parametersStage.setScene(new Scene(form));
+        parametersStage.setTitle("Parameters");
+        parametersStage.initOwner(parentWindow);
+        parametersStage.show();
+      }
+    });
+  }
+  
+  /**
+   * Adds a row to the form for each parameter of a plug-in, with a spinner for int and 
+   * double parameters, a combo box for enum parameters and a text field for text parameters.
+   * @param form - The form to add the rows to.
+   * @param type - The type of the plug-in, shown as the heading of the rows.
+   * @param pluginName - The name of the selected plug-in, or null if none is selected.
+   * @param observer - The method to get the parameters of the plug-in with.
+   * @param values - The values already chosen for each plug-in.
+   * @return - Reads the values from the rows, keeping those that are not the default. 
+   *     This throws an IllegalArgumentException if a value is not valid.
+   */
+  private Supplier<Map<String, Object>> addParameterRows(GridPane form, String type, 
+      String pluginName, ParameterObserver observer, Map<String, Map<String, Object>> values) {
+    int row = form.getRowCount();
+    Label heading = new Label(type + ": " + (pluginName == null ? "None selected" : pluginName));
+    heading.setFont(new Font("Arial", 15));
+    form.add(heading, 0, row++, 2, 1);
+    List<Parameter> parameters = 
+        pluginName == null ? Collections.emptyList() : observer.callMethod(pluginName);
+    if (pluginName != null && parameters.isEmpty()) {
+      form.add(new Label("No parameters"), 0, row, 2, 1);
+    }
+    Map<String, Object> current = values.getOrDefault(pluginName == null ? "" : pluginName, 
+        Collections.emptyMap());
+    Map<Parameter, Supplier<String>> fields = new LinkedHashMap<>();
+    for (Parameter parameter : parameters) {
+      Object value = current.getOrDefault(parameter.getName(), parameter.getDefaultValue());
+      Control field;
+      switch (parameter.getType()) {
+        case INT:
+          Spinner<Integer> intSpinner = new Spinner<>((int) parameter.getMin(), 
+              (int) parameter.getMax(), (Integer) value);
+          intSpinner.setEditable(true);
+          fields.put(parameter, intSpinner.getEditor()::getText);
+          field = intSpinner;
+          break;
+        case DOUBLE:
+          Spinner<Double> doubleSpinner = new Spinner<>(parameter.getMin(), 
+              parameter.getMax(), (Double) value, 0.01);
+          doubleSpinner.setEditable(true);
+          fields.put(parameter, doubleSpinner.getEditor()::getText);
+          field = doubleSpinner;
+          break;
+        case TEXT:
+          TextField text = new TextField((String) value);
+          fields.put(parameter, text::getText);
+          field = text;
+          break;
+        default:
+          ComboBox<String> options = 
+              new ComboBox<>(FXCollections.observableList(parameter.getOptions()));
+          options.setValue((String) value);
+          fields.put(parameter, options::getValue);
+          field = options;
+          break;
+      }
+      Label name = new Label(parameter.getName());
+      name.setTooltip(new Tooltip(parameter.getDescription()));
+      field.setTooltip(new Tooltip(parameter.getDescription()));
+      form.add(name, 0, row);
+      form.add(field, 1, row++);
+    }
+    return () -> {
+      Map<String, Object> chosen = new LinkedHashMap<>();
+      for (Map.Entry<Parameter, Supplier<String>> entry : fields.entrySet()) {
+        Object parsed = entry.getKey().parse(entry.getValue().get());
+        //Only keep changed values, so unchanged plug-ins can still use the parsed data cache.
+        if (!parsed.equals(entry.getKey().getDefaultValue())) {
+          chosen.put(entry.getKey().getName(), parsed);
+        }
+      }
+      return Collections.unmodifiableMap(chosen);
+    };
+  }
+  
+  /**
+   * Adds rows to the form for the preprocessing run before clustering, with check boxes 
+   * to log transform and standardise the data, and spinners for the number of dimensions 
+   * to randomly project the data into and the number of principal components to keep, 
+   * where 0 keeps all of the dimensions. A check box and spinner collapse the Positions 
+   * whose components are the same to within a tolerance, and a spinner sets the size of 
+   * the coreset to sample from the data, where 0 keeps all of the Positions.
+   * @param form - The form to add the rows to.
+   * @return - Saves the preprocessing chosen in the rows. This throws an 
+   *     IllegalArgumentException if a number or the tolerance is not valid.
+   */
+  private Runnable addPreprocessingRows(GridPane form) {
+    int row = form.getRowCount();
+    Label heading = new Label("Preprocessing");
+    heading.setFont(new Font("Arial", 15));
+    form.add(heading, 0, row++, 2, 1);
+    CheckBox logBox = new CheckBox("Log transform");
+    logBox.setSelected(logTransform);
+    logBox.setTooltip(new Tooltip("Replaces each value with log2(value + 1)"));
+    form.add(logBox, 0, row++, 2, 1);
+    CheckBox standardiseBox = new CheckBox("Standardise");
+    standardiseBox.setSelected(standardise);
+    standardiseBox.setTooltip(new Tooltip("Centres and scales each feature"));
+    form.add(standardiseBox, 0, row++, 2, 1);
+    Spinner<Integer> projectionSpinner = 
+        new Spinner<>(0, Integer.MAX_VALUE, projectedDimensions);
+    projectionSpinner.setEditable(true);
+    Label projectionName = new Label("Projected dimensions");
+    projectionName.setTooltip(new Tooltip("The number of dimensions to randomly project "
+        + "very high dimensional data into, e.g. k-mer counts, 0 to keep all of them"));
+    form.add(projectionName, 0, row);
+    form.add(projectionSpinner, 1, row++);
+    Spinner<Integer> pcaSpinner = new Spinner<>(0, Integer.MAX_VALUE, pcaComponents);
+    pcaSpinner.setEditable(true);
+    Label pcaName = new Label("PCA components");
+    pcaName.setTooltip(new Tooltip("The number of principal components to keep, "
+        + "0 to keep all of the dimensions"));
+    form.add(pcaName, 0, row);
+    form.add(pcaSpinner, 1, row++);
+    CheckBox collapseBox = new CheckBox("Collapse duplicates");
+    collapseBox.setSelected(collapseDuplicates);
+    collapseBox.setTooltip(new Tooltip("Clusters each distinct position once, "
+        + "weighted by the number of duplicates"));
+    form.add(collapseBox, 0, row++, 2, 1);
+    Spinner<Double> toleranceSpinner = 
+        new Spinner<>(0.0, Double.MAX_VALUE, duplicateTolerance, 0.01);
+    toleranceSpinner.setEditable(true);
+    toleranceSpinner.disableProperty().bind(collapseBox.selectedProperty().not());
+    Label toleranceName = new Label("Duplicate tolerance");
+    toleranceName.setTooltip(new Tooltip("Positions whose components round to the same "
+        + "multiple of this are duplicates, 0 to only collapse exact duplicates"));
+    form.add(toleranceName, 0, row);
+    form.add(toleranceSpinner, 1, row++);
+    Spinner<Integer> coresetSpinner = new Spinner<>(0, Integer.MAX_VALUE, coresetSize);
+    coresetSpinner.setEditable(true);
+    Label coresetName = new Label("Coreset positions");
+    coresetName.setTooltip(new Tooltip("The number of weighted positions to sample from "
+        + "very large data for k-means, 0 to cluster all of the positions"));
+    form.add(coresetName, 0, row);
+    form.add(coresetSpinner, 1, row);
+    return () -> {
+      int dimensions = readCount(projectionSpinner, "projected dimensions");
+      int components = readCount(pcaSpinner, "PCA components");
+      int sampleSize = readCount(coresetSpinner, "coreset positions");
+      double tolerance;
+      try {
+        tolerance = Double.parseDouble(toleranceSpinner.getEditor().getText().trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("The duplicate tolerance must be a number");
+      }
+      if (!(tolerance >= 0.0) || Double.isInfinite(tolerance)) {
+        throw new IllegalArgumentException("The duplicate tolerance must be a positive "
+            + "number or 0");
+      }
+      logTransform = logBox.isSelected();
+      standardise = standardiseBox.isSelected();
+      projectedDimensions = dimensions;
+      pcaComponents = components;
+      collapseDuplicates = collapseBox.isSelected();
+      duplicateTolerance = tolerance;
+      coresetSize = sampleSize;
+    };
+  }
+  
+  /**
+   * Reads a number that has been typed or chosen in a spinner of the form.
+   * @param spinner - The spinner to read.
+   * @param name - What the number is of, shown in the error message.
+   * @return - The number, 0 or more.
+   */
+  private static int readCount(Spinner<Integer> spinner, String name) {
+    int count;
+    try {
+      count = Integer.parseInt(spinner.getEditor().getText().trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("The number of " + name + " must be a number");
+    }
+    if (count < 0) {
+      throw new IllegalArgumentException("The number of " + name + " cannot be negative");
+    }
+    return count;
+  }
+  
+  /**
+   * Adds rows to the form for the memory clustering algorithms are run with, with a check 
+   * box to cluster the parsed data out-of-core, a check box to isolate the algorithms in 
+   * a child JVM and a text field for the options of the child JVM, e.g. -Xmx24g.
+   * @param form - The form to add the rows to.
+   * @return - Saves the memory options chosen in the rows.
+   */
+  private Runnable addMemoryRows(GridPane form) {
+    int row = form.getRowCount();
+    Label heading = new Label("Memory");
+    heading.setFont(new Font("Arial", 15));
+    form.add(heading, 0, row++, 2, 1);
+    CheckBox outOfCoreBox = new CheckBox("Cluster out-of-core");
+    outOfCoreBox.setSelected(outOfCore);
+    outOfCoreBox.setTooltip(new Tooltip("Clusters the parsed data from the disk even if it "
+        + "fits in memory, which some algorithms only approximate"));
+    form.add(outOfCoreBox, 0, row++, 2, 1);
+    List<String> current = isolatedJvmOptions;
+    CheckBox isolateBox = new CheckBox("Run clustering in a separate JVM");
+    isolateBox.setSelected(current != null);
+    isolateBox.setTooltip(new Tooltip("Runs the clustering algorithm with its own heap, "
+        + "so running out of memory only stops the job"));
+    form.add(isolateBox, 0, row++, 2, 1);
+    TextField optionsField = 
+        new TextField(current == null ? "" : String.join(" ", current));
+    optionsField.setTooltip(new Tooltip("The options of the JVM, e.g. -Xmx24g"));
+    optionsField.disableProperty().bind(isolateBox.selectedProperty().not());
+    form.add(new Label("JVM options"), 0, row);
+    form.add(optionsField, 1, row);
+    return () -> {
+      outOfCore = outOfCoreBox.isSelected();
+      String options = optionsField.getText().trim();
+      isolatedJvmOptions = !isolateBox.isSelected() ? null : options.isEmpty() 
+          ? Collections.emptyList() : Collections.unmodifiableList(
+              Arrays.asList(options.split("\\s+")));
+    };
+  }
+  
+  @Override
+  public Map<String, Object> getParserParameters() {
+    String parserName = getSelectedParserName();
+    return parserName == null 
+        ? Collections.emptyMap() : parserValues.getOrDefault(parserName, Collections.emptyMap());
+  }
+  
+  @Override
+  public Map<String, Object> getClusteringParameters() {
+    String clusteringName = getSelectedClusteringAlgoName();
+    return clusteringName == null ? Collections.emptyMap() 
+        : clusteringValues.getOrDefault(clusteringName, Collections.emptyMap());
+  }
+  
+  @Override
+  public List<PreprocessingStage> getPreprocessingStages() {
+    List<PreprocessingStage> stages = new ArrayList<>();
+    if (logTransform || standardise) {
+      StandardisationStage standardisation = new StandardisationStage();
+      standardisation.setLogTransform(logTransform);
+      standardisation.setCentre(standardise);
+      standardisation.setScale(standardise);
+      stages.add(standardisation);
+    }
+    if (projectedDimensions > 0) {
+      RandomProjectionStage projection = new RandomProjectionStage();
+      projection.setDimensions(projectedDimensions);
+      stages.add(projection);
+    }
+    if (pcaComponents > 0) {
+      PcaStage pca = new PcaStage();
+      pca.setComponents(pcaComponents);
+      stages.add(pca);
+    }
+    if (collapseDuplicates) {
+      DuplicateCollapsingStage collapsing = new DuplicateCollapsingStage();
+      collapsing.setTolerance(duplicateTolerance);
+      stages.add(collapsing);
+    }
+    if (coresetSize > 0) {
+      CoresetStage coreset = new CoresetStage();
+      coreset.setSampleSize(coresetSize);
+      stages.add(coreset);
+    }
+    return stages;
+  }
+  
+  @Override
+  public List<String> getIsolatedJvmOptions() {
+    return isolatedJvmOptions;
+  }
+  
+  @Override
+  public boolean isOutOfCore() {
+    return outOfCore;
+  }
+}
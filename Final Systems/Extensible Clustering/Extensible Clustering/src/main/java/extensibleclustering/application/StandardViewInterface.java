@@ -1,7 +1,10 @@
 package extensibleclustering.application;
 
 import extensibleclustering.plugins.ImportedPlugins;
+import extensibleclustering.preprocessing.PreprocessingStage;
 import java.io.File;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javafx.stage.Stage;
 
@@ -98,6 +101,50 @@ public interface StandardViewInterface {
    */
   public void addVisualisationObserver(SceneObserver visualisationObserver);
   
+  /**
+   * Sets the methods that will be called to get the parameters of the selected parser and 
+   * clustering algorithm, so the user can be given a form to choose their values.
+   * @param parserObserver - Method to call to get the parameters of a parser.
+   * @param clusteringObserver - Method to call to get the parameters of a clustering algorithm.
+   */
+  public void addParametersObservers(ParameterObserver parserObserver, 
+      ParameterObserver clusteringObserver);
+  
+  /**
+   * Returns the values the user has chosen for the parameters of the selected parser.
+   * @return - The values of the parameters, empty if none have been chosen.
+   */
+  public Map<String, Object> getParserParameters();
+  
+  /**
+   * Returns the values the user has chosen for the parameters of the selected 
+   * clustering algorithm.
+   * @return - The values of the parameters, empty if none have been chosen.
+   */
+  public Map<String, Object> getClusteringParameters();
+  
+  /**
+   * Returns the preprocessing stages the user has chosen to run on the parsed data 
+   * before it is clustered. New stages are returned each time, so they can be run on 
+   * another thread.
+   * @return - The preprocessing stages in the order they are run, empty if none are chosen.
+   */
+  public List<PreprocessingStage> getPreprocessingStages();
+  
+  /**
+   * Returns the options of the child JVM the user has chosen to run clustering algorithms 
+   * in, e.g. so they can be given more memory than the rest of the system.
+   * @return - The options of the child JVM, or null to run clustering algorithms in this JVM.
+   */
+  public List<String> getIsolatedJvmOptions();
+  
+  /**
+   * Returns if the user has chosen to cluster the parsed data out-of-core, from its entry 
+   * in the parsed data cache, even if it fits in memory.
+   * @return - True to cluster the parsed data out-of-core.
+   */
+  public boolean isOutOfCore();
+  
   /**
    * Method for specifying the stage of the parent window.
    * This is required for using file choosers.
@@ -1,16 +0,0 @@
-package extensibleclustering.dependencies;
-
-/**
- * Exception that is thrown if two positions cannot be compared
- * due to having different dimensional components. E.g. one may have more 
- * dimensions than the other.
- * @author David Cook
- * @version 0.1
- */
-public class IncomparableComponentsException extends Exception {
-  private static final long serialVersionUID = 1L;
-
-  public IncomparableComponentsException() {
-    super("Could not calculate distance. Components have different numbers of dimenions");
-  }
-}
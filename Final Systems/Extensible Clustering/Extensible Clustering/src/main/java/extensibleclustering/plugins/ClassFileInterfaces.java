@@ -0,0 +1,105 @@
+package extensibleclustering.plugins;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the interfaces a class implements straight from its class file, so a jar can be
+ * checked for plug-ins without defining every class in it.
+ * Only the constant pool and the interface table of the class file are read.
+ * @author David Cook
+ */
+final class ClassFileInterfaces {
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private ClassFileInterfaces() {
+  }
+
+  /**
+   * Reads the names of the interfaces a class file directly implements.
+   * @param classFile - The stream of the class file, which is not closed.
+   * @return List - The binary names of the interfaces, e.g. java.lang.Runnable.
+   * @throws IOException - Thrown if the stream cannot be read or is not a class file.
+   */
+  static List<String> read(InputStream classFile) throws IOException {
+    DataInputStream input = new DataInputStream(classFile);
+    if (input.readInt() != MAGIC) {
+      throw new IOException("The file is not a class file");
+    }
+    //Skip the minor and major version.
+    input.readUnsignedShort();
+    input.readUnsignedShort();
+
+    //Keep the UTF-8 constants and the name index of each class constant.
+    int constantCount = input.readUnsignedShort();
+    String[] utf8 = new String[constantCount];
+    int[] classNames = new int[constantCount];
+    for (int i = 1; i < constantCount; i++) {
+      int tag = input.readUnsignedByte();
+      switch (tag) {
+        case 1:
+          utf8[i] = input.readUTF();
+          break;
+        case 7:
+          classNames[i] = input.readUnsignedShort();
+          break;
+        case 8:
+        case 16:
+        case 19:
+        case 20:
+          skip(input, 2);
+          break;
+        case 15:
+          skip(input, 3);
+          break;
+        case 3:
+        case 4:
+        case 9:
+        case 10:
+        case 11:
+        case 12:
+        case 17:
+        case 18:
+          skip(input, 4);
+          break;
+        case 5:
+        case 6:
+          //Longs and doubles take up two entries of the constant pool.
+          skip(input, 8);
+          i++;
+          break;
+        default:
+          throw new IOException("Unknown constant pool tag " + tag);
+      }
+    }
+
+    //Skip the access flags, this class and the super class.
+    skip(input, 6);
+    int interfaceCount = input.readUnsignedShort();
+    List<String> interfaces = new ArrayList<>(interfaceCount);
+    for (int i = 0; i < interfaceCount; i++) {
+      int index = input.readUnsignedShort();
+      if (index <= 0 || index >= constantCount || utf8[classNames[index]] == null) {
+        throw new IOException("The interface table refers to an invalid constant");
+      }
+      interfaces.add(utf8[classNames[index]].replace('/', '.'));
+    }
+    return interfaces;
+  }
+
+  /**
+   * Skips a number of bytes of a stream, failing if the stream ends first.
+   * @param input - The stream to skip bytes of.
+   * @param bytes - The number of bytes to skip.
+   * @throws IOException - Thrown if the stream ends before the bytes are skipped.
+   */
+  private static void skip(DataInputStream input, int bytes) throws IOException {
+    for (int skipped = input.skipBytes(bytes); skipped < bytes; skipped++) {
+      input.readByte();
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package extensibleclustering.plugins;
+
+import extensibleclustering.dependencies.ClusteringAlgorithm;
+import extensibleclustering.dependencies.Parameter;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Entry point of the child JVM that runs a clustering plug-in for the PluginExecutor when
+ * plug-ins are isolated, so the plug-in has its own heap and a crash only stops the job.
+ * The data is read from a dataset file, which algorithms that work out-of-core map instead
+ * of loading. The result is written back to the PluginExecutor over standard output, and
+ * anything the plug-in prints is sent to standard error instead.
+ * The arguments are the dataset file, the name of the file that was parsed, the plug-in
+ * class name, the number of parameter values followed by each as name=value, and the urls
+ * of the plug-in jar, if it is not on the class path.
+ * @author David Cook
+ */
+public final class IsolatedPluginRunner {
+
+  static final String RESULT = "RESULT";
+  static final String ERROR = "ERROR";
+
+  private IsolatedPluginRunner() {
+  }
+
+  /**
+   * Runs a clustering plug-in on a dataset file and writes the result to standard output.
+   * @param args - The dataset file, file name, plug-in class name, parameter values and 
+   *     plug-in jar urls.
+   * @throws IOException - Thrown if the result cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    //Keep standard output for the result, so the plug-in cannot write into it.
+    PrintStream results = System.out;
+    System.setOut(System.err);
+    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(results));
+    int exitCode = 0;
+    try {
+      Path outputFile = runPlugin(args);
+      output.writeUTF(RESULT);
+      output.writeUTF(outputFile == null ? "" : outputFile.toAbsolutePath().toString());
+    } catch (Throwable e) {
+      e.printStackTrace();
+      output.writeUTF(ERROR);
+      output.writeUTF(e.getMessage() == null ? e.getClass().getName() : e.getMessage());
+      exitCode = 1;
+    }
+    output.flush();
+    //Exit even if the plug-in left threads running.
+    System.exit(exitCode);
+  }
+
+  /**
+   * Loads the plug-in and clusters the dataset file with it.
+   * @param args - The dataset file, file name, plug-in class name, parameter values and 
+   *     plug-in jar urls.
+   * @return Path - The file the plug-in output the result to.
+   * @throws Exception - Thrown by the plug-in, or if it cannot be loaded.
+   */
+  private static Path runPlugin(String[] args) throws Exception {
+    if (args.length < 4) {
+      throw new IllegalArgumentException("The dataset file, file name, plug-in class and "
+          + "number of parameter values must be given");
+    }
+    int urlsStart = 4 + Integer.parseInt(args[3]);
+    ClassLoader classLoader = IsolatedPluginRunner.class.getClassLoader();
+    if (args.length > urlsStart) {
+      URL[] urls = new URL[args.length - urlsStart];
+      for (int i = 0; i < urls.length; i++) {
+        urls[i] = new URL(args[i + urlsStart]);
+      }
+      classLoader = new PluginClassLoader(urls, classLoader);
+    }
+    ClusteringAlgorithm algorithm = PluginHandle.of(
+        Class.forName(args[2], true, classLoader), ClusteringAlgorithm.class).newInstance();
+    Map<String, Object> parameters = new HashMap<>();
+    for (int i = 4; i < urlsStart; i++) {
+      String[] value = args[i].split("=", 2);
+      Parameter parameter = algorithm.getParameters().stream()
+          .filter(p -> p.getName().equals(value[0])).findFirst()
+          .orElseThrow(() -> new IllegalArgumentException("There is no parameter named " 
+              + value[0]));
+      parameters.put(value[0], parameter.parse(value[1]));
+    }
+    algorithm.clusterDatasetFile(Paths.get(args[0]), args[1], parameters);
+    return algorithm.getLastOutputFile();
+  }
+}
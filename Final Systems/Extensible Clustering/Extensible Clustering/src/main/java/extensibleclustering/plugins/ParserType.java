@@ -1,6 +1,6 @@
 package extensibleclustering.plugins;
 
-import java.lang.reflect.Method;
+import extensibleclustering.dependencies.Parser;
 import java.util.ArrayList;
 
 /**
@@ -21,14 +21,8 @@ public class ParserType implements PluginType {
     }
     importedPlugins.getImportedParsers().put(pluginName, plugin);
     
-    Object instance = plugin.newInstance();
-    Method getSupportedFileExtensions = plugin.getMethod("getSupportedFileExtensions");
-    //The returned type of array list should be a String to follow the interface method.
-    //The warnings are suppressed due to the list only supporting strings instead of a generic
-    //due to the way the file chooser will have to use the list.
-    @SuppressWarnings("unchecked")
-    ArrayList<String> supportedFiles = (ArrayList<String>)
-        getSupportedFileExtensions.invoke(instance);
+    ArrayList<String> supportedFiles = 
+        PluginHandle.of(plugin, Parser.class).newInstance().getSupportedFileExtensions();
     importedPlugins.getParserSupportedFileTypes().put(pluginName, supportedFiles);
   }
 
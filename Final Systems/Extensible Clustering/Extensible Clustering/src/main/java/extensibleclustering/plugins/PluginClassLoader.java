@@ -0,0 +1,65 @@
+package extensibleclustering.plugins;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+/**
+ * Class loader for the classes of a plug-in jar.
+ * The shared extensibleclustering.dependencies package is always loaded from the system,
+ * even if the jar contains its own copy, so there is only one Position, Centroid, etc.
+ * and data can be given to plug-ins without being converted. A class in the package that
+ * the system does not have is never defined from the jar.
+ * Other classes are loaded parent-first, as with any URLClassLoader.
+ * @author David Cook
+ */
+public class PluginClassLoader extends URLClassLoader {
+
+  static final String SHARED_PACKAGE = "extensibleclustering.dependencies.";
+  private static final String SHARED_DIRECTORY = SHARED_PACKAGE.replace('.', '/');
+
+  static {
+    registerAsParallelCapable();
+  }
+
+  /**
+   * Creates a class loader for the classes of a plug-in jar.
+   * @param urls - The urls of the jar.
+   * @param parent - The class loader of the system, which loads the shared package.
+   */
+  public PluginClassLoader(URL[] urls, ClassLoader parent) {
+    super(urls, parent);
+  }
+
+  /**
+   * Loads a class, delegating the shared package to the system only.
+   * @param name - The binary name of the class.
+   * @param resolve - If the class should be resolved.
+   * @return Class - The loaded class.
+   * @throws ClassNotFoundException - Thrown if the class cannot be found, including shared
+   *     classes that are only in the jar.
+   */
+  @Override
+  protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+    if (!name.startsWith(SHARED_PACKAGE)) {
+      return super.loadClass(name, resolve);
+    }
+    Class<?> shared = getParent().loadClass(name);
+    if (resolve) {
+      resolveClass(shared);
+    }
+    return shared;
+  }
+
+  /**
+   * Finds a resource, only looking in the system for resources of the shared package.
+   * @param name - The name of the resource.
+   * @return URL - The resource, or null if it cannot be found.
+   */
+  @Override
+  public URL getResource(String name) {
+    if (name.startsWith(SHARED_DIRECTORY)) {
+      return getParent().getResource(name);
+    }
+    return super.getResource(name);
+  }
+}
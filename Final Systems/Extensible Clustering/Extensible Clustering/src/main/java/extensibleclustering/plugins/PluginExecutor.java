@@ -1,13 +1,91 @@
 package extensibleclustering.plugins;
 
+import extensibleclustering.dependencies.AlgorithmCapabilities;
+import extensibleclustering.dependencies.ClusteringAlgorithm;
+import extensibleclustering.dependencies.DatasetFile;
+import extensibleclustering.dependencies.Parameter;
+import extensibleclustering.dependencies.Parser;
 import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import extensibleclustering.dependencies.Visualisation;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import javafx.scene.Scene;
 
+/**
+ * Executes plug-ins through their interfaces. The constructor of each plug-in class is 
+ * resolved once by its PluginHandle, so running a plug-in does not use reflection.
+ * Clustering algorithms can instead be isolated in a child JVM with their own heap and 
+ * GC settings, so running out of memory or crashing only stops the job.
+ * @author David Cook
+ */
 public class PluginExecutor {
   
+  private List<String> isolatedJvmOptions;
+  
+  /**
+   * Sets if clustering algorithms are run in a child JVM, and the options it is started 
+   * with, e.g. -Xmx24g. The child always exits if it runs out of memory.
+   * @param jvmOptions - The options of the child JVM, or null to run algorithms in this JVM.
+   */
+  public void setIsolation(List<String> jvmOptions) {
+    isolatedJvmOptions = jvmOptions == null ? null : new ArrayList<>(jvmOptions);
+  }
+  
+  /**
+   * Returns if clustering algorithms are run in a child JVM.
+   * @return boolean - True if clustering algorithms are isolated.
+   */
+  public boolean isIsolated() {
+    return isolatedJvmOptions != null;
+  }
+  
+  /**
+   * Returns the options clustering algorithms are isolated in a child JVM with.
+   * @return List - The options of the child JVM, or null if algorithms run in this JVM.
+   */
+  public List<String> getIsolatedJvmOptions() {
+    return isolatedJvmOptions == null ? null : Collections.unmodifiableList(isolatedJvmOptions);
+  }
+  
+  /**
+   * Returns the capabilities the specified clustering algorithm describes itself with.
+   * @param clusteringAlgorithm - The clustering algorithm class.
+   * @return AlgorithmCapabilities - The capabilities of the clustering algorithm.
+   * @throws Exception - May be thrown from the Clustering Algorithm.
+   */
+  public AlgorithmCapabilities getCapabilities(Class<?> clusteringAlgorithm) throws Exception {
+    return PluginHandle.of(clusteringAlgorithm, ClusteringAlgorithm.class).newInstance()
+        .getCapabilities();
+  }
+  
+  /**
+   * Returns the parameters the specified parser or clustering algorithm can be given.
+   * @param plugin - The plug-in class.
+   * @param pluginInterface - The interface of the plug-in, Parser or ClusteringAlgorithm.
+   * @return List - The parameters of the plug-in, empty for other types of plug-in.
+   * @throws Exception - May be thrown from the plug-in.
+   */
+  public List<Parameter> getParameters(Class<?> plugin, Class<?> pluginInterface) 
+      throws Exception {
+    if (pluginInterface == Parser.class) {
+      return PluginHandle.of(plugin, Parser.class).newInstance().getParameters();
+    } else if (pluginInterface == ClusteringAlgorithm.class) {
+      return PluginHandle.of(plugin, ClusteringAlgorithm.class).newInstance().getParameters();
+    }
+    return Collections.emptyList();
+  }
+  
   /**
    * Executes a parser plug-in with the specified file and parser.
    * @param file - The file to parse.
@@ -16,12 +94,36 @@ public class PluginExecutor {
    * @exception Exception - May be thrown by the parse file method. Type unknown.
    */
   public Position[] execParser(File file, Class<?> parser) throws Exception {
-    Position[] returnedPositions = null;
-    Object instance = parser.newInstance();
-    Method parseFile = parser.getDeclaredMethod("parseFile", File.class);
-    Object result = parseFile.invoke(instance, file);
-    returnedPositions = Position[].class.cast(result);
-    return returnedPositions;
+    return execParser(file, parser, Collections.emptyMap());
+  }
+  
+  /**
+   * Executes a parser plug-in with the specified file, parser and values of its parameters.
+   * @param file - The file to parse.
+   * @param parser - The parser to use to parse the file.
+   * @param parameters - The values of the parameters of the parser.
+   * @return Position[] - The Positions parsed from the file.
+   * @exception Exception - May be thrown by the parse file method. Type unknown.
+   */
+  public Position[] execParser(File file, Class<?> parser, Map<String, Object> parameters) 
+      throws Exception {
+    Parser instance = PluginHandle.of(parser, Parser.class).newInstance();
+    if (parameters.isEmpty()) {
+      return instance.parseFile(file);
+    }
+    return instance.parseFile(file, parameters);
+  }
+  
+  /**
+   * Opens a source of the Positions in a file with the specified parser, so the Positions
+   * can be clustered as they are parsed. The source must be closed once it has been used.
+   * @param file - The file to parse.
+   * @param parser - The parser to use to parse the file.
+   * @return PositionSource - The source of the Positions parsed from the file.
+   * @exception Exception - May be thrown by the open source method. Type unknown.
+   */
+  public PositionSource execParserSource(File file, Class<?> parser) throws Exception {
+    return PluginHandle.of(parser, Parser.class).newInstance().openSource(file);
   }
   
   /**
@@ -34,15 +136,215 @@ public class PluginExecutor {
    */
   public Path execClustering(Position[] data, String fileName, Class<?> clusteringAlgorithm) 
       throws Exception {
-    Path returnedPath = null;
-    Object instance = clusteringAlgorithm.newInstance();
-    Method clusterData = clusteringAlgorithm.getDeclaredMethod("clusterData", 
-        Position[].class, String.class);
-    Method lastOutputFile = clusteringAlgorithm.getDeclaredMethod("getLastOutputFile");
-    clusterData.invoke(instance, data, fileName);
-    Object result = lastOutputFile.invoke(instance);
-    returnedPath = Path.class.cast(result);
-    return returnedPath;
+    return execClustering(data, fileName, clusteringAlgorithm, Collections.emptyMap());
+  }
+  
+  /**
+   * Executes the specified clustering algorithm with values for its parameters and returns 
+   * the file it was output to.
+   * @param data - The data to perform clustering on.
+   * @param fileName - The name of the file being clustered so it can be used in the output.
+   * @param clusteringAlgorithm - The clustering algorithm class to use.
+   * @param parameters - The values of the parameters of the clustering algorithm.
+   * @return File - The file the result of the clustering was output to.
+   * @throws Exception - May be thrown from the Clustering Algorithm.
+   */
+  public Path execClustering(Position[] data, String fileName, Class<?> clusteringAlgorithm, 
+      Map<String, Object> parameters) throws Exception {
+    if (isIsolated()) {
+      return execIsolated(data, fileName, clusteringAlgorithm, parameters, isolatedJvmOptions);
+    }
+    ClusteringAlgorithm instance = 
+        PluginHandle.of(clusteringAlgorithm, ClusteringAlgorithm.class).newInstance();
+    if (parameters.isEmpty()) {
+      instance.clusterData(data, fileName);
+    } else {
+      instance.clusterData(data, fileName, parameters);
+    }
+    return instance.getLastOutputFile();
+  }
+  
+  /**
+   * Executes the specified clustering algorithm on a source of Positions, which may still be
+   * being parsed, and returns the file it was output to. The source is not closed.
+   * @param source - The source of the data to perform clustering on.
+   * @param fileName - The name of the file being clustered so it can be used in the output.
+   * @param clusteringAlgorithm - The clustering algorithm class to use.
+   * @return File - The file the result of the clustering was output to.
+   * @throws Exception - May be thrown from the Clustering Algorithm.
+   */
+  public Path execClustering(PositionSource source, String fileName, 
+      Class<?> clusteringAlgorithm) throws Exception {
+    if (isIsolated()) {
+      return execIsolated(source.toArray(), fileName, clusteringAlgorithm, 
+          Collections.emptyMap(), isolatedJvmOptions);
+    }
+    ClusteringAlgorithm instance = 
+        PluginHandle.of(clusteringAlgorithm, ClusteringAlgorithm.class).newInstance();
+    instance.clusterSource(source, fileName);
+    return instance.getLastOutputFile();
+  }
+  
+  /**
+   * Executes the specified clustering algorithm on the data saved in a dataset file, 
+   * which the algorithm may read without loading, and returns the file it was output to.
+   * @param datasetFile - The dataset file containing the data to perform clustering on.
+   * @param fileName - The name of the file being clustered so it can be used in the output.
+   * @param clusteringAlgorithm - The clustering algorithm class to use.
+   * @return File - The file the result of the clustering was output to.
+   * @throws Exception - May be thrown from the Clustering Algorithm.
+   */
+  public Path execClusteringFile(Path datasetFile, String fileName, 
+      Class<?> clusteringAlgorithm) throws Exception {
+    return execClusteringFile(datasetFile, fileName, clusteringAlgorithm, 
+        Collections.emptyMap());
+  }
+  
+  /**
+   * Executes the specified clustering algorithm on the data saved in a dataset file with 
+   * values for its parameters, and returns the file it was output to.
+   * @param datasetFile - The dataset file containing the data to perform clustering on.
+   * @param fileName - The name of the file being clustered so it can be used in the output.
+   * @param clusteringAlgorithm - The clustering algorithm class to use.
+   * @param parameters - The values of the parameters of the clustering algorithm.
+   * @return File - The file the result of the clustering was output to.
+   * @throws Exception - May be thrown from the Clustering Algorithm.
+   */
+  public Path execClusteringFile(Path datasetFile, String fileName, 
+      Class<?> clusteringAlgorithm, Map<String, Object> parameters) throws Exception {
+    if (isIsolated()) {
+      return execIsolated(datasetFile, fileName, clusteringAlgorithm, parameters, 
+          isolatedJvmOptions);
+    }
+    ClusteringAlgorithm instance = 
+        PluginHandle.of(clusteringAlgorithm, ClusteringAlgorithm.class).newInstance();
+    instance.clusterDatasetFile(datasetFile, fileName, parameters);
+    return instance.getLastOutputFile();
+  }
+  
+  /**
+   * Executes the specified clustering algorithm in a child JVM started with the options 
+   * given, whether or not clustering algorithms are isolated, e.g. for a job too large for 
+   * the heap of this JVM.
+   * @param data - The data to perform clustering on.
+   * @param fileName - The name of the file being clustered so it can be used in the output.
+   * @param clusteringAlgorithm - The clustering algorithm class to use.
+   * @param parameters - The values of the parameters of the clustering algorithm.
+   * @param jvmOptions - The options of the child JVM, e.g. -Xmx24g.
+   * @return Path - The file the result of the clustering was output to.
+   * @throws Exception - Thrown if the data cannot be saved or the clustering fails.
+   */
+  public Path execClusteringIsolated(Position[] data, String fileName, 
+      Class<?> clusteringAlgorithm, Map<String, Object> parameters, List<String> jvmOptions) 
+      throws Exception {
+    return execIsolated(data, fileName, clusteringAlgorithm, parameters, 
+        new ArrayList<>(jvmOptions));
+  }
+  
+  /**
+   * Executes the specified clustering algorithm on a dataset file in a child JVM started 
+   * with the options given, whether or not clustering algorithms are isolated.
+   * @param datasetFile - The dataset file containing the data to perform clustering on.
+   * @param fileName - The name of the file being clustered so it can be used in the output.
+   * @param clusteringAlgorithm - The clustering algorithm class to use.
+   * @param parameters - The values of the parameters of the clustering algorithm.
+   * @param jvmOptions - The options of the child JVM, e.g. -Xmx24g.
+   * @return Path - The file the result of the clustering was output to.
+   * @throws Exception - Thrown if the clustering fails or the child JVM stops.
+   */
+  public Path execClusteringFileIsolated(Path datasetFile, String fileName, 
+      Class<?> clusteringAlgorithm, Map<String, Object> parameters, List<String> jvmOptions) 
+      throws Exception {
+    return execIsolated(datasetFile, fileName, clusteringAlgorithm, parameters, 
+        new ArrayList<>(jvmOptions));
+  }
+  
+  /**
+   * Executes a clustering algorithm in a child JVM on data that is first saved to a 
+   * temporary dataset file, which is deleted afterwards.
+   * @param data - The data to perform clustering on.
+   * @param fileName - The name of the file being clustered so it can be used in the output.
+   * @param clusteringAlgorithm - The clustering algorithm class to use.
+   * @param parameters - The values of the parameters of the clustering algorithm.
+   * @param jvmOptions - The options of the child JVM.
+   * @return Path - The file the result of the clustering was output to.
+   * @throws Exception - Thrown if the data cannot be saved or the clustering fails.
+   */
+  private Path execIsolated(Position[] data, String fileName, Class<?> clusteringAlgorithm, 
+      Map<String, Object> parameters, List<String> jvmOptions) throws Exception {
+    if (!DatasetFile.isSupported(data)) {
+      throw new IllegalArgumentException("Only Positions and SketchPositions can be given "
+          + "to an isolated clustering algorithm");
+    }
+    Path datasetFile = Files.createTempFile("isolated", ".dataset");
+    try {
+      DatasetFile.write(datasetFile, data, fileName);
+      return execIsolated(datasetFile, fileName, clusteringAlgorithm, parameters, jvmOptions);
+    } finally {
+      Files.deleteIfExists(datasetFile);
+    }
+  }
+  
+  /**
+   * Executes a clustering algorithm in a child JVM on a dataset file, which the child maps 
+   * rather than the data being serialised. The output file, or the error, is read back 
+   * from the child's standard output, and its standard error is shown on this JVM's.
+   * @param datasetFile - The dataset file containing the data to perform clustering on.
+   * @param fileName - The name of the file being clustered so it can be used in the output.
+   * @param clusteringAlgorithm - The clustering algorithm class to use.
+   * @param parameters - The values of the parameters of the clustering algorithm.
+   * @param jvmOptions - The options of the child JVM.
+   * @return Path - The file the result of the clustering was output to.
+   * @throws Exception - Thrown if the clustering fails or the child JVM stops.
+   */
+  private Path execIsolated(Path datasetFile, String fileName, Class<?> clusteringAlgorithm, 
+      Map<String, Object> parameters, List<String> jvmOptions) throws Exception {
+    //Check the plug-in before starting the child, so the error is the same as in this JVM.
+    PluginHandle.of(clusteringAlgorithm, ClusteringAlgorithm.class);
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    command.add("-XX:+ExitOnOutOfMemoryError");
+    command.addAll(jvmOptions);
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(IsolatedPluginRunner.class.getName());
+    command.add(datasetFile.toAbsolutePath().toString());
+    command.add(fileName);
+    command.add(clusteringAlgorithm.getName());
+    //The values are given as text, and parsed by the parameters of the plug-in in the child.
+    command.add(String.valueOf(parameters.size()));
+    for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+      command.add(parameter.getKey() + "=" + parameter.getValue());
+    }
+    //Plug-ins from jars are loaded from the same jar in the child.
+    if (clusteringAlgorithm.getClassLoader() instanceof PluginClassLoader) {
+      for (URL url : ((PluginClassLoader) clusteringAlgorithm.getClassLoader()).getURLs()) {
+        command.add(url.toString());
+      }
+    }
+    
+    Process child = new ProcessBuilder(command)
+        .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    try (DataInputStream results = new DataInputStream(
+        new BufferedInputStream(child.getInputStream()))) {
+      String result;
+      try {
+        result = results.readUTF();
+      } catch (EOFException e) {
+        //The child stopped without a result, e.g. it ran out of memory or crashed.
+        throw new IllegalStateException("The clustering algorithm stopped unexpectedly "
+            + "with exit code " + child.waitFor());
+      }
+      String value = results.readUTF();
+      child.waitFor();
+      if (result.equals(IsolatedPluginRunner.ERROR)) {
+        throw new IllegalStateException(value);
+      }
+      return value.isEmpty() ? null : Paths.get(value);
+    } finally {
+      //Stop the child if this thread was interrupted, e.g. the job was cancelled.
+      child.destroyForcibly();
+    }
   }
   
   /**
@@ -53,12 +355,8 @@ public class PluginExecutor {
    * @throws Exception - May be thrown by the visualisation method.
    */
   public Scene execVisualisation(Path outputFile, Class<?> visualisationMethod) throws Exception {
-    Scene returnedScene = null;
-    Object instance = visualisationMethod.newInstance();
-    Method visualiseData = visualisationMethod.getDeclaredMethod("visualiseData", Path.class);
-    Object result = visualiseData.invoke(instance, outputFile);
-    returnedScene = Scene.class.cast(result);    
-    return returnedScene;
+    return PluginHandle.of(visualisationMethod, Visualisation.class).newInstance()
+        .visualiseData(outputFile);
   }
 
 }
@@ -0,0 +1,92 @@
+package extensibleclustering.plugins;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Typed handle for creating instances of a plug-in class, so the plug-in can be called
+ * through its interface instead of by reflection.
+ * The public no argument constructor of each plug-in class is found once and cached with
+ * the class, so it is released with the class loader of the plug-in when it is reloaded.
+ * @param <T> - The interface the plug-in implements, e.g. Parser.
+ * @author David Cook
+ */
+public final class PluginHandle<T> {
+
+  private static final ClassValue<MethodHandle> CONSTRUCTORS = new ClassValue<MethodHandle>() {
+    @Override
+    protected MethodHandle computeValue(Class<?> pluginClass) {
+      try {
+        return MethodHandles.publicLookup()
+            .findConstructor(pluginClass, MethodType.methodType(void.class))
+            .asType(MethodType.methodType(Object.class));
+      } catch (NoSuchMethodException | IllegalAccessException e) {
+        throw new IllegalArgumentException(pluginClass.getName()
+            + " must have a public constructor without arguments", e);
+      }
+    }
+  };
+
+  private final Class<T> pluginInterface;
+  private final Class<? extends T> pluginClass;
+  private final MethodHandle constructor;
+
+  /**
+   * Creates a handle for a plug-in class that has been checked and resolved.
+   * @param pluginInterface - The interface the plug-in implements.
+   * @param pluginClass - The plug-in class.
+   * @param constructor - The constructor of the plug-in class, returning an Object.
+   */
+  private PluginHandle(Class<T> pluginInterface, Class<? extends T> pluginClass,
+      MethodHandle constructor) {
+    this.pluginInterface = pluginInterface;
+    this.pluginClass = pluginClass;
+    this.constructor = constructor;
+  }
+
+  /**
+   * Returns the handle for a plug-in class, checking that it implements the interface,
+   * including through a super class.
+   * @param <T> - The interface the plug-in implements.
+   * @param pluginClass - The plug-in class, e.g. from the ImportedPlugins.
+   * @param pluginInterface - The interface the plug-in must implement.
+   * @return PluginHandle - The handle for the plug-in class.
+   * @throws IllegalArgumentException - Thrown if the class does not implement the interface
+   *     or cannot be constructed.
+   */
+  public static <T> PluginHandle<T> of(Class<?> pluginClass, Class<T> pluginInterface) {
+    if (pluginClass == null || pluginInterface == null) {
+      throw new IllegalArgumentException("The plug-in class and interface cannot be null");
+    }
+    if (!pluginInterface.isAssignableFrom(pluginClass)) {
+      throw new IllegalArgumentException(pluginClass.getName() + " is not a "
+          + pluginInterface.getSimpleName());
+    }
+    return new PluginHandle<>(pluginInterface, pluginClass.asSubclass(pluginInterface),
+        CONSTRUCTORS.get(pluginClass));
+  }
+
+  /**
+   * Creates a new instance of the plug-in.
+   * @return T - The new instance.
+   * @throws Exception - Thrown by the constructor of the plug-in, type unknown.
+   */
+  public T newInstance() throws Exception {
+    try {
+      return pluginInterface.cast((Object) constructor.invokeExact());
+    } catch (Exception | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the plug-in class of the handle.
+   * @return Class - The plug-in class.
+   */
+  public Class<? extends T> getPluginClass() {
+    return pluginClass;
+  }
+}
@@ -0,0 +1,293 @@
+package extensibleclustering.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Persistent index of the plug-ins found in each jar, so jars that have not changed since
+ * they were last scanned do not need every class loaded and each plug-in instantiated.
+ * Each jar is keyed by its path, size and modified time, and records the class name, kind,
+ * name, description and supported file types of each of its plug-ins.
+ * A missing or damaged index is treated as empty, so every jar is scanned again.
+ * @author David Cook
+ */
+public class PluginIndex {
+
+  private static final int MAGIC = 0x45435049;
+  private static final int VERSION = 1;
+
+  private final Path indexFile;
+  private final TreeMap<String, JarRecord> jars;
+  private boolean changed;
+
+  /**
+   * Creates an empty index that is loaded from and saved to the given file.
+   * @param indexFile - The file the index is saved in.
+   */
+  public PluginIndex(Path indexFile) {
+    if (indexFile == null) {
+      throw new IllegalArgumentException("The index file cannot be null");
+    }
+    this.indexFile = indexFile;
+    jars = new TreeMap<>();
+  }
+
+  /**
+   * Loads the index from its file, replacing any jars already in the index.
+   * If the file does not exist or cannot be read the index is left empty.
+   */
+  public void load() {
+    jars.clear();
+    changed = false;
+    if (!Files.isRegularFile(indexFile)) {
+      return;
+    }
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+        Files.newInputStream(indexFile)))) {
+      if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+        return;
+      }
+      int jarCount = input.readInt();
+      for (int i = 0; i < jarCount; i++) {
+        String path = input.readUTF();
+        long size = input.readLong();
+        long modified = input.readLong();
+        int pluginCount = input.readInt();
+        List<Entry> entries = new ArrayList<>(pluginCount);
+        for (int j = 0; j < pluginCount; j++) {
+          String className = input.readUTF();
+          String kind = input.readUTF();
+          String name = input.readUTF();
+          String description = input.readUTF();
+          int fileTypeCount = input.readInt();
+          List<String> fileTypes = null;
+          if (fileTypeCount >= 0) {
+            fileTypes = new ArrayList<>(fileTypeCount);
+            for (int k = 0; k < fileTypeCount; k++) {
+              fileTypes.add(input.readUTF());
+            }
+          }
+          entries.add(new Entry(className, kind, name, description, fileTypes));
+        }
+        jars.put(path, new JarRecord(size, modified, entries));
+      }
+    } catch (IOException | RuntimeException ex) {
+      //A damaged index is discarded, so every jar is scanned and the index rewritten.
+      jars.clear();
+      changed = true;
+    }
+  }
+
+  /**
+   * Returns the plug-ins recorded for a jar.
+   * @param jar - The jar file.
+   * @return List - The plug-ins in the jar, or null if the jar is not in the index or has
+   *     changed since it was recorded.
+   */
+  public List<Entry> get(File jar) {
+    if (jar == null) {
+      return null;
+    }
+    JarRecord record = jars.get(jar.getAbsolutePath());
+    if (record == null || record.size != jar.length() || record.modified != jar.lastModified()) {
+      return null;
+    }
+    return record.entries;
+  }
+
+  /**
+   * Records the plug-ins found in a jar, replacing any older record of the jar.
+   * @param jar - The jar file.
+   * @param entries - The plug-ins found in the jar.
+   */
+  public void put(File jar, List<Entry> entries) {
+    if (jar == null || entries == null) {
+      throw new IllegalArgumentException("The jar and its plug-ins cannot be null");
+    }
+    jars.put(jar.getAbsolutePath(), new JarRecord(jar.length(), jar.lastModified(),
+        Collections.unmodifiableList(new ArrayList<>(entries))));
+    changed = true;
+  }
+
+  /**
+   * Removes the records of any jars that are not in the given jars, e.g. deleted jars.
+   * @param existingJars - The jars that should be kept.
+   */
+  public void retainJars(Collection<File> existingJars) {
+    Set<String> paths = new HashSet<>();
+    for (File jar : existingJars) {
+      paths.add(jar.getAbsolutePath());
+    }
+    changed |= jars.keySet().retainAll(paths);
+  }
+
+  /**
+   * Saves the index to its file if it has changed since it was loaded or saved.
+   * The index is written to a temporary file first, so a partly written index is never read.
+   * @throws IOException - Thrown if the index cannot be saved.
+   */
+  public void save() throws IOException {
+    if (!changed) {
+      return;
+    }
+    Path directory = indexFile.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    Path temporary = Files.createTempFile(directory, "plugins", ".tmp");
+    try {
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+          Files.newOutputStream(temporary)))) {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(jars.size());
+        for (String path : jars.keySet()) {
+          JarRecord record = jars.get(path);
+          output.writeUTF(path);
+          output.writeLong(record.size);
+          output.writeLong(record.modified);
+          output.writeInt(record.entries.size());
+          for (Entry entry : record.entries) {
+            output.writeUTF(entry.getClassName());
+            output.writeUTF(entry.getKind());
+            output.writeUTF(entry.getName());
+            output.writeUTF(entry.getDescription());
+            List<String> fileTypes = entry.getFileTypes();
+            output.writeInt(fileTypes == null ? -1 : fileTypes.size());
+            if (fileTypes != null) {
+              for (String fileType : fileTypes) {
+                output.writeUTF(fileType);
+              }
+            }
+          }
+        }
+      }
+      try {
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+      changed = false;
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Returns the file the index is saved in.
+   * @return Path - The index file.
+   */
+  public Path getIndexFile() {
+    return indexFile;
+  }
+
+  /**
+   * The size, modified time and plug-ins of a jar when it was recorded.
+   */
+  private static final class JarRecord {
+
+    private final long size;
+    private final long modified;
+    private final List<Entry> entries;
+
+    /**
+     * Creates a record of a jar.
+     * @param size - The size of the jar.
+     * @param modified - The modified time of the jar.
+     * @param entries - The plug-ins in the jar.
+     */
+    private JarRecord(long size, long modified, List<Entry> entries) {
+      this.size = size;
+      this.modified = modified;
+      this.entries = entries;
+    }
+  }
+
+  /**
+   * A plug-in recorded in the index.
+   */
+  public static final class Entry {
+
+    private final String className;
+    private final String kind;
+    private final String name;
+    private final String description;
+    private final List<String> fileTypes;
+
+    /**
+     * Creates a record of a plug-in.
+     * @param className - The binary name of the plug-in class.
+     * @param kind - The simple name of the plug-in interface, e.g. Parser.
+     * @param name - The name of the plug-in.
+     * @param description - The description of the plug-in.
+     * @param fileTypes - The file types supported by a parser, or null for other plug-ins.
+     */
+    public Entry(String className, String kind, String name, String description,
+        List<String> fileTypes) {
+      if (className == null || kind == null || name == null || description == null) {
+        throw new IllegalArgumentException("The class name, kind, name and description "
+            + "of a plug-in cannot be null");
+      }
+      this.className = className;
+      this.kind = kind;
+      this.name = name;
+      this.description = description;
+      this.fileTypes = fileTypes == null ? null
+          : Collections.unmodifiableList(new ArrayList<>(fileTypes));
+    }
+
+    /**
+     * Returns the binary name of the plug-in class.
+     * @return String - The class name.
+     */
+    public String getClassName() {
+      return className;
+    }
+
+    /**
+     * Returns the simple name of the interface the plug-in implements.
+     * @return String - The kind of plug-in.
+     */
+    public String getKind() {
+      return kind;
+    }
+
+    /**
+     * Returns the name of the plug-in.
+     * @return String - The name of the plug-in.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns the description of the plug-in.
+     * @return String - The description of the plug-in.
+     */
+    public String getDescription() {
+      return description;
+    }
+
+    /**
+     * Returns the file types supported by a parser.
+     * @return List - The supported file types, or null if the plug-in is not a parser.
+     */
+    public List<String> getFileTypes() {
+      return fileTypes;
+    }
+  }
+}
@@ -1,27 +1,55 @@
 package extensibleclustering.plugins;
 
+import extensibleclustering.dependencies.ClusteringAlgorithm;
 import extensibleclustering.dependencies.DirectoryHelper;
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Visualisation;
+import java.io.BufferedReader;
 import java.io.File;
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 public class PluginLoader {
+  private static final String SERVICES_DIRECTORY = 
+      "META-INF/services/extensibleclustering.dependencies.";
+  private static final String PLUGINS_ATTRIBUTE = "Extensible-Clustering-Plugins";
+  private static final String[] DECLARED_INTERFACES = 
+      { "Parser", "ClusteringAlgorithm", "Visualisation" };
+  
   Path documentsDirectory;
   Path programHomeDirectory;
   Path pluginsDirectory;
   PluginTypeFactory pluginTypeFactory;
   HashSet<String> supportedInterfaces;
   DirectoryHelper directoryHelper;
+  PluginIndex pluginIndex;
+  TreeMap<String, JarPlugins> loadedJars;
   
   /**
    * Constructor for the PluginLoader. 
    * This ensures that the plug-ins directory exists so they can be imported.
+   * The index of the plug-ins in each jar is saved in the cache directory.
    */
   public PluginLoader() {    
     //Use the DirectoryHelper class to see if the required folder structure exists.
@@ -38,94 +66,467 @@ public class PluginLoader {
     supportedInterfaces.add("Parser");
     supportedInterfaces.add("ClusteringAlgorithm");
     supportedInterfaces.add("Visualisation");
+    
+    pluginIndex = new PluginIndex(directoryHelper.getCacheDirectory().resolve("plugins.index"));
+    loadedJars = new TreeMap<>();
   }
   
   /**
    * Loads plug-ins into an instance of the ImportedPlugins Class.
+   * The jars are read at the same time on a pool of up to one thread per processor. 
+   * Jars that have not changed since they were last loaded are restored from the plug-in 
+   * index, which loads the class of each plug-in without initialising or instantiating 
+   * it. Other jars are scanned for plug-ins 
+   * by reading the interfaces of each class file, so only the plug-in classes are loaded, 
+   * and the plug-ins found are saved to the index. 
+   * The plug-ins are stored in the order of the jar names, then the order of the classes in 
+   * each jar, so the result is the same however the threads are scheduled.
+   * The class loaders of the jars loaded before are not closed, as a job may still be 
+   * using a plug-in loaded with them, and are released once none of their classes are used.
    * @return ImportedPlugins - Contains the Plug-ins that have been imported. 
    */
-  public ImportedPlugins loadPlugins() {
-    ImportedPlugins plugins = new ImportedPlugins();
-    //Iterate through all of the jar files in a directory
+  public synchronized ImportedPlugins loadPlugins() {
+    pluginIndex.load();
+    //Find all of the jar files in a directory, in order of their names.
+    List<File> jars = new ArrayList<>();
     File[] directoryFiles = pluginsDirectory.toFile().listFiles();
     for (File file : directoryFiles) {
       //Get the extension of the file, for it to be considered to be imported, 
       //It must be a '.jar' file.
-      //Use the index of the last dot to check. 
-      int lastDot = file.getName().lastIndexOf('.');
-      String fileExtension = file.getName().substring(lastDot + 1);
-      if (!fileExtension.equals("jar")) {
-        continue;
+      if (isJar(file)) {
+        jars.add(file);
       }
-     
-      //Load the file as a jar entry
-      try (JarFile currJar = new JarFile(file.getAbsolutePath())) {
-        Enumeration<JarEntry> jarFiles = currJar.entries();
-        //Make a new set of urls to load in. This specifies the type of file.
-        URL[] urls = { new URL("jar:file:" + file.getAbsolutePath() + "!/") };
-        URLClassLoader classLoader = URLClassLoader.newInstance(urls);
-        while (jarFiles.hasMoreElements()) {
-          //Make a new jar entry using this element.
-          JarEntry entry = jarFiles.nextElement();
-         
-          //Skip directories or files that do not end in 'class'.
-          if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
-            continue;
-          }
-         
-          //Get the class name - -6 is used to handle .class
-          String className = entry.getName().substring(0, entry.getName().length() - 6);
-          className = className.replace('/', '.');
-         
+    }
+    jars.sort(Comparator.comparing(File::getName));
+    
+    loadedJars.clear();
+    readJars(jars);
+    return updateIndex();
+  }
+  
+  /**
+   * Reloads only the given jars, e.g. jars that have been created, modified or deleted in 
+   * the plug-ins directory since the plug-ins were loaded. Each jar that still exists is 
+   * read with a new class loader. The class loader it was loaded with before is not closed,
+   * as a running job may still load classes with it, so it is left to be released, along 
+   * with the jar it has open, once none of the classes it loaded are used.
+   * The other jars are not read again, so the cost depends on the jars that have changed.
+   * @param changedJars - The jars that have changed.
+   * @return ImportedPlugins - A new ImportedPlugins with the plug-ins of every loaded jar.
+   */
+  public synchronized ImportedPlugins reloadJars(Collection<File> changedJars) {
+    List<File> jars = new ArrayList<>();
+    for (File jar : changedJars) {
+      loadedJars.remove(jar.getName());
+      if (isJar(jar) && jar.isFile()) {
+        jars.add(jar);
+      }
+    }
+    jars.sort(Comparator.comparing(File::getName));
+    readJars(jars);
+    return updateIndex();
+  }
+  
+  /**
+   * Checks if a file should be considered to be imported, it must be a '.jar' file.
+   * @param file - The file to check.
+   * @return boolean - True if the file is a jar.
+   */
+  private boolean isJar(File file) {
+    //Use the index of the last dot to check. 
+    int lastDot = file.getName().lastIndexOf('.');
+    String fileExtension = file.getName().substring(lastDot + 1);
+    return fileExtension.equals("jar");
+  }
+  
+  /**
+   * Reads jars on the pool and adds them to the loaded jars. 
+   * The index is only read and updated on this thread.
+   * @param jars - The jars to read, in order of their names.
+   */
+  private void readJars(List<File> jars) {
+    if (jars.isEmpty()) {
+      return;
+    }
+    List<Future<JarPlugins>> readJars = new ArrayList<>();
+    ExecutorService workers = Executors.newFixedThreadPool(
+        Math.min(jars.size(), Runtime.getRuntime().availableProcessors()));
+    try {
+      for (File jar : jars) {
+        List<PluginIndex.Entry> indexedPlugins = pluginIndex.get(jar);
+        readJars.add(workers.submit(() -> readJar(jar, indexedPlugins)));
+      }
+      for (int i = 0; i < jars.size(); i++) {
+        JarPlugins jarPlugins = getJarPlugins(readJars.get(i));
+        if (jarPlugins == null) {
+          continue;
+        }
+        loadedJars.put(jars.get(i).getName(), jarPlugins);
+        //Only index the jar once every class has been read successfully.
+        if (jarPlugins.complete && !jarPlugins.restored) {
+          pluginIndex.put(jars.get(i), jarPlugins.entries);
+        }
+      }
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+  
+  /**
+   * Removes deleted jars from the index, saves any changes and stores the plug-ins of the 
+   * loaded jars in a new ImportedPlugins, which is not changed after it is returned.
+   * @return ImportedPlugins - The plug-ins of every loaded jar.
+   */
+  private ImportedPlugins updateIndex() {
+    List<File> jars = new ArrayList<>();
+    ImportedPlugins plugins = new ImportedPlugins();
+    for (JarPlugins jarPlugins : loadedJars.values()) {
+      jars.add(jarPlugins.jar);
+      for (int i = 0; i < jarPlugins.entries.size(); i++) {
+        storePlugin(plugins, jarPlugins.entries.get(i), jarPlugins.classes.get(i));
+      }
+    }
+    pluginIndex.retainJars(jars);
+    try {
+      pluginIndex.save();
+    } catch (IOException e) {
+      //The plug-ins are still loaded, the jars will just be scanned again next time.
+      e.printStackTrace();
+    }
+    return plugins;
+  }
+  
+  /**
+   * Waits for a jar to be read, printing any error from reading it as the jars are 
+   * read on other threads.
+   * @param readJar - The jar being read.
+   * @return JarPlugins - The plug-ins read from the jar, or null if it could not be read.
+   */
+  private JarPlugins getJarPlugins(Future<JarPlugins> readJar) {
+    try {
+      return readJar.get();
+    } catch (ExecutionException e) {
+      e.getCause().printStackTrace();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return null;
+  }
+  
+  /**
+   * Reads the plug-ins from a jar. The plug-ins are restored from the index if the jar 
+   * is indexed, otherwise the jar is scanned.
+   * @param jar - The jar to read.
+   * @param indexedPlugins - The plug-ins recorded in the index, or null if not indexed.
+   * @return JarPlugins - The plug-ins in the jar.
+   * @throws Exception - Thrown if the jar cannot be scanned.
+   */
+  private JarPlugins readJar(File jar, List<PluginIndex.Entry> indexedPlugins) 
+      throws Exception {
+    if (indexedPlugins != null) {
+      try {
+        return restorePlugins(jar, indexedPlugins);
+      } catch (Exception e) {
+        //If a plug-in cannot be restored, e.g. its class is missing, scan the jar again.
+        e.printStackTrace();
+      }
+    }
+    return scanJar(jar);
+  }
+  
+  /**
+   * Reads the plug-ins of a jar that has not been indexed. If the jar declares its plug-ins, 
+   * in META-INF/services files named after the plug-in interfaces or in the 
+   * Extensible-Clustering-Plugins attribute of its manifest, only those classes are loaded. 
+   * Otherwise the interfaces of each class file are read from its bytecode, and only the 
+   * classes that implement a supported interface are loaded. 
+   * Each plug-in is instantiated to get its name and description.
+   * @param jar - The jar to scan.
+   * @return JarPlugins - The plug-ins found in the jar, which are incomplete if a class 
+   *     could not be read.
+   * @throws Exception - Thrown if the jar cannot be opened.
+   */
+  private JarPlugins scanJar(File jar) throws Exception {
+    //Make a new set of urls to load in. This specifies the type of file.
+    URL[] urls = { new URL("jar:file:" + jar.getAbsolutePath() + "!/") };
+    URLClassLoader classLoader = new PluginClassLoader(urls, getClass().getClassLoader());
+    JarPlugins found = new JarPlugins(jar, classLoader, false);
+    //Load the file as a jar entry
+    try (JarFile currJar = new JarFile(jar.getAbsolutePath())) {
+      Set<String> declaredPlugins = getDeclaredPlugins(currJar);
+      if (!declaredPlugins.isEmpty()) {
+        //The declared classes may inherit their interface, so check the loaded class.
+        for (String className : declaredPlugins) {
           Class<?> clazz = classLoader.loadClass(className);
-         
-          //Check to see the class file implements any of the supported interfaces.
-          boolean containsSupportedInterface = false;
-          for (Class<?> currInterface : clazz.getInterfaces()) {
-            containsSupportedInterface = containsSupportedInterface 
-               || supportedInterfaces.contains(currInterface.getSimpleName());
+          String interfaceName = findInterface(clazz);
+          if (interfaceName == null) {
+            throw new IllegalArgumentException(className 
+                + " does not implement a supported plug-in interface");
           }
-         
-          //If it does not contain the supported interface, then move on to the next jar entry.
-          if (!containsSupportedInterface) {
-            continue;
+          found.add(readPlugin(className, interfaceName, clazz), clazz);
+        }
+      } else {
+        scanClasses(currJar, classLoader, found);
+      }
+      found.complete = true;
+    } catch (Exception e) {
+      //Keep the plug-ins found before the error, as they have been loaded.
+      e.printStackTrace();
+    }
+    
+    //The class loader is only closed if there are no plug-ins, as the other classes in 
+    //the jar are loaded when the plug-ins are used.
+    if (found.entries.isEmpty()) {
+      classLoader.close();
+    }
+    return found;
+  }
+  
+  /**
+   * Scans every class file of a jar for plug-ins. The interfaces of each class file are read 
+   * from its bytecode, and only the classes that implement a supported interface are loaded.
+   * @param currJar - The jar to scan.
+   * @param classLoader - The class loader of the jar.
+   * @param found - The plug-ins found, which each plug-in is added to.
+   * @throws Exception - Thrown if a class cannot be read or a plug-in instantiated.
+   */
+  private void scanClasses(JarFile currJar, URLClassLoader classLoader, JarPlugins found) 
+      throws Exception {
+    Enumeration<JarEntry> jarFiles = currJar.entries();
+    while (jarFiles.hasMoreElements()) {
+      //Make a new jar entry using this element.
+      JarEntry entry = jarFiles.nextElement();
+     
+      //Skip directories or files that do not end in 'class'.
+      //The copy of the shared package is skipped, as it is loaded from the system.
+      if (entry.isDirectory() || !entry.getName().endsWith(".class") 
+          || entry.getName().replace('/', '.').startsWith(PluginClassLoader.SHARED_PACKAGE)) {
+        continue;
+      }
+     
+      //Find the first implemented interface that is supported from the bytecode,
+      //and get its simple name so that it can be given to the factory.
+      List<String> interfaces;
+      try (InputStream classFile = currJar.getInputStream(entry)) {
+        interfaces = ClassFileInterfaces.read(classFile);
+      }
+      String interfaceName = "";
+      for (String currInterface : interfaces) {
+        String simpleName = currInterface.substring(currInterface.lastIndexOf('.') + 1);
+        if (supportedInterfaces.contains(simpleName)) {
+          interfaceName = simpleName;
+          break;
+        }
+      }
+     
+      //If it does not contain the supported interface, then move on to the next jar entry.
+      if (interfaceName.isEmpty()) {
+        continue;
+      }
+     
+      //Get the class name - -6 is used to handle .class
+      String className = entry.getName().substring(0, entry.getName().length() - 6);
+      className = className.replace('/', '.');
+      Class<?> clazz = classLoader.loadClass(className);
+      found.add(readPlugin(className, interfaceName, clazz), clazz);
+    }
+  }
+  
+  /**
+   * Returns the plug-in classes declared by a jar, from the META-INF/services files of 
+   * the plug-in interfaces and then the Extensible-Clustering-Plugins manifest attribute.
+   * @param jar - The jar to read the declarations of.
+   * @return Set - The declared class names in the order they are declared, empty if the 
+   *     jar does not declare its plug-ins.
+   * @throws IOException - Thrown if a declaration cannot be read.
+   */
+  private Set<String> getDeclaredPlugins(JarFile jar) throws IOException {
+    Set<String> declaredPlugins = new LinkedHashSet<>();
+    for (String interfaceName : DECLARED_INTERFACES) {
+      JarEntry services = jar.getJarEntry(SERVICES_DIRECTORY + interfaceName);
+      if (services == null) {
+        continue;
+      }
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+          jar.getInputStream(services), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          //Anything after a '#' is a comment.
+          int comment = line.indexOf('#');
+          String className = (comment < 0 ? line : line.substring(0, comment)).trim();
+          if (!className.isEmpty()) {
+            declaredPlugins.add(className);
           }
-         
-          //Get the name and description from the class.
-          Object instance = clazz.newInstance();
-          Method getName = clazz.getDeclaredMethod("getName");
-          Object objName = getName.invoke(instance);
-          String pluginName = String.class.cast(objName);
-          
-          Method getDescription = clazz.getDeclaredMethod("getDescription");
-          Object objDescription = getDescription.invoke(instance);
-          String pluginDescription = String.class.cast(objDescription);
-          
-          plugins.getImportedPluginDescriptions().put(pluginName, pluginDescription);
-         
-          //Find the first implemented interface that is supported, and get its simple
-          //name so that it can be given to the factory.
-          String interfaceName = "";
-          for (Class<?> currInterface : clazz.getInterfaces()) {
-            if (supportedInterfaces.contains(currInterface.getSimpleName())) {
-              interfaceName = currInterface.getSimpleName();
-              break;
-            }
+        }
+      }
+    }
+    
+    Manifest manifest = jar.getManifest();
+    if (manifest != null) {
+      String attribute = manifest.getMainAttributes().getValue(PLUGINS_ATTRIBUTE);
+      if (attribute != null) {
+        for (String className : attribute.split("[,\\s]+")) {
+          if (!className.isEmpty()) {
+            declaredPlugins.add(className);
           }
-         
-          PluginType pluginType = pluginTypeFactory.getPluginType(interfaceName);
-          pluginType.storePlugin(plugins, pluginName, clazz);
         }
-       
-        //Close the class loader after the jar have been read. It can then
-        //be re-initialised for the next jar.
-        classLoader.close();
-       
+      }
+    }
+    return declaredPlugins;
+  }
+  
+  /**
+   * Finds the supported interface a class implements, including interfaces inherited from 
+   * its super classes or other interfaces.
+   * @param clazz - The class to check.
+   * @return String - The simple name of the first supported interface, or null if none.
+   */
+  private String findInterface(Class<?> clazz) {
+    for (Class<?> currClass = clazz; currClass != null; currClass = currClass.getSuperclass()) {
+      for (Class<?> currInterface : currClass.getInterfaces()) {
+        if (supportedInterfaces.contains(currInterface.getSimpleName())) {
+          return currInterface.getSimpleName();
+        }
+        String inherited = findInterface(currInterface);
+        if (inherited != null) {
+          return inherited;
+        }
+      }
+    }
+    return null;
+  }
+  
+  /**
+   * Instantiates a plug-in through its PluginHandle to get its name, description and the 
+   * file types of a parser.
+   * @param className - The binary name of the plug-in class.
+   * @param interfaceName - The simple name of the interface the plug-in implements.
+   * @param clazz - The class of the plug-in.
+   * @return PluginIndex.Entry - The record of the plug-in.
+   * @throws Exception - Thrown if the plug-in cannot be instantiated.
+   */
+  private PluginIndex.Entry readPlugin(String className, String interfaceName, 
+      Class<?> clazz) throws Exception {
+    switch (interfaceName) {
+      case "Parser":
+        Parser parser = PluginHandle.of(clazz, Parser.class).newInstance();
+        List<String> fileTypes = parser.getSupportedFileExtensions();
+        return new PluginIndex.Entry(className, interfaceName, parser.getName(), 
+            parser.getDescription(), fileTypes == null ? null : new ArrayList<>(fileTypes));
+      case "ClusteringAlgorithm":
+        ClusteringAlgorithm algorithm = 
+            PluginHandle.of(clazz, ClusteringAlgorithm.class).newInstance();
+        return new PluginIndex.Entry(className, interfaceName, algorithm.getName(), 
+            algorithm.getDescription(), null);
+      case "Visualisation":
+        Visualisation visualisation = PluginHandle.of(clazz, Visualisation.class).newInstance();
+        return new PluginIndex.Entry(className, interfaceName, visualisation.getName(), 
+            visualisation.getDescription(), null);
+      default:
+        throw new IllegalArgumentException(interfaceName + " is not a plug-in interface");
+    }
+  }
+  
+  /**
+   * Restores the plug-ins of a jar from the index, without instantiating them.
+   * The names, descriptions and file types come from the index, but the class of each 
+   * plug-in is still loaded, as ImportedPlugins holds the classes. Loading a class only 
+   * defines it from the jar, it is not initialised, so no code of the plug-in is run 
+   * until it is used, and none of the other classes of the jar are loaded.
+   * @param jar - The jar containing the plug-ins.
+   * @param indexedPlugins - The plug-ins recorded in the index for the jar.
+   * @return JarPlugins - The plug-ins in the jar.
+   * @throws Exception - Thrown if a plug-in class cannot be loaded.
+   */
+  private JarPlugins restorePlugins(File jar, List<PluginIndex.Entry> indexedPlugins) 
+      throws Exception {
+    //The class loader is left open, as the rest of the classes in the jar have not 
+    //been loaded yet and will be loaded when the plug-in is used.
+    URL[] urls = { new URL("jar:file:" + jar.getAbsolutePath() + "!/") };
+    URLClassLoader classLoader = new PluginClassLoader(urls, getClass().getClassLoader());
+    JarPlugins restored = new JarPlugins(jar, classLoader, true);
+    try {
+      for (PluginIndex.Entry indexed : indexedPlugins) {
+        restored.add(indexed, Class.forName(indexed.getClassName(), false, classLoader));
+      }
+    } catch (Exception e) {
+      restored.close();
+      throw e;
+    }
+    restored.complete = true;
+    return restored;
+  }
+  
+  /**
+   * Stores a plug-in that has been read from a jar in the imported plug-ins.
+   * Parsers are stored with their file types from the index, as the parser type 
+   * instantiates the parser to get them.
+   * @param plugins - The ImportedPlugins to store the plug-in in.
+   * @param entry - The name, kind, description and file types of the plug-in.
+   * @param clazz - The class of the plug-in.
+   */
+  private void storePlugin(ImportedPlugins plugins, PluginIndex.Entry entry, Class<?> clazz) {
+    plugins.getImportedPluginDescriptions().put(entry.getName(), entry.getDescription());
+    if (entry.getKind().equals("Parser")) {
+      plugins.getImportedParsers().put(entry.getName(), clazz);
+      plugins.getParserSupportedFileTypes().put(entry.getName(), 
+          entry.getFileTypes() == null ? null : new ArrayList<>(entry.getFileTypes()));
+    } else {
+      try {
+        pluginTypeFactory.getPluginType(entry.getKind()).storePlugin(plugins, 
+            entry.getName(), clazz);
       } catch (Exception e) {
         e.printStackTrace();
       }
     }
-    return plugins;
+  }
+  
+  /**
+   * The plug-ins read from a jar, in the order of the classes in the jar, 
+   * and the class loader they were loaded with.
+   */
+  private static final class JarPlugins {
+    
+    private final File jar;
+    private final URLClassLoader classLoader;
+    private final List<PluginIndex.Entry> entries = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+    private final boolean restored;
+    private boolean complete;
+    
+    /**
+     * Creates an empty set of plug-ins for a jar.
+     * @param jar - The jar the plug-ins are read from.
+     * @param classLoader - The class loader of the jar.
+     * @param restored - If the plug-ins are restored from the index.
+     */
+    private JarPlugins(File jar, URLClassLoader classLoader, boolean restored) {
+      this.jar = jar;
+      this.classLoader = classLoader;
+      this.restored = restored;
+    }
+    
+    /**
+     * Closes the class loader of the jar if its plug-ins could not be read, so no class 
+     * loaded with it can be in use.
+     */
+    private void close() {
+      try {
+        classLoader.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+    
+    /**
+     * Adds a plug-in read from the jar.
+     * @param entry - The name, kind, description and file types of the plug-in.
+     * @param clazz - The class of the plug-in.
+     */
+    private void add(PluginIndex.Entry entry, Class<?> clazz) {
+      entries.add(entry);
+      classes.add(clazz);
+    }
   }
 
 }
@@ -0,0 +1,198 @@
+package extensibleclustering.plugins;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Watches the plug-ins directory on a background thread, and reloads the jars that are
+ * created, modified or deleted. Only the changed jars are read again, each with a new
+ * class loader. The class loaders they were loaded with before are left open for any job 
+ * still using their plug-ins, and are released once their classes are no longer used.
+ * Each reload publishes a new ImportedPlugins, which is never changed once published, so
+ * it can be read on any thread while the next reload is happening.
+ * The plug-ins are published and given to the observers while holding the lock of the
+ * loader, so they are always published in the order they were loaded, and a reload can
+ * never be replaced by plug-ins that were loaded before it.
+ * @author David Cook
+ */
+public class PluginWatcher implements Closeable {
+
+  //Copying a jar gives several events, so wait for the directory to settle before reloading.
+  private static final long SETTLE_MILLIS = 200;
+
+  private final PluginLoader pluginLoader;
+  private final Path pluginsDirectory;
+  private final AtomicReference<ImportedPlugins> importedPlugins;
+  private final List<Consumer<ImportedPlugins>> observers;
+  private WatchService watchService;
+  private Thread watchThread;
+
+  /**
+   * Creates a watcher for the plug-ins directory, which is not watched until it is started.
+   * @param pluginLoader - The loader that loaded the plug-ins, used to reload changed jars.
+   * @param pluginsDirectory - The directory the plug-ins are loaded from.
+   * @param importedPlugins - The plug-ins that have already been loaded.
+   */
+  public PluginWatcher(PluginLoader pluginLoader, Path pluginsDirectory,
+      ImportedPlugins importedPlugins) {
+    if (pluginLoader == null || pluginsDirectory == null || importedPlugins == null) {
+      throw new IllegalArgumentException("The loader, directory and plug-ins cannot be null");
+    }
+    this.pluginLoader = pluginLoader;
+    this.pluginsDirectory = pluginsDirectory;
+    this.importedPlugins = new AtomicReference<>(importedPlugins);
+    observers = new CopyOnWriteArrayList<>();
+  }
+
+  /**
+   * Adds an observer that is given the new plug-ins after each reload.
+   * Observers are called on the thread that reloaded the plug-ins, while holding the lock 
+   * of the loader, so they should not block.
+   * @param observer - The observer to add.
+   */
+  public void addObserver(Consumer<ImportedPlugins> observer) {
+    if (observer == null) {
+      throw new IllegalArgumentException("The observer cannot be null");
+    }
+    observers.add(observer);
+  }
+
+  /**
+   * Returns the plug-ins published by the latest reload.
+   * @return ImportedPlugins - The latest plug-ins.
+   */
+  public ImportedPlugins getImportedPlugins() {
+    return importedPlugins.get();
+  }
+
+  /**
+   * Loads every plug-in again, e.g. when the user asks for them to be reloaded, then 
+   * publishes them and gives them to each observer.
+   * @return ImportedPlugins - The plug-ins that were loaded.
+   */
+  public ImportedPlugins loadPlugins() {
+    synchronized (pluginLoader) {
+      ImportedPlugins plugins = pluginLoader.loadPlugins();
+      publish(plugins);
+      return plugins;
+    }
+  }
+
+  /**
+   * Starts watching the plug-ins directory on a daemon thread.
+   * @throws IOException - Thrown if the directory cannot be watched.
+   */
+  public synchronized void start() throws IOException {
+    if (watchThread != null) {
+      throw new IllegalStateException("The watcher has already been started");
+    }
+    watchService = FileSystems.getDefault().newWatchService();
+    pluginsDirectory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    watchThread = new Thread(this::watch, "Plug-in Watcher");
+    watchThread.setDaemon(true);
+    watchThread.start();
+  }
+
+  /**
+   * Stops watching the plug-ins directory. The class loaders of the plug-ins are left open.
+   * @throws IOException - Thrown if the watch service cannot be closed.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (watchService != null) {
+      watchService.close();
+    }
+  }
+
+  /**
+   * Waits for changes to the plug-ins directory and reloads the changed jars, until the
+   * watcher is closed.
+   */
+  private void watch() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        Set<File> changedJars = new TreeSet<>();
+        boolean overflow = false;
+        //Keep collecting events until none arrive for the settle time.
+        while (key != null) {
+          overflow |= addChangedJars(key, changedJars);
+          if (!key.reset()) {
+            return;
+          }
+          key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        try {
+          if (overflow) {
+            //Events were lost, so every jar has to be loaded again.
+            loadPlugins();
+          } else if (!changedJars.isEmpty()) {
+            synchronized (pluginLoader) {
+              publish(pluginLoader.reloadJars(changedJars));
+            }
+          }
+        } catch (RuntimeException e) {
+          //Keep watching, so the jars are reloaded again the next time they change.
+          e.printStackTrace();
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      //The watcher has been closed.
+    }
+  }
+
+  /**
+   * Adds the jars changed by the events of a watch key.
+   * @param key - The watch key with the events.
+   * @param changedJars - The changed jars to add to.
+   * @return boolean - True if events were lost.
+   */
+  private boolean addChangedJars(WatchKey key, Set<File> changedJars) {
+    boolean overflow = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        overflow = true;
+        continue;
+      }
+      Path changed = pluginsDirectory.resolve((Path) event.context());
+      if (changed.getFileName().toString().endsWith(".jar")) {
+        changedJars.add(changed.toFile());
+      }
+    }
+    return overflow;
+  }
+
+  /**
+   * Publishes reloaded plug-ins and gives them to each observer. This must be called while 
+   * holding the lock of the loader that loaded them.
+   * @param plugins - The reloaded plug-ins.
+   */
+  private void publish(ImportedPlugins plugins) {
+    importedPlugins.set(plugins);
+    for (Consumer<ImportedPlugins> observer : observers) {
+      try {
+        observer.accept(plugins);
+      } catch (RuntimeException e) {
+        //An observer that fails should not stop the others from being given the plug-ins.
+        e.printStackTrace();
+      }
+    }
+  }
+}
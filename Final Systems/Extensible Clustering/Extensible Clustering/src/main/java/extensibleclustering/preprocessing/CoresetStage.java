@@ -0,0 +1,247 @@
+package extensibleclustering.preprocessing;
+
+import extensibleclustering.dependencies.IncomparableComponentsException;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SketchPosition;
+import extensibleclustering.dependencies.WeightedPosition;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Preprocessing stage that shrinks a large dataset to a small weighted sample, a coreset,
+ * whose k-means cost is close to the cost of the whole dataset for any set of centres.
+ * The clustering algorithms then run on a few thousand weighted Positions instead of
+ * millions, so many numbers of clusters or algorithms can be tried quickly.
+ * A cheap k-means++ seeding pass finds rough centres, then each Position is sampled by its
+ * sensitivity, from the bound of Bachem, Lucic and Krause: Positions far from their
+ * centre, or in small clusters, are more likely to be sampled. Each sampled Position is
+ * weighted by the inverse of its probability, so the weights add up to the size of the
+ * data on average.
+ * The sample keeps the IDs of the sampled Positions only, so the clustering results list
+ * the sample rather than every Position.
+ * @author David Cook
+ */
+public class CoresetStage implements PreprocessingStage {
+
+  private int sampleSize = 2000;
+  private int seedClusters = 10;
+  private long seed = 1;
+  private int workerThreads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Returns the name of the stage.
+   * @return String - The name of the stage.
+   */
+  @Override
+  public String getName() {
+    return "Coreset";
+  }
+
+  /**
+   * Sets the number of Positions sampled. Positions sampled more than once are kept once
+   * with the sum of their weights, so the coreset can be smaller. 2000 by default.
+   * @param sampleSize - The number of Positions to sample, must be at least 1.
+   */
+  public void setSampleSize(int sampleSize) {
+    if (sampleSize < 1) {
+      throw new IllegalArgumentException("At least one Position must be sampled");
+    }
+    this.sampleSize = sampleSize;
+  }
+
+  /**
+   * Sets the number of centres found by the k-means++ pass. This should be around the
+   * largest number of clusters that will be tried. 10 by default.
+   * @param seedClusters - The number of centres, must be at least 1.
+   */
+  public void setSeedClusters(int seedClusters) {
+    if (seedClusters < 1) {
+      throw new IllegalArgumentException("There must be at least one centre");
+    }
+    this.seedClusters = seedClusters;
+  }
+
+  /**
+   * Sets the seed for the sampling, so the same data always gives the same coreset.
+   * @param seed - The seed for the random number generator.
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Sets the number of worker threads used. This is the number of processors by default.
+   * @param workerThreads - The number of worker threads to use, must be at least 1.
+   */
+  public void setWorkerThreads(int workerThreads) {
+    if (workerThreads < 1) {
+      throw new IllegalArgumentException("There must be at least one worker thread");
+    }
+    this.workerThreads = workerThreads;
+  }
+
+  /**
+   * Samples the coreset from the data. Data no larger than the sample size is returned as
+   * it is. Weighted Positions, e.g. collapsed duplicates, are sampled by their weight.
+   * @param data - The Positions to sample, each with the same number of dimensions.
+   * @return Position[] - The sampled Positions, weighted, in the order of the data.
+   * @throws InterruptedException - Thrown if interrupted while waiting for worker threads.
+   */
+  @Override
+  public Position[] process(Position[] data) throws InterruptedException {
+    if (data == null) {
+      throw new IllegalArgumentException("The data to preprocess cannot be null");
+    }
+    for (Position position : data) {
+      if (position == null || position instanceof SketchPosition) {
+        throw new IllegalArgumentException("Only Positions with components can be sampled");
+      }
+    }
+    if (data.length <= sampleSize) {
+      return data;
+    }
+
+    Random random = new Random(seed);
+    double[] weights = new double[data.length];
+    for (int row = 0; row < data.length; row++) {
+      weights[row] = WeightedPosition.getWeight(data[row]);
+    }
+    double[] distances = new double[data.length];
+    int[] assignments = new int[data.length];
+    int centres = seedCentres(data, weights, distances, assignments, random);
+
+    //Add up the weight and cost of each rough cluster.
+    double[] clusterWeights = new double[centres];
+    double[] clusterCosts = new double[centres];
+    double totalWeight = 0.0;
+    double totalCost = 0.0;
+    for (int row = 0; row < data.length; row++) {
+      clusterWeights[assignments[row]] += weights[row];
+      clusterCosts[assignments[row]] += weights[row] * distances[row];
+      totalWeight += weights[row];
+      totalCost += weights[row] * distances[row];
+    }
+
+    //Sensitivity of each Position, with alpha = 16 (ln k + 2) from the bound.
+    double alpha = 16 * (Math.log(centres) + 2);
+    double[] cumulative = new double[data.length];
+    double totalSensitivity = 0.0;
+    for (int row = 0; row < data.length; row++) {
+      int cluster = assignments[row];
+      double sensitivity = 4 * totalWeight / clusterWeights[cluster];
+      if (totalCost > 0.0) {
+        sensitivity += alpha * distances[row] / totalCost
+            + 2 * alpha * clusterCosts[cluster] / (clusterWeights[cluster] * totalCost);
+      }
+      totalSensitivity += weights[row] * sensitivity;
+      cumulative[row] = totalSensitivity;
+    }
+
+    //Sample with replacement, adding the weights of Positions sampled more than once.
+    Map<Integer, Double> sampled = new TreeMap<>();
+    for (int i = 0; i < sampleSize; i++) {
+      int row = findRow(cumulative, random.nextDouble() * totalSensitivity);
+      double probability = (cumulative[row] - (row == 0 ? 0.0 : cumulative[row - 1]))
+          / totalSensitivity;
+      sampled.merge(row, weights[row] / (sampleSize * probability), Double::sum);
+    }
+
+    Position[] coreset = new Position[sampled.size()];
+    int index = 0;
+    for (Map.Entry<Integer, Double> entry : sampled.entrySet()) {
+      Position position = data[entry.getKey()];
+      coreset[index++] = new WeightedPosition(WeightedPosition.unwrap(position),
+          entry.getValue(), WeightedPosition.getMemberIDs(position));
+    }
+    return coreset;
+  }
+
+  /**
+   * Chooses rough centres with k-means++ seeding, where each centre is sampled by its
+   * weight times its squared distance to the closest centre so far.
+   * @param data - The Positions to choose centres from.
+   * @param weights - The weight of each Position.
+   * @param distances - Filled with the squared distance of each Position to its centre.
+   * @param assignments - Filled with the index of the centre of each Position.
+   * @param random - The random number generator to sample with.
+   * @return int - The number of centres chosen, less than asked for if there are not enough
+   *     distinct Positions.
+   * @throws InterruptedException - Thrown if interrupted while waiting for worker threads.
+   */
+  private int seedCentres(Position[] data, double[] weights, double[] distances,
+      int[] assignments, Random random) throws InterruptedException {
+    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    int centreRow = random.nextInt(data.length);
+    int centres = 0;
+    while (true) {
+      int centre = centres++;
+      Position location = WeightedPosition.unwrap(data[centreRow]);
+      List<Double> costs = RowWorkers.run(data.length, workerThreads, (start, end) -> {
+        double cost = 0.0;
+        for (int row = start; row < end; row++) {
+          double distance = squaredDistance(location, data[row]);
+          if (distance < distances[row]) {
+            distances[row] = distance;
+            assignments[row] = centre;
+          }
+          cost += weights[row] * distances[row];
+        }
+        return cost;
+      });
+      double totalCost = 0.0;
+      for (double cost : costs) {
+        totalCost += cost;
+      }
+      if (centres == seedClusters || totalCost == 0.0) {
+        return centres;
+      }
+      double target = random.nextDouble() * totalCost;
+      centreRow = data.length - 1;
+      for (int row = 0; row < data.length; row++) {
+        target -= weights[row] * distances[row];
+        if (target < 0.0) {
+          centreRow = row;
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the squared distance between a centre and a Position.
+   * @param centre - The centre.
+   * @param position - The Position.
+   * @return double - The squared Euclidean distance.
+   */
+  private static double squaredDistance(Position centre, Position position) {
+    try {
+      double distance = centre.getDistance(WeightedPosition.unwrap(position));
+      return distance * distance;
+    } catch (IncomparableComponentsException ex) {
+      throw new IllegalArgumentException("The Positions must have the same dimensions", ex);
+    }
+  }
+
+  /**
+   * Finds the first row whose cumulative sensitivity is above a value.
+   * @param cumulative - The cumulative sensitivity of the rows.
+   * @param value - The value to find.
+   * @return int - The row the value falls in.
+   */
+  private static int findRow(double[] cumulative, double value) {
+    int low = 0;
+    int high = cumulative.length - 1;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (cumulative[middle] > value) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+}
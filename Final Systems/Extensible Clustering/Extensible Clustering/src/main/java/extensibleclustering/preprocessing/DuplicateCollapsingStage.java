@@ -0,0 +1,219 @@
+package extensibleclustering.preprocessing;
+
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SketchPosition;
+import extensibleclustering.dependencies.SparsePosition;
+import extensibleclustering.dependencies.WeightedPosition;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Preprocessing stage that collapses duplicate Positions into a single weighted Position,
+ * so the clustering algorithms only compare each distinct Position once.
+ * The weighted Position keeps the IDs of each of the duplicates, so the clustering results
+ * are output with the original IDs. Positions can be treated as duplicates if each of their
+ * components round to the same multiple of a tolerance, to collapse near duplicates.
+ * The components of each Position are hashed in parallel, and Positions with the same hash
+ * are then compared, so no copy of the data is made.
+ * This stage should be run after any stages that change the components.
+ * @author David Cook
+ */
+public class DuplicateCollapsingStage implements PreprocessingStage {
+
+  private static final long NAN_KEY = Long.MIN_VALUE;
+
+  private double tolerance = 0.0;
+  private int workerThreads = Runtime.getRuntime().availableProcessors();
+  private int collapsedCount = 0;
+
+  /**
+   * Returns the name of the stage.
+   * @return String - The name of the stage.
+   */
+  @Override
+  public String getName() {
+    return "Collapse Duplicates";
+  }
+
+  /**
+   * Sets the tolerance for two components to be treated as the same. Each component is
+   * rounded to the nearest multiple of the tolerance before it is compared. 0 by default,
+   * so only exact duplicates are collapsed.
+   * @param tolerance - The tolerance, cannot be negative.
+   */
+  public void setTolerance(double tolerance) {
+    if (!(tolerance >= 0.0) || Double.isInfinite(tolerance)) {
+      throw new IllegalArgumentException("The tolerance must be a positive number or 0");
+    }
+    this.tolerance = tolerance;
+  }
+
+  /**
+   * Sets the number of worker threads used. This is the number of processors by default.
+   * @param workerThreads - The number of worker threads to use, must be at least 1.
+   */
+  public void setWorkerThreads(int workerThreads) {
+    if (workerThreads < 1) {
+      throw new IllegalArgumentException("There must be at least one worker thread");
+    }
+    this.workerThreads = workerThreads;
+  }
+
+  /**
+   * Returns the number of Positions that were removed the last time the stage was run.
+   * @return int - The number of Positions collapsed into another Position.
+   */
+  public int getCollapsedCount() {
+    return collapsedCount;
+  }
+
+  /**
+   * Collapses the duplicate Positions. The first of each set of duplicates is kept in the
+   * order of the data, weighted by the number of Positions it stands for.
+   * Positions without duplicates are returned as they are.
+   * @param data - The Positions to collapse.
+   * @return Position[] - The distinct Positions.
+   * @throws InterruptedException - Thrown if interrupted while waiting for worker threads.
+   */
+  @Override
+  public Position[] process(Position[] data) throws InterruptedException {
+    if (data == null) {
+      throw new IllegalArgumentException("The data to preprocess cannot be null");
+    }
+    for (Position position : data) {
+      if (position == null || position instanceof SketchPosition) {
+        throw new IllegalArgumentException("Only Positions with components can be collapsed");
+      }
+    }
+
+    long[] hashes = new long[data.length];
+    RowWorkers.run(data.length, workerThreads, (start, end) -> {
+      for (int row = start; row < end; row++) {
+        hashes[row] = hash(WeightedPosition.unwrap(data[row]));
+      }
+      return null;
+    });
+
+    //Group the Positions in order, only comparing Positions with the same hash.
+    Map<Long, List<Integer>> groupsByHash = new HashMap<>();
+    List<List<Integer>> groups = new ArrayList<>();
+    for (int row = 0; row < data.length; row++) {
+      List<Integer> candidates = groupsByHash.computeIfAbsent(hashes[row],
+          hash -> new ArrayList<>(1));
+      List<Integer> group = null;
+      for (int candidate : candidates) {
+        if (sameKey(data[groups.get(candidate).get(0)], data[row])) {
+          group = groups.get(candidate);
+          break;
+        }
+      }
+      if (group == null) {
+        candidates.add(groups.size());
+        group = new ArrayList<>(1);
+        groups.add(group);
+      }
+      group.add(row);
+    }
+
+    collapsedCount = data.length - groups.size();
+    Position[] collapsed = new Position[groups.size()];
+    for (int i = 0; i < collapsed.length; i++) {
+      List<Integer> group = groups.get(i);
+      Position first = data[group.get(0)];
+      if (group.size() == 1) {
+        collapsed[i] = first;
+        continue;
+      }
+      double weight = 0.0;
+      List<String> memberIds = new ArrayList<>();
+      for (int row : group) {
+        weight += WeightedPosition.getWeight(data[row]);
+        for (String memberId : WeightedPosition.getMemberIDs(data[row])) {
+          memberIds.add(memberId);
+        }
+      }
+      collapsed[i] = new WeightedPosition(WeightedPosition.unwrap(first), weight,
+          memberIds.toArray(new String[memberIds.size()]));
+    }
+    return collapsed;
+  }
+
+  /**
+   * Returns the key a component is compared by, which is the component rounded to the
+   * tolerance. Zero always has a key of 0, so sparse and dense Positions hash the same.
+   * @param value - The value of the component.
+   * @return long - The key of the component.
+   */
+  private long key(double value) {
+    if (Double.isNaN(value)) {
+      return NAN_KEY;
+    }
+    if (tolerance > 0.0) {
+      return Math.round(value / tolerance);
+    }
+    //Adding 0.0 turns -0.0 into 0.0, so they are the same.
+    return Double.doubleToLongBits(value + 0.0);
+  }
+
+  /**
+   * Hashes the keys of the non-zero components of a Position with their indices.
+   * @param position - The Position to hash.
+   * @return long - The hash of the Position.
+   */
+  private long hash(Position position) {
+    long hash = position.getDimensions();
+    if (position instanceof SparsePosition) {
+      SparsePosition sparse = (SparsePosition) position;
+      int[] indices = sparse.getIndices();
+      double[] values = sparse.getValues();
+      for (int i = 0; i < indices.length; i++) {
+        hash = addToHash(hash, indices[i], key(values[i]));
+      }
+    } else {
+      Double[] components = position.getComponents();
+      for (int i = 0; i < components.length; i++) {
+        hash = addToHash(hash, i, key(components[i]));
+      }
+    }
+    return hash;
+  }
+
+  /**
+   * Adds a component to a hash, if the key of the component is not 0.
+   * @param hash - The hash so far.
+   * @param index - The index of the component.
+   * @param key - The key of the component.
+   * @return long - The updated hash.
+   */
+  private static long addToHash(long hash, int index, long key) {
+    if (key == 0) {
+      return hash;
+    }
+    //Mix the index and key so that the order of the components matters.
+    long mixed = (key ^ (key >>> 31)) * 0x9E3779B97F4A7C15L + index;
+    mixed = (mixed ^ (mixed >>> 29)) * 0xBF58476D1CE4E5B9L;
+    return hash * 31 + (mixed ^ (mixed >>> 32));
+  }
+
+  /**
+   * Checks if two Positions have the same key for every component.
+   * @param first - The first Position.
+   * @param second - The second Position.
+   * @return boolean - True if the Positions are duplicates.
+   */
+  private boolean sameKey(Position first, Position second) {
+    if (first.getDimensions() != second.getDimensions()) {
+      return false;
+    }
+    Double[] firstComponents = first.getComponents();
+    Double[] secondComponents = second.getComponents();
+    for (int i = 0; i < firstComponents.length; i++) {
+      if (key(firstComponents[i]) != key(secondComponents[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
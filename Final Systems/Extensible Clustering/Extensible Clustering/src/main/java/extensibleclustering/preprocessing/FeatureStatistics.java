@@ -0,0 +1,101 @@
+package extensibleclustering.preprocessing;
+
+/**
+ * Running mean and variance of each feature (dimension) of a dataset, using Welford's
+ * algorithm so the statistics are found in one pass without losing precision.
+ * Each worker thread can keep its own statistics for part of the data, which are then
+ * merged together. NaN values are treated as missing and are not counted.
+ * @author David Cook
+ */
+public class FeatureStatistics {
+
+  private final long[] counts;
+  private final double[] means;
+  private final double[] squaredDifferences;
+
+  /**
+   * Creates empty statistics for a number of features.
+   * @param features - The number of features in the data.
+   */
+  public FeatureStatistics(int features) {
+    if (features < 0) {
+      throw new IllegalArgumentException("The number of features cannot be negative");
+    }
+    counts = new long[features];
+    means = new double[features];
+    squaredDifferences = new double[features];
+  }
+
+  /**
+   * Adds a value of a feature to the statistics.
+   * @param feature - The index of the feature.
+   * @param value - The value to add, NaN values are ignored.
+   */
+  public void add(int feature, double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    long count = ++counts[feature];
+    double delta = value - means[feature];
+    means[feature] += delta / count;
+    squaredDifferences[feature] += delta * (value - means[feature]);
+  }
+
+  /**
+   * Adds the statistics of another part of the data to these statistics.
+   * @param other - The statistics to merge in, with the same number of features.
+   */
+  public void merge(FeatureStatistics other) {
+    if (other.counts.length != counts.length) {
+      throw new IllegalArgumentException("The statistics must have the same number of features");
+    }
+    for (int feature = 0; feature < counts.length; feature++) {
+      long otherCount = other.counts[feature];
+      if (otherCount == 0) {
+        continue;
+      }
+      long count = counts[feature];
+      long total = count + otherCount;
+      double delta = other.means[feature] - means[feature];
+      means[feature] += delta * otherCount / total;
+      squaredDifferences[feature] += other.squaredDifferences[feature]
+          + delta * delta * ((double) count * otherCount / total);
+      counts[feature] = total;
+    }
+  }
+
+  /**
+   * Returns the number of features the statistics are kept for.
+   * @return int - The number of features.
+   */
+  public int getFeatures() {
+    return counts.length;
+  }
+
+  /**
+   * Returns the number of values added for a feature.
+   * @param feature - The index of the feature.
+   * @return long - The number of values that were not NaN.
+   */
+  public long getCount(int feature) {
+    return counts[feature];
+  }
+
+  /**
+   * Returns the mean of a feature.
+   * @param feature - The index of the feature.
+   * @return double - The mean, or NaN if no values have been added.
+   */
+  public double getMean(int feature) {
+    return counts[feature] == 0 ? Double.NaN : means[feature];
+  }
+
+  /**
+   * Returns the sample variance of a feature.
+   * @param feature - The index of the feature.
+   * @return double - The variance, or 0 if fewer than two values have been added.
+   */
+  public double getVariance(int feature) {
+    return counts[feature] < 2 ? 0.0 : squaredDifferences[feature] / (counts[feature] - 1);
+  }
+}
@@ -0,0 +1,443 @@
+package extensibleclustering.preprocessing;
+
+import extensibleclustering.dependencies.Position;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Preprocessing stage that reduces the data to its top principal components, so the
+ * clustering algorithms compare fewer dimensions. The components are found with a
+ * randomised truncated SVD: the centred data is multiplied by a random matrix, refined with
+ * a few power iterations, and a small SVD is taken of the data projected onto the result.
+ * Only a few passes over the data are needed, each being a blocked multiplication of the
+ * data matrix spread over the worker threads.
+ * @author David Cook
+ */
+public class PcaStage implements PreprocessingStage {
+
+  private static final int JACOBI_SWEEPS = 100;
+
+  private int components = 10;
+  private int oversampling = 10;
+  private int powerIterations = 2;
+  private long seed = 1;
+  private int workerThreads = Runtime.getRuntime().availableProcessors();
+  private double[] explainedVariance = new double[0];
+
+  /**
+   * Returns the name of the stage.
+   * @return String - The name of the stage.
+   */
+  @Override
+  public String getName() {
+    return "Principal Component Analysis";
+  }
+
+  /**
+   * Sets the number of principal components to keep. 10 by default. If the data has fewer
+   * dimensions or Positions than this, all of the components are kept.
+   * @param components - The number of components, must be at least 1.
+   */
+  public void setComponents(int components) {
+    if (components < 1) {
+      throw new IllegalArgumentException("At least one component must be kept");
+    }
+    this.components = components;
+  }
+
+  /**
+   * Sets the number of extra random directions used while finding the components, which
+   * makes the top components more accurate. 10 by default.
+   * @param oversampling - The number of extra directions, cannot be negative.
+   */
+  public void setOversampling(int oversampling) {
+    if (oversampling < 0) {
+      throw new IllegalArgumentException("The oversampling cannot be negative");
+    }
+    this.oversampling = oversampling;
+  }
+
+  /**
+   * Sets the number of power iterations, each being two more passes over the data.
+   * More iterations are more accurate when the variance is spread over many components.
+   * 2 by default.
+   * @param powerIterations - The number of power iterations, cannot be negative.
+   */
+  public void setPowerIterations(int powerIterations) {
+    if (powerIterations < 0) {
+      throw new IllegalArgumentException("The number of power iterations cannot be negative");
+    }
+    this.powerIterations = powerIterations;
+  }
+
+  /**
+   * Sets the seed for the random directions, so the same data always gives the same result.
+   * @param seed - The seed for the random number generator.
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Sets the number of worker threads used. This is the number of processors by default.
+   * @param workerThreads - The number of worker threads to use, must be at least 1.
+   */
+  public void setWorkerThreads(int workerThreads) {
+    if (workerThreads < 1) {
+      throw new IllegalArgumentException("There must be at least one worker thread");
+    }
+    this.workerThreads = workerThreads;
+  }
+
+  /**
+   * Returns the fraction of the variance of the data kept by each component, from the last
+   * time the stage was run.
+   * @return double[] - The fraction of the variance of each component, largest first.
+   */
+  public double[] getExplainedVariance() {
+    return explainedVariance.clone();
+  }
+
+  /**
+   * Projects the data onto its top principal components. Each new Position has the ID of
+   * the Position it came from, with a component for each principal component.
+   * @param data - The Positions to reduce, each with the same number of dimensions.
+   * @return Position[] - New Positions with the principal component scores.
+   * @throws InterruptedException - Thrown if interrupted while waiting for worker threads.
+   */
+  @Override
+  public Position[] process(Position[] data) throws InterruptedException {
+    int dimensions = StandardisationStage.checkDenseData(data);
+    int rows = data.length;
+    int kept = Math.min(components, Math.min(dimensions, rows));
+    if (kept == 0) {
+      explainedVariance = new double[0];
+      return data;
+    }
+    int sketch = Math.min(kept + oversampling, Math.min(dimensions, rows));
+    //The data matrix is the largest, as the sketch is no larger than either of its sides.
+    checkMatrixSize(rows, dimensions);
+
+    double[] matrix = toCentredMatrix(data, dimensions);
+    double totalVariance = 0.0;
+    for (double value : matrix) {
+      totalVariance += value * value;
+    }
+
+    //Find an orthonormal basis for the range of the data multiplied by random directions.
+    Random random = new Random(seed);
+    double[] directions = new double[dimensions * sketch];
+    for (int i = 0; i < directions.length; i++) {
+      directions[i] = random.nextGaussian();
+    }
+    double[] basis = multiply(matrix, rows, dimensions, directions, sketch);
+    orthonormalise(basis, rows, sketch);
+    for (int iteration = 0; iteration < powerIterations; iteration++) {
+      double[] transposed = multiplyTransposed(matrix, rows, dimensions, basis, sketch);
+      orthonormalise(transposed, dimensions, sketch);
+      basis = multiply(matrix, rows, dimensions, transposed, sketch);
+      orthonormalise(basis, rows, sketch);
+    }
+
+    //The SVD of the projected data B = Q^T A comes from the eigenvectors of B B^T.
+    double[] projected = multiplyTransposed(matrix, rows, dimensions, basis, sketch);
+    double[] gram = new double[sketch * sketch];
+    for (int row = 0; row < dimensions; row++) {
+      int offset = row * sketch;
+      for (int i = 0; i < sketch; i++) {
+        double value = projected[offset + i];
+        for (int j = 0; j < sketch; j++) {
+          gram[i * sketch + j] += value * projected[offset + j];
+        }
+      }
+    }
+    double[] eigenvectors = new double[sketch * sketch];
+    double[] eigenvalues = symmetricEigen(gram, sketch, eigenvectors);
+
+    //The scores are Q U S, keeping the components with the largest singular values.
+    double[] weights = new double[sketch * kept];
+    explainedVariance = new double[kept];
+    for (int component = 0; component < kept; component++) {
+      double singularValue = Math.sqrt(Math.max(0.0, eigenvalues[component]));
+      explainedVariance[component] = totalVariance > 0.0
+          ? singularValue * singularValue / totalVariance : 0.0;
+      for (int i = 0; i < sketch; i++) {
+        weights[i * kept + component] = eigenvectors[i * sketch + component] * singularValue;
+      }
+    }
+    double[] scores = multiply(basis, rows, sketch, weights, kept);
+
+    Position[] reduced = new Position[rows];
+    RowWorkers.run(rows, workerThreads, (start, end) -> {
+      for (int row = start; row < end; row++) {
+        Double[] rowScores = new Double[kept];
+        for (int component = 0; component < kept; component++) {
+          rowScores[component] = scores[row * kept + component];
+        }
+        reduced[row] = new Position(data[row].getID(), rowScores);
+      }
+      return null;
+    });
+    return reduced;
+  }
+
+  /**
+   * Checks that a row major matrix with the given number of rows and columns can be held in
+   * an array, which has at most Integer.MAX_VALUE elements.
+   * @param rows - The number of rows of the matrix.
+   * @param columns - The number of columns of the matrix.
+   */
+  private static void checkMatrixSize(int rows, int columns) {
+    try {
+      Math.multiplyExact(rows, columns);
+    } catch (ArithmeticException ex) {
+      throw new IllegalArgumentException("The data is too large for PCA, as " + rows
+          + " positions with " + columns + " dimensions is more than " + Integer.MAX_VALUE
+          + " values. Reduce the dimensions first, e.g. with a random projection");
+    }
+  }
+
+  /**
+   * Copies the data into a row major matrix with the mean of each feature taken away.
+   * @param data - The data to copy.
+   * @param dimensions - The number of dimensions of the data.
+   * @return double[] - The centred data matrix.
+   * @throws InterruptedException - Thrown if interrupted while waiting for worker threads.
+   */
+  private double[] toCentredMatrix(Position[] data, int dimensions)
+      throws InterruptedException {
+    List<FeatureStatistics> chunkStatistics = RowWorkers.run(data.length, workerThreads,
+        (start, end) -> {
+          FeatureStatistics statistics = new FeatureStatistics(dimensions);
+          for (int row = start; row < end; row++) {
+            Double[] rowComponents = data[row].getComponents();
+            for (int feature = 0; feature < dimensions; feature++) {
+              if (rowComponents[feature].isNaN()) {
+                throw new IllegalArgumentException("Position " + data[row].getID()
+                    + " has missing values, which must be removed before PCA");
+              }
+              statistics.add(feature, rowComponents[feature]);
+            }
+          }
+          return statistics;
+        });
+    FeatureStatistics statistics = chunkStatistics.get(0);
+    for (int chunk = 1; chunk < chunkStatistics.size(); chunk++) {
+      statistics.merge(chunkStatistics.get(chunk));
+    }
+
+    double[] matrix = new double[data.length * dimensions];
+    RowWorkers.run(data.length, workerThreads, (start, end) -> {
+      for (int row = start; row < end; row++) {
+        Double[] rowComponents = data[row].getComponents();
+        for (int feature = 0; feature < dimensions; feature++) {
+          matrix[row * dimensions + feature] = rowComponents[feature]
+              - statistics.getMean(feature);
+        }
+      }
+      return null;
+    });
+    return matrix;
+  }
+
+  /**
+   * Multiplies a row major matrix by another, spreading blocks of rows over the workers.
+   * @param left - The left matrix, with the given number of rows and columns.
+   * @param rows - The number of rows of the left matrix.
+   * @param inner - The number of columns of the left matrix and rows of the right matrix.
+   * @param right - The right matrix.
+   * @param columns - The number of columns of the right matrix.
+   * @return double[] - The product, with the rows of the left and columns of the right.
+   * @throws InterruptedException - Thrown if interrupted while waiting for worker threads.
+   */
+  private double[] multiply(double[] left, int rows, int inner, double[] right, int columns)
+      throws InterruptedException {
+    double[] product = new double[rows * columns];
+    RowWorkers.run(rows, workerThreads, (start, end) -> {
+      for (int row = start; row < end; row++) {
+        int leftOffset = row * inner;
+        int productOffset = row * columns;
+        for (int i = 0; i < inner; i++) {
+          double value = left[leftOffset + i];
+          if (value == 0.0) {
+            continue;
+          }
+          int rightOffset = i * columns;
+          for (int column = 0; column < columns; column++) {
+            product[productOffset + column] += value * right[rightOffset + column];
+          }
+        }
+      }
+      return null;
+    });
+    return product;
+  }
+
+  /**
+   * Multiplies the transpose of a row major matrix by another. Each block of rows adds
+   * to its own product, which are summed in order once all of the blocks are done.
+   * @param left - The matrix to transpose, with the given number of rows and columns.
+   * @param rows - The number of rows of the left matrix and the right matrix.
+   * @param inner - The number of columns of the left matrix.
+   * @param right - The right matrix.
+   * @param columns - The number of columns of the right matrix.
+   * @return double[] - The product, with the columns of the left and right as its size.
+   * @throws InterruptedException - Thrown if interrupted while waiting for worker threads.
+   */
+  private double[] multiplyTransposed(double[] left, int rows, int inner, double[] right,
+      int columns) throws InterruptedException {
+    List<double[]> partials = RowWorkers.run(rows, workerThreads, (start, end) -> {
+      double[] partial = new double[inner * columns];
+      for (int row = start; row < end; row++) {
+        int leftOffset = row * inner;
+        int rightOffset = row * columns;
+        for (int i = 0; i < inner; i++) {
+          double value = left[leftOffset + i];
+          if (value == 0.0) {
+            continue;
+          }
+          int partialOffset = i * columns;
+          for (int column = 0; column < columns; column++) {
+            partial[partialOffset + column] += value * right[rightOffset + column];
+          }
+        }
+      }
+      return partial;
+    });
+    double[] product = partials.get(0);
+    for (int chunk = 1; chunk < partials.size(); chunk++) {
+      double[] partial = partials.get(chunk);
+      for (int i = 0; i < product.length; i++) {
+        product[i] += partial[i];
+      }
+    }
+    return product;
+  }
+
+  /**
+   * Makes the columns of a row major matrix orthonormal in place, with the modified
+   * Gram-Schmidt process. Columns that depend on the columns before them become zero.
+   * @param matrix - The matrix to orthonormalise.
+   * @param rows - The number of rows of the matrix.
+   * @param columns - The number of columns of the matrix.
+   */
+  private static void orthonormalise(double[] matrix, int rows, int columns) {
+    double[] norms = new double[columns];
+    for (int column = 0; column < columns; column++) {
+      for (int row = 0; row < rows; row++) {
+        double value = matrix[row * columns + column];
+        norms[column] += value * value;
+      }
+    }
+    for (int column = 0; column < columns; column++) {
+      double norm = 0.0;
+      for (int row = 0; row < rows; row++) {
+        double value = matrix[row * columns + column];
+        norm += value * value;
+      }
+      norm = Math.sqrt(norm);
+      //Drop a column that is mostly made of the columns before it.
+      double scale = norm > 1e-10 * Math.sqrt(norms[column]) && norm > 0.0 ? 1.0 / norm : 0.0;
+      for (int row = 0; row < rows; row++) {
+        matrix[row * columns + column] *= scale;
+      }
+      for (int other = column + 1; other < columns; other++) {
+        double dot = 0.0;
+        for (int row = 0; row < rows; row++) {
+          dot += matrix[row * columns + column] * matrix[row * columns + other];
+        }
+        for (int row = 0; row < rows; row++) {
+          matrix[row * columns + other] -= dot * matrix[row * columns + column];
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the eigenvalues and eigenvectors of a small symmetric matrix with the cyclic
+   * Jacobi method. The eigenvalues are sorted largest first, and each eigenvector has its
+   * largest entry positive so the result does not depend on rounding.
+   * @param symmetric - The row major symmetric matrix, which is changed.
+   * @param size - The number of rows and columns of the matrix.
+   * @param eigenvectors - Matrix to store the eigenvectors in, one per column.
+   * @return double[] - The eigenvalues, in the same order as the eigenvectors.
+   */
+  private static double[] symmetricEigen(double[] symmetric, int size, double[] eigenvectors) {
+    double[] vectors = new double[size * size];
+    for (int i = 0; i < size; i++) {
+      vectors[i * size + i] = 1.0;
+    }
+    for (int sweep = 0; sweep < JACOBI_SWEEPS; sweep++) {
+      double offDiagonal = 0.0;
+      double diagonal = 0.0;
+      for (int i = 0; i < size; i++) {
+        diagonal += symmetric[i * size + i] * symmetric[i * size + i];
+        for (int j = i + 1; j < size; j++) {
+          offDiagonal += symmetric[i * size + j] * symmetric[i * size + j];
+        }
+      }
+      if (offDiagonal <= 1e-30 * diagonal || offDiagonal == 0.0) {
+        break;
+      }
+      for (int p = 0; p < size; p++) {
+        for (int q = p + 1; q < size; q++) {
+          double pq = symmetric[p * size + q];
+          if (pq == 0.0) {
+            continue;
+          }
+          //Rotate rows and columns p and q so the entry at p, q becomes zero.
+          double theta = (symmetric[q * size + q] - symmetric[p * size + p]) / (2 * pq);
+          double t = Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+          if (theta == 0.0) {
+            t = 1.0;
+          }
+          double c = 1 / Math.sqrt(t * t + 1);
+          double s = t * c;
+          for (int k = 0; k < size; k++) {
+            double kp = symmetric[k * size + p];
+            double kq = symmetric[k * size + q];
+            symmetric[k * size + p] = c * kp - s * kq;
+            symmetric[k * size + q] = s * kp + c * kq;
+          }
+          for (int k = 0; k < size; k++) {
+            double pk = symmetric[p * size + k];
+            double qk = symmetric[q * size + k];
+            symmetric[p * size + k] = c * pk - s * qk;
+            symmetric[q * size + k] = s * pk + c * qk;
+          }
+          for (int k = 0; k < size; k++) {
+            double kp = vectors[k * size + p];
+            double kq = vectors[k * size + q];
+            vectors[k * size + p] = c * kp - s * kq;
+            vectors[k * size + q] = s * kp + c * kq;
+          }
+        }
+      }
+    }
+
+    //Sort the eigenvalues largest first, moving the eigenvectors with them.
+    Integer[] order = new Integer[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (first, second) -> Double.compare(
+        symmetric[second * size + second], symmetric[first * size + first]));
+    double[] eigenvalues = new double[size];
+    for (int column = 0; column < size; column++) {
+      int from = order[column];
+      eigenvalues[column] = symmetric[from * size + from];
+      int largest = 0;
+      for (int row = 1; row < size; row++) {
+        if (Math.abs(vectors[row * size + from]) > Math.abs(vectors[largest * size + from])) {
+          largest = row;
+        }
+      }
+      double sign = vectors[largest * size + from] < 0 ? -1.0 : 1.0;
+      for (int row = 0; row < size; row++) {
+        eigenvectors[row * size + column] = sign * vectors[row * size + from];
+      }
+    }
+    return eigenvalues;
+  }
+}
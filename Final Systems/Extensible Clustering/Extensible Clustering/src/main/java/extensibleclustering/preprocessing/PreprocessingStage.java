@@ -0,0 +1,51 @@
+package extensibleclustering.preprocessing;
+
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import java.io.IOException;
+
+/**
+ * Interface for a stage that transforms parsed data before it is clustered, e.g. scaling
+ * the data or reducing its dimensions. The stages are run in the model between parsing
+ * and clustering, in the order they were added.
+ * @author David Cook
+ */
+public interface PreprocessingStage {
+
+  /**
+   * Returns the name of the stage, to display to the user.
+   * @return String - The name of the stage.
+   */
+  public String getName();
+
+  /**
+   * Transforms the data. A stage may change the given Positions in place and return the same
+   * array, or return new Positions, so the given data should not be used afterwards.
+   * @param data - The data to transform.
+   * @return Position[] - The transformed data.
+   * @throws InterruptedException - Thrown if interrupted while waiting for worker threads.
+   */
+  public Position[] process(Position[] data) throws InterruptedException;
+
+  /**
+   * Transforms the data from a source. By default the whole source is read and closed, and
+   * the data is transformed with process. Stages that transform each Position on its own
+   * can override this to transform the Positions as they are read.
+   * This is named differently to process so calls passing null are not ambiguous.
+   * @param source - The source of the data to transform.
+   * @return PositionSource - A source of the transformed data, which must be closed.
+   * @throws InterruptedException - Thrown if interrupted while waiting for worker threads.
+   * @throws IOException - Thrown if the source cannot be read or closed.
+   */
+  public default PositionSource processSource(PositionSource source)
+      throws InterruptedException, IOException {
+    if (source == null) {
+      throw new IllegalArgumentException("The source to preprocess cannot be null");
+    }
+    Position[] data;
+    try (PositionSource reading = source) {
+      data = reading.toArray();
+    }
+    return PositionSource.of(process(data));
+  }
+}
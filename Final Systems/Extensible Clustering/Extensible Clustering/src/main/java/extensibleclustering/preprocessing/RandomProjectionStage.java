@@ -0,0 +1,302 @@
+package extensibleclustering.preprocessing;
+
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import extensibleclustering.dependencies.SketchPosition;
+import extensibleclustering.dependencies.SparsePosition;
+import java.io.IOException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Preprocessing stage that maps very high dimensional data, e.g. k-mer counts, into a
+ * chosen lower number of dimensions with a sparse random projection.
+ * Each input dimension is added to a few randomly chosen output dimensions with a random
+ * sign, so projecting a Position only visits its non-zero components, and no matrix of
+ * the size of the input dimensions by the output dimensions is stored.
+ * By the Johnson-Lindenstrauss lemma, projecting n Positions into
+ * getMinimumDimensions(n, error) dimensions keeps the distance between every pair within
+ * a factor of 1 - error and 1 + error with high probability.
+ * Each Position is projected on its own, so a source is projected as it is read.
+ * @author David Cook
+ */
+public class RandomProjectionStage implements PreprocessingStage {
+
+  private int dimensions = 256;
+  private int nonZerosPerDimension = 4;
+  private long seed = 1;
+  private int workerThreads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Returns the name of the stage.
+   * @return String - The name of the stage.
+   */
+  @Override
+  public String getName() {
+    return "Random Projection";
+  }
+
+  /**
+   * Returns the number of dimensions needed to keep the distances between a number of
+   * Positions within an error, from the bound of Dasgupta and Gupta for the
+   * Johnson-Lindenstrauss lemma: 4 ln(n) / (error^2 / 2 - error^3 / 3).
+   * @param positions - The number of Positions that will be projected.
+   * @param error - The largest relative change of any distance, between 0 and 1.
+   * @return int - The number of dimensions to project into.
+   */
+  public static int getMinimumDimensions(int positions, double error) {
+    if (positions < 1 || !(error > 0.0 && error < 1.0)) {
+      throw new IllegalArgumentException("There must be at least one position, "
+          + "and the error must be between 0 and 1");
+    }
+    double denominator = error * error / 2 - error * error * error / 3;
+    return (int) Math.max(1, Math.ceil(4 * Math.log(Math.max(2, positions)) / denominator));
+  }
+
+  /**
+   * Sets the number of dimensions the data is projected into. 256 by default.
+   * @param dimensions - The number of dimensions, must be at least 1.
+   */
+  public void setDimensions(int dimensions) {
+    if (dimensions < 1) {
+      throw new IllegalArgumentException("The data must be projected into at least one "
+          + "dimension");
+    }
+    this.dimensions = dimensions;
+  }
+
+  /**
+   * Sets the number of output dimensions each input dimension is added to. More makes the
+   * projection more accurate for data where a few components are much larger than the rest,
+   * but costs more per component. 4 by default, or the number of dimensions if that is less.
+   * @param nonZerosPerDimension - The number of output dimensions, must be at least 1.
+   */
+  public void setNonZerosPerDimension(int nonZerosPerDimension) {
+    if (nonZerosPerDimension < 1) {
+      throw new IllegalArgumentException("Each dimension must be added to at least one "
+          + "output dimension");
+    }
+    this.nonZerosPerDimension = nonZerosPerDimension;
+  }
+
+  /**
+   * Sets the seed for the random projection, so the same data always gives the same result.
+   * @param seed - The seed for the random number generator.
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Sets the number of worker threads used. This is the number of processors by default.
+   * @param workerThreads - The number of worker threads to use, must be at least 1.
+   */
+  public void setWorkerThreads(int workerThreads) {
+    if (workerThreads < 1) {
+      throw new IllegalArgumentException("There must be at least one worker thread");
+    }
+    this.workerThreads = workerThreads;
+  }
+
+  /**
+   * Projects each Position into the lower number of dimensions.
+   * @param data - The Positions to project, each with the same number of dimensions.
+   * @return Position[] - New Positions with the same IDs and the projected components.
+   * @throws InterruptedException - Thrown if interrupted while waiting for worker threads.
+   */
+  @Override
+  public Position[] process(Position[] data) throws InterruptedException {
+    if (data == null) {
+      throw new IllegalArgumentException("The data to preprocess cannot be null");
+    }
+    if (data.length == 0) {
+      return data;
+    }
+    Projection projection = new Projection(checkPosition(data[0]).getDimensions());
+    Position[] projected = new Position[data.length];
+    RowWorkers.run(data.length, workerThreads, (start, end) -> {
+      for (int row = start; row < end; row++) {
+        projected[row] = projection.project(data[row]);
+      }
+      return null;
+    });
+    return projected;
+  }
+
+  /**
+   * Projects the Positions from a source as they are read.
+   * The projection is created from the dimensions of the first Position.
+   * @param source - The source of the Positions to project.
+   * @return PositionSource - A source of the projected Positions, which closes the source.
+   */
+  @Override
+  public PositionSource processSource(PositionSource source) {
+    if (source == null) {
+      throw new IllegalArgumentException("The source to preprocess cannot be null");
+    }
+    return new ProjectedSource(source);
+  }
+
+  /**
+   * Checks a Position can be projected.
+   * @param position - The Position to check.
+   * @return Position - The Position that was checked.
+   */
+  private static Position checkPosition(Position position) {
+    if (position == null || position instanceof SketchPosition) {
+      throw new IllegalArgumentException("Only Positions with components can be projected");
+    }
+    return position;
+  }
+
+  /**
+   * The sparse projection for a number of input dimensions. For each input dimension this
+   * stores the output dimensions it is added to, with the sign stored in the top bit.
+   */
+  private final class Projection {
+
+    private final int inputDimensions;
+    private final int perDimension;
+    private final int[] targets;
+    private final double scale;
+
+    /**
+     * Creates the projection from the seed of the stage.
+     * @param inputDimensions - The number of dimensions of the data being projected.
+     */
+    private Projection(int inputDimensions) {
+      this.inputDimensions = inputDimensions;
+      perDimension = Math.min(nonZerosPerDimension, dimensions);
+      targets = new int[inputDimensions * perDimension];
+      //Each entry is +/- 1 / sqrt(s), so the expected squared length is unchanged.
+      scale = 1.0 / Math.sqrt(perDimension);
+      Random random = new Random(seed);
+      for (int input = 0; input < inputDimensions; input++) {
+        int offset = input * perDimension;
+        for (int i = 0; i < perDimension; i++) {
+          int target;
+          boolean repeated;
+          do {
+            target = random.nextInt(dimensions);
+            repeated = false;
+            for (int previous = offset; previous < offset + i; previous++) {
+              repeated |= (targets[previous] & Integer.MAX_VALUE) == target;
+            }
+          } while (repeated);
+          targets[offset + i] = random.nextBoolean() ? target : target | Integer.MIN_VALUE;
+        }
+      }
+    }
+
+    /**
+     * Projects a Position, only visiting its non-zero components.
+     * @param position - The Position to project.
+     * @return Position - The projected Position, with the same ID.
+     */
+    private Position project(Position position) {
+      checkPosition(position);
+      if (position.getDimensions() != inputDimensions) {
+        throw new IllegalArgumentException("Position " + position.getID() + " has "
+            + position.getDimensions() + " dimensions, but the first Position has "
+            + inputDimensions);
+      }
+      double[] output = new double[dimensions];
+      if (position instanceof SparsePosition) {
+        SparsePosition sparse = (SparsePosition) position;
+        int[] indices = sparse.getIndices();
+        double[] values = sparse.getValues();
+        for (int i = 0; i < indices.length; i++) {
+          add(output, indices[i], values[i], position);
+        }
+      } else {
+        Double[] components = position.getComponents();
+        for (int input = 0; input < inputDimensions; input++) {
+          add(output, input, components[input], position);
+        }
+      }
+      Double[] projected = new Double[dimensions];
+      for (int i = 0; i < dimensions; i++) {
+        projected[i] = output[i];
+      }
+      return new Position(position.getID(), projected);
+    }
+
+    /**
+     * Adds a component of a Position to the output dimensions it is projected onto.
+     * @param output - The projected components.
+     * @param input - The index of the component.
+     * @param value - The value of the component.
+     * @param position - The Position the value is from, for the error message.
+     */
+    private void add(double[] output, int input, double value, Position position) {
+      if (value == 0.0) {
+        return;
+      }
+      if (Double.isNaN(value)) {
+        throw new IllegalArgumentException("Position " + position.getID()
+            + " has missing values, which must be removed before it is projected");
+      }
+      double scaled = value * scale;
+      int offset = input * perDimension;
+      for (int i = 0; i < perDimension; i++) {
+        int target = targets[offset + i];
+        if (target < 0) {
+          output[target & Integer.MAX_VALUE] -= scaled;
+        } else {
+          output[target] += scaled;
+        }
+      }
+    }
+  }
+
+  /**
+   * A source that projects the Positions of another source as they are read.
+   */
+  private final class ProjectedSource implements PositionSource {
+
+    private final PositionSource source;
+    private Projection projection;
+
+    /**
+     * Creates a source that projects the given source.
+     * @param source - The source of the Positions to project.
+     */
+    private ProjectedSource(PositionSource source) {
+      this.source = source;
+    }
+
+    /**
+     * Returns the projected Positions, keeping the size of the source if it is known.
+     * @return Spliterator - The projected Positions.
+     */
+    @Override
+    public Spliterator<Position> spliterator() {
+      Spliterator<Position> positions = source.spliterator();
+      int characteristics = positions.characteristics()
+          & (Spliterator.SIZED | Spliterator.ORDERED | Spliterator.NONNULL);
+      return new Spliterators.AbstractSpliterator<Position>(positions.estimateSize(),
+          characteristics) {
+        @Override
+        public boolean tryAdvance(Consumer<? super Position> action) {
+          return positions.tryAdvance(position -> {
+            if (projection == null) {
+              projection = new Projection(checkPosition(position).getDimensions());
+            }
+            action.accept(projection.project(position));
+          });
+        }
+      };
+    }
+
+    /**
+     * Closes the source being projected.
+     * @throws IOException - Thrown if the source cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+      source.close();
+    }
+  }
+}
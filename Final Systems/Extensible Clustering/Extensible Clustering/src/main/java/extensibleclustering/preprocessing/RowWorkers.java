@@ -0,0 +1,83 @@
+package extensibleclustering.preprocessing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Splits the rows of a dataset into chunks and runs a task on each chunk with a pool of
+ * worker threads. The results are returned in the order of the chunks, so merging them
+ * gives the same answer however many threads are used.
+ * @author David Cook
+ */
+final class RowWorkers {
+
+  private static final int MIN_CHUNK_ROWS = 256;
+
+  /**
+   * Task run on a chunk of rows.
+   * @param <T> - The type of the result of the task.
+   */
+  interface RowTask<T> {
+
+    /**
+     * Runs the task on a chunk of rows.
+     * @param start - The first row of the chunk.
+     * @param end - The row after the last row of the chunk.
+     * @return T - The result for the chunk.
+     */
+    T run(int start, int end);
+  }
+
+  private RowWorkers() {
+  }
+
+  /**
+   * Runs a task on each chunk of the rows, with a few chunks per thread.
+   * @param <T> - The type of the result of the task.
+   * @param rows - The number of rows.
+   * @param workerThreads - The number of worker threads to use.
+   * @param task - The task to run on each chunk.
+   * @return List - The result of each chunk, in the order of the rows.
+   * @throws InterruptedException - Thrown if interrupted while waiting for the workers.
+   */
+  static <T> List<T> run(int rows, int workerThreads, RowTask<T> task)
+      throws InterruptedException {
+    List<T> results = new ArrayList<>();
+    int chunkCount = Math.max(1, Math.min(workerThreads * 4, rows / MIN_CHUNK_ROWS));
+    int chunkSize = Math.max(1, (rows + chunkCount - 1) / chunkCount);
+    if (workerThreads == 1 || chunkCount == 1) {
+      for (int start = 0; start < rows; start += chunkSize) {
+        results.add(task.run(start, Math.min(rows, start + chunkSize)));
+      }
+      return results;
+    }
+
+    ExecutorService workers = Executors.newFixedThreadPool(workerThreads);
+    try {
+      List<Future<T>> chunks = new ArrayList<>();
+      for (int start = 0; start < rows; start += chunkSize) {
+        int chunkStart = start;
+        int chunkEnd = Math.min(rows, start + chunkSize);
+        chunks.add(workers.submit(() -> task.run(chunkStart, chunkEnd)));
+      }
+      for (Future<T> chunk : chunks) {
+        results.add(chunk.get());
+      }
+      return results;
+    } catch (ExecutionException ex) {
+      //Throw the exception from the worker so the caller sees the original error.
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      } else if (ex.getCause() instanceof Error) {
+        throw (Error) ex.getCause();
+      }
+      throw new IllegalStateException(ex.getCause());
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package extensibleclustering.preprocessing;
+
+import extensibleclustering.dependencies.Position;
+import java.util.List;
+
+/**
+ * Preprocessing stage that log transforms, centres and scales each feature of the data,
+ * e.g. to standardise gene expression data before it is clustered.
+ * The log transform and the statistics of each feature are done together in one parallel
+ * pass, and the centring and scaling in a second pass, both changing the components of the
+ * Positions in place so no copy of the data is made.
+ * Missing values (NaN) are left as they are and are not included in the statistics.
+ * @author David Cook
+ */
+public class StandardisationStage implements PreprocessingStage {
+
+  private boolean logTransform = false;
+  private double pseudocount = 1.0;
+  private boolean centre = false;
+  private boolean scale = false;
+  private int workerThreads = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Returns the name of the stage.
+   * @return String - The name of the stage.
+   */
+  @Override
+  public String getName() {
+    return "Standardisation";
+  }
+
+  /**
+   * Sets whether the values are replaced by log2(value + pseudocount). Off by default.
+   * @param logTransform - True to log transform the values.
+   */
+  public void setLogTransform(boolean logTransform) {
+    this.logTransform = logTransform;
+  }
+
+  /**
+   * Sets the pseudocount added to each value before it is log transformed. 1 by default,
+   * so values of zero stay zero.
+   * @param pseudocount - The pseudocount, cannot be negative.
+   */
+  public void setPseudocount(double pseudocount) {
+    if (!(pseudocount >= 0.0) || Double.isInfinite(pseudocount)) {
+      throw new IllegalArgumentException("The pseudocount must be a positive number");
+    }
+    this.pseudocount = pseudocount;
+  }
+
+  /**
+   * Sets whether the mean of each feature is taken away from its values. Off by default.
+   * @param centre - True to centre each feature.
+   */
+  public void setCentre(boolean centre) {
+    this.centre = centre;
+  }
+
+  /**
+   * Sets whether the values of each feature are divided by its standard deviation.
+   * Features with no variance are not scaled. Off by default.
+   * @param scale - True to scale each feature.
+   */
+  public void setScale(boolean scale) {
+    this.scale = scale;
+  }
+
+  /**
+   * Sets the number of worker threads used. This is the number of processors by default.
+   * @param workerThreads - The number of worker threads to use, must be at least 1.
+   */
+  public void setWorkerThreads(int workerThreads) {
+    if (workerThreads < 1) {
+      throw new IllegalArgumentException("There must be at least one worker thread");
+    }
+    this.workerThreads = workerThreads;
+  }
+
+  /**
+   * Log transforms, centres and scales the data in place, depending on the settings.
+   * If an exception is thrown part of the data may have already been transformed.
+   * @param data - The Positions to transform, each with the same number of dimensions.
+   * @return Position[] - The same Positions, which have been transformed.
+   * @throws InterruptedException - Thrown if interrupted while waiting for worker threads.
+   */
+  @Override
+  public Position[] process(Position[] data) throws InterruptedException {
+    int dimensions = checkDenseData(data);
+    if (data.length == 0 || (!logTransform && !centre && !scale)) {
+      return data;
+    }
+
+    //Log transform and find the statistics of the transformed values in the same pass.
+    boolean needStatistics = centre || scale;
+    List<FeatureStatistics> chunkStatistics = RowWorkers.run(data.length, workerThreads,
+        (start, end) -> {
+          FeatureStatistics statistics = new FeatureStatistics(needStatistics ? dimensions : 0);
+          for (int row = start; row < end; row++) {
+            Double[] components = data[row].getComponents();
+            for (int feature = 0; feature < dimensions; feature++) {
+              double value = components[feature];
+              if (logTransform) {
+                value = logTransform(value, data[row]);
+                components[feature] = value;
+              }
+              if (needStatistics) {
+                statistics.add(feature, value);
+              }
+            }
+          }
+          return statistics;
+        });
+    if (!needStatistics) {
+      return data;
+    }
+
+    //Merge the statistics in the order of the rows, so the result does not depend on timing.
+    FeatureStatistics statistics = chunkStatistics.get(0);
+    for (int chunk = 1; chunk < chunkStatistics.size(); chunk++) {
+      statistics.merge(chunkStatistics.get(chunk));
+    }
+    double[] offsets = new double[dimensions];
+    double[] scales = new double[dimensions];
+    for (int feature = 0; feature < dimensions; feature++) {
+      offsets[feature] = centre && statistics.getCount(feature) > 0
+          ? statistics.getMean(feature) : 0.0;
+      double deviation = Math.sqrt(statistics.getVariance(feature));
+      scales[feature] = scale && deviation > 0.0 ? 1.0 / deviation : 1.0;
+    }
+
+    RowWorkers.run(data.length, workerThreads, (start, end) -> {
+      for (int row = start; row < end; row++) {
+        Double[] components = data[row].getComponents();
+        for (int feature = 0; feature < dimensions; feature++) {
+          components[feature] = (components[feature] - offsets[feature]) * scales[feature];
+        }
+      }
+      return null;
+    });
+    return data;
+  }
+
+  /**
+   * Returns the log2 of a value plus the pseudocount.
+   * @param value - The value to transform.
+   * @param position - The Position the value is from, for the error message.
+   * @return double - The transformed value.
+   */
+  private double logTransform(double value, Position position) {
+    double shifted = value + pseudocount;
+    if (shifted <= 0.0) {
+      throw new IllegalArgumentException("The value " + value + " of position "
+          + position.getID() + " cannot be log transformed with a pseudocount of "
+          + pseudocount);
+    }
+    return Math.log(shifted) / Math.log(2);
+  }
+
+  /**
+   * Checks the data can be transformed in place, i.e. each Position stores its components
+   * in an array and they all have the same number of dimensions.
+   * @param data - The data to check.
+   * @return int - The number of dimensions of the data.
+   */
+  static int checkDenseData(Position[] data) {
+    if (data == null) {
+      throw new IllegalArgumentException("The data to preprocess cannot be null");
+    }
+    int dimensions = data.length == 0 ? 0 : data[0].getDimensions();
+    for (Position position : data) {
+      if (position == null || position.getClass() != Position.class) {
+        throw new IllegalArgumentException("Only dense Positions can be preprocessed");
+      }
+      if (position.getDimensions() != dimensions) {
+        throw new IllegalArgumentException("All of the Positions must have the same "
+            + "number of dimensions to be preprocessed");
+      }
+    }
+    return dimensions;
+  }
+}
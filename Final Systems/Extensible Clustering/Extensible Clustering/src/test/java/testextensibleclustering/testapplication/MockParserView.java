@@ -1,11 +1,16 @@
 package testextensibleclustering.testapplication;
 
 import extensibleclustering.application.ImportedPluginObserver;
+import extensibleclustering.application.ParameterObserver;
 import extensibleclustering.application.SceneObserver;
 import extensibleclustering.application.StandardViewInterface;
 import extensibleclustering.application.StringObserver;
 import extensibleclustering.plugins.ImportedPlugins;
+import extensibleclustering.preprocessing.PreprocessingStage;
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javafx.stage.Stage;
 
@@ -21,6 +26,9 @@ public final class MockParserView implements StandardViewInterface {
   ImportedPlugins importedPlugins;
   Set<String> parserPluginSet;
   Set<String> clusteringPluginSet;
+  List<PreprocessingStage> preprocessingStages = Collections.emptyList();
+  List<String> isolatedJvmOptions = null;
+  boolean outOfCore = false;
   
   public static MockParserView getInstance() {
     return instance;
@@ -48,6 +56,18 @@ public final class MockParserView implements StandardViewInterface {
     return parserResult;
   }
   
+  public void setPreprocessingStages(List<PreprocessingStage> stages) {
+    preprocessingStages = stages;
+  }
+  
+  public void setIsolatedJvmOptions(List<String> jvmOptions) {
+    isolatedJvmOptions = jvmOptions;
+  }
+  
+  public void setOutOfCore(boolean outOfCore) {
+    this.outOfCore = outOfCore;
+  }
+  
   public void setSelectedName(String name) {
     selectedName = name;
   }
@@ -140,4 +160,35 @@ public final class MockParserView implements StandardViewInterface {
   public void addVisualisationObserver(SceneObserver visualisationObserver) {
     // TODO Auto-generated method stub
   }
+
+  @Override
+  public void addParametersObservers(ParameterObserver parserObserver, 
+      ParameterObserver clusteringObserver) {
+    // TODO Auto-generated method stub
+  }
+
+  @Override
+  public Map<String, Object> getParserParameters() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public Map<String, Object> getClusteringParameters() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public List<PreprocessingStage> getPreprocessingStages() {
+    return preprocessingStages;
+  }
+
+  @Override
+  public List<String> getIsolatedJvmOptions() {
+    return isolatedJvmOptions;
+  }
+  
+  @Override
+  public boolean isOutOfCore() {
+    return outOfCore;
+  }
 }
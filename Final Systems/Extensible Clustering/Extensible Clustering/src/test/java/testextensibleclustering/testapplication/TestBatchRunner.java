@@ -0,0 +1,353 @@
+package testextensibleclustering.testapplication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.application.BatchRunner;
+import extensibleclustering.application.ClusteringHelper;
+import extensibleclustering.application.ParsedDataCache;
+import extensibleclustering.dependencies.Centroid;
+import extensibleclustering.dependencies.ClusteringAlgorithm;
+import extensibleclustering.dependencies.DatasetFile;
+import extensibleclustering.dependencies.Parameter;
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.plugins.ImportedPlugins;
+import extensibleclustering.plugins.PluginExecutor;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for running plug-ins from the command line with the BatchRunner.
+ * @author David Cook
+ */
+public class TestBatchRunner {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ImportedPlugins testPlugins;
+  private ByteArrayOutputStream out;
+  private ByteArrayOutputStream err;
+  private BatchRunner testRunner;
+  private Path inputs;
+
+  /**
+   * Parser that reads a Position from each line of numbers separated by commas.
+   */
+  public static class LineParser implements Parser {
+
+    @Override
+    public Position[] parseFile(File file) throws IOException {
+      List<String> lines = Files.readAllLines(file.toPath());
+      if (lines.isEmpty()) {
+        throw new IOException("The file is empty");
+      }
+      Position[] positions = new Position[lines.size()];
+      for (int i = 0; i < positions.length; i++) {
+        positions[i] = new Position(String.valueOf(i), Arrays.stream(lines.get(i).split(","))
+            .map(Double::valueOf).toArray(Double[]::new));
+      }
+      return positions;
+    }
+
+    @Override
+    public String getName() {
+      return "Lines";
+    }
+
+    @Override
+    public String getDescription() {
+      return "Reads a Position from each line";
+    }
+
+    @Override
+    public ArrayList<String> getSupportedFileExtensions() {
+      return new ArrayList<>(Arrays.asList("*.txt"));
+    }
+  }
+
+  /**
+   * Clustering algorithm that outputs the number of clusters it is given to a file.
+   */
+  public static class CountingAlgorithm implements ClusteringAlgorithm {
+
+    static Path outputDirectory;
+    private Path lastOutputFile;
+
+    @Override
+    public Centroid[] clusterData(Position[] data, String fileName) {
+      return clusterData(data, fileName, Collections.emptyMap());
+    }
+
+    @Override
+    public Centroid[] clusterData(Position[] data, String fileName,
+        Map<String, Object> parameters) {
+      return count(data.length, fileName, parameters);
+    }
+
+    /**
+     * Writes the number of Positions and the number of clusters to the output file.
+     * @param positions - The number of Positions.
+     * @param fileName - The file name the data was parsed from.
+     * @param parameters - The values of the parameters.
+     * @return Centroid[] - No clusters.
+     */
+    Centroid[] count(int positions, String fileName, Map<String, Object> parameters) {
+      Map<String, Object> values = Parameter.resolve(getParameters(), parameters);
+      lastOutputFile = outputDirectory.resolve(fileName + ".out");
+      try {
+        Files.write(lastOutputFile, Arrays.asList(positions + " " + values.get("clusters")));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      return new Centroid[0];
+    }
+
+    @Override
+    public Path getLastOutputFile() {
+      return lastOutputFile;
+    }
+
+    @Override
+    public String getName() {
+      return "Counting";
+    }
+
+    @Override
+    public String getDescription() {
+      return "Counts the Positions";
+    }
+
+    @Override
+    public List<Parameter> getParameters() {
+      return Collections.singletonList(
+          Parameter.ofInt("clusters", "The number of clusters", 0, 0, 10));
+    }
+  }
+
+  /**
+   * Setup the plug-ins, streams and input files before each test.
+   * @throws IOException - Thrown if the input files cannot be created.
+   */
+  @Before
+  public void setUp() throws IOException {
+    testPlugins = new ImportedPlugins();
+    testPlugins.getImportedParsers().put("Lines", LineParser.class);
+    testPlugins.getImportedParsers().put("Line Parser", LineParser.class);
+    testPlugins.getParserSupportedFileTypes().put("Lines", Arrays.asList("*.txt"));
+    testPlugins.getImportedClusteringAlgorithms().put("Counting", CountingAlgorithm.class);
+    CountingAlgorithm.outputDirectory = folder.newFolder("output").toPath();
+    out = new ByteArrayOutputStream();
+    err = new ByteArrayOutputStream();
+    ClusteringHelper helper = new ClusteringHelper(() -> testPlugins, new PluginExecutor(),
+        new ParsedDataCache(folder.newFolder("cache").toPath()));
+    testRunner = new BatchRunner(helper, new PrintStream(out, true, "UTF-8"),
+        new PrintStream(err, true, "UTF-8"));
+    inputs = folder.newFolder("inputs").toPath();
+    Files.write(inputs.resolve("a.txt"), Arrays.asList("1,2", "3,4"));
+    Files.write(inputs.resolve("b.txt"), Arrays.asList("1,2", "3,4", "5,6"));
+    Files.write(inputs.resolve("notes.md"), Arrays.asList("Not parsed"));
+  }
+
+  /**
+   * Test each supported file in a directory is parsed, clustered and exported.
+   * @throws IOException - Thrown if the exported files cannot be read.
+   */
+  @Test
+  public void testRunDirectory() throws IOException {
+    Path export = folder.getRoot().toPath().resolve("export");
+    assertEquals("Could not process the directory", 0, testRunner.run(Arrays.asList(
+        "--parser", "Lines", "--algorithm", "Counting", "--param", "clusters=3",
+        "--export", export.toString(), inputs.toString())));
+    String[] results = output(out).split("\\R");
+    assertEquals("Could not process only the supported files", 2, results.length);
+    assertTrue("Could not report the result", results[0].startsWith(inputs.resolve("a.txt")
+        + ": parsed 2 positions, clustered to "));
+    assertEquals("Could not give the parameters to the clustering algorithm",
+        Arrays.asList("3 3"), Files.readAllLines(export.resolve("b.txt.out")));
+  }
+
+  /**
+   * Test the arguments are read from a job file, and the parsed data is exported as a
+   * dataset file when there is no clustering algorithm.
+   * @throws IOException - Thrown if the job file cannot be written.
+   */
+  @Test
+  public void testRunJobFile() throws IOException {
+    Path export = folder.getRoot().toPath().resolve("export");
+    Path jobFile = inputs.resolve("job.conf");
+    Files.write(jobFile, Arrays.asList("# Export the parsed data", "--parser Line Parser",
+        "--export " + export, inputs.resolve("b.txt").toString()));
+    assertEquals("Could not run the job file", 0,
+        testRunner.run(Arrays.asList("--job", jobFile.toString())));
+    try (DatasetFile.Columns columns = DatasetFile.openColumns(export.resolve("b.txt.dataset"))) {
+      assertEquals("Could not export the parsed data", 3, columns.getRows());
+    }
+  }
+
+  /**
+   * Test the parsed data is preprocessed before it is exported, and reduced to the number of
+   * principal components or projected dimensions given.
+   * @throws IOException - Thrown if the exported files cannot be read.
+   */
+  @Test
+  public void testRunWithPreprocessing() throws IOException {
+    Path export = folder.getRoot().toPath().resolve("export");
+    assertEquals("Could not export the preprocessed data", 0, testRunner.run(Arrays.asList(
+        "--parser", "Lines", "--standardise", "--export", export.toString(),
+        inputs.resolve("b.txt").toString())));
+    Position[] exported = DatasetFile.read(export.resolve("b.txt.dataset"));
+    assertEquals("Could not centre the exported data", 0.0, exported[0].getComponents()[0]
+        + exported[1].getComponents()[0] + exported[2].getComponents()[0], 1e-9);
+    assertEquals("Could not cluster the reduced data", 0, testRunner.run(Arrays.asList(
+        "--parser", "Lines", "--algorithm", "Counting", "--pca", "1",
+        "--export", export.toString(), inputs.resolve("b.txt").toString())));
+    assertEquals("Could not cluster each of the Positions", Arrays.asList("3 0"),
+        Files.readAllLines(export.resolve("b.txt.out")));
+    assertEquals("Could not export the projected data", 0, testRunner.run(Arrays.asList(
+        "--parser", "Lines", "--project", "4", "--export", export.toString(),
+        inputs.resolve("b.txt").toString())));
+    try (DatasetFile.Columns columns = DatasetFile.openColumns(export.resolve("b.txt.dataset"))) {
+      assertEquals("Could not project the data into the dimensions given", 4,
+          columns.getWidth());
+    }
+  }
+
+  /**
+   * Test duplicate Positions are collapsed into one before the data is clustered.
+   * @throws IOException - Thrown if the input or exported files cannot be written or read.
+   */
+  @Test
+  public void testRunCollapsingDuplicates() throws IOException {
+    Path export = folder.getRoot().toPath().resolve("export");
+    Path duplicates = folder.newFile("duplicates.txt").toPath();
+    Files.write(duplicates, Arrays.asList("1,2", "3,4", "1,2"));
+    assertEquals("Could not cluster the collapsed data", 0, testRunner.run(Arrays.asList(
+        "--parser", "Lines", "--algorithm", "Counting", "--collapse", "0",
+        "--export", export.toString(), duplicates.toString())));
+    assertEquals("Could not collapse the duplicates", Arrays.asList("2 0"),
+        Files.readAllLines(export.resolve("duplicates.txt.out")));
+    assertEquals("Could not reject a negative tolerance", 2, testRunner.run(Arrays.asList(
+        "--parser", "Lines", "--collapse", "-1", duplicates.toString())));
+  }
+
+  /**
+   * Test a coreset of at most the size given is sampled from the data before it is clustered.
+   * @throws IOException - Thrown if the input or exported files cannot be written or read.
+   */
+  @Test
+  public void testRunWithCoreset() throws IOException {
+    Path export = folder.getRoot().toPath().resolve("export");
+    Path large = folder.newFile("large.txt").toPath();
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      lines.add(i + "," + (i % 7));
+    }
+    Files.write(large, lines);
+    assertEquals("Could not cluster the coreset", 0, testRunner.run(Arrays.asList(
+        "--parser", "Lines", "--algorithm", "Counting", "--coreset", "10",
+        "--export", export.toString(), large.toString())));
+    int clustered = Integer.parseInt(
+        Files.readAllLines(export.resolve("large.txt.out")).get(0).split(" ")[0]);
+    assertTrue("Could not sample the coreset", clustered >= 1 && clustered <= 10);
+  }
+
+  /**
+   * Test each file is clustered while it is parsed when the data is streamed.
+   * @throws IOException - Thrown if the exported file cannot be read.
+   */
+  @Test
+  public void testRunStreamed() throws IOException {
+    Path export = folder.getRoot().toPath().resolve("export");
+    assertEquals("Could not stream the data", 0, testRunner.run(Arrays.asList(
+        "--parser", "Lines", "--algorithm", "Counting", "--stream",
+        "--export", export.toString(), inputs.resolve("b.txt").toString())));
+    assertTrue("Could not report the streamed data",
+        output(out).startsWith(inputs.resolve("b.txt") + ": streamed, clustered to "));
+    assertEquals("Could not cluster the streamed data", Arrays.asList("3 0"),
+        Files.readAllLines(export.resolve("b.txt.out")));
+    assertEquals("Could not reject streaming with values for the clustering algorithm", 2,
+        testRunner.run(Arrays.asList("--parser", "Lines", "--algorithm", "Counting",
+        "--stream", "--param", "clusters=3", inputs.toString())));
+  }
+
+  /**
+   * Test the clustering algorithm is run in a child JVM with the options given. The heap
+   * given is too small for the child to start, so the job should fail.
+   */
+  @Test
+  public void testRunIsolated() {
+    assertEquals("Could not report the failed job", 1, testRunner.run(Arrays.asList(
+        "--parser", "Lines", "--algorithm", "Counting", "--isolate", "-Xmx1k",
+        inputs.resolve("a.txt").toString())));
+    assertTrue("Could not run the clustering algorithm in a child JVM",
+        output(err).contains("The clustering algorithm stopped unexpectedly"));
+  }
+
+  /**
+   * Test a file that fails does not stop the rest of the batch.
+   * @throws IOException - Thrown if the empty file cannot be created.
+   */
+  @Test
+  public void testRunWithFailure() throws IOException {
+    Files.createFile(inputs.resolve("empty.txt"));
+    assertEquals("Could not report the failure", 1, testRunner.run(Arrays.asList(
+        "--parser", "Lines", "--algorithm", "Counting", inputs.toString())));
+    assertEquals("Could not process the other files", 2, output(out).split("\\R").length);
+    assertEquals("Could not report the failed file",
+        inputs.resolve("empty.txt") + ": The file is empty", output(err).trim());
+  }
+
+  /**
+   * Test invalid arguments are rejected before any file is processed.
+   */
+  @Test
+  public void testInvalidArguments() {
+    assertEquals("Could not reject an unknown parser", 2,
+        testRunner.run(Arrays.asList("--parser", "Missing", inputs.toString())));
+    assertEquals("Could not reject an invalid value", 2, testRunner.run(Arrays.asList(
+        "--parser", "Lines", "--algorithm", "Counting", "--param", "clusters=11",
+        inputs.toString())));
+    assertTrue("Could not describe the invalid value",
+        output(err).contains("The value of clusters must be between 0 and 10"));
+    assertEquals("Could not reject an invalid number of components", 2, testRunner.run(
+        Arrays.asList("--parser", "Lines", "--pca", "0", inputs.toString())));
+    assertEquals("Could not reject an invalid number of dimensions", 2, testRunner.run(
+        Arrays.asList("--parser", "Lines", "--project", "0", inputs.toString())));
+    assertEquals("Could not process no files", "", output(out));
+  }
+
+  /**
+   * Test the plug-ins are listed with their parameters.
+   */
+  @Test
+  public void testListPlugins() {
+    assertEquals("Could not list the plug-ins", 0, testRunner.run(Arrays.asList("--list")));
+    assertTrue("Could not list the parameters", output(out).contains(
+        "    clusters=INT (default 0) - The number of clusters"));
+  }
+
+  /**
+   * Returns the text printed to a stream.
+   * @param stream - The stream that was printed to.
+   * @return String - The text printed.
+   */
+  private static String output(ByteArrayOutputStream stream) {
+    return new String(stream.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
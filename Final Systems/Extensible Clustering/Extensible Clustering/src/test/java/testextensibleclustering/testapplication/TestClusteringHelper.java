@@ -0,0 +1,174 @@
+package testextensibleclustering.testapplication;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import extensibleclustering.application.ClusteringHelper;
+import extensibleclustering.application.JobPlan;
+import extensibleclustering.application.ParsedDataCache;
+import extensibleclustering.dependencies.Centroid;
+import extensibleclustering.dependencies.DatasetFile;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import extensibleclustering.plugins.ImportedPlugins;
+import extensibleclustering.plugins.PluginExecutor;
+import extensibleclustering.preprocessing.StandardisationStage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import testextensibleclustering.testapplication.TestBatchRunner.CountingAlgorithm;
+import testextensibleclustering.testapplication.TestBatchRunner.LineParser;
+
+/**
+ * Test class for parsing and clustering files without a display with the ClusteringHelper.
+ * @author David Cook
+ */
+public class TestClusteringHelper {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ParsedDataCache testCache;
+  private ClusteringHelper testHelper;
+  private File testFile;
+
+  /**
+   * Clustering algorithm that counts the Positions, and names its output after whether it 
+   * was given a dataset file or the data in memory.
+   */
+  public static class FileCountingAlgorithm extends CountingAlgorithm {
+
+    @Override
+    public Centroid[] clusterDatasetFile(Path datasetFile, String fileName,
+        Map<String, Object> parameters) throws IOException {
+      try (DatasetFile.Columns columns = DatasetFile.openColumns(datasetFile)) {
+        return count(columns.getRows(), "cached-" + fileName, parameters);
+      }
+    }
+  }
+
+  /**
+   * Setup the helper, with a cache in a temporary folder, and the file to parse.
+   * @throws Exception - Thrown if the folders or file cannot be created.
+   */
+  @Before
+  public void setUp() throws Exception {
+    ImportedPlugins testPlugins = new ImportedPlugins();
+    testPlugins.getImportedParsers().put("Lines", LineParser.class);
+    testPlugins.getImportedClusteringAlgorithms().put("Counting", CountingAlgorithm.class);
+    testPlugins.getImportedClusteringAlgorithms().put("File Counting",
+        FileCountingAlgorithm.class);
+    CountingAlgorithm.outputDirectory = folder.newFolder("output").toPath();
+    testCache = new ParsedDataCache(folder.newFolder("cache").toPath());
+    testHelper = new ClusteringHelper(() -> testPlugins, new PluginExecutor(), testCache);
+    testFile = folder.newFile("data.txt");
+    Files.write(testFile.toPath(), Arrays.asList("1,2", "3,4"));
+  }
+
+  /**
+   * Test to try and parse a file, which should be saved to the cache and loaded from it
+   * when the file is parsed again.
+   * @throws Exception - May be thrown by the parser.
+   */
+  @Test
+  public void testParseFileCached() throws Exception {
+    Position[] parsed = testHelper.parseFile("Lines", testFile);
+    assertNotNull("Could not cache the parsed data",
+        testCache.getEntry(testFile, LineParser.class));
+    assertArrayEquals("Could not load the parsed data from the cache",
+        parsed, testHelper.parseFile("Lines", testFile));
+  }
+
+  /**
+   * Test to try and open a source of a file in the cache, which should stream the cached
+   * data rather than parse the file again.
+   * @throws Exception - May be thrown by the parser.
+   */
+  @Test
+  public void testOpenSourceCached() throws Exception {
+    Position[] parsed = testHelper.parseFile("Lines", testFile);
+    try (PositionSource source = testHelper.openSource("Lines", testFile)) {
+      assertArrayEquals("Could not stream the cached data", parsed, source.toArray());
+    }
+  }
+
+  /**
+   * Test to try and cluster a file from the cache, which should parse and cache it first.
+   * @throws Exception - May be thrown by the plug-ins.
+   */
+  @Test
+  public void testClusterCachedFile() throws Exception {
+    Path output = testHelper.clusterCachedFile("Lines", testFile, "Counting",
+        Collections.emptyMap(), Collections.singletonMap("clusters", 3));
+    assertNotNull("Could not cache the file before clustering it",
+        testCache.getEntry(testFile, LineParser.class));
+    assertEquals("Could not cluster the cached data", Arrays.asList("2 3"),
+        Files.readAllLines(output));
+  }
+
+  /**
+   * Test to try and cluster parsed data that fits in memory, which should be clustered 
+   * in memory unless it is clustered out-of-core from the cache.
+   * @throws Exception - May be thrown by the plug-ins.
+   */
+  @Test
+  public void testClusterParsedFile() throws Exception {
+    Position[] parsed = testHelper.parseFile("Lines", testFile);
+    Path inMemory = testHelper.clusterParsedFile(parsed, "Lines", testFile, "File Counting",
+        Collections.emptyMap(), Collections.emptyMap(), false);
+    assertEquals("Could not cluster the data that fits in memory", "data.txt.out",
+        inMemory.getFileName().toString());
+    Path outOfCore = testHelper.clusterParsedFile(parsed, "Lines", testFile, "File Counting",
+        Collections.emptyMap(), Collections.emptyMap(), true);
+    assertEquals("Could not cluster the data out-of-core", "cached-data.txt.out",
+        outOfCore.getFileName().toString());
+  }
+
+  /**
+   * Test to try and cluster data twice with a preprocessing stage that changes the
+   * Positions in place. The stage should be run on a copy, so the data is left unchanged.
+   * @throws Exception - May be thrown by the plug-ins.
+   */
+  @Test
+  public void testClusterDataTwiceWithPreprocessing() throws Exception {
+    StandardisationStage standardisation = new StandardisationStage();
+    standardisation.setCentre(true);
+    testHelper.addPreprocessingStage(standardisation);
+    Position[] parsed = testHelper.parseFile("Lines", testFile);
+    Position[] expected = testHelper.parseFile("Lines", testFile);
+    testHelper.clusterData(parsed, testFile.getName(), "Counting");
+    testHelper.clusterData(parsed, testFile.getName(), "Counting");
+    assertArrayEquals("Could not leave the parsed data unchanged", expected, parsed);
+    assertArrayEquals("Could not preprocess a copy of the data",
+        new Double[] {-1.0, -1.0}, testHelper.preprocessData(parsed)[0].getComponents());
+  }
+
+  /**
+   * Test to try and plan a job for data in memory, which should fit in this JVM.
+   * @throws Exception - May be thrown by the clustering algorithm.
+   */
+  @Test
+  public void testPlanJob() throws Exception {
+    assertEquals("Could not plan to cluster the data in this JVM", JobPlan.Mode.IN_PROCESS,
+        testHelper.planJob("Counting", 2, 2, true).getMode());
+  }
+
+  /**
+   * Test to try and cluster data with a clustering algorithm that does not exist.
+   * This should throw an illegal argument exception.
+   * @throws Exception - The exception expected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testClusterMissingAlgorithm() throws Exception {
+    testHelper.clusterCachedFile("Lines", testFile, "Missing");
+  }
+}
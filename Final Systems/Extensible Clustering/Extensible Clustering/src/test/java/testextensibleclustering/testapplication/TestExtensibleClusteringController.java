@@ -5,12 +5,15 @@ import static org.junit.Assert.assertTrue;
 
 import extensibleclustering.application.ExtensibleClusteringController;
 import extensibleclustering.dependencies.DirectoryHelper;
+import extensibleclustering.preprocessing.StandardisationStage;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.Scene;
@@ -103,6 +106,12 @@ public class TestExtensibleClusteringController extends ApplicationTest {
     Files.walk(dirHelper.getOutputDirectory())
     .map(Path::toFile).forEach(File::delete);
     Files.deleteIfExists(dirHelper.getOutputDirectory());
+    //Remove the data cached when parsing files in the tests.
+    if (Files.exists(dirHelper.getCacheDirectory())) {
+      Files.walk(dirHelper.getCacheDirectory())
+      .map(Path::toFile).forEach(File::delete);
+      Files.deleteIfExists(dirHelper.getCacheDirectory());
+    }
     Files.deleteIfExists(extensibleHome);
   }
   
@@ -171,6 +180,35 @@ public class TestExtensibleClusteringController extends ApplicationTest {
         testController.clusterData().contains("Successfuly completed clustering"));
   }
   
+  /**
+   * Test to try and cluster the same data twice with preprocessing that log transforms, 
+   * centres and scales it. Every value in the file can be log transformed, and the 
+   * preprocessing is run on a copy of the parsed data, so the second run is given the same 
+   * data as the first, rather than values that have been centred, some of which are too 
+   * small to log transform again.
+   */
+  @Test
+  public void testClusterDataTwiceWithPreprocessing() {
+    StandardisationStage standardisation = new StandardisationStage();
+    standardisation.setLogTransform(true);
+    standardisation.setCentre(true);
+    standardisation.setScale(true);
+    mockView.setPreprocessingStages(Arrays.asList(standardisation));
+    mockView.setSelectedFile(testGseFile.toFile());
+    mockView.setSelectedName("Gene Micro-Array Series Matrix Parser");
+    mockView.setSelectedClustering("K-Means Clustering");
+    try {
+      assertTrue("Could not cluster the preprocessed data",
+          testController.clusterData().contains("Successfuly completed clustering"));
+      assertTrue("Could not cluster the preprocessed data again",
+          testController.clusterData().contains("Successfuly completed clustering"));
+      assertEquals("Could not leave the parsed data unchanged",
+          "Parsed 12654 positions, each with 2 dimensions", testController.parseFile());
+    } finally {
+      mockView.setPreprocessingStages(Collections.emptyList());
+    }
+  }
+  
   /**
    * Test to see if the controller sets the clustering plugins set to use.
    * This should be set when the view is assigned.
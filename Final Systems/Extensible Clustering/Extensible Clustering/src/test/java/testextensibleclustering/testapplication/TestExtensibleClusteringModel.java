@@ -92,6 +92,12 @@ public class TestExtensibleClusteringModel extends ApplicationTest {
     Files.walk(dirHelper.getOutputDirectory())
     .map(Path::toFile).forEach(File::delete);
     Files.deleteIfExists(dirHelper.getOutputDirectory());
+    //Remove the data cached when parsing files in the tests.
+    if (Files.exists(dirHelper.getCacheDirectory())) {
+      Files.walk(dirHelper.getCacheDirectory())
+      .map(Path::toFile).forEach(File::delete);
+      Files.deleteIfExists(dirHelper.getCacheDirectory());
+    }
     Files.deleteIfExists(extensibleHome);
   }
   
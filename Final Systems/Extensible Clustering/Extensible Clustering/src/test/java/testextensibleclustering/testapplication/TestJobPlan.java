@@ -0,0 +1,117 @@
+package testextensibleclustering.testapplication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.management.OperatingSystemMXBean;
+import extensibleclustering.application.JobPlan;
+import extensibleclustering.dependencies.AlgorithmCapabilities;
+import extensibleclustering.dependencies.AlgorithmCapabilities.Complexity;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Test class for planning clustering jobs from the capabilities of the algorithms.
+ * @author David Cook
+ */
+public class TestJobPlan {
+
+  private static final long GIGABYTE = 1L << 30;
+  private static final AlgorithmCapabilities QUADRATIC = new AlgorithmCapabilities(
+      Complexity.QUADRATIC, 64, Complexity.CUBIC, 1, false);
+  private static final AlgorithmCapabilities STREAMING = new AlgorithmCapabilities(
+      Complexity.LINEAR, 32, Complexity.QUADRATIC, Integer.MAX_VALUE, true);
+
+  /**
+   * Test a small job runs in this JVM on a single thread.
+   */
+  @Test
+  public void testSmallJob() {
+    JobPlan plan = JobPlan.plan(STREAMING, 100, 2, true, false, GIGABYTE, 8 * GIGABYTE, 8);
+    assertEquals("Could not run a small job in this JVM", JobPlan.Mode.IN_PROCESS,
+        plan.getMode());
+    assertEquals("Could not predict the working memory", 3200L, plan.getPredictedMemory());
+    assertEquals("Could not run a small job on a single thread", 1, plan.getThreads());
+  }
+
+  /**
+   * Test a large job is given a thread for each processor, up to those the algorithm uses.
+   */
+  @Test
+  public void testThreads() {
+    assertEquals("Could not give the job a thread for each processor", 8,
+        JobPlan.plan(STREAMING, 100_000, 2, true, false, GIGABYTE, 0, 8).getThreads());
+    assertEquals("Could not limit the threads to those the algorithm uses", 1,
+        JobPlan.plan(QUADRATIC, 1000, 2, true, false, GIGABYTE, 0, 8).getThreads());
+  }
+
+  /**
+   * Test a job too large for the heap is redirected to a child JVM sized for it.
+   */
+  @Test
+  public void testRedirectLargeJob() {
+    //The distances between 10,000 Positions take about 6 GB.
+    JobPlan plan = JobPlan.plan(QUADRATIC, 10_000, 2, true, false, GIGABYTE, 16 * GIGABYTE, 8);
+    assertEquals("Could not redirect the job to a child JVM", JobPlan.Mode.ISOLATED,
+        plan.getMode());
+    long expected = 64L * 10_000 * 10_000 + 10_000 * (112 + 2 * 24) + (64L << 20);
+    assertEquals("Could not predict the memory of the child JVM", expected,
+        plan.getPredictedMemory());
+    assertEquals("Could not size the child JVM for the job",
+        Arrays.asList("-Xmx" + (long) Math.ceil(expected * 1.25 / (1 << 20)) + "m",
+        "-XX:ActiveProcessorCount=1"), plan.getJvmOptions());
+  }
+
+  /**
+   * Test a job too large for the machine is refused.
+   */
+  @Test
+  public void testRefuseJob() {
+    JobPlan plan = JobPlan.plan(QUADRATIC, 100_000, 2, true, false, GIGABYTE, 16 * GIGABYTE,
+        8);
+    assertEquals("Could not refuse the job", JobPlan.Mode.REFUSED, plan.getMode());
+    assertTrue("Could not describe the refused job",
+        plan.toString().startsWith("REFUSED job needing about"));
+  }
+
+  /**
+   * Test a streaming algorithm reading a dataset file is not limited by the size of the data.
+   */
+  @Test
+  public void testStreamingJob() {
+    JobPlan plan = JobPlan.plan(STREAMING, 1_000_000_000, 100, false, false, GIGABYTE, 0, 8);
+    assertEquals("Could not run the streaming job in this JVM", JobPlan.Mode.IN_PROCESS,
+        plan.getMode());
+    assertEquals("Could not stream the data", 0L, plan.getPredictedMemory());
+  }
+
+  /**
+   * Test a job is always run in a child JVM when algorithms are isolated.
+   */
+  @Test
+  public void testIsolatedJob() {
+    assertEquals("Could not run the job in a child JVM", JobPlan.Mode.ISOLATED,
+        JobPlan.plan(STREAMING, 100, 2, true, true, GIGABYTE, GIGABYTE, 8).getMode());
+  }
+
+  /**
+   * Test the memory a child JVM can be given is the free memory of the machine, which is
+   * never more than its physical memory.
+   */
+  @Test
+  @SuppressWarnings("deprecation")
+  public void testFreeMachineMemory() {
+    long freeMachine = JobPlan.getFreeMachineMemory();
+    assertTrue("Could not get the free memory of the machine", freeMachine >= 0);
+    if (ManagementFactory.getOperatingSystemMXBean() instanceof OperatingSystemMXBean) {
+      OperatingSystemMXBean system =
+          (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+      assertTrue("Could not leave the memory already in use",
+          freeMachine <= system.getFreePhysicalMemorySize());
+      //The free memory changes all the time, so only check with plenty to spare.
+      assertTrue("Could not isolate a small job in the free memory", freeMachine < GIGABYTE
+          || JobPlan.plan(STREAMING, 100, 2, true, true).getMode() == JobPlan.Mode.ISOLATED);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+package testextensibleclustering.testapplication;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import extensibleclustering.application.ParsedDataCache;
+import extensibleclustering.dependencies.DatasetFile;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SketchPosition;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for saving and loading parsed data with the parsed data cache.
+ * @author David Cook
+ */
+public class TestParsedDataCache {
+
+  private Path cacheDirectory;
+  private Path parsedFile;
+  private ParsedDataCache testCache;
+  private Position[] testData;
+
+  /**
+   * Setup the cache and the file that has been parsed before each test.
+   * @throws IOException - Thrown if the parsed file cannot be created.
+   */
+  @Before
+  public void setUp() throws IOException {
+    cacheDirectory = Paths.get("target" + File.separator + "TestParsedDataCache");
+    parsedFile = Paths.get("target" + File.separator + "TestParsedDataCache.txt");
+    Files.write(parsedFile, "1\t1.0\t2.0\n2\t3.0\t4.0\n".getBytes());
+    testCache = new ParsedDataCache(cacheDirectory);
+    testData = new Position[] {
+        new Position("1", new Double[] {1.0, 2.0}),
+        new Position("2", new Double[] {3.0, 4.0})
+    };
+  }
+
+  /**
+   * Remove the cache and the parsed file after each test.
+   * @throws IOException - Thrown if the files cannot be deleted.
+   */
+  @After
+  public void tearDown() throws IOException {
+    testCache.clear();
+    Files.deleteIfExists(cacheDirectory);
+    Files.deleteIfExists(parsedFile);
+  }
+
+  /**
+   * Test to try and get data that has not been cached. This should return null.
+   */
+  @Test
+  public void testGetNotCached() {
+    assertNull("Could not get null for a file that has not been cached",
+        testCache.get(parsedFile.toFile(), TestParsedDataCache.class));
+  }
+
+  /**
+   * Test to try and cache data, then load it back from the cache.
+   * @throws IOException - Thrown if the data cannot be cached.
+   */
+  @Test
+  public void testPutAndGet() throws IOException {
+    testCache.put(parsedFile.toFile(), TestParsedDataCache.class, testData);
+    assertArrayEquals("Could not load the cached data",
+        testData, testCache.get(parsedFile.toFile(), TestParsedDataCache.class));
+  }
+
+  /**
+   * Test to try and get the entry of cached data, which can be read as a dataset file.
+   * There should be no entry once the parsed file has changed.
+   * @throws IOException - Thrown if the data cannot be cached.
+   */
+  @Test
+  public void testGetEntry() throws IOException {
+    assertNull("Could not get null for a file that has not been cached",
+        testCache.getEntry(parsedFile.toFile(), TestParsedDataCache.class));
+    testCache.put(parsedFile.toFile(), TestParsedDataCache.class, testData);
+    Path entry = testCache.getEntry(parsedFile.toFile(), TestParsedDataCache.class);
+    assertArrayEquals("Could not read the data from the entry", testData, DatasetFile.read(entry));
+    Files.write(parsedFile, "1\t1.0\t2.0\n".getBytes());
+    assertNull("Could not get null for a file that has changed",
+        testCache.getEntry(parsedFile.toFile(), TestParsedDataCache.class));
+  }
+
+  /**
+   * Test to try and load cached sketches, which should still be sketches.
+   * @throws IOException - Thrown if the data cannot be cached.
+   */
+  @Test
+  public void testPutAndGetSketches() throws IOException {
+    Position[] sketches = new Position[] {new SketchPosition("1", new long[] {1, 2}, 21)};
+    testCache.put(parsedFile.toFile(), TestParsedDataCache.class, sketches);
+    assertArrayEquals("Could not load the cached sketches",
+        sketches, testCache.get(parsedFile.toFile(), TestParsedDataCache.class));
+  }
+
+  /**
+   * Test to try and load data for a file that has changed since it was cached.
+   * This should return null, so the file is parsed again.
+   * @throws IOException - Thrown if the data cannot be cached or the file changed.
+   */
+  @Test
+  public void testFileChanged() throws IOException {
+    testCache.put(parsedFile.toFile(), TestParsedDataCache.class, testData);
+    Files.write(parsedFile, "1\t1.0\t2.0\n".getBytes());
+    assertNull("Could not get null for a file that has changed",
+        testCache.get(parsedFile.toFile(), TestParsedDataCache.class));
+  }
+
+  /**
+   * Test to try and load data cached with a different parser. This should return null.
+   * @throws IOException - Thrown if the data cannot be cached.
+   */
+  @Test
+  public void testDifferentParser() throws IOException {
+    testCache.put(parsedFile.toFile(), TestParsedDataCache.class, testData);
+    assertNull("Could not get null for a different parser",
+        testCache.get(parsedFile.toFile(), TestDataCacheOtherParser.class));
+  }
+
+  /**
+   * Test to try and cache data that cannot be saved as a dataset file.
+   * This should not create an entry in the cache.
+   * @throws IOException - Thrown if the data cannot be cached.
+   */
+  @Test
+  public void testUnsupportedDataNotCached() throws IOException {
+    Position[] customData = new Position[] {new Position("1", new Double[] {1.0}) { }};
+    testCache.put(parsedFile.toFile(), TestParsedDataCache.class, customData);
+    assertNull("Could not get null for data that cannot be cached",
+        testCache.get(parsedFile.toFile(), TestParsedDataCache.class));
+  }
+
+  /**
+   * Test to try and load a damaged entry in the cache. This should return null.
+   * @throws IOException - Thrown if the data cannot be cached or the entry damaged.
+   */
+  @Test
+  public void testDamagedEntry() throws IOException {
+    testCache.put(parsedFile.toFile(), TestParsedDataCache.class, testData);
+    try (Stream<Path> entries = Files.list(cacheDirectory)) {
+      for (Path entry : (Iterable<Path>) entries::iterator) {
+        Files.write(entry, new byte[] {1, 2, 3});
+      }
+    }
+    assertNull("Could not get null for a damaged entry",
+        testCache.get(parsedFile.toFile(), TestParsedDataCache.class));
+  }
+
+  /**
+   * Test to try and clear the cache. This should remove all of the entries.
+   * @throws IOException - Thrown if the data cannot be cached or cleared.
+   */
+  @Test
+  public void testClear() throws IOException {
+    testCache.put(parsedFile.toFile(), TestParsedDataCache.class, testData);
+    testCache.put(parsedFile.toFile(), TestDataCacheOtherParser.class, testData);
+    testCache.clear();
+    try (Stream<Path> entries = Files.list(cacheDirectory)) {
+      assertEquals("Could not remove the entries from the cache", 0, entries.count());
+    }
+    assertNull("Could not remove the entry from the cache",
+        testCache.get(parsedFile.toFile(), TestParsedDataCache.class));
+  }
+
+  /**
+   * Class used as a second parser so entries for different parsers can be tested.
+   */
+  private static class TestDataCacheOtherParser {
+  }
+}
@@ -0,0 +1,185 @@
+package testextensibleclustering.testplugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import extensibleclustering.dependencies.Centroid;
+import extensibleclustering.dependencies.ClusteringAlgorithm;
+import extensibleclustering.dependencies.Parameter;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.WeightedPosition;
+import extensibleclustering.plugins.PluginExecutor;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for running clustering algorithms in a child JVM with the PluginExecutor.
+ * @author David Cook
+ */
+public class TestIsolatedPluginRunner {
+
+  private PluginExecutor testExec;
+  private Position[] testData;
+
+  /**
+   * Clustering algorithm that outputs to a file named after the number of Positions.
+   */
+  public static class CountingAlgorithm implements ClusteringAlgorithm {
+
+    private Path lastOutputFile;
+
+    @Override
+    public Centroid[] clusterData(Position[] data, String fileName) {
+      lastOutputFile = Paths.get("target", data.length + "-" + fileName);
+      return new Centroid[0];
+    }
+
+    @Override
+    public Path getLastOutputFile() {
+      return lastOutputFile;
+    }
+
+    @Override
+    public String getName() {
+      return "Counting";
+    }
+
+    @Override
+    public String getDescription() {
+      return "Counts the Positions";
+    }
+  }
+
+  /**
+   * Clustering algorithm that throws an exception.
+   */
+  public static class FailingAlgorithm extends CountingAlgorithm {
+
+    @Override
+    public Centroid[] clusterData(Position[] data, String fileName) {
+      throw new IllegalStateException("Could not cluster the data");
+    }
+  }
+
+  /**
+   * Clustering algorithm that runs out of memory.
+   */
+  public static class MemoryAlgorithm extends CountingAlgorithm {
+
+    @Override
+    public Centroid[] clusterData(Position[] data, String fileName) {
+      long[] distances = new long[Integer.MAX_VALUE / 2];
+      distances[0] = data.length;
+      return new Centroid[(int) distances[0]];
+    }
+  }
+
+  /**
+   * Clustering algorithm that outputs to a file named after the value of its parameter.
+   */
+  public static class ParameterAlgorithm extends CountingAlgorithm {
+
+    private Path lastOutputFile;
+
+    @Override
+    public Centroid[] clusterData(Position[] data, String fileName,
+        Map<String, Object> parameters) {
+      Map<String, Object> values = Parameter.resolve(getParameters(), parameters);
+      lastOutputFile = Paths.get("target", values.get("scale") + "-" + fileName);
+      return new Centroid[0];
+    }
+
+    @Override
+    public Path getLastOutputFile() {
+      return lastOutputFile;
+    }
+
+    @Override
+    public List<Parameter> getParameters() {
+      return Collections.singletonList(
+          Parameter.ofDouble("scale", "The scale of the data", 1.0, 0.0, 10.0));
+    }
+  }
+
+  /**
+   * Setup the executor with a small child heap and the data before each test.
+   */
+  @Before
+  public void setUp() {
+    testExec = new PluginExecutor();
+    testExec.setIsolation(Arrays.asList("-Xmx64m"));
+    testData = new Position[100];
+    for (int i = 0; i < testData.length; i++) {
+      testData[i] = new Position(String.valueOf(i), new Double[] {(double) i, 1.0});
+    }
+  }
+
+  /**
+   * Test the data is given to the algorithm in the child JVM, and the output file returned.
+   * @throws Exception - Thrown if the clustering fails.
+   */
+  @Test
+  public void testClusterIsolated() throws Exception {
+    assertTrue("Could not isolate the clustering algorithms", testExec.isIsolated());
+    Path output = testExec.execClustering(testData, "data.txt", CountingAlgorithm.class);
+    assertEquals("Could not get the output file from the child JVM",
+        Paths.get("target", "100-data.txt").toAbsolutePath(), output);
+  }
+
+  /**
+   * Test the values of the parameters are given to the algorithm in the child JVM.
+   * @throws Exception - Thrown if the clustering fails.
+   */
+  @Test
+  public void testParametersIsolated() throws Exception {
+    Path output = testExec.execClustering(testData, "data.txt", ParameterAlgorithm.class,
+        Collections.singletonMap("scale", 2.5));
+    assertEquals("Could not give the parameters to the child JVM",
+        Paths.get("target", "2.5-data.txt").toAbsolutePath(), output);
+  }
+
+  /**
+   * Test an exception thrown by the algorithm in the child JVM is given to this JVM.
+   */
+  @Test
+  public void testAlgorithmException() {
+    try {
+      testExec.execClustering(testData, "data.txt", FailingAlgorithm.class);
+      fail("Could not get the exception from the child JVM");
+    } catch (Exception e) {
+      assertEquals("Could not get the message of the exception",
+          "Could not cluster the data", e.getMessage());
+    }
+  }
+
+  /**
+   * Test running out of memory in the child JVM only stops the job.
+   */
+  @Test
+  public void testOutOfMemory() {
+    try {
+      testExec.execClustering(testData, "data.txt", MemoryAlgorithm.class);
+      fail("Could not stop the job when the child JVM ran out of memory");
+    } catch (Exception e) {
+      assertTrue("Could not report the child JVM stopping",
+          e.getMessage().startsWith("The clustering algorithm stopped unexpectedly"));
+    }
+  }
+
+  /**
+   * Test to give data that cannot be saved to a dataset file. This should throw an exception.
+   * @throws Exception - Thrown if the clustering fails.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testUnsupportedData() throws Exception {
+    testExec.execClustering(new Position[] {new WeightedPosition(testData[0], 2.0,
+        new String[] {"0"})}, "data.txt", CountingAlgorithm.class);
+  }
+}
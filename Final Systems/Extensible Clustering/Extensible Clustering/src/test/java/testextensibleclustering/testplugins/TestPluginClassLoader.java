@@ -0,0 +1,91 @@
+package testextensibleclustering.testplugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.plugins.PluginClassLoader;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for loading the classes of a plug-in jar with the shared package loaded
+ * from the system.
+ * @author David Cook
+ */
+public class TestPluginClassLoader {
+
+  private Path parserJar;
+  private Path extraJar;
+  private PluginClassLoader testLoader;
+
+  /**
+   * Setup a class loader for the parser jar, which contains its own copy of the shared
+   * package, before each test.
+   * @throws IOException - Thrown if the jar url cannot be created.
+   */
+  @Before
+  public void setUp() throws IOException {
+    parserJar = Paths.get("src" + File.separator + "test" + File.separator
+        + "resources" + File.separator + "PluginLoader" + File.separator + "parser.jar");
+    extraJar = Paths.get("target" + File.separator + "TestPluginClassLoader.jar");
+    testLoader = new PluginClassLoader(new URL[] {parserJar.toUri().toURL()},
+        getClass().getClassLoader());
+  }
+
+  /**
+   * Close the class loader and remove the extra jar after each test.
+   * @throws IOException - Thrown if the class loader cannot be closed.
+   */
+  @After
+  public void tearDown() throws IOException {
+    testLoader.close();
+    Files.deleteIfExists(extraJar);
+  }
+
+  /**
+   * Test the shared classes in the jar are loaded from the system.
+   * @throws ClassNotFoundException - Thrown if the classes cannot be found.
+   */
+  @Test
+  public void testSharedClassFromSystem() throws ClassNotFoundException {
+    assertSame("Could not load Position from the system", Position.class,
+        testLoader.loadClass("extensibleclustering.dependencies.Position"));
+    Class<?> parser = testLoader.loadClass("parser.SeriesMatrixParser");
+    assertEquals("Could not load the parser from the jar", testLoader,
+        parser.getClassLoader());
+    assertTrue("Could not use the parser as the system's Parser",
+        Parser.class.isAssignableFrom(parser));
+  }
+
+  /**
+   * Test to load a shared class that is only in the jar. This should throw an exception,
+   * as the shared package is never defined from a jar.
+   * @throws Exception - Thrown if the jar cannot be written, or the class cannot be found.
+   */
+  @Test (expected = ClassNotFoundException.class)
+  public void testSharedClassOnlyInJar() throws Exception {
+    try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(extraJar))) {
+      output.putNextEntry(new JarEntry("extensibleclustering/dependencies/Extra.class"));
+      output.write(new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE});
+    }
+    try (PluginClassLoader extraLoader = new PluginClassLoader(
+        new URL[] {extraJar.toUri().toURL()}, getClass().getClassLoader())) {
+      assertNotNull("Could not find the class in the jar",
+          extraLoader.findResource("extensibleclustering/dependencies/Extra.class"));
+      extraLoader.loadClass("extensibleclustering.dependencies.Extra");
+    }
+  }
+}
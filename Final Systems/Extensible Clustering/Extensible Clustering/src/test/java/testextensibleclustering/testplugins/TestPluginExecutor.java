@@ -5,6 +5,7 @@ import static org.junit.Assert.assertTrue;
 
 import extensibleclustering.dependencies.DirectoryHelper;
 import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
 import extensibleclustering.plugins.ImportedPlugins;
 import extensibleclustering.plugins.PluginExecutor;
 import extensibleclustering.plugins.PluginLoader;
@@ -113,6 +114,9 @@ public class TestPluginExecutor extends ApplicationTest {
     Files.walk(dirHelper.getOutputDirectory())
       .map(Path::toFile).forEach(File::delete);
     Files.deleteIfExists(dirHelper.getOutputDirectory());
+    //The plug-in index is saved in the cache directory.
+    Files.deleteIfExists(dirHelper.getCacheDirectory().resolve("plugins.index"));
+    Files.deleteIfExists(dirHelper.getCacheDirectory());
     Files.deleteIfExists(extensibleHome);
   }
   
@@ -160,6 +164,40 @@ public class TestPluginExecutor extends ApplicationTest {
         returnedPath.toFile().exists());
   }
   
+  /**
+   * Test to try and open a source of a file with a parser plug-in.
+   * The source should contain every Position in the file.
+   * @throws Exception  - Thrown if the parser cannot be executed.
+   */
+  @Test
+  public void testExecuteParserSource() throws Exception {
+    Class<?> parser = importedPlugins.getImportedParsers()
+        .get("Gene Micro-Array Series Matrix Parser");
+    try (PositionSource source = testExec.execParserSource(testGseFile.toFile(), parser)) {
+      assertEquals("Could not get the expected number of positions from the source",
+          12654, source.toArray().length);
+    }
+  }
+  
+  /**
+   * Test to try and cluster a source of a file.
+   * This should check the output file exists.
+   * @throws Exception - Thrown if an error occurs in parser or clustering.
+   */
+  @Test
+  public void testExecuteClusteringSource() throws Exception {
+    Class<?> parser = importedPlugins.getImportedParsers()
+        .get("Gene Micro-Array Series Matrix Parser");
+    Class<?> clusteringAlgo = importedPlugins.getImportedClusteringAlgorithms()
+        .get("K-Means Clustering");
+    try (PositionSource source = testExec.execParserSource(testDiffGse.toFile(), parser)) {
+      Path returnedPath = testExec.execClustering(source, 
+          "GSE124672_series_matrix", clusteringAlgo);
+      assertTrue("Could not successfully get the output file",
+          returnedPath.toFile().exists());
+    }
+  }
+  
   /**
    * Test to try and execute a visualisation method. 
    * This should return a scene with a grid pane that contains a scrol pane
@@ -0,0 +1,95 @@
+package testextensibleclustering.testplugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.plugins.PluginHandle;
+import java.io.File;
+import java.util.ArrayList;
+import org.junit.Test;
+
+/**
+ * Test class for creating plug-ins through a typed plug-in handle.
+ * @author David Cook
+ */
+public class TestPluginHandle {
+
+  /**
+   * Parser that is used as the base class of a test plug-in.
+   */
+  public abstract static class BaseParser implements Parser {
+
+    @Override
+    public Position[] parseFile(File file) {
+      return new Position[] {new Position(file.getName(), new Double[] {1.0})};
+    }
+
+    @Override
+    public String getDescription() {
+      return "Parses a single Position";
+    }
+
+    @Override
+    public ArrayList<String> getSupportedFileExtensions() {
+      return new ArrayList<>();
+    }
+  }
+
+  /**
+   * Parser that inherits the Parser interface and parseFile from its base class.
+   */
+  public static class InheritedParser extends BaseParser {
+
+    @Override
+    public String getName() {
+      return "Inherited Parser";
+    }
+  }
+
+  /**
+   * Parser without a constructor that takes no arguments.
+   */
+  public static class ArgumentParser extends InheritedParser {
+
+    /**
+     * Creates the parser.
+     * @param name - Unused.
+     */
+    public ArgumentParser(String name) {
+    }
+  }
+
+  /**
+   * Test to create a plug-in that inherits its interface and call it through the interface.
+   * @throws Exception - Thrown if the plug-in cannot be created or parse the file.
+   */
+  @Test
+  public void testInheritedPlugin() throws Exception {
+    PluginHandle<Parser> handle = PluginHandle.of(InheritedParser.class, Parser.class);
+    Parser parser = handle.newInstance();
+    assertEquals("Could not call the inherited method", "test.txt",
+        parser.parseFile(new File("test.txt"))[0].getID());
+    assertNotSame("Could not create a new instance each time", parser, handle.newInstance());
+    assertEquals("Could not get the plug-in class", InheritedParser.class,
+        handle.getPluginClass());
+  }
+
+  /**
+   * Test to get a handle for a class that is not a parser. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testWrongInterface() {
+    PluginHandle.of(String.class, Parser.class);
+  }
+
+  /**
+   * Test to get a handle for a parser that cannot be constructed without arguments.
+   * This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testNoConstructor() {
+    PluginHandle.of(ArgumentParser.class, Parser.class);
+  }
+}
@@ -0,0 +1,122 @@
+package testextensibleclustering.testplugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import extensibleclustering.plugins.PluginIndex;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for recording the plug-ins found in each jar with the plug-in index.
+ * @author David Cook
+ */
+public class TestPluginIndex {
+
+  private Path indexFile;
+  private File jar;
+  private PluginIndex testIndex;
+  private List<PluginIndex.Entry> testEntries;
+
+  /**
+   * Setup the index and a jar to record before each test.
+   * @throws IOException - Thrown if the jar cannot be created.
+   */
+  @Before
+  public void setUp() throws IOException {
+    indexFile = Paths.get("target" + File.separator + "TestPluginIndex.index");
+    jar = Paths.get("target" + File.separator + "TestPluginIndex.jar").toFile();
+    Files.write(jar.toPath(), "jar".getBytes());
+    testIndex = new PluginIndex(indexFile);
+    testEntries = Arrays.asList(
+        new PluginIndex.Entry("parsing.Example", "Parser", "Example Parser", "Parses files",
+            Arrays.asList("txt", "tsv")),
+        new PluginIndex.Entry("clustering.Example", "ClusteringAlgorithm", "Example Clustering",
+            "Clusters data", null));
+  }
+
+  /**
+   * Remove the index and jar after each test.
+   * @throws IOException - Thrown if the files cannot be deleted.
+   */
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(indexFile);
+    Files.deleteIfExists(jar.toPath());
+  }
+
+  /**
+   * Test to try and save the plug-ins of a jar, then load them back into a new index.
+   * @throws IOException - Thrown if the index cannot be saved.
+   */
+  @Test
+  public void testSaveAndLoad() throws IOException {
+    testIndex.put(jar, testEntries);
+    testIndex.save();
+    PluginIndex loaded = new PluginIndex(indexFile);
+    loaded.load();
+    List<PluginIndex.Entry> result = loaded.get(jar);
+    assertEquals("Could not load the plug-ins of the jar", 2, result.size());
+    assertEquals("Could not load the class name", "parsing.Example",
+        result.get(0).getClassName());
+    assertEquals("Could not load the kind", "Parser", result.get(0).getKind());
+    assertEquals("Could not load the name", "Example Parser", result.get(0).getName());
+    assertEquals("Could not load the description", "Parses files",
+        result.get(0).getDescription());
+    assertEquals("Could not load the file types", Arrays.asList("txt", "tsv"),
+        result.get(0).getFileTypes());
+    assertNull("Could not load a plug-in without file types", result.get(1).getFileTypes());
+  }
+
+  /**
+   * Test a jar that has changed since it was recorded is not restored.
+   * @throws IOException - Thrown if the jar cannot be changed.
+   */
+  @Test
+  public void testJarChanged() throws IOException {
+    testIndex.put(jar, testEntries);
+    Files.write(jar.toPath(), "changed jar".getBytes());
+    assertNull("Could not get null for a changed jar", testIndex.get(jar));
+  }
+
+  /**
+   * Test jars that no longer exist are removed from the index.
+   */
+  @Test
+  public void testRetainJars() {
+    testIndex.put(jar, testEntries);
+    testIndex.retainJars(Collections.emptyList());
+    assertNull("Could not remove a deleted jar", testIndex.get(jar));
+  }
+
+  /**
+   * Test a damaged index is loaded as empty.
+   * @throws IOException - Thrown if the damaged index cannot be written.
+   */
+  @Test
+  public void testDamagedIndex() throws IOException {
+    testIndex.put(jar, testEntries);
+    testIndex.save();
+    byte[] bytes = Files.readAllBytes(indexFile);
+    Files.write(indexFile, Arrays.copyOf(bytes, bytes.length / 2));
+    testIndex.load();
+    assertNull("Could not discard a damaged index", testIndex.get(jar));
+  }
+
+  /**
+   * Test to try and record a plug-in without a name. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testEntryWithoutName() {
+    new PluginIndex.Entry("parsing.Example", "Parser", null, "Parses files", null);
+  }
+}
@@ -1,16 +1,30 @@
 package testextensibleclustering.testplugins;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 
 import extensibleclustering.plugins.ImportedPlugins;
+import extensibleclustering.plugins.PluginIndex;
 import extensibleclustering.plugins.PluginLoader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -123,6 +137,8 @@ public class TestPluginLoader {
       Files.walk(rootDirectory)
       .map(Path::toFile).forEach(File::delete);
       Files.deleteIfExists(pluginDirectory);
+      //The plug-in index is saved in the cache directory.
+      Files.deleteIfExists(rootDirectory.resolve("Cache"));
       Files.deleteIfExists(rootDirectory);
     } catch (IOException e) {
       e.printStackTrace();
@@ -235,4 +251,199 @@ public class TestPluginLoader {
       fail("Could not improt the reqired jar");
     } 
   }
+  
+  /**
+   * Test to try and load a parser from the plug-in index after it has been loaded once.
+   * The plug-in should be the same as when the jar was scanned.
+   */
+  @Test
+  public void testImportFromIndex() {
+    try {
+      Files.copy(standardJar, destStandardJar, StandardCopyOption.REPLACE_EXISTING);
+      ImportedPlugins scanned = testLoader.loadPlugins();
+      PluginIndex index = new PluginIndex(rootDirectory.resolve("Cache")
+          .resolve("plugins.index"));
+      index.load();
+      assertNotNull("Could not save the jar to the index", index.get(destStandardJar.toFile()));
+      
+      ImportedPlugins restored = new PluginLoader().loadPlugins();
+      assertEquals("Could not restore the parser names", 
+          scanned.getImportedParsers().keySet(), restored.getImportedParsers().keySet());
+      String parserName = restored.getImportedParsers().firstKey();
+      assertEquals("Could not restore the parser class", 
+          scanned.getImportedParsers().get(parserName).getName(), 
+          restored.getImportedParsers().get(parserName).getName());
+      assertEquals("Could not restore the supported file types", 
+          scanned.getParserSupportedFileTypes(), restored.getParserSupportedFileTypes());
+      assertEquals("Could not restore the descriptions", 
+          scanned.getImportedPluginDescriptions(), restored.getImportedPluginDescriptions());
+    } catch (IOException e) {
+      e.printStackTrace();
+      fail("Could not copy in required jar");
+    }
+  }
+  
+  /**
+   * Test to try and load every jar at once. Only the plug-in classes should be recorded, 
+   * even though the jars contain other classes, and loading again should give the 
+   * same plug-ins.
+   */
+  @Test
+  public void testImportAllJars() {
+    try {
+      Files.copy(standardJar, destStandardJar, StandardCopyOption.REPLACE_EXISTING);
+      Files.copy(diffJar, destDiffJar, StandardCopyOption.REPLACE_EXISTING);
+      Files.copy(clusteringJar, destClusteringJar, StandardCopyOption.REPLACE_EXISTING);
+      Files.copy(visualisationJar, destVisualisationJar, StandardCopyOption.REPLACE_EXISTING);
+      ImportedPlugins scanned = testLoader.loadPlugins();
+      assertEquals("Could not import every plug-in", 4, scanned.getTotalNumOfPlugins());
+      
+      PluginIndex index = new PluginIndex(rootDirectory.resolve("Cache")
+          .resolve("plugins.index"));
+      index.load();
+      List<PluginIndex.Entry> entries = index.get(destVisualisationJar.toFile());
+      assertEquals("Could not find only the plug-in class", 1, entries.size());
+      assertEquals("Could not find the plug-in class", 
+          "visualisation.DendrogramVisualisation", entries.get(0).getClassName());
+      
+      ImportedPlugins restored = new PluginLoader().loadPlugins();
+      assertEquals("Could not get the same plug-ins when loading again", 
+          scanned.getImportedPluginDescriptions(), restored.getImportedPluginDescriptions());
+      assertEquals("Could not get the parsers in the same order", 
+          new ArrayList<>(scanned.getImportedParsers().keySet()), 
+          new ArrayList<>(restored.getImportedParsers().keySet()));
+    } catch (IOException e) {
+      e.printStackTrace();
+      fail("Could not copy in the required jars for test case");
+    }
+  }
+  
+  /**
+   * Writes a jar to the plug-ins folder with the classes of the parser and clustering jars, 
+   * and the given plug-in declarations.
+   * @param services - The class listed in the Parser services file, or null for none.
+   * @param attribute - The plug-ins manifest attribute, or null for none.
+   * @return Path - The jar written.
+   * @throws IOException - Thrown if the jar cannot be written.
+   */
+  private Path writeDeclaringJar(String services, String attribute) throws IOException {
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    if (attribute != null) {
+      manifest.getMainAttributes().putValue("Extensible-Clustering-Plugins", attribute);
+    }
+    Path declaringJar = pluginDirectory.resolve("declaring.jar");
+    Set<String> written = new HashSet<>();
+    try (JarOutputStream output = new JarOutputStream(Files.newOutputStream(declaringJar), 
+        manifest)) {
+      if (services != null) {
+        output.putNextEntry(new JarEntry(
+            "META-INF/services/extensibleclustering.dependencies.Parser"));
+        output.write(("# Parsers\n" + services + "\n").getBytes(StandardCharsets.UTF_8));
+      }
+      for (Path jar : new Path[] { standardJar, clusteringJar }) {
+        try (JarFile input = new JarFile(jar.toFile())) {
+          for (JarEntry entry : Collections.list(input.entries())) {
+            if (entry.getName().endsWith(".class") && written.add(entry.getName())) {
+              output.putNextEntry(new JarEntry(entry.getName()));
+              try (InputStream classFile = input.getInputStream(entry)) {
+                classFile.transferTo(output);
+              }
+            }
+          }
+        }
+      }
+    }
+    return declaringJar;
+  }
+  
+  /**
+   * Test to try and load a jar that lists its parser in a services file. 
+   * Only the listed parser should be loaded, not the clustering algorithm in the jar.
+   */
+  @Test
+  public void testImportFromServices() {
+    try {
+      writeDeclaringJar("parser.SeriesMatrixParser", null);
+      ImportedPlugins result = testLoader.loadPlugins();
+      assertEquals("Could not import the declared parser", 
+          1, result.getImportedParsers().size());
+      assertEquals("Could not skip the undeclared clustering algorithm", 
+          0, result.getTotalNumOfClusteringAlgos());
+    } catch (IOException e) {
+      e.printStackTrace();
+      fail("Could not write the required jar");
+    }
+  }
+  
+  /**
+   * Test to try and load a jar that lists its plug-ins in its manifest. 
+   * Both of the listed plug-ins should be loaded.
+   */
+  @Test
+  public void testImportFromManifest() {
+    try {
+      writeDeclaringJar(null, "parser.SeriesMatrixParser, clustering.KMeansClustering");
+      ImportedPlugins result = testLoader.loadPlugins();
+      assertEquals("Could not import the declared plug-ins", 2, result.getTotalNumOfPlugins());
+      assertEquals("Could not import the declared clustering algorithm", 
+          1, result.getTotalNumOfClusteringAlgos());
+    } catch (IOException e) {
+      e.printStackTrace();
+      fail("Could not write the required jar");
+    }
+  }
+  
+  /**
+   * Test to try and reload only the jars that have changed. Adding a jar should add its 
+   * plug-in, and deleting a jar should remove its plug-in while keeping the others.
+   */
+  @Test
+  public void testReloadJars() {
+    try {
+      Files.copy(standardJar, destStandardJar, StandardCopyOption.REPLACE_EXISTING);
+      ImportedPlugins loaded = testLoader.loadPlugins();
+      Files.copy(clusteringJar, destClusteringJar, StandardCopyOption.REPLACE_EXISTING);
+      ImportedPlugins added = testLoader.reloadJars(
+          Collections.singletonList(destClusteringJar.toFile()));
+      assertEquals("Could not add the new jar", 2, added.getTotalNumOfPlugins());
+      assertEquals("Could not keep the unchanged parser", 
+          loaded.getImportedParsers(), added.getImportedParsers());
+      assertEquals("Could not leave the published plug-ins unchanged", 
+          1, loaded.getTotalNumOfPlugins());
+      
+      Files.delete(destStandardJar);
+      ImportedPlugins removed = testLoader.reloadJars(
+          Collections.singletonList(destStandardJar.toFile()));
+      assertEquals("Could not remove the deleted jar", 0, removed.getTotalNumOfParsers());
+      assertEquals("Could not keep the unchanged clustering algorithm", 
+          1, removed.getTotalNumOfClusteringAlgos());
+    } catch (IOException e) {
+      e.printStackTrace();
+      fail("Could not copy in the required jars for test case");
+    }
+  }
+  
+  /**
+   * Test to try and reload a jar while a plug-in loaded from it before is still being used.
+   * The class loader of the old plug-in should stay open, so it can still load the rest of 
+   * the classes of the plug-in.
+   */
+  @Test
+  public void testReloadJarInUse() {
+    try {
+      Files.copy(visualisationJar, destVisualisationJar, StandardCopyOption.REPLACE_EXISTING);
+      Class<?> inUse = testLoader.loadPlugins().getImportedVisualisationMethods()
+          .firstEntry().getValue();
+      ImportedPlugins reloaded = testLoader.reloadJars(
+          Collections.singletonList(destVisualisationJar.toFile()));
+      assertEquals("Could not reload the changed jar", 
+          1, reloaded.getTotalNumOfVisualisationMethods());
+      assertNotNull("Could not load a class of the plug-in in use after reloading its jar", 
+          Class.forName(inUse.getName() + "$1", false, inUse.getClassLoader()));
+    } catch (IOException | ClassNotFoundException e) {
+      e.printStackTrace();
+      fail("Could not load the classes of the plug-in in use");
+    }
+  }
 }
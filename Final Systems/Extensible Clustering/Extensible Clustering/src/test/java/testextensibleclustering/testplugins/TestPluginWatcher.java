@@ -0,0 +1,198 @@
+package testextensibleclustering.testplugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.DirectoryHelper;
+import extensibleclustering.plugins.ImportedPlugins;
+import extensibleclustering.plugins.PluginLoader;
+import extensibleclustering.plugins.PluginWatcher;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for reloading the plug-ins when the jars in the plug-ins directory change.
+ * @author David Cook
+ */
+public class TestPluginWatcher {
+
+  private Path pluginDirectory;
+  private Path cacheDirectory;
+  private Path clusteringJar;
+  private Path destClusteringJar;
+  private PluginLoader testLoader;
+  private PluginWatcher testWatcher;
+  private BlockingQueue<ImportedPlugins> reloads;
+
+  /**
+   * Setup the watcher on the plug-ins directory before each test.
+   * @throws IOException - Thrown if the directory cannot be watched.
+   */
+  @Before
+  public void setUp() throws IOException {
+    DirectoryHelper directoryHelper = new DirectoryHelper();
+    pluginDirectory = directoryHelper.getPlugInDirectory();
+    cacheDirectory = directoryHelper.getCacheDirectory();
+    clusteringJar = Paths.get("src" + File.separator + "test" + File.separator
+        + "resources" + File.separator + "PluginLoader" + File.separator + "clustering.jar");
+    destClusteringJar = pluginDirectory.resolve("clustering.jar");
+    testLoader = new PluginLoader();
+    testWatcher = new PluginWatcher(testLoader, pluginDirectory, testLoader.loadPlugins());
+    reloads = new LinkedBlockingQueue<>();
+    testWatcher.addObserver(reloads::add);
+    testWatcher.start();
+  }
+
+  /**
+   * Stop the watcher and remove the jar and the plug-in index after each test.
+   * @throws IOException - Thrown if the files cannot be deleted.
+   */
+  @After
+  public void tearDown() throws IOException {
+    testWatcher.close();
+    Files.deleteIfExists(destClusteringJar);
+    Files.deleteIfExists(cacheDirectory.resolve("plugins.index"));
+  }
+
+  /**
+   * Plug-in loader that fails the first time it reloads the changed jars.
+   */
+  private static class FailingLoader extends PluginLoader {
+
+    private final CountDownLatch failed = new CountDownLatch(1);
+
+    @Override
+    public synchronized ImportedPlugins reloadJars(Collection<File> changedJars) {
+      if (failed.getCount() > 0) {
+        failed.countDown();
+        throw new IllegalStateException("Could not reload the jars");
+      }
+      return super.reloadJars(changedJars);
+    }
+  }
+
+  /**
+   * Waits for the watcher to publish plug-ins with a number of clustering algorithms. 
+   * Copying a jar may give more than one reload, so earlier reloads are skipped.
+   * @param clusteringAlgorithms - The number of clustering algorithms to wait for.
+   * @return ImportedPlugins - The reloaded plug-ins.
+   * @throws InterruptedException - Thrown if interrupted while waiting.
+   */
+  private ImportedPlugins waitForReload(int clusteringAlgorithms) 
+      throws InterruptedException {
+    return waitForReload(reloads, clusteringAlgorithms);
+  }
+
+  /**
+   * Waits for plug-ins with a number of clustering algorithms to be added to a queue.
+   * @param reloads - The queue the reloaded plug-ins are added to.
+   * @param clusteringAlgorithms - The number of clustering algorithms to wait for.
+   * @return ImportedPlugins - The reloaded plug-ins.
+   * @throws InterruptedException - Thrown if interrupted while waiting.
+   */
+  private static ImportedPlugins waitForReload(BlockingQueue<ImportedPlugins> reloads,
+      int clusteringAlgorithms) throws InterruptedException {
+    while (true) {
+      ImportedPlugins reloaded = reloads.poll(30, TimeUnit.SECONDS);
+      assertNotNull("Could not reload the plug-ins after the jar changed", reloaded);
+      if (reloaded.getTotalNumOfClusteringAlgos() == clusteringAlgorithms) {
+        return reloaded;
+      }
+    }
+  }
+
+  /**
+   * Test the plug-ins are reloaded when a jar is added and then deleted.
+   * @throws Exception - Thrown if the jar cannot be copied or interrupted while waiting.
+   */
+  @Test
+  public void testReloadOnChange() throws Exception {
+    Files.copy(clusteringJar, destClusteringJar);
+    ImportedPlugins added = waitForReload(1);
+    assertEquals("Could not load the added jar", 1, added.getTotalNumOfPlugins());
+    assertEquals("Could not publish the reloaded plug-ins", 1,
+        testWatcher.getImportedPlugins().getTotalNumOfClusteringAlgos());
+
+    Files.delete(destClusteringJar);
+    ImportedPlugins removed = waitForReload(0);
+    assertEquals("Could not remove the deleted jar", 0, removed.getTotalNumOfPlugins());
+  }
+
+  /**
+   * Test the watcher keeps reloading the plug-ins after an observer throws an exception.
+   * @throws Exception - Thrown if the jar cannot be copied or interrupted while waiting.
+   */
+  @Test
+  public void testFailingObserver() throws Exception {
+    testWatcher.addObserver(plugins -> {
+      throw new IllegalStateException("Could not use the plug-ins");
+    });
+    Files.copy(clusteringJar, destClusteringJar);
+    waitForReload(1);
+    Files.delete(destClusteringJar);
+    assertEquals("Could not reload the plug-ins after an observer failed", 0,
+        waitForReload(0).getTotalNumOfPlugins());
+  }
+
+  /**
+   * Test the watcher keeps watching after reloading the changed jars throws an exception.
+   * @throws Exception - Thrown if the jar cannot be copied or interrupted while waiting.
+   */
+  @Test
+  public void testFailingReload() throws Exception {
+    FailingLoader failingLoader = new FailingLoader();
+    BlockingQueue<ImportedPlugins> failingReloads = new LinkedBlockingQueue<>();
+    try (PluginWatcher failingWatcher = new PluginWatcher(failingLoader, pluginDirectory,
+        failingLoader.loadPlugins())) {
+      failingWatcher.addObserver(failingReloads::add);
+      failingWatcher.start();
+      Files.copy(clusteringJar, destClusteringJar);
+      assertTrue("Could not try to reload the jar",
+          failingLoader.failed.await(30, TimeUnit.SECONDS));
+      //Change the jar again once the failed reload has finished.
+      Thread.sleep(500);
+      Files.setLastModifiedTime(destClusteringJar, FileTime.fromMillis(
+          System.currentTimeMillis()));
+      assertEquals("Could not reload the jar after a reload failed", 1,
+          waitForReload(failingReloads, 1).getTotalNumOfPlugins());
+    }
+  }
+
+  /**
+   * Test loading every plug-in again publishes them and gives them to the observers.
+   * @throws Exception - Thrown if the jar cannot be copied or interrupted while waiting.
+   */
+  @Test
+  public void testLoadPlugins() throws Exception {
+    testWatcher.close();
+    Files.copy(clusteringJar, destClusteringJar);
+    ImportedPlugins loaded = testWatcher.loadPlugins();
+    assertEquals("Could not load the jar", 1, loaded.getTotalNumOfClusteringAlgos());
+    assertSame("Could not publish the loaded plug-ins", loaded,
+        testWatcher.getImportedPlugins());
+    assertSame("Could not give the loaded plug-ins to the observers", loaded,
+        reloads.poll(30, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Test to try and create a watcher without a loader. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testNullLoader() {
+    new PluginWatcher(null, pluginDirectory, new ImportedPlugins());
+  }
+}
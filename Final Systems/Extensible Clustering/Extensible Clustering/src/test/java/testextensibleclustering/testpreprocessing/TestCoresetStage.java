@@ -0,0 +1,150 @@
+package testextensibleclustering.testpreprocessing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SketchPosition;
+import extensibleclustering.dependencies.WeightedPosition;
+import extensibleclustering.preprocessing.CoresetStage;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for sampling a weighted coreset with the coreset stage.
+ * @author David Cook
+ */
+public class TestCoresetStage {
+
+  private CoresetStage testStage;
+  private Position[] testData;
+
+  /**
+   * Setup the stage and three clusters of data, one much smaller than the others,
+   * before each test.
+   */
+  @Before
+  public void setUp() {
+    testStage = new CoresetStage();
+    Random random = new Random(3);
+    testData = new Position[20000];
+    for (int i = 0; i < testData.length; i++) {
+      double centre = i < 100 ? 50.0 : i % 2 == 0 ? 0.0 : 10.0;
+      testData[i] = new Position(String.valueOf(i), new Double[] {
+          centre + random.nextGaussian(), centre + random.nextGaussian()});
+    }
+  }
+
+  /**
+   * Returns the weighted k-means cost of data for some centres.
+   * @param data - The Positions.
+   * @param centres - The centres, as x and y.
+   * @return double - The sum of the weighted squared distances to the closest centre.
+   */
+  private double cost(Position[] data, double[][] centres) {
+    double cost = 0.0;
+    for (Position position : data) {
+      Double[] components = position.getComponents();
+      double closest = Double.POSITIVE_INFINITY;
+      for (double[] centre : centres) {
+        double dx = components[0] - centre[0];
+        double dy = components[1] - centre[1];
+        closest = Math.min(closest, dx * dx + dy * dy);
+      }
+      cost += WeightedPosition.getWeight(position) * closest;
+    }
+    return cost;
+  }
+
+  /**
+   * Test the cost of the coreset is close to the cost of the data for different centres,
+   * and the weights add up to about the size of the data.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testCostApproximation() throws InterruptedException {
+    testStage.setSampleSize(1000);
+    testStage.setSeedClusters(3);
+    Position[] coreset = testStage.process(testData);
+    assertTrue("Could not shrink the data", coreset.length <= 1000);
+
+    double totalWeight = 0.0;
+    for (Position position : coreset) {
+      totalWeight += WeightedPosition.getWeight(position);
+    }
+    assertEquals("Could not weight the coreset by the size of the data",
+        1.0, totalWeight / testData.length, 0.1);
+
+    double[][][] centreSets = new double[][][] {
+        {{0.0, 0.0}, {10.0, 10.0}, {50.0, 50.0}},
+        {{5.0, 5.0}},
+        {{0.0, 0.0}, {10.0, 10.0}}};
+    for (double[][] centres : centreSets) {
+      double ratio = cost(coreset, centres) / cost(testData, centres);
+      assertEquals("Could not keep the cost close, ratio " + ratio, 1.0, ratio, 0.2);
+    }
+  }
+
+  /**
+   * Test the small cluster is sampled, as it is far from the other Positions.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testSmallClusterSampled() throws InterruptedException {
+    testStage.setSampleSize(200);
+    testStage.setSeedClusters(3);
+    boolean sampled = false;
+    for (Position position : testStage.process(testData)) {
+      sampled |= position.getComponents()[0] > 30.0;
+    }
+    assertTrue("Could not sample the small cluster", sampled);
+  }
+
+  /**
+   * Test the same seed gives the same coreset with one and several threads.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testParallelMatchesSingleThread() throws InterruptedException {
+    testStage.setSampleSize(500);
+    testStage.setWorkerThreads(1);
+    Position[] single = testStage.process(testData);
+    testStage.setWorkerThreads(4);
+    Position[] parallel = testStage.process(testData);
+    assertArrayEquals("Could not get the same coreset with several threads", single, parallel);
+    for (int i = 0; i < single.length; i++) {
+      assertEquals("Could not get the same weights with several threads",
+          WeightedPosition.getWeight(single[i]), WeightedPosition.getWeight(parallel[i]), 1e-9);
+    }
+  }
+
+  /**
+   * Test data no larger than the sample size is returned as it is.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testSmallData() throws InterruptedException {
+    Position[] data = new Position[] {new Position("1", new Double[] {1.0})};
+    assertSame("Could not return the small data", data, testStage.process(data));
+  }
+
+  /**
+   * Test to sample a sketch. This should throw an exception.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testSketchData() throws InterruptedException {
+    testStage.process(new Position[] {new SketchPosition("1", new long[] {1, 2}, 21)});
+  }
+
+  /**
+   * Test to set a sample size of 0. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testZeroSampleSize() {
+    testStage.setSampleSize(0);
+  }
+}
@@ -0,0 +1,137 @@
+package testextensibleclustering.testpreprocessing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SketchPosition;
+import extensibleclustering.dependencies.SparsePosition;
+import extensibleclustering.dependencies.WeightedPosition;
+import extensibleclustering.preprocessing.DuplicateCollapsingStage;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for collapsing duplicate Positions with the duplicate collapsing stage.
+ * @author David Cook
+ */
+public class TestDuplicateCollapsingStage {
+
+  private DuplicateCollapsingStage testStage;
+
+  /**
+   * Setup the stage before each test.
+   */
+  @Before
+  public void setUp() {
+    testStage = new DuplicateCollapsingStage();
+  }
+
+  /**
+   * Test exact duplicates are collapsed into the first of them, in the order of the data.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testCollapseDuplicates() throws InterruptedException {
+    Position unique = new Position("2", new Double[] {3.0, 4.0});
+    Position[] result = testStage.process(new Position[] {
+        new Position("1", new Double[] {1.0, 2.0}),
+        unique,
+        new Position("3", new Double[] {1.0, 2.0}),
+        new Position("4", new Double[] {1.0, 2.0})});
+    assertEquals("Could not collapse the duplicates", 2, result.length);
+    assertEquals("Could not count the collapsed Positions", 2, testStage.getCollapsedCount());
+    assertEquals("Could not weight the duplicates", 3.0, WeightedPosition.getWeight(result[0]),
+        0.0);
+    assertArrayEquals("Could not keep the IDs of the duplicates", new String[] {"1", "3", "4"},
+        WeightedPosition.getMemberIDs(result[0]));
+    assertSame("Could not keep the Position without duplicates", unique, result[1]);
+  }
+
+  /**
+   * Test Positions are only collapsed within the tolerance when one is set.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testTolerance() throws InterruptedException {
+    Position[] data = new Position[] {
+        new Position("1", new Double[] {1.0, 2.0}),
+        new Position("2", new Double[] {1.01, 1.99}),
+        new Position("3", new Double[] {1.2, 2.0})};
+    assertEquals("Could not keep near duplicates without a tolerance",
+        3, testStage.process(data).length);
+    testStage.setTolerance(0.1);
+    Position[] result = testStage.process(data);
+    assertEquals("Could not collapse near duplicates", 2, result.length);
+    assertArrayEquals("Could not keep the IDs of the near duplicates", new String[] {"1", "2"},
+        WeightedPosition.getMemberIDs(result[0]));
+  }
+
+  /**
+   * Test sparse and dense Positions with the same components are collapsed,
+   * as are weighted Positions, which add their weights and members.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testSparseAndWeighted() throws InterruptedException {
+    Position[] result = testStage.process(new Position[] {
+        new SparsePosition("1", 3, new int[] {1}, new double[] {5.0}),
+        new Position("2", new Double[] {-0.0, 5.0, 0.0}),
+        new WeightedPosition(new Position("3", new Double[] {0.0, 5.0, 0.0}), 2.0,
+            new String[] {"3", "4"})});
+    assertEquals("Could not collapse sparse, dense and weighted Positions", 1, result.length);
+    assertEquals("Could not add the weights", 4.0, WeightedPosition.getWeight(result[0]), 0.0);
+    assertArrayEquals("Could not add the members", new String[] {"1", "2", "3", "4"},
+        WeightedPosition.getMemberIDs(result[0]));
+    assertTrue("Could not keep the first Position",
+        WeightedPosition.unwrap(result[0]) instanceof SparsePosition);
+  }
+
+  /**
+   * Test a large dataset gives the same result with one and several threads.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testParallelMatchesSingleThread() throws InterruptedException {
+    Random random = new Random(5);
+    Position[] data = new Position[10000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = new Position(String.valueOf(i),
+          new Double[] {(double) random.nextInt(20), (double) random.nextInt(20)});
+    }
+    testStage.setWorkerThreads(1);
+    Position[] single = testStage.process(data);
+    testStage.setWorkerThreads(4);
+    Position[] parallel = testStage.process(data);
+    assertEquals("Could not collapse to the distinct Positions", 400, single.length);
+    assertEquals("Could not get the same result with several threads",
+        single.length, parallel.length);
+    double totalWeight = 0.0;
+    for (int i = 0; i < single.length; i++) {
+      assertArrayEquals("Could not get the same members with several threads",
+          WeightedPosition.getMemberIDs(single[i]), WeightedPosition.getMemberIDs(parallel[i]));
+      totalWeight += WeightedPosition.getWeight(single[i]);
+    }
+    assertEquals("Could not keep the total weight", data.length, totalWeight, 0.0);
+  }
+
+  /**
+   * Test to collapse a sketch. This should throw an exception.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testSketchData() throws InterruptedException {
+    testStage.process(new Position[] {new SketchPosition("1", new long[] {1, 2}, 21)});
+  }
+
+  /**
+   * Test to set a negative tolerance. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testNegativeTolerance() {
+    testStage.setTolerance(-1.0);
+  }
+}
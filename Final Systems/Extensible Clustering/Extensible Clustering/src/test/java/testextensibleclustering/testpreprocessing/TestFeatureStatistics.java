@@ -0,0 +1,86 @@
+package testextensibleclustering.testpreprocessing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.preprocessing.FeatureStatistics;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Test class for finding the mean and variance of features with the feature statistics.
+ * @author David Cook
+ */
+public class TestFeatureStatistics {
+
+  /**
+   * Test to get the mean and sample variance of a feature.
+   */
+  @Test
+  public void testMeanAndVariance() {
+    FeatureStatistics statistics = new FeatureStatistics(1);
+    for (double value : new double[] {2, 4, 4, 4, 5, 5, 7, 9}) {
+      statistics.add(0, value);
+    }
+    assertEquals("Could not count the values", 8, statistics.getCount(0));
+    assertEquals("Could not get the mean", 5.0, statistics.getMean(0), 1e-12);
+    assertEquals("Could not get the sample variance", 32.0 / 7, statistics.getVariance(0),
+        1e-12);
+  }
+
+  /**
+   * Test NaN values are not counted.
+   */
+  @Test
+  public void testMissingValues() {
+    FeatureStatistics statistics = new FeatureStatistics(2);
+    statistics.add(0, 1.0);
+    statistics.add(0, Double.NaN);
+    statistics.add(0, 3.0);
+    assertEquals("Could not skip the missing value", 2, statistics.getCount(0));
+    assertEquals("Could not get the mean without the missing value",
+        2.0, statistics.getMean(0), 0.0);
+    assertTrue("Could not get NaN for the mean of a feature with no values",
+        Double.isNaN(statistics.getMean(1)));
+    assertEquals("Could not get no variance for a feature with no values",
+        0.0, statistics.getVariance(1), 0.0);
+  }
+
+  /**
+   * Test merging statistics of parts of the data gives the same result as one pass.
+   */
+  @Test
+  public void testMerge() {
+    Random random = new Random(5);
+    FeatureStatistics whole = new FeatureStatistics(3);
+    FeatureStatistics merged = new FeatureStatistics(3);
+    for (int part = 0; part < 5; part++) {
+      FeatureStatistics partStatistics = new FeatureStatistics(3);
+      for (int i = 0; i < 100 * part; i++) {
+        for (int feature = 0; feature < 3; feature++) {
+          double value = 1e6 + random.nextGaussian() * (feature + 1);
+          whole.add(feature, value);
+          partStatistics.add(feature, value);
+        }
+      }
+      merged.merge(partStatistics);
+    }
+    for (int feature = 0; feature < 3; feature++) {
+      assertEquals("Could not get the same count", whole.getCount(feature),
+          merged.getCount(feature));
+      assertEquals("Could not get the same mean", whole.getMean(feature),
+          merged.getMean(feature), 1e-6);
+      assertEquals("Could not get the same variance", whole.getVariance(feature),
+          merged.getVariance(feature), 1e-6);
+    }
+  }
+
+  /**
+   * Test to merge statistics with a different number of features.
+   * This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testMergeDifferentFeatures() {
+    new FeatureStatistics(2).merge(new FeatureStatistics(3));
+  }
+}
@@ -0,0 +1,175 @@
+package testextensibleclustering.testpreprocessing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SparsePosition;
+import extensibleclustering.preprocessing.PcaStage;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for reducing the dimensions of data with the PCA stage.
+ * @author David Cook
+ */
+public class TestPcaStage {
+
+  private PcaStage testStage;
+
+  /**
+   * Setup the stage before each test.
+   */
+  @Before
+  public void setUp() {
+    testStage = new PcaStage();
+  }
+
+  /**
+   * Creates Positions that lie on a plane through a higher dimensional space, with a
+   * little noise added.
+   * @param count - The number of Positions to create.
+   * @param dimensions - The number of dimensions of the Positions.
+   * @param noise - The standard deviation of the noise.
+   * @return Position[] - The Positions on the plane.
+   */
+  private Position[] createPlaneData(int count, int dimensions, double noise) {
+    Random random = new Random(17);
+    double[] first = new double[dimensions];
+    double[] second = new double[dimensions];
+    for (int i = 0; i < dimensions; i++) {
+      first[i] = random.nextGaussian();
+      second[i] = random.nextGaussian();
+    }
+    Position[] data = new Position[count];
+    for (int row = 0; row < count; row++) {
+      double a = random.nextGaussian() * 10;
+      double b = random.nextGaussian() * 3;
+      Double[] components = new Double[dimensions];
+      for (int i = 0; i < dimensions; i++) {
+        components[i] = 5.0 + a * first[i] + b * second[i] + random.nextGaussian() * noise;
+      }
+      data[row] = new Position(String.valueOf(row), components);
+    }
+    return data;
+  }
+
+  /**
+   * Test data on a plane is reduced to two components that keep the distances between
+   * the Positions, and nearly all of the variance.
+   * @throws Exception - Thrown if interrupted or the Positions cannot be compared.
+   */
+  @Test
+  public void testReducePlane() throws Exception {
+    Position[] data = createPlaneData(500, 40, 0.0);
+    testStage.setComponents(2);
+    Position[] reduced = testStage.process(data);
+    assertEquals("Could not keep a Position for each Position", data.length, reduced.length);
+    assertEquals("Could not reduce to two dimensions", 2, reduced[0].getDimensions());
+    assertEquals("Could not keep the ID of each Position", "7", reduced[7].getID());
+    for (int i = 0; i < 50; i++) {
+      assertEquals("Could not keep the distance between Positions",
+          data[i].getDistance(data[i + 50]), reduced[i].getDistance(reduced[i + 50]), 1e-6);
+    }
+    double[] explained = testStage.getExplainedVariance();
+    assertEquals("Could not keep all of the variance", 1.0, explained[0] + explained[1], 1e-9);
+    assertTrue("Could not order the components largest first", explained[0] > explained[1]);
+  }
+
+  /**
+   * Test noisy data still keeps most of the variance in the top components.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testReduceNoisyData() throws InterruptedException {
+    testStage.setComponents(2);
+    testStage.process(createPlaneData(2000, 60, 0.1));
+    double[] explained = testStage.getExplainedVariance();
+    assertTrue("Could not keep most of the variance", explained[0] + explained[1] > 0.99);
+  }
+
+  /**
+   * Test the result is the same with one and several threads, and with the same seed.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testRepeatable() throws InterruptedException {
+    Position[] data = createPlaneData(3000, 20, 0.5);
+    testStage.setComponents(3);
+    testStage.setWorkerThreads(1);
+    Position[] single = testStage.process(data);
+    PcaStage parallelStage = new PcaStage();
+    parallelStage.setComponents(3);
+    parallelStage.setWorkerThreads(4);
+    Position[] parallel = parallelStage.process(data);
+    for (int i = 0; i < data.length; i++) {
+      for (int j = 0; j < 3; j++) {
+        assertEquals("Could not get the same result with several threads",
+            single[i].getComponents()[j], parallel[i].getComponents()[j], 1e-6);
+      }
+    }
+  }
+
+  /**
+   * Test that asking for more components than dimensions keeps every dimension,
+   * which keeps the distances exactly.
+   * @throws Exception - Thrown if interrupted or the Positions cannot be compared.
+   */
+  @Test
+  public void testMoreComponentsThanDimensions() throws Exception {
+    Position[] data = new Position[] {
+        new Position("1", new Double[] {1.0, 2.0, 0.0}),
+        new Position("2", new Double[] {4.0, -1.0, 2.0}),
+        new Position("3", new Double[] {0.0, 0.0, 7.0}),
+        new Position("4", new Double[] {3.0, 3.0, 3.0})
+    };
+    Position[] reduced = testStage.process(data);
+    assertEquals("Could not keep all three dimensions", 3, reduced[0].getDimensions());
+    for (int i = 0; i < data.length; i++) {
+      for (int j = i + 1; j < data.length; j++) {
+        assertEquals("Could not keep the distance between Positions",
+            data[i].getDistance(data[j]), reduced[i].getDistance(reduced[j]), 1e-9);
+      }
+    }
+  }
+
+  /**
+   * Test that empty data is returned unchanged.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testEmptyData() throws InterruptedException {
+    assertArrayEquals("Could not return the empty data", new Position[0],
+        testStage.process(new Position[0]));
+  }
+
+  /**
+   * Test to reduce data with missing values. This should throw an exception.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testMissingValues() throws InterruptedException {
+    testStage.process(new Position[] {new Position("1", new Double[] {1.0, Double.NaN}),
+        new Position("2", new Double[] {1.0, 2.0})});
+  }
+
+  /**
+   * Test to reduce sparse data. This should throw an exception.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testSparseData() throws InterruptedException {
+    testStage.process(new Position[] {
+        new SparsePosition("1", 3, new int[] {1}, new double[] {2.0})});
+  }
+
+  /**
+   * Test to keep no components. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testNoComponents() {
+    testStage.setComponents(0);
+  }
+}
@@ -0,0 +1,161 @@
+package testextensibleclustering.testpreprocessing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import extensibleclustering.dependencies.SketchPosition;
+import extensibleclustering.dependencies.SparsePosition;
+import extensibleclustering.preprocessing.RandomProjectionStage;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for reducing the dimensions of data with the random projection stage.
+ * @author David Cook
+ */
+public class TestRandomProjectionStage {
+
+  private RandomProjectionStage testStage;
+
+  /**
+   * Setup the stage before each test.
+   */
+  @Before
+  public void setUp() {
+    testStage = new RandomProjectionStage();
+  }
+
+  /**
+   * Creates random sparse Positions, with about a tenth of the components non-zero.
+   * @param count - The number of Positions to create.
+   * @param dimensions - The number of dimensions of each Position.
+   * @return SparsePosition[] - The random Positions.
+   */
+  private SparsePosition[] createSparseData(int count, int dimensions) {
+    Random random = new Random(23);
+    SparsePosition[] data = new SparsePosition[count];
+    for (int row = 0; row < count; row++) {
+      int[] indices = random.ints(0, dimensions).limit(dimensions / 10).distinct().sorted()
+          .toArray();
+      double[] values = new double[indices.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = 1 + random.nextInt(5);
+      }
+      data[row] = new SparsePosition(String.valueOf(row), dimensions, indices, values);
+    }
+    return data;
+  }
+
+  /**
+   * Test the distance between every pair of Positions stays within the error bound,
+   * when projected into the minimum number of dimensions for the bound.
+   * @throws Exception - Thrown if interrupted or the Positions cannot be compared.
+   */
+  @Test
+  public void testDistancesWithinBound() throws Exception {
+    Position[] data = createSparseData(100, 20000);
+    double error = 0.5;
+    testStage.setDimensions(RandomProjectionStage.getMinimumDimensions(data.length, error));
+    Position[] projected = testStage.process(data);
+    assertEquals("Could not project into the chosen dimensions",
+        RandomProjectionStage.getMinimumDimensions(data.length, error),
+        projected[0].getDimensions());
+    for (int i = 0; i < data.length; i++) {
+      for (int j = i + 1; j < data.length; j++) {
+        double ratio = projected[i].getDistance(projected[j]) / data[i].getDistance(data[j]);
+        assertTrue("Could not keep the distance within the error bound, ratio " + ratio,
+            ratio > 1 - error && ratio < 1 + error);
+      }
+    }
+  }
+
+  /**
+   * Test sparse and dense Positions with the same components are projected the same.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testSparseMatchesDense() throws InterruptedException {
+    Position[] sparse = createSparseData(10, 500);
+    Position[] dense = new Position[sparse.length];
+    for (int i = 0; i < sparse.length; i++) {
+      dense[i] = new Position(sparse[i].getID(), sparse[i].getComponents());
+    }
+    testStage.setDimensions(32);
+    assertArrayEquals("Could not project sparse and dense Positions the same",
+        testStage.process(dense), testStage.process(sparse));
+  }
+
+  /**
+   * Test projecting a source as it is read gives the same result as projecting an array,
+   * and keeps the size of the source.
+   * @throws Exception - Thrown if interrupted or the source cannot be closed.
+   */
+  @Test
+  public void testProcessSource() throws Exception {
+    Position[] data = createSparseData(50, 1000);
+    testStage.setDimensions(20);
+    try (PositionSource source = testStage.processSource(PositionSource.of(data))) {
+      assertArrayEquals("Could not project the source the same as the array",
+          testStage.process(data), source.toArray());
+    }
+    try (PositionSource source = testStage.processSource(PositionSource.of(data))) {
+      assertEquals("Could not keep the size of the source",
+          data.length, source.spliterator().getExactSizeIfKnown());
+    }
+  }
+
+  /**
+   * Test the projection is the same with one and several threads.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testParallelMatchesSingleThread() throws InterruptedException {
+    Position[] data = createSparseData(3000, 300);
+    testStage.setWorkerThreads(1);
+    Position[] single = testStage.process(data);
+    testStage.setWorkerThreads(4);
+    assertArrayEquals("Could not get the same result with several threads",
+        single, testStage.process(data));
+  }
+
+  /**
+   * Test the minimum dimensions for the error bound.
+   */
+  @Test
+  public void testGetMinimumDimensions() {
+    //4 ln(100) / (0.125 - 0.125 / 3) = 221.04.
+    assertEquals("Could not get the minimum dimensions", 222,
+        RandomProjectionStage.getMinimumDimensions(100, 0.5));
+  }
+
+  /**
+   * Test to get the minimum dimensions for an error above 1. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidError() {
+    RandomProjectionStage.getMinimumDimensions(100, 1.5);
+  }
+
+  /**
+   * Test to project Positions with different dimensions. This should throw an exception.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testDifferentDimensions() throws InterruptedException {
+    testStage.process(new Position[] {new Position("1", new Double[] {1.0}),
+        new Position("2", new Double[] {1.0, 2.0})});
+  }
+
+  /**
+   * Test to project a sketch. This should throw an exception.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testSketchData() throws InterruptedException {
+    testStage.process(new Position[] {new SketchPosition("1", new long[] {1, 2}, 21)});
+  }
+}
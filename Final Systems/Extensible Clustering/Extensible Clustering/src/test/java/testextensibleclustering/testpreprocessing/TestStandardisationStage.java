@@ -0,0 +1,202 @@
+package testextensibleclustering.testpreprocessing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import extensibleclustering.dependencies.SparsePosition;
+import extensibleclustering.preprocessing.StandardisationStage;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for log transforming, centring and scaling data with the standardisation stage.
+ * @author David Cook
+ */
+public class TestStandardisationStage {
+
+  private StandardisationStage testStage;
+  private Position[] testData;
+
+  /**
+   * Setup the stage and data before each test.
+   */
+  @Before
+  public void setUp() {
+    testStage = new StandardisationStage();
+    testData = new Position[] {
+        new Position("1", new Double[] {1.0, 7.0}),
+        new Position("2", new Double[] {3.0, 7.0}),
+        new Position("3", new Double[] {5.0, 7.0})
+    };
+  }
+
+  /**
+   * Test the data is unchanged when nothing is enabled.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testNothingEnabled() throws InterruptedException {
+    Position[] result = testStage.process(testData);
+    assertSame("Could not return the same data", testData, result);
+    assertArrayEquals("Could not leave the data unchanged",
+        new Double[] {1.0, 7.0}, result[0].getComponents());
+  }
+
+  /**
+   * Test the log transform with the default pseudocount of 1.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testLogTransform() throws InterruptedException {
+    testStage.setLogTransform(true);
+    testStage.process(testData);
+    assertArrayEquals("Could not log transform the data in place",
+        new Double[] {1.0, 3.0}, testData[0].getComponents());
+    assertArrayEquals("Could not log transform the data in place",
+        new Double[] {2.0, 3.0}, testData[1].getComponents());
+  }
+
+  /**
+   * Test centring and scaling, where a feature with no variance is only centred.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testCentreAndScale() throws InterruptedException {
+    testStage.setCentre(true);
+    testStage.setScale(true);
+    testStage.process(testData);
+    //The first feature has a mean of 3 and a standard deviation of 2.
+    assertArrayEquals("Could not standardise the first position",
+        new Double[] {-1.0, 0.0}, testData[0].getComponents());
+    assertArrayEquals("Could not standardise the second position",
+        new Double[] {0.0, 0.0}, testData[1].getComponents());
+    assertArrayEquals("Could not standardise the third position",
+        new Double[] {1.0, 0.0}, testData[2].getComponents());
+  }
+
+  /**
+   * Test a source is read fully and standardised, as the stage needs all of the data.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   * @throws IOException - Thrown if the source cannot be closed.
+   */
+  @Test
+  public void testProcessSource() throws InterruptedException, IOException {
+    testStage.setCentre(true);
+    try (PositionSource source = testStage.processSource(PositionSource.of(testData))) {
+      assertArrayEquals("Could not centre the data from the source", new Position[] {
+          new Position("1", new Double[] {-2.0, 0.0}),
+          new Position("2", new Double[] {0.0, 0.0}),
+          new Position("3", new Double[] {2.0, 0.0})}, source.toArray());
+    }
+  }
+
+  /**
+   * Test missing values stay missing and are not used for the statistics.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testMissingValues() throws InterruptedException {
+    Position[] data = new Position[] {
+        new Position("1", new Double[] {2.0}),
+        new Position("2", new Double[] {Double.NaN}),
+        new Position("3", new Double[] {4.0})
+    };
+    testStage.setCentre(true);
+    testStage.process(data);
+    assertEquals("Could not centre without the missing value",
+        -1.0, data[0].getComponents()[0], 0.0);
+    assertTrue("Could not leave the missing value", data[1].getComponents()[0].isNaN());
+  }
+
+  /**
+   * Test a large dataset gives the same result with one and several threads,
+   * with each feature having a mean of 0 and variance of 1 afterwards.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test
+  public void testParallelMatchesSingleThread() throws InterruptedException {
+    Random random = new Random(11);
+    Position[] single = new Position[20000];
+    Position[] parallel = new Position[single.length];
+    for (int i = 0; i < single.length; i++) {
+      Double[] components = new Double[4];
+      for (int j = 0; j < components.length; j++) {
+        components[j] = Math.abs(random.nextGaussian() * 100 * (j + 1));
+      }
+      single[i] = new Position(String.valueOf(i), components);
+      parallel[i] = new Position(String.valueOf(i), components);
+    }
+    testStage.setLogTransform(true);
+    testStage.setCentre(true);
+    testStage.setScale(true);
+    testStage.setWorkerThreads(1);
+    testStage.process(single);
+    StandardisationStage parallelStage = new StandardisationStage();
+    parallelStage.setLogTransform(true);
+    parallelStage.setCentre(true);
+    parallelStage.setScale(true);
+    parallelStage.setWorkerThreads(4);
+    parallelStage.process(parallel);
+
+    double[] sums = new double[4];
+    double[] squares = new double[4];
+    for (int i = 0; i < single.length; i++) {
+      for (int j = 0; j < 4; j++) {
+        double value = single[i].getComponents()[j];
+        assertEquals("Could not get the same result with several threads",
+            value, parallel[i].getComponents()[j], 1e-9);
+        sums[j] += value;
+        squares[j] += value * value;
+      }
+    }
+    for (int j = 0; j < 4; j++) {
+      assertEquals("Could not centre the feature", 0.0, sums[j] / single.length, 1e-9);
+      assertEquals("Could not scale the feature", 1.0, squares[j] / (single.length - 1), 1e-9);
+    }
+  }
+
+  /**
+   * Test to log transform a value below minus the pseudocount. This should throw an exception.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testLogTransformNegative() throws InterruptedException {
+    testStage.setLogTransform(true);
+    testStage.process(new Position[] {new Position("1", new Double[] {-2.0})});
+  }
+
+  /**
+   * Test to preprocess sparse Positions. This should throw an exception.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testSparseData() throws InterruptedException {
+    testStage.setCentre(true);
+    testStage.process(new Position[] {
+        new SparsePosition("1", 3, new int[] {1}, new double[] {2.0})});
+  }
+
+  /**
+   * Test to preprocess Positions with different dimensions. This should throw an exception.
+   * @throws InterruptedException - Thrown if interrupted while preprocessing.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testDifferentDimensions() throws InterruptedException {
+    testStage.process(new Position[] {new Position("1", new Double[] {1.0}),
+        new Position("2", new Double[] {1.0, 2.0})});
+  }
+
+  /**
+   * Test to set a negative pseudocount. This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testNegativePseudocount() {
+    testStage.setPseudocount(-1.0);
+  }
+}
@@ -0,0 +1,388 @@
+package fastaparser;
+
+import extensibleclustering.dependencies.KmerCounter;
+import extensibleclustering.dependencies.MinHashSketcher;
+import extensibleclustering.dependencies.Parameter;
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Position;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Implements a parser that converts (multi-)FASTA files with a character set of 'acgt'
+ * to instances of the Position class that can be used to cluster the data.
+ * Each Position contains the frequency of each k-mer in a record, counted using the
+ * KmerCounter, and has the ID of the first word of the record's header. Alternatively the
+ * parser can produce a MinHash sketch of each record, see setSketching. A character in a
+ * record that is not a base, e.g. the ambiguous base N, breaks it, so the k-mers spanning
+ * it are skipped.
+ * The file is memory mapped and split into chunks that are parsed in parallel. Each chunk
+ * owns the records whose '>' falls inside it, so the records are returned in file order.
+ * @author David Cook
+ */
+public class FastaParser implements Parser {
+
+  /**
+   * The smallest chunk of the file given to a worker, so small files are not split.
+   */
+  private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+  /**
+   * The largest chunk of the file given to a worker. This is half of the largest region
+   * that can be mapped, so the last record of a chunk can run well past the end of it.
+   */
+  private static final long MAX_CHUNK_SIZE = 1 << 30;
+
+  /**
+   * The size of the block copied out of the mapped file at a time.
+   */
+  private static final int BLOCK_SIZE = 1 << 16;
+
+  /**
+   * The k-mers that can be counted, as the options of the overlap parameter.
+   */
+  private static final String READING_FRAME = "Reading frame";
+  private static final String OVERLAPPING = "Overlapping";
+
+  /**
+   * The parameters the parser can be given, matching the constructor and setters of the 
+   * same settings. The defaults are those of a parser created without any arguments.
+   */
+  private static final List<Parameter> PARAMETERS = Collections.unmodifiableList(Arrays.asList(
+      Parameter.ofInt("kmerLength", "The length of the k-mers to count in each record",
+          3, 1, KmerCounter.MAX_K),
+      Parameter.ofEnum("overlap", "Whether to count every overlapping k-mer, or only the "
+          + "k-mers in the reading frame starting at the first base", READING_FRAME,
+          READING_FRAME, OVERLAPPING),
+      Parameter.ofInt("sketchSize", "The number of hashes in the MinHash sketch of each "
+          + "record, or 0 to count the k-mer frequencies instead", 0, 0, Integer.MAX_VALUE),
+      Parameter.ofInt("sketchKmerLength", "The length of the k-mers to hash when sketching",
+          21, 1, MinHashSketcher.MAX_K),
+      Parameter.ofInt("threads", "The number of worker threads, or 0 to use one for each "
+          + "processor", 0, 0, 4096)));
+
+  private final int kmerLength;
+  private final boolean overlapping;
+  private int workerThreads = Runtime.getRuntime().availableProcessors();
+  private int sketchKmerLength = 21;
+  private int sketchSize = 0;
+
+  /**
+   * Creates a parser that counts the codon triplets in each record, i.e. the
+   * non-overlapping k-mers of length 3 in the reading frame starting at the first base.
+   */
+  public FastaParser() {
+    this(3, false);
+  }
+
+  /**
+   * Creates a parser that counts the k-mers of the given length in each record.
+   * Each parsed Position will have 4^k dimensions, in alphabetical order of the k-mers.
+   * @param kmerLength - The length of the k-mers to count, between 1 and KmerCounter.MAX_K.
+   * @param overlapping - True to count every overlapping k-mer, false to only count the
+   *     k-mers in the reading frame starting at the first base, e.g. codons when k is 3.
+   */
+  public FastaParser(int kmerLength, boolean overlapping) {
+    if (kmerLength < 1 || kmerLength > KmerCounter.MAX_K) {
+      throw new IllegalArgumentException("The k-mer length must be between 1 and "
+          + KmerCounter.MAX_K);
+    }
+    this.kmerLength = kmerLength;
+    this.overlapping = overlapping;
+  }
+
+  /**
+   * Sets the number of worker threads used to parse the chunks of the file.
+   * @param workerThreads - The number of worker threads to use, must be at least 1.
+   */
+  public void setWorkerThreads(int workerThreads) {
+    if (workerThreads < 1) {
+      throw new IllegalArgumentException("At least one worker thread is required");
+    }
+    this.workerThreads = workerThreads;
+  }
+
+  /**
+   * Sets the parser to produce a MinHash sketch of each record instead of its k-mer
+   * frequencies. Each record becomes a SketchPosition holding the smallest hashes of its
+   * canonical k-mers, whose distance is the Mash distance between the sequences.
+   * @param sketchKmerLength - The length of the k-mers to hash, e.g. 21, up to
+   *     MinHashSketcher.MAX_K.
+   * @param sketchSize - The number of hashes in each sketch, e.g. 1000, or 0 to count the
+   *     k-mer frequencies again.
+   */
+  public void setSketching(int sketchKmerLength, int sketchSize) {
+    if (sketchSize < 0) {
+      throw new IllegalArgumentException("The sketch size cannot be negative");
+    }
+    if (sketchKmerLength < 1 || sketchKmerLength > MinHashSketcher.MAX_K) {
+      throw new IllegalArgumentException("The k-mer length must be between 1 and "
+          + MinHashSketcher.MAX_K);
+    }
+    this.sketchKmerLength = sketchKmerLength;
+    this.sketchSize = sketchSize;
+  }
+
+  /**
+   * Parses a file with values for the k-mers, sketching and worker threads. A new parser 
+   * is created with these settings, so the settings of this parser are left unchanged.
+   * @param file - The file to parse the data from.
+   * @param parameters - The values of the parameters, see getParameters.
+   * @return Position[] - The Positions parsed from the file.
+   * @throws FileNotFoundException - Thrown if the file given cannot be located.
+   * @throws IOException - Thrown if there is an error when parsing data from the file.
+   */
+  @Override
+  public Position[] parseFile(File file, Map<String, Object> parameters) 
+      throws FileNotFoundException, IOException {
+    Map<String, Object> values = Parameter.resolve(PARAMETERS, parameters);
+    FastaParser configured = new FastaParser((Integer) values.get("kmerLength"),
+        OVERLAPPING.equals(values.get("overlap")));
+    configured.setSketching((Integer) values.get("sketchKmerLength"),
+        (Integer) values.get("sketchSize"));
+    int threads = (Integer) values.get("threads");
+    configured.setWorkerThreads(
+        threads == 0 ? Runtime.getRuntime().availableProcessors() : threads);
+    return configured.parseFile(file);
+  }
+
+  @Override
+  public Position[] parseFile(File file) throws FileNotFoundException, IOException {
+    //Check that the file is not null before using it.
+    if (file == null) {
+      throw new IllegalArgumentException("File provided was null");
+    }
+
+    //Get and check the file extension.
+    String extension = "";
+    String fileName = file.getName();
+    int lastDot = fileName.lastIndexOf('.');
+    if (lastDot != -1) {
+      extension = fileName.substring(lastDot + 1);
+    }
+
+    if (!extension.equals("fa") && !extension.equals("fasta") && !extension.equals("fna")) {
+      throw new IllegalArgumentException("File type is not supported");
+    }
+
+    if (!file.exists()) {
+      throw new FileNotFoundException();
+    }
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      checkFirstRecord(channel, size);
+
+      //Split the file into roughly equal chunks, with a few per thread so a chunk
+      //containing a long record does not hold up the others.
+      long chunkCount = Math.max(Math.min(workerThreads * 4L, size / MIN_CHUNK_SIZE),
+          (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+      long chunkSize = Math.max(1, (size + chunkCount - 1) / Math.max(1, chunkCount));
+
+      ExecutorService workers = Executors.newFixedThreadPool(workerThreads);
+      try {
+        List<Future<List<Position>>> chunks = new ArrayList<>();
+        for (long start = 0; start < size; start += chunkSize) {
+          long chunkStart = start;
+          long chunkEnd = Math.min(size, start + chunkSize);
+          chunks.add(workers.submit(() -> parseChunk(channel, size, chunkStart, chunkEnd)));
+        }
+
+        //Join the chunks in order, so the records are in the order of the file.
+        List<Position> positions = new ArrayList<>();
+        for (Future<List<Position>> chunk : chunks) {
+          positions.addAll(chunk.get());
+        }
+        return positions.toArray(new Position[positions.size()]);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while parsing the file");
+      } catch (ExecutionException ex) {
+        //Throw the exception from the worker so the caller sees the original error.
+        if (ex.getCause() instanceof IOException) {
+          throw (IOException) ex.getCause();
+        } else if (ex.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) ex.getCause();
+        }
+        throw new IOException(ex.getCause());
+      } finally {
+        workers.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Checks that the file starts with a FASTA header, ignoring any leading whitespace.
+   * @param channel - The channel of the file being parsed.
+   * @param size - The size of the file.
+   * @throws IOException - Thrown if an error occurs reading the file.
+   */
+  private void checkFirstRecord(FileChannel channel, long size) throws IOException {
+    MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, Math.min(size, BLOCK_SIZE));
+    while (buffer.hasRemaining()) {
+      byte current = buffer.get();
+      if (current == '>') {
+        return;
+      } else if (!Character.isWhitespace(current)) {
+        throw new IllegalArgumentException("The file given is not in the FASTA format");
+      }
+    }
+  }
+
+  /**
+   * Parses the records whose header starts inside the given chunk of the file.
+   * The last record in the chunk is read to its end, even if that is past the chunk.
+   * @param channel - The channel of the file being parsed.
+   * @param size - The size of the file.
+   * @param chunkStart - The position of the first byte of the chunk.
+   * @param chunkEnd - The position after the last byte of the chunk.
+   * @return - The Positions of the records owned by the chunk, in file order.
+   * @throws IOException - Thrown if an error occurs reading the file, or a record is too large.
+   */
+  private List<Position> parseChunk(FileChannel channel, long size, long chunkStart,
+      long chunkEnd) throws IOException {
+    //Map from the byte before the chunk so we know if the chunk starts on a new line.
+    //The mapping is lazily paged in, so mapping past the chunk only costs address space.
+    long mapStart = Math.max(0, chunkStart - 1);
+    long mapLength = Math.min(size - mapStart, Integer.MAX_VALUE);
+    MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, mapStart, mapLength);
+
+    List<Position> positions = new ArrayList<>();
+    KmerCounter counter = sketchSize > 0 ? null : new KmerCounter(kmerLength, overlapping);
+    MinHashSketcher sketcher = sketchSize > 0
+        ? new MinHashSketcher(sketchKmerLength, sketchSize) : null;
+    byte[] block = new byte[BLOCK_SIZE];
+    StringBuilder id = null;
+    boolean inHeader = false;
+    boolean readingId = false;
+    boolean lineStart = chunkStart == 0;
+    if (chunkStart > 0) {
+      lineStart = buffer.get() == '\n';
+    }
+
+    long blockPosition = mapStart + buffer.position();
+    while (buffer.hasRemaining()) {
+      int blockLength = Math.min(block.length, buffer.remaining());
+      buffer.get(block, 0, blockLength);
+
+      int i = 0;
+      while (i < blockLength) {
+        //A chunk inside a record that started in an earlier chunk owns no records.
+        if (id == null && blockPosition + i >= chunkEnd) {
+          return positions;
+        }
+        if (lineStart && block[i] == '>') {
+          //A header at or after the end of the chunk belongs to the next chunk.
+          if (blockPosition + i >= chunkEnd) {
+            addRecord(positions, id, counter, sketcher);
+            return positions;
+          }
+          addRecord(positions, id, counter, sketcher);
+          id = new StringBuilder();
+          inHeader = true;
+          readingId = true;
+          i++;
+        }
+
+        //Find the end of the current line within this block.
+        int lineEnd = i;
+        while (lineEnd < blockLength && block[lineEnd] != '\n') {
+          lineEnd++;
+        }
+
+        if (inHeader) {
+          //The ID is the first word of the header, the rest is the description.
+          for (int j = i; j < lineEnd && readingId; j++) {
+            if (Character.isWhitespace(block[j])) {
+              readingId = false;
+            } else {
+              id.append((char) (block[j] & 0xff));
+            }
+          }
+        } else if (id != null) {
+          //Bytes before the first header of the chunk belong to the previous chunk.
+          if (sketcher != null) {
+            sketcher.add(block, i, lineEnd - i);
+          } else {
+            counter.add(block, i, lineEnd - i);
+          }
+        }
+
+        if (lineEnd < blockLength) {
+          inHeader = false;
+        }
+        lineStart = lineEnd < blockLength;
+        i = lineEnd + 1;
+      }
+      blockPosition += blockLength;
+    }
+
+    //A record that runs past the mapped region is too large to be mapped in one go.
+    if (mapStart + mapLength < size && id != null) {
+      throw new IOException("A record in the file is too large to be parsed");
+    }
+    addRecord(positions, id, counter, sketcher);
+    return positions;
+  }
+
+  /**
+   * Adds the record that has just been read as a Position, then resets the counter or sketcher.
+   * @param positions - The list to add the Position to.
+   * @param id - The ID of the record, or null if no record has been read.
+   * @param counter - The counter containing the k-mers of the record, null if sketching.
+   * @param sketcher - The sketcher containing the sketch of the record, null if counting.
+   */
+  private void addRecord(List<Position> positions, StringBuilder id, KmerCounter counter,
+      MinHashSketcher sketcher) {
+    if (id == null) {
+      return;
+    }
+    if (sketcher != null) {
+      positions.add(sketcher.toPosition(id.toString()));
+      sketcher.reset();
+    } else {
+      positions.add(new Position(id.toString(), counter.getFrequencies()));
+      counter.reset();
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "FASTA DNA Sequence";
+  }
+
+  @Override
+  public String getDescription() {
+    return "Parses FASTA files containing one or more DNA Sequences";
+  }
+
+  @Override
+  public ArrayList<String> getSupportedFileExtensions() {
+    return new ArrayList<String>(Arrays.asList(
+        "FASTA Files (*.fa, *.fasta, *.fna)",
+        "*.fa",
+        "*.fasta",
+        "*.fna"
+        ));
+  }
+
+  @Override
+  public List<Parameter> getParameters() {
+    return PARAMETERS;
+  }
+}
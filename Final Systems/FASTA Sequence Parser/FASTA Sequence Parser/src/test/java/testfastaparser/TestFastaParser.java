@@ -0,0 +1,408 @@
+package testfastaparser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.KmerCounter;
+import extensibleclustering.dependencies.MinHashSketcher;
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SketchPosition;
+import fastaparser.FastaParser;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test class for testing and development of the FASTA Parser.
+ * @author David Cook
+ */
+public class TestFastaParser {
+
+  private static Path rootTestResources;
+  private static Path testSample;
+  private static Path testWindowsLineEndings;
+  private static Path testInvalidChars;
+  private static Path testNotFasta;
+  private static Path testEmptyPdf;
+  private static Path testLargeSample;
+  private static List<String> largeSampleIds;
+  private static List<String> largeSampleSequences;
+  private FastaParser testParser;
+
+  /**
+   * Generates a FASTA file large enough to be split into several chunks before
+   * all tests are run.
+   * @throws Exception - May be thrown writing the generated file.
+   */
+  @BeforeClass
+  public static void initialSetup() throws Exception {
+    rootTestResources = Paths.get("src" + File.separator + "test" + File.separator
+        + "resources");
+    testSample = Paths.get(rootTestResources.toString() + File.separator + "Sample.fasta");
+    testWindowsLineEndings = Paths.get(rootTestResources.toString() + File.separator
+        + "WindowsLineEndings.fa");
+    testInvalidChars = Paths.get(rootTestResources.toString() + File.separator
+        + "InvalidChars.fna");
+    testNotFasta = Paths.get(rootTestResources.toString() + File.separator + "NotFasta.fasta");
+    testEmptyPdf = Paths.get(rootTestResources.toString() + File.separator + "empty-pdf.pdf");
+    testLargeSample = Paths.get(rootTestResources.toString() + File.separator
+        + "LargeSample.fasta");
+
+    //Write around 4MB of records with random lengths, so the records cross the chunks.
+    largeSampleIds = new ArrayList<>();
+    largeSampleSequences = new ArrayList<>();
+    Random random = new Random(42);
+    char[] bases = {'a', 'c', 'g', 't'};
+    try (BufferedWriter writer = Files.newBufferedWriter(testLargeSample)) {
+      for (int i = 0; i < 2000; i++) {
+        StringBuilder sequence = new StringBuilder();
+        int length = 1 + random.nextInt(4000);
+        for (int j = 0; j < length; j++) {
+          sequence.append(bases[random.nextInt(4)]);
+        }
+        String id = "CONTIG" + i;
+        largeSampleIds.add(id);
+        largeSampleSequences.add(sequence.toString());
+        writer.write(">" + id + " generated contig\n");
+        for (int j = 0; j < length; j += 60) {
+          writer.write(sequence.substring(j, Math.min(length, j + 60)));
+          writer.write('\n');
+        }
+      }
+    }
+    assertTrue("Could not generate the large FASTA test file",
+        testLargeSample.toFile().length() > 2 * (1 << 20));
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    testParser = new FastaParser();
+  }
+
+  /**
+   * Delete the generated test file after the tests have been completed.
+   * @throws Exception - Thrown if the file cannot be deleted.
+   */
+  @AfterClass
+  public static void finalTearDown() throws Exception {
+    Files.deleteIfExists(testLargeSample);
+  }
+
+  /**
+   * Test to try and get an instance of the FASTA Parser.
+   * This should implement the Parser Interface from the extensible clustering dependencies.
+   */
+  @Test
+  public void testImplementsParserInterface() {
+    assertTrue("The FASTA Parser does not implement the Parser interface",
+        testParser instanceof Parser);
+  }
+
+  /**
+   * Test to try and get the name of the parser.
+   */
+  @Test
+  public void testGetParserName() {
+    assertEquals("Could not get the expected name of the parser",
+        "FASTA DNA Sequence", testParser.getName());
+  }
+
+  /**
+   * Test to try and get the description of the parser.
+   */
+  @Test
+  public void testGetParserDescription() {
+    assertEquals("Could not get the expected description of the parser",
+        "Parses FASTA files containing one or more DNA Sequences", testParser.getDescription());
+  }
+
+  /**
+   * Test to try and get the supported files of the parser.
+   * The first index is the description, followed by each of the file types.
+   */
+  @Test
+  public void testGetExpectedSupportedFiles() {
+    ArrayList<String> result = testParser.getSupportedFileExtensions();
+    assertEquals("Could not get the expected number of supported file entries",
+        4, result.size());
+    assertEquals("Could not get the expected file description",
+        "FASTA Files (*.fa, *.fasta, *.fna)", result.get(0));
+    assertEquals("Could not get the expected .fa file type", "*.fa", result.get(1));
+    assertEquals("Could not get the expected .fasta file type", "*.fasta", result.get(2));
+    assertEquals("Could not get the expected .fna file type", "*.fna", result.get(3));
+  }
+
+  /**
+   * Test to try and parse a multi-FASTA file with sequences split over several lines.
+   * This should return three Positions in file order, with the IDs being the first
+   * word of each header. The first record 'acgacgacgt' has three 'acg' codons.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseSample() throws FileNotFoundException, IOException {
+    Position[] result = testParser.parseFile(testSample.toFile());
+    assertEquals("Could not get the expected number of records", 3, result.length);
+    assertEquals("Could not get the expected first ID", "SEQ0001", result[0].getID());
+    assertEquals("Could not get the expected second ID", "SEQ0002", result[1].getID());
+    assertEquals("Could not get the expected third ID", "SEQ0003", result[2].getID());
+    for (Position pos : result) {
+      assertEquals("Could not get expected dimensions for Position in parsed FASTA file",
+          64, pos.getComponents().length);
+    }
+    assertEquals("Could not get the expected frequency of 'acg'",
+        1.0, result[0].getComponents()[6], 0.0);
+  }
+
+  /**
+   * Test to try and parse a file with upper case bases, which should be counted the same
+   * as lower case bases. The second record has 20 bases and so 6 codons,
+   * two of which are 'acg'.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseUpperCase() throws FileNotFoundException, IOException {
+    Position[] result = testParser.parseFile(testSample.toFile());
+    assertEquals("Could not get the expected frequency of 'acg' in upper case record",
+        2.0 / 6.0, result[1].getComponents()[6], 1e-9);
+  }
+
+  /**
+   * Test to try and parse a file with windows line endings.
+   * The carriage returns should not be part of the IDs or the sequences.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseWindowsLineEndings() throws FileNotFoundException, IOException {
+    Position[] result = testParser.parseFile(testWindowsLineEndings.toFile());
+    assertEquals("Could not get the expected number of records", 2, result.length);
+    assertEquals("Could not get the expected ID", "SEQ0002", result[1].getID());
+    assertEquals("Could not get the expected frequency of 'acg'",
+        1.0, result[0].getComponents()[6], 0.0);
+  }
+
+  /**
+   * Test to try and parse a large file that is split into several chunks.
+   * The records should be in file order with the same frequencies as counting
+   * each sequence directly, regardless of which chunk they were parsed in.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseLargeFileInChunks() throws FileNotFoundException, IOException {
+    FastaParser parser = new FastaParser(4, true);
+    parser.setWorkerThreads(4);
+    Position[] result = parser.parseFile(testLargeSample.toFile());
+    assertEquals("Could not get the expected number of records",
+        largeSampleIds.size(), result.length);
+    KmerCounter counter = new KmerCounter(4, true);
+    for (int i = 0; i < result.length; i++) {
+      assertEquals("Could not get the records in file order",
+          largeSampleIds.get(i), result[i].getID());
+      counter.reset();
+      counter.add(largeSampleSequences.get(i));
+      assertArrayEquals("Could not get the expected frequencies for " + result[i].getID(),
+          counter.getFrequencies(), result[i].getComponents());
+    }
+  }
+
+  /**
+   * Test to try and parse a file with one record larger than several chunks.
+   * The chunks inside the record should not own any records, so the record is only
+   * parsed once, by the chunk containing its header.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseRecordLargerThanChunks() throws FileNotFoundException, IOException {
+    Path longRecord = Paths.get(rootTestResources.toString() + File.separator
+        + "LongRecord.fasta");
+    Random random = new Random(7);
+    char[] bases = {'a', 'c', 'g', 't'};
+    StringBuilder sequence = new StringBuilder();
+    try (BufferedWriter writer = Files.newBufferedWriter(longRecord)) {
+      writer.write(">FIRST\nacgt\n>LONG one record over several chunks\n");
+      for (int i = 0; i < 5 * (1 << 20); i += 60) {
+        char[] line = new char[60];
+        for (int j = 0; j < line.length; j++) {
+          line[j] = bases[random.nextInt(4)];
+        }
+        sequence.append(line);
+        writer.write(line);
+        writer.write('\n');
+      }
+      writer.write(">LAST\ntttt\n");
+    }
+
+    try {
+      FastaParser parser = new FastaParser(4, true);
+      parser.setWorkerThreads(4);
+      Position[] result = parser.parseFile(longRecord.toFile());
+      assertEquals("Could not get the expected number of records", 3, result.length);
+      assertEquals("Could not get the records in file order", "LONG", result[1].getID());
+      assertEquals("Could not get the last record", "LAST", result[2].getID());
+      KmerCounter counter = new KmerCounter(4, true);
+      counter.add(sequence.toString());
+      assertArrayEquals("Could not get the expected frequencies of the long record",
+          counter.getFrequencies(), result[1].getComponents());
+    } finally {
+      Files.deleteIfExists(longRecord);
+    }
+  }
+
+  /**
+   * Test to try and parse a null file. This should throw an Illegal Argument Exception.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseNullFile() throws FileNotFoundException, IOException {
+    testParser.parseFile(null);
+  }
+
+  /**
+   * Test to try and parse a file that does not exist.
+   * This should throw a file not found exception.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test (expected = FileNotFoundException.class)
+  public void testParseMissingFile() throws FileNotFoundException, IOException {
+    testParser.parseFile(new File(rootTestResources.toString() + File.separator
+        + "Missing.fasta"));
+  }
+
+  /**
+   * Test to try and parse an unsupported file type.
+   * This should throw an illegal args exception.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseUnsupportedFileType() throws FileNotFoundException, IOException {
+    testParser.parseFile(testEmptyPdf.toFile());
+  }
+
+  /**
+   * Test to try and parse a file with chars that are not bases.
+   * The record 'acgnnacg' has one codon without an 'n', 'acg', as the codon containing 
+   * them is skipped and 'cg' is not a full codon.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseIllegalChars() throws FileNotFoundException, IOException {
+    Position[] result = testParser.parseFile(testInvalidChars.toFile());
+    assertEquals("Could not get the frequency of the codon without an 'n'",
+        1.0, result[0].getComponents()[6], 0.0);
+  }
+
+  /**
+   * Test to try and parse a file that does not start with a FASTA header.
+   * This should throw an illegal args exception.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseNotFasta() throws FileNotFoundException, IOException {
+    testParser.parseFile(testNotFasta.toFile());
+  }
+
+  /**
+   * Test to try and create a parser with an unsupported k-mer length.
+   * This should throw an illegal argument exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testUnsupportedKmerLength() {
+    new FastaParser(KmerCounter.MAX_K + 1, true);
+  }
+
+  /**
+   * Test to try and use less than one worker thread.
+   * This should throw an illegal argument exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidWorkerThreads() {
+    testParser.setWorkerThreads(0);
+  }
+
+  /**
+   * Test to try and parse a large file into MinHash sketches.
+   * Each record should be a sketch identical to sketching its sequence directly.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseSketches() throws FileNotFoundException, IOException {
+    testParser.setSketching(15, 50);
+    testParser.setWorkerThreads(4);
+    Position[] result = testParser.parseFile(testLargeSample.toFile());
+    assertEquals("Could not get the expected number of sketches",
+        largeSampleIds.size(), result.length);
+    MinHashSketcher sketcher = new MinHashSketcher(15, 50);
+    for (int i = 0; i < result.length; i++) {
+      assertTrue("Could not get a sketch when sketching is enabled",
+          result[i] instanceof SketchPosition);
+      sketcher.reset();
+      sketcher.add(largeSampleSequences.get(i));
+      assertEquals("Could not get the expected sketch for " + result[i].getID(),
+          sketcher.toPosition(largeSampleIds.get(i)), result[i]);
+    }
+  }
+
+  /**
+   * Test to try and set a negative sketch size.
+   * This should throw an illegal argument exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testInvalidSketchSize() {
+    testParser.setSketching(21, -1);
+  }
+
+  /**
+   * Test to try and parse a file with values for the parameters of the parser instead
+   * of its settings. The k-mers and sketching chosen should match a parser created with
+   * the same settings.
+   * @throws FileNotFoundException - Will be thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading the file.
+   */
+  @Test
+  public void testParseWithParameters() throws FileNotFoundException, IOException {
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("kmerLength", 4);
+    parameters.put("overlap", "Overlapping");
+    parameters.put("threads", 2);
+    assertArrayEquals("Could not count the k-mers given as parameters",
+        new FastaParser(4, true).parseFile(testSample.toFile()),
+        testParser.parseFile(testSample.toFile(), parameters));
+    parameters.put("sketchSize", 50);
+    parameters.put("sketchKmerLength", 15);
+    FastaParser sketchingParser = new FastaParser();
+    sketchingParser.setSketching(15, 50);
+    assertArrayEquals("Could not sketch the records with the parameters given",
+        sketchingParser.parseFile(testSample.toFile()),
+        testParser.parseFile(testSample.toFile(), parameters));
+    assertArrayEquals("Could not leave the settings of the parser unchanged",
+        new FastaParser().parseFile(testSample.toFile()),
+        testParser.parseFile(testSample.toFile()));
+    assertEquals("Could not get the parameters of the parser", 5,
+        testParser.getParameters().size());
+  }
+}
@@ -0,0 +1,56 @@
+package parser;
+
+import java.util.function.Predicate;
+
+/**
+ * Contains common row filters that can be given to the SeriesMatrixParser.
+ * The filters are applied to the selected values of a row before a Position is created,
+ * with missing values being represented as NaN.
+ * @author David Cook
+ */
+public final class RowFilters {
+
+  private RowFilters() {
+  }
+
+  /**
+   * Returns a filter that only keeps rows that do not contain any missing values.
+   * @return - Filter that rejects rows containing NaN.
+   */
+  public static Predicate<double[]> noMissingValues() {
+    return values -> {
+      for (double value : values) {
+        if (Double.isNaN(value)) {
+          return false;
+        }
+      }
+      return true;
+    };
+  }
+
+  /**
+   * Returns a filter that only keeps rows with at least the given variance.
+   * The variance is the population variance of the values that are not missing.
+   * Rows with no values that are not missing are rejected.
+   * @param minimumVariance - The smallest variance a row can have and still be kept.
+   * @return - Filter that rejects rows with a variance lower than the minimum.
+   */
+  public static Predicate<double[]> minimumVariance(double minimumVariance) {
+    return values -> {
+      //Use Welford's method so the variance can be calculated in a single pass.
+      int count = 0;
+      double mean = 0.0;
+      double sumSquares = 0.0;
+      for (double value : values) {
+        if (Double.isNaN(value)) {
+          continue;
+        }
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        sumSquares += delta * (value - mean);
+      }
+      return count > 0 && sumSquares / count >= minimumVariance;
+    };
+  }
+}
@@ -1,23 +1,133 @@
 package parser;
 
+import extensibleclustering.dependencies.Parameter;
 import extensibleclustering.dependencies.Parser;
 import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 
 /**
  * Class for parsing Gene Micro-array data in a series matrix format.
+ * By default every sample column of every row is parsed. The sample columns can be
+ * restricted by header name or index, and rows can be filtered with a predicate, both of
+ * which are applied while the line is being tokenised so unwanted values are never boxed.
+ * The rows can also be streamed with openSource, so they can be clustered as they are parsed.
  * @author David Cook
  */
 public class SeriesMatrixParser implements Parser {
 
+  private static final char DELIMINATOR = '\t';
+
+  /**
+   * What to do with rows containing missing values, as the options of a parameter.
+   */
+  private static final String KEEP_ROWS = "Keep rows";
+  private static final String DROP_ROWS = "Drop rows";
+
+  /**
+   * The parameters the parser can be given, matching the sample selection and the filters 
+   * in RowFilters.
+   */
+  private static final List<Parameter> PARAMETERS = Collections.unmodifiableList(Arrays.asList(
+      Parameter.ofText("samples", "The header names of the sample columns to keep, "
+          + "separated by commas, or empty to keep every sample column", ""),
+      Parameter.ofEnum("missingValues", "Whether to keep the rows with missing values, "
+          + "which are parsed as NaN", KEEP_ROWS, KEEP_ROWS, DROP_ROWS),
+      Parameter.ofDouble("minimumVariance", "The smallest variance a row can have and still "
+          + "be kept, or 0 to keep every row", 0.0, 0.0, Double.MAX_VALUE)));
+
+  private List<String> selectedSampleNames = null;
+  private int[] selectedSampleIndices = null;
+  private Predicate<double[]> rowFilter = null;
+
+  /**
+   * Restricts the parsed sample columns to those with the given header names, e.g. "GSM91224".
+   * The names are matched against the ID_REF line with any surrounding quotes removed.
+   * The components of each Position will be in the order the names are given.
+   * Passing no names will clear the selection so all columns are parsed.
+   * @param sampleNames - The header names of the sample columns to keep.
+   */
+  public void selectSamples(String... sampleNames) {
+    selectedSampleIndices = null;
+    selectedSampleNames = sampleNames == null || sampleNames.length == 0
+        ? null : Arrays.asList(sampleNames);
+  }
+
+  /**
+   * Restricts the parsed sample columns to those at the given indices.
+   * Index 0 is the first sample column, i.e. the column after the ID.
+   * The components of each Position will be in the order the indices are given.
+   * Passing no indices will clear the selection so all columns are parsed.
+   * @param sampleIndices - The indices of the sample columns to keep.
+   */
+  public void selectSamples(int... sampleIndices) {
+    selectedSampleNames = null;
+    if (sampleIndices == null || sampleIndices.length == 0) {
+      selectedSampleIndices = null;
+      return;
+    }
+    for (int index : sampleIndices) {
+      if (index < 0) {
+        throw new IllegalArgumentException("Sample column indices cannot be negative");
+      }
+    }
+    selectedSampleIndices = sampleIndices.clone();
+  }
+
+  /**
+   * Sets the filter that each row must pass to be returned as a Position.
+   * The filter is given the selected values of the row before they are boxed,
+   * with missing values represented as NaN. See RowFilters for common filters.
+   * @param rowFilter - The filter to apply, or null to keep every row.
+   */
+  public void setRowFilter(Predicate<double[]> rowFilter) {
+    this.rowFilter = rowFilter;
+  }
+
+  /**
+   * Parses a file with values for the samples to keep and the rows to filter out, which 
+   * replace the selected samples and row filter of the parser.
+   * @param file - The file to parse the data from.
+   * @param parameters - The values of the parameters, see getParameters.
+   * @return Position[] - The Positions parsed from the file.
+   * @throws FileNotFoundException - Thrown if the file given cannot be located.
+   * @throws IOException - Thrown if there is an error when parsing data from the file.
+   */
+  @Override
+  public Position[] parseFile(File file, Map<String, Object> parameters) 
+      throws FileNotFoundException, IOException {
+    Map<String, Object> values = Parameter.resolve(PARAMETERS, parameters);
+    selectSamples(Arrays.stream(((String) values.get("samples")).split(","))
+        .map(String::trim).filter(name -> !name.isEmpty()).toArray(String[]::new));
+    Predicate<double[]> filter = null;
+    if (DROP_ROWS.equals(values.get("missingValues"))) {
+      filter = RowFilters.noMissingValues();
+    }
+    double minimumVariance = (Double) values.get("minimumVariance");
+    if (minimumVariance > 0) {
+      Predicate<double[]> varianceFilter = RowFilters.minimumVariance(minimumVariance);
+      filter = filter == null ? varianceFilter : filter.and(varianceFilter);
+    }
+    setRowFilter(filter);
+    return parseFile(file);
+  }
+
   /**
    * Parses a specified Series Matrix file into Positions that can be used for clustering.
    * @param file - The specified file to be parsed.
@@ -27,6 +137,25 @@ public class SeriesMatrixParser implements Parser {
    */
   @Override
   public Position[] parseFile(File file) throws FileNotFoundException, IOException {
+    try (PositionSource source = openSource(file)) {
+      return source.toArray();
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Opens a source that parses the rows of a specified Series Matrix file as they are read.
+   * The file is checked and the header is read when the source is opened, so an unsupported
+   * file is rejected straight away. Errors reading the rest of the file are thrown as an
+   * UncheckedIOException while the source is consumed.
+   * @param file - The specified file to be parsed.
+   * @return - A source of the Positions in the file, which must be closed once used.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   * @throws IOException - Thrown if an error occurs when reading from the file.
+   */
+  @Override
+  public PositionSource openSource(File file) throws FileNotFoundException, IOException {
     
     if (file == null || !file.exists()) {
       throw new FileNotFoundException();
@@ -45,9 +174,8 @@ public class SeriesMatrixParser implements Parser {
       throw new UnsupportedOperationException("This file type is not supported with this parser");
     }
     
-    List<Position> posList = new ArrayList<>();
-    
-    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+    BufferedReader reader = new BufferedReader(new FileReader(file));
+    try {
       
       //Skip to the !series_matrix_table_begin line
       String line = reader.readLine();
@@ -62,38 +190,258 @@ public class SeriesMatrixParser implements Parser {
       //Go onto the next line as it will be the start of the data.
       line = reader.readLine();
       
-      String deliminator = "\\t";
-      
       //Skip this next line if it is an ID ref line.
       //This line continues "ID_Ref" in the first column.
-      if (line.split(deliminator)[0].equals("\"ID_REF\"")) {
+      //The header names are kept so samples can be selected by name.
+      String[] headerNames = null;
+      if (line != null && line.startsWith("\"ID_REF\"")) {
+        headerNames = line.split(String.valueOf(DELIMINATOR));
         line = reader.readLine();
       }
-      
-      //This loop will continue until it reaches the end of the file
-      while (line != null) {
-        //The parser will stop reading if it hits a '!', as this normally 
-        //denotes a comment of the start of '!series_matrix_table_end'.
-        if (line.charAt(0) == '!') {
-          break;
+
+      //Maps each sample column to the slot it is stored in, -1 if it is not selected.
+      //This is null if every column should be kept.
+      int[] columnSlots = getColumnSlots(headerNames);
+      return new SeriesMatrixSource(reader, line, columnSlots, rowFilter);
+    } catch (IOException | RuntimeException ex) {
+      reader.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Source that parses the rows of a Series Matrix file one at a time as they are requested.
+   */
+  private final class SeriesMatrixSource implements PositionSource {
+
+    private final BufferedReader reader;
+    private final int[] columnSlots;
+    private final int selectedWidth;
+    private final Predicate<double[]> filter;
+    private String line;
+    private double[] values;
+
+    /**
+     * Creates a source that starts parsing from the given line.
+     * @param reader - The reader positioned after the first line of data.
+     * @param line - The first line of data, or null if there is none.
+     * @param columnSlots - The slot for each sample column, or null if all are selected.
+     * @param filter - The filter each row must pass, or null to keep every row.
+     */
+    SeriesMatrixSource(BufferedReader reader, String line, int[] columnSlots,
+        Predicate<double[]> filter) {
+      this.reader = reader;
+      this.line = line;
+      this.columnSlots = columnSlots;
+      this.filter = filter;
+      this.selectedWidth = columnSlots == null ? 0 : countSelected(columnSlots);
+      this.values = new double[Math.max(selectedWidth, 16)];
+    }
+
+    @Override
+    public Spliterator<Position> spliterator() {
+      return new Spliterators.AbstractSpliterator<Position>(Long.MAX_VALUE,
+          Spliterator.ORDERED | Spliterator.NONNULL) {
+        @Override
+        public boolean tryAdvance(Consumer<? super Position> action) {
+          Position next = nextPosition();
+          if (next == null) {
+            return false;
+          }
+          action.accept(next);
+          return true;
         }
-        //Split the line and convert it to an array.
-        //The first column is skipped because it has the ID in.
-        String[] splitLine = line.split(deliminator);
-        Double[] components = Arrays.stream(splitLine)
-            .skip(1)
-            .map(Double::valueOf)
-            .toArray(Double[]::new);
-        
-        String id = splitLine[0];
-        
-        posList.add(new Position(id, components));
-        line = reader.readLine();
-      }    
+      };
+    }
+
+    /**
+     * Parses lines until one passes the filter.
+     * @return - The Position for the next row, or null if the end of the data was reached.
+     */
+    private Position nextPosition() {
+      try {
+        //This loop will continue until it reaches the end of the file
+        while (line != null) {
+          //The parser will stop reading if it hits a '!', as this normally 
+          //denotes a comment of the start of '!series_matrix_table_end'.
+          if (line.charAt(0) == '!') {
+            line = null;
+            break;
+          }
+          Position position = parseLine(line);
+          line = reader.readLine();
+          if (position != null) {
+            return position;
+          }
+        }
+        return null;
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+
+    /**
+     * Parses a single line of the data.
+     * @param line - The line to parse.
+     * @return - The Position for the line, or null if it does not pass the filter.
+     */
+    private Position parseLine(String line) {
+      //Tokenise the line by walking the deliminators rather than splitting it.
+      //The first column is the ID, the remaining columns are only parsed if selected.
+      int idEnd = line.indexOf(DELIMINATOR);
+      if (idEnd < 0) {
+        idEnd = line.length();
+      }
+      String id = line.substring(0, idEnd);
       
+      int width;
+      if (columnSlots == null) {
+        width = 0;
+        int start = idEnd + 1;
+        while (start < line.length()) {
+          int end = nextDeliminator(line, start);
+          if (width == values.length) {
+            values = Arrays.copyOf(values, width * 2);
+          }
+          values[width++] = parseValue(line, start, end);
+          start = end + 1;
+        }
+      } else {
+        width = selectedWidth;
+        //Any selected columns missing from this row are treated as missing values.
+        Arrays.fill(values, 0, width, Double.NaN);
+        int column = 0;
+        int start = idEnd + 1;
+        while (start < line.length() && column < columnSlots.length) {
+          int end = nextDeliminator(line, start);
+          int slot = columnSlots[column];
+          if (slot >= 0) {
+            values[slot] = parseValue(line, start, end);
+          }
+          column++;
+          start = end + 1;
+        }
+      }
+
+      double[] rowValues = Arrays.copyOf(values, width);
+      if (filter != null && !filter.test(rowValues)) {
+        return null;
+      }
+      Double[] components = new Double[width];
+      for (int i = 0; i < width; i++) {
+        components[i] = rowValues[i];
+      }
+      return new Position(id, components);
     }
-    
-    return posList.toArray(new Position[posList.size()]);
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+
+  /**
+   * Works out which slot each sample column should be stored in using the current selection.
+   * @param headerNames - The split ID_REF line, or null if the file does not have one.
+   * @return - The slot for each sample column, -1 if not selected, or null if all are selected.
+   */
+  private int[] getColumnSlots(String[] headerNames) {
+    if (selectedSampleIndices != null) {
+      int maxIndex = Arrays.stream(selectedSampleIndices).max().getAsInt();
+      int[] slots = new int[maxIndex + 1];
+      Arrays.fill(slots, -1);
+      int slot = 0;
+      for (int index : selectedSampleIndices) {
+        if (slots[index] < 0) {
+          slots[index] = slot++;
+        }
+      }
+      return slots;
+    }
+
+    if (selectedSampleNames != null) {
+      if (headerNames == null) {
+        throw new IllegalArgumentException("Samples cannot be selected by name as the "
+            + "file does not contain an ID_REF line");
+      }
+      //The first header is ID_REF, so the sample columns start at 1.
+      HashMap<String, Integer> headerIndices = new HashMap<>();
+      for (int i = 1; i < headerNames.length; i++) {
+        headerIndices.putIfAbsent(stripQuotes(headerNames[i]), i - 1);
+      }
+      int[] slots = new int[headerNames.length - 1];
+      Arrays.fill(slots, -1);
+      int slot = 0;
+      for (String name : selectedSampleNames) {
+        Integer index = headerIndices.get(stripQuotes(name));
+        if (index == null) {
+          throw new IllegalArgumentException("The sample " + name
+              + " could not be found in the file");
+        }
+        if (slots[index] < 0) {
+          slots[index] = slot++;
+        }
+      }
+      return slots;
+    }
+
+    return null;
+  }
+
+  /**
+   * Counts the number of selected columns in the column slots.
+   * @param columnSlots - The slots to count.
+   * @return - The number of columns that have a slot.
+   */
+  private int countSelected(int[] columnSlots) {
+    int count = 0;
+    for (int slot : columnSlots) {
+      if (slot >= 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Finds the next deliminator in the line from the start index.
+   * @param line - The line being tokenised.
+   * @param start - The index to start searching from.
+   * @return - The index of the next deliminator, or the length of the line if there is none.
+   */
+  private int nextDeliminator(String line, int start) {
+    int end = line.indexOf(DELIMINATOR, start);
+    return end < 0 ? line.length() : end;
+  }
+
+  /**
+   * Parses a single value from the line. Empty values, 'null' and 'NA' are treated as missing,
+   * and are returned as NaN.
+   * @param line - The line containing the value.
+   * @param start - The index the value starts at.
+   * @param end - The index after the last character of the value.
+   * @return - The parsed value, or NaN if it is missing.
+   */
+  private double parseValue(String line, int start, int end) {
+    int length = end - start;
+    if (length == 0
+        || length == 4 && line.regionMatches(true, start, "null", 0, 4)
+        || length == 2 && line.regionMatches(true, start, "NA", 0, 2)) {
+      return Double.NaN;
+    }
+    return Double.parseDouble(line.substring(start, end));
+  }
+
+  /**
+   * Removes the surrounding quotes from a header name if present.
+   * @param name - The name to remove the quotes from.
+   * @return - The name without surrounding quotes.
+   */
+  private String stripQuotes(String name) {
+    if (name.length() >= 2 && name.charAt(0) == '"' && name.charAt(name.length() - 1) == '"') {
+      return name.substring(1, name.length() - 1);
+    }
+    return name;
   }
 
   /**
@@ -126,5 +474,9 @@ public class SeriesMatrixParser implements Parser {
         "*.txt"
         ));
   }
-}
 
+  @Override
+  public List<Parameter> getParameters() {
+    return PARAMETERS;
+  }
+}
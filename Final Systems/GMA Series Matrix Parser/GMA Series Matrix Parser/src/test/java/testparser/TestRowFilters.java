@@ -0,0 +1,71 @@
+package testparser;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import parser.RowFilters;
+
+/**
+ * Test class for the row filters that can be used with the SeriesMatrixParser.
+ * @author David Cook
+ */
+public class TestRowFilters {
+  
+  /**
+   * Test to try and keep a row that does not have any missing values.
+   */
+  @Test
+  public void testNoMissingValuesKeepsCompleteRow() {
+    assertTrue("Could not keep a row without missing values",
+        RowFilters.noMissingValues().test(new double[] {1.0, 2.0, 3.0}));
+  }
+  
+  /**
+   * Test to try and reject a row with a missing value.
+   */
+  @Test
+  public void testNoMissingValuesRejectsMissing() {
+    assertFalse("Could not reject a row with a missing value",
+        RowFilters.noMissingValues().test(new double[] {1.0, Double.NaN, 3.0}));
+  }
+  
+  /**
+   * Test to try and keep a row with a variance above the minimum.
+   * The population variance of {1, 2, 3} is 2/3.
+   */
+  @Test
+  public void testMinimumVarianceKeepsRow() {
+    assertTrue("Could not keep a row with a variance above the minimum",
+        RowFilters.minimumVariance(0.6).test(new double[] {1.0, 2.0, 3.0}));
+  }
+  
+  /**
+   * Test to try and reject a row with a variance below the minimum.
+   */
+  @Test
+  public void testMinimumVarianceRejectsRow() {
+    assertFalse("Could not reject a row with a variance below the minimum",
+        RowFilters.minimumVariance(0.7).test(new double[] {1.0, 2.0, 3.0}));
+  }
+  
+  /**
+   * Test to try and calculate the variance ignoring missing values.
+   * The variance of {4, 6} is 1, so it should be kept with a minimum of 1.
+   */
+  @Test
+  public void testMinimumVarianceIgnoresMissing() {
+    assertTrue("Could not ignore missing values when calculating the variance",
+        RowFilters.minimumVariance(1.0).test(new double[] {4.0, Double.NaN, 6.0}));
+  }
+  
+  /**
+   * Test to try and filter a row where every value is missing.
+   * This should be rejected as there is no variance to calculate.
+   */
+  @Test
+  public void testMinimumVarianceAllMissing() {
+    assertFalse("Could not reject a row where all values are missing",
+        RowFilters.minimumVariance(0.0).test(new double[] {Double.NaN, Double.NaN}));
+  }
+}
@@ -6,12 +6,17 @@ import static org.junit.Assert.assertTrue;
 
 import extensibleclustering.dependencies.Parser;
 import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
+import parser.RowFilters;
 import parser.SeriesMatrixParser;
 
 /**
@@ -42,6 +47,7 @@ public class TestSeriesMatrixParser {
   File unmodifiedGeoFile;
   File emptyPdf;
   File emptyTxt;
+  File headerPositionFile;
   SeriesMatrixParser testParser;
   
   Position correctPosOne;
@@ -74,6 +80,8 @@ public class TestSeriesMatrixParser {
         + "GSE4014-GPL32_series_matrix.txt");
     emptyPdf = new File(baseDirectoryPath + File.separator + "emptypdf.pdf");
     emptyTxt = new File(baseDirectoryPath + File.separator + "emptyfile.txt");
+    headerPositionFile = new File(baseDirectoryPath + File.separator 
+        + "HeaderPositionMatrix.txt");
     
     correctPosOne = new Position("\"1\"", new Double[] {1.05, 2.05, 3.05});
     correctPosTwo = new Position("\"2\"", new Double[] {4.05, 5.05, 6.05});
@@ -275,5 +283,209 @@ public class TestSeriesMatrixParser {
           "This file type is not supported with this parser", ex.getMessage());
     }
   }
+  
+  /**
+   * Test to try and parse a file with a header line and a missing value.
+   * The missing value should be parsed as NaN rather than throwing an exception.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test
+  public void testParseMissingValue() throws FileNotFoundException, IOException {
+    Position[] result = testParser.parseFile(headerPositionFile);
+    assertEquals("Could not get the expected number of positions from a file with a header",
+        3, result.length);
+    assertTrue("Could not get NaN for a missing value",
+        result[1].getComponents()[1].isNaN());
+  }
+  
+  /**
+   * Test to try and select sample columns by their header names.
+   * The components should only contain the selected columns in the order they were given.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test
+  public void testSelectSamplesByName() throws FileNotFoundException, IOException {
+    testParser.selectSamples("GSM3", "GSM1");
+    Position[] result = testParser.parseFile(headerPositionFile);
+    Position[] correctResult = new Position[] {
+        new Position("\"1\"", new Double[] {3.05, 1.05}),
+        new Position("\"2\"", new Double[] {6.05, 4.05}),
+        new Position("\"3\"", new Double[] {5.0, 5.0})};
+    assertArrayEquals("Could not get the correct Positions when selecting samples by name",
+        correctResult, result);
+  }
+  
+  /**
+   * Test to try and select sample columns by their index.
+   * Index 0 should be the first column after the ID.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test
+  public void testSelectSamplesByIndex() throws FileNotFoundException, IOException {
+    testParser.selectSamples(1);
+    Position[] result = testParser.parseFile(twoPositionFile);
+    Position[] correctResult = new Position[] {
+        new Position("\"1\"", new Double[] {2.05}),
+        new Position("\"2\"", new Double[] {5.05})};
+    assertArrayEquals("Could not get the correct Positions when selecting samples by index",
+        correctResult, result);
+  }
+  
+  /**
+   * Test to try and select a single sample from a large file.
+   * This should still return all of the rows, each with a single dimension.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test
+  public void testSelectSampleLargeFile() throws FileNotFoundException, IOException {
+    testParser.selectSamples("GSM91224");
+    Position[] result = testParser.parseFile(unmodifiedGeoFile);
+    assertEquals("Could not get the correct number of positions when selecting a sample",
+        12654, result.length);
+    assertEquals("Could not get the correct number of dimensions when selecting a sample",
+        1, result[0].getComponents().length);
+  }
+  
+  /**
+   * Test to try and select a sample that does not exist in the file.
+   * This should throw an illegal argument exception.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testSelectMissingSample() throws FileNotFoundException, IOException {
+    testParser.selectSamples("GSM4");
+    testParser.parseFile(headerPositionFile);
+  }
+  
+  /**
+   * Test to try and select samples by name in a file without an ID_REF line.
+   * This should throw an illegal argument exception as the names cannot be matched.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testSelectSampleNameWithoutHeader() throws FileNotFoundException, IOException {
+    testParser.selectSamples("GSM1");
+    testParser.parseFile(twoPositionFile);
+  }
+  
+  /**
+   * Test to try and filter out rows that contain missing values.
+   * This should remove the second row.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test
+  public void testFilterMissingValues() throws FileNotFoundException, IOException {
+    testParser.setRowFilter(RowFilters.noMissingValues());
+    Position[] result = testParser.parseFile(headerPositionFile);
+    assertEquals("Could not filter out the row with a missing value",
+        2, result.length);
+    assertEquals("Could not keep the expected row when filtering missing values",
+        "\"3\"", result[1].getID());
+  }
+  
+  /**
+   * Test to try and filter the rows by a minimum variance.
+   * The third row has no variance so should be removed.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test
+  public void testFilterMinimumVariance() throws FileNotFoundException, IOException {
+    testParser.setRowFilter(RowFilters.minimumVariance(0.5));
+    Position[] result = testParser.parseFile(headerPositionFile);
+    assertEquals("Could not filter out the row with a low variance",
+        2, result.length);
+    assertEquals("Could not keep the expected row when filtering by variance",
+        "\"2\"", result[1].getID());
+  }
+  
+  /**
+   * Test to try and parse a file with values for the parameters of the parser instead 
+   * of its settings. Only the first row should have no missing values and a variance of 
+   * at least 0.2 in the samples selected.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test
+  public void testParseWithParameters() throws FileNotFoundException, IOException {
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("samples", "GSM2, GSM1");
+    parameters.put("missingValues", "Drop rows");
+    parameters.put("minimumVariance", 0.2);
+    Position[] correctResult = new Position[] {
+        new Position("\"1\"", new Double[] {2.05, 1.05})};
+    assertArrayEquals("Could not get the correct Positions with the parameters given",
+        correctResult, testParser.parseFile(headerPositionFile, parameters));
+    assertEquals("Could not get every row with the default parameters",
+        3, testParser.parseFile(headerPositionFile, new HashMap<>()).length);
+    assertEquals("Could not get the parameters of the parser", 3,
+        testParser.getParameters().size());
+  }
+  
+  /**
+   * Test to try and stream the Positions from a file with a source.
+   * This should give the same Positions, in the same order, as parsing the file.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test
+  public void testOpenSource() throws FileNotFoundException, IOException {
+    Position[] correctResult = new Position[] 
+        { correctPosOne, correctPosTwo, correctPosThree, correctPosFour, correctPosFive};
+    try (PositionSource source = testParser.openSource(multiplePositionFile)) {
+      assertArrayEquals("Could not stream the correct Positions from a five lined file",
+          correctResult, source.stream().toArray(Position[]::new));
+    }
+  }
+  
+  /**
+   * Test to try and stream a large file in chunks.
+   * Every Position should be passed in a chunk, with only the last chunk being smaller.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test
+  public void testOpenSourceChunks() throws FileNotFoundException, IOException {
+    List<Integer> chunkSizes = new ArrayList<>();
+    try (PositionSource source = testParser.openSource(unmodifiedGeoFile)) {
+      source.forEachChunk(1000, chunk -> chunkSizes.add(chunk.length));
+    }
+    assertEquals("Could not get the expected number of chunks", 13, chunkSizes.size());
+    assertEquals("Could not get the expected size of the last chunk",
+        654, (int) chunkSizes.get(12));
+  }
+  
+  /**
+   * Test to try and stream the rows with a filter.
+   * The filter should be applied as the rows are read.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test
+  public void testOpenSourceWithFilter() throws FileNotFoundException, IOException {
+    testParser.setRowFilter(RowFilters.noMissingValues());
+    try (PositionSource source = testParser.openSource(headerPositionFile)) {
+      assertArrayEquals("Could not filter the rows while streaming",
+          testParser.parseFile(headerPositionFile), source.toArray());
+    }
+  }
+  
+  /**
+   * Test to try and open a source for a file that is not a series matrix.
+   * This should be rejected when the source is opened, rather than when it is read.
+   * @throws IOException - Thrown if the file cannot be read.
+   * @throws FileNotFoundException - Thrown if the file cannot be found.
+   */
+  @Test (expected = UnsupportedOperationException.class)
+  public void testOpenSourceInvalidTxt() throws FileNotFoundException, IOException {
+    testParser.openSource(emptyTxt);
+  }
 
 }
@@ -1,24 +1,42 @@
 package clustering;
 
+import extensibleclustering.dependencies.AlgorithmCapabilities;
+import extensibleclustering.dependencies.AlgorithmCapabilities.Complexity;
 import extensibleclustering.dependencies.Centroid;
 import extensibleclustering.dependencies.ClusteringAlgorithm;
+import extensibleclustering.dependencies.DatasetFile;
 import extensibleclustering.dependencies.DirectoryHelper;
 import extensibleclustering.dependencies.IncomparableComponentsException;
 import extensibleclustering.dependencies.Metrics;
+import extensibleclustering.dependencies.Parameter;
 import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import extensibleclustering.dependencies.SketchPosition;
+import extensibleclustering.dependencies.WeightedPosition;
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.DoubleBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.FutureTask;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Class that implements a k-means clustering algorithm.
@@ -26,31 +44,96 @@ import java.util.Random;
  */
 public class KMeansClustering implements ClusteringAlgorithm {
   
+  //Rows of a dataset file read at a time, a whole number of pages of each column.
+  static final int BLOCK_ROWS = 16 * DatasetFile.Columns.PAGE_ROWS;
+  //Rows of a dataset file sampled to choose the number of clusters and their locations.
+  static final int SAMPLE_ROWS = 2000;
+  static final int MAX_ITERATIONS = 300;
+  static final int RESTARTS = 100;
+  static final double TOLERANCE = 0.05;
+  static final List<Parameter> PARAMETERS = Collections.unmodifiableList(Arrays.asList(
+      Parameter.ofInt("clusters", "The number of clusters, or 0 to choose the number with "
+          + "the highest CH index", 0, 0, Integer.MAX_VALUE),
+      Parameter.ofInt("restarts", "The number of random initialisations to pick the best of",
+          RESTARTS, 1, Integer.MAX_VALUE),
+      Parameter.ofInt("maxIterations", "The most iterations to run before stopping",
+          MAX_ITERATIONS, 1, Integer.MAX_VALUE),
+      Parameter.ofDouble("tolerance", "The fraction of positions that can change cluster "
+          + "once converged, for 20 or more positions held in memory", TOLERANCE, 0.0, 1.0),
+      Parameter.ofInt("threads", "The number of threads to use, or 0 to use those of the "
+          + "system", 0, 0, 4096)));
+  
   Metrics metrics = new Metrics();
   Path outputDirectory = new DirectoryHelper().getOutputDirectory();
   Path lastOutputFile = null;
+  int fixedClusters = 0;
+  int restarts = RESTARTS;
+  int maxIterations = MAX_ITERATIONS;
+  double tolerance = TOLERANCE;
+  int threads = 0;
+
+  /**
+   * CLusters data using a k-means algorithm with the default parameters.
+   * @param data - The data to cluster.
+   * @param fileName - The name of the file the data is from. This will be used in the output.
+   * @return clusters - the resulting clusters with their assigned positions.
+   */
+  @Override
+  public Centroid[] clusterData(Position[] data, String fileName) {
+    return clusterData(data, fileName, Collections.emptyMap());
+  }
 
   /**
    * CLusters data using a k-means algorithm.
    * This returns the resulting clusters with their assigned positions.
+   * Weighted positions, e.g. collapsed duplicates, count as many times as their weight 
+   * when the centres are set, and are output with the IDs of the positions they stand for.
+   * Giving the number of clusters skips choosing it by the CH index, which clusters the 
+   * data with many numbers of clusters.
    * @param data - The data to cluster.
    * @param fileName - The name of the file the data is from. This will be used in the output.
+   * @param parameters - The values of the parameters, e.g. clusters, see getParameters.
    * @return clusters - the resulting clusters with their assigned positions.
    */
   @Override
-  public Centroid[] clusterData(Position[] data, String fileName) {
+  public Centroid[] clusterData(Position[] data, String fileName, 
+      Map<String, Object> parameters) {
+    setParameters(parameters);
+    try {
+      return runWithThreads(() -> cluster(data, fileName));
+    } catch (IOException ex) {
+      //Clustering data that is in memory does not read any files.
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Clusters data that is in memory with the parameters that have been set.
+   * @param data - The data to cluster.
+   * @param fileName - The name of the file the data is from. This will be used in the output.
+   * @return clusters - the resulting clusters with their assigned positions.
+   */
+  private Centroid[] cluster(Position[] data, String fileName) {
     if (data.length < 2) {
       throw new IllegalArgumentException("Data is not long enough to cluster");
     }
-    //Calculate the number of clusters, then use that for initialisation.
-    int numClusters = getNumOfClusters(data);
+    //The components of a sketch are hashes, so they have no mean to move the centres to.
+    for (Position pos : data) {
+      if (WeightedPosition.unwrap(pos) instanceof SketchPosition) {
+        throw new IllegalArgumentException("K-Means cannot cluster sketches, "
+            + "as their components are hashes");
+      }
+    }
+    //Calculate the number of clusters, unless it was given, then use that for initialisation.
+    int numClusters = getClusterCount(data);
     //Run the garbage collector to collect the clusters from before. 
     Runtime.getRuntime().gc();
     Centroid[] clusters = initialiseCentroids(data, numClusters);
     Centroid[] previous = clusters.clone();
     //We will always need to run at least one clustering operation.
     runIteration(data, clusters);
-    while (!hasConverged(previous, clusters)) {
+    int iterations = 1;
+    while (iterations < maxIterations && !hasConverged(previous, clusters)) {
       //Clear the current clusters
       clearCentroids(clusters);
       
@@ -62,15 +145,290 @@ public class KMeansClustering implements ClusteringAlgorithm {
       
       //Run the garbage collector to collect the old clusters.
       Runtime.getRuntime().gc();
+      iterations++;
     }
     
     //Once clustering has been completed, the data can be 
     //output to a file
-    lastOutputFile = outputData(clusters, data.length, fileName);
+    int originalLength = 0;
+    for (Position pos : data) {
+      originalLength += WeightedPosition.getMemberIDs(pos).length;
+    }
+    lastOutputFile = outputData(clusters, originalLength, fileName);
     //Return the resulting clusters with their assignments.
     return clusters;
   }
 
+  /**
+   * Clusters the data in a dataset file using a k-means algorithm without loading it, 
+   * so data larger than the heap can be clustered.
+   * The number of clusters and their starting locations are chosen from a sample of the rows. 
+   * Each iteration then scans the file a block of rows at a time, with each thread adding 
+   * the rows of its blocks to its own sums for each cluster, so only the locations and sums 
+   * of the clusters are held in memory. This stops once the locations no longer change.
+   * The positions are output in the order of the file, and the returned clusters have no 
+   * assigned positions. Files small enough to sample in full, or with rows shorter than 
+   * the others, are loaded and clustered with clusterData, which rejects sketches.
+   * This uses the default parameters.
+   * @param datasetFile - The dataset file containing the data to cluster.
+   * @param fileName - The name of the file the data is from. This will be used in the output.
+   * @return clusters - the resulting clusters, without their assigned positions.
+   * @throws IOException - Thrown if the dataset file cannot be read.
+   */
+  @Override
+  public Centroid[] clusterDatasetFile(Path datasetFile, String fileName) throws IOException {
+    return clusterDatasetFile(datasetFile, fileName, Collections.emptyMap());
+  }
+
+  /**
+   * Clusters the data in a dataset file using a k-means algorithm without loading it, 
+   * as clusterDatasetFile does, with values for the parameters.
+   * The restarts are all run on the sample, and the best of them is used as the one 
+   * initialisation of the clusters for the whole file. The tolerance does not apply, as 
+   * the cluster of each row is not held in memory to count the rows that change cluster, 
+   * so the iterations over the file stop once the locations no longer change, or the 
+   * iteration cap is reached.
+   * @param datasetFile - The dataset file containing the data to cluster.
+   * @param fileName - The name of the file the data is from. This will be used in the output.
+   * @param parameters - The values of the parameters, e.g. clusters, see getParameters.
+   * @return clusters - the resulting clusters, without their assigned positions.
+   * @throws IOException - Thrown if the dataset file cannot be read.
+   */
+  @Override
+  public Centroid[] clusterDatasetFile(Path datasetFile, String fileName, 
+      Map<String, Object> parameters) throws IOException {
+    setParameters(parameters);
+    return runWithThreads(() -> clusterFile(datasetFile, fileName));
+  }
+
+  /**
+   * Clusters the data in a dataset file with the parameters that have been set.
+   * @param datasetFile - The dataset file containing the data to cluster.
+   * @param fileName - The name of the file the data is from. This will be used in the output.
+   * @return clusters - the resulting clusters, without their assigned positions.
+   * @throws IOException - Thrown if the dataset file cannot be read.
+   */
+  private Centroid[] clusterFile(Path datasetFile, String fileName) throws IOException {
+    try (DatasetFile.Columns columns = DatasetFile.openColumns(datasetFile)) {
+      if (!columns.isDense() || columns.getRows() <= SAMPLE_ROWS) {
+        return cluster(DatasetFile.read(datasetFile), fileName);
+      }
+      //Choose the number of clusters, unless it was given, and initialise them with the sample.
+      Position[] sample = sampleRows(columns);
+      Centroid[] initial = initialiseCentroids(sample, getClusterCount(sample));
+      double[][] centres = new double[initial.length][];
+      for (int i = 0; i < initial.length; i++) {
+        Double[] location = initial[i].getLocation().getComponents();
+        centres[i] = new double[location.length];
+        for (int j = 0; j < location.length; j++) {
+          centres[i][j] = location[j];
+        }
+      }
+      
+      //The sums are always those of the rows assigned to the current centres, 
+      //so the counts can be output once the centres stop changing.
+      double[][] sums = sumFileClusters(columns, centres);
+      for (int iteration = 1; iteration < maxIterations; iteration++) {
+        double[][] next = getFileCentres(sums, centres);
+        if (Arrays.deepEquals(next, centres)) {
+          break;
+        }
+        centres = next;
+        sums = sumFileClusters(columns, centres);
+      }
+      
+      Centroid[] clusters = new Centroid[centres.length];
+      for (int i = 0; i < centres.length; i++) {
+        Double[] location = new Double[centres[i].length];
+        for (int j = 0; j < location.length; j++) {
+          location[j] = centres[i][j];
+        }
+        clusters[i] = new Centroid("Cluster-" + i, new Position("Cluster-" + i, location));
+      }
+      lastOutputFile = outputFileData(clusters, sums, columns, centres, fileName);
+      return clusters;
+    }
+  }
+
+  /**
+   * Clusters the data from a source in a single pass with mini-batch k-means, so the 
+   * Positions are clustered as they are parsed and only the locations of the clusters are 
+   * held in memory. The first chunk of SAMPLE_ROWS Positions is used to choose the number 
+   * of clusters, unless it was given, and their starting locations, as for a dataset file. 
+   * The Positions of each chunk are then assigned to their closest cluster in parallel, and 
+   * each cluster is moved towards each of its Positions by a step that shrinks as it is 
+   * given more of them, from the web-scale k-means of Sculley. Weighted positions count as 
+   * many times as their weight. Each Position is output with the cluster it was assigned to 
+   * when its chunk was read, so a Position read early may end up closer to another cluster.
+   * The iteration cap and tolerance do not apply, as each Position is only read once.
+   * A source no larger than one chunk is clustered with clusterData instead.
+   * @param source - The source of the Positions to cluster.
+   * @param fileName - The name of the file the data is from. This will be used in the output.
+   * @return clusters - the resulting clusters, without their assigned positions unless the 
+   *     source was no larger than one chunk.
+   */
+  @Override
+  public Centroid[] clusterSource(PositionSource source, String fileName) {
+    try {
+      return runWithThreads(() -> clusterChunks(source, fileName));
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /**
+   * Clusters the data from a source a chunk at a time with the parameters that have been set.
+   * The cluster of each Position is written to a temporary file as it is assigned, and 
+   * copied to the output once the locations of the clusters are known.
+   * @param source - The source of the Positions to cluster.
+   * @param fileName - The name of the file the data is from. This will be used in the output.
+   * @return clusters - the resulting clusters.
+   * @throws IOException - Thrown if the temporary file or output cannot be written.
+   */
+  private Centroid[] clusterChunks(PositionSource source, String fileName) throws IOException {
+    Path assignments = Files.createTempFile("kmeans-", ".tsv");
+    try {
+      MiniBatch miniBatch;
+      try (BufferedWriter writeAssignments = Files.newBufferedWriter(assignments)) {
+        miniBatch = new MiniBatch(writeAssignments);
+        source.forEachChunk(SAMPLE_ROWS, miniBatch::add);
+      } catch (UncheckedIOException ex) {
+        throw ex.getCause();
+      }
+      if (miniBatch.centres == null) {
+        //The whole source was read in the first chunk, so it is clustered in memory.
+        return cluster(miniBatch.first == null ? new Position[0] : miniBatch.first, fileName);
+      }
+      Centroid[] clusters = new Centroid[miniBatch.centres.length];
+      for (int i = 0; i < clusters.length; i++) {
+        Double[] location = new Double[miniBatch.centres[i].length];
+        for (int j = 0; j < location.length; j++) {
+          location[j] = miniBatch.centres[i][j];
+        }
+        clusters[i] = new Centroid("Cluster-" + i, new Position("Cluster-" + i, location));
+      }
+      lastOutputFile = outputStreamedData(clusters, miniBatch.assigned, miniBatch.positions, 
+          assignments, fileName);
+      return clusters;
+    } finally {
+      Files.deleteIfExists(assignments);
+    }
+  }
+
+  /**
+   * The locations of the clusters while a source is clustered a chunk at a time, with the 
+   * total weight and number of Positions assigned to each cluster so far.
+   */
+  private final class MiniBatch {
+    
+    private final BufferedWriter writeAssignments;
+    private Position[] first;
+    private double[][] centres;
+    private double[] weights;
+    private long[] assigned;
+    private int positions;
+    
+    /**
+     * Creates the clusters of a source that has not been read yet.
+     * @param writeAssignments - The writer the cluster of each Position is written to.
+     */
+    private MiniBatch(BufferedWriter writeAssignments) {
+      this.writeAssignments = writeAssignments;
+    }
+    
+    /**
+     * Adds a chunk of the source. The first chunk is kept until the second is read, so a 
+     * source no larger than one chunk can be clustered in memory instead.
+     * @param chunk - The Positions of the chunk.
+     */
+    private void add(Position[] chunk) {
+      for (Position pos : chunk) {
+        if (WeightedPosition.unwrap(pos) instanceof SketchPosition) {
+          throw new IllegalArgumentException("K-Means cannot cluster sketches, "
+              + "as their components are hashes");
+        }
+      }
+      if (centres == null) {
+        if (first == null) {
+          first = chunk;
+          return;
+        }
+        initialise(first);
+        Position[] sample = first;
+        first = null;
+        update(sample);
+      }
+      update(chunk);
+    }
+    
+    /**
+     * Chooses the number of clusters, unless it was given, and their starting locations 
+     * from the first chunk.
+     * @param sample - The Positions of the first chunk.
+     */
+    private void initialise(Position[] sample) {
+      Centroid[] initial = initialiseCentroids(sample, getClusterCount(sample));
+      centres = new double[initial.length][];
+      for (int i = 0; i < initial.length; i++) {
+        centres[i] = getRow(initial[i].getLocation());
+      }
+      weights = new double[centres.length];
+      assigned = new long[centres.length];
+    }
+    
+    /**
+     * Assigns each Position of a chunk to its closest cluster, then moves each cluster 
+     * towards the Positions assigned to it.
+     * @param chunk - The Positions of the chunk.
+     */
+    private void update(Position[] chunk) {
+      double[][] rows = new double[chunk.length][];
+      int[] closest = IntStream.range(0, chunk.length).parallel().map(i -> {
+        rows[i] = getRow(chunk[i]);
+        if (rows[i].length != centres[0].length) {
+          throw new IllegalArgumentException("Each position must have the same number "
+              + "of dimensions");
+        }
+        return getClosestCentre(rows[i], centres);
+      }).toArray();
+      try {
+        for (int i = 0; i < chunk.length; i++) {
+          int cluster = closest[i];
+          double weight = WeightedPosition.getWeight(chunk[i]);
+          weights[cluster] += weight;
+          double step = weight / weights[cluster];
+          for (int j = 0; j < rows[i].length; j++) {
+            centres[cluster][j] += step * (rows[i][j] - centres[cluster][j]);
+          }
+          String[] memberIds = WeightedPosition.getMemberIDs(chunk[i]);
+          assigned[cluster] += memberIds.length;
+          positions += memberIds.length;
+          String location = Arrays.toString(chunk[i].getComponents());
+          for (String memberId : memberIds) {
+            writeAssignments.write(memberId + '\t' + "Cluster-" + cluster + '\t' 
+                + location + System.lineSeparator());
+          }
+        }
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+
+  /**
+   * Returns the components of a Position as a row of primitive values.
+   * @param position - The Position.
+   * @return - The components of the Position.
+   */
+  private static double[] getRow(Position position) {
+    Double[] components = position.getComponents();
+    double[] row = new double[components.length];
+    for (int j = 0; j < row.length; j++) {
+      row[j] = components[j];
+    }
+    return row;
+  }
+
   /**
    * Method that returns the file that was last successfully output to.
    * @return - Path for the last successfully output file.
@@ -98,35 +456,131 @@ public class KMeansClustering implements ClusteringAlgorithm {
   public String getDescription() {
     return "Splits a data set into K Clusters. For more info, please see the javadoc.";
   }
+
+  /**
+   * Returns the parameters of k-means. Each parameter defaults to the behaviour without 
+   * parameters, so the number of clusters is chosen by the CH index unless it is given.
+   * @return List - The parameters of this algorithm.
+   */
+  @Override
+  public List<Parameter> getParameters() {
+    return PARAMETERS;
+  }
+
+  /**
+   * Sets the parameters used for clustering from the values given, using the default 
+   * of any that are not given.
+   * @param parameters - The values of the parameters.
+   */
+  private void setParameters(Map<String, Object> parameters) {
+    Map<String, Object> values = Parameter.resolve(PARAMETERS, parameters);
+    fixedClusters = (Integer) values.get("clusters");
+    restarts = (Integer) values.get("restarts");
+    maxIterations = (Integer) values.get("maxIterations");
+    tolerance = (Double) values.get("tolerance");
+    threads = (Integer) values.get("threads");
+  }
+
+  /**
+   * Returns the number of clusters to use for the data, either the number given or the 
+   * number with the best CH index.
+   * @param data - The data to cluster.
+   * @return int - The number of clusters.
+   */
+  private int getClusterCount(Position[] data) {
+    if (fixedClusters == 0) {
+      return getNumOfClusters(data);
+    }
+    if (fixedClusters > data.length) {
+      throw new IllegalArgumentException("There cannot be more clusters than positions");
+    }
+    return fixedClusters;
+  }
+
+  /**
+   * Runs a clustering job on a fork join pool with the number of threads set, so the 
+   * parallel streams use that many threads. If the number of threads is 0 the job is run 
+   * on the calling thread, and uses the pool it is called from.
+   * @param job - The clustering job to run.
+   * @return Centroid[] - The resulting clusters.
+   * @throws IOException - Thrown if the job cannot read the data.
+   */
+  private Centroid[] runWithThreads(ClusteringJob job) throws IOException {
+    if (threads == 0) {
+      return job.run();
+    }
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    //A FutureTask keeps the exception thrown by the job, rather than a copy of it.
+    FutureTask<Centroid[]> task = new FutureTask<>(job::run);
+    try {
+      pool.execute(task);
+      return task.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while clustering", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof IOException) {
+        throw (IOException) ex.getCause();
+      } else if (ex.getCause() instanceof Error) {
+        throw (Error) ex.getCause();
+      }
+      throw (RuntimeException) ex.getCause();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * A clustering job that may read a dataset file.
+   */
+  private interface ClusteringJob {
+    
+    /**
+     * Runs the clustering job.
+     * @return Centroid[] - The resulting clusters.
+     * @throws IOException - Thrown if the data cannot be read.
+     */
+    Centroid[] run() throws IOException;
+  }
+
+  /**
+   * Returns the capabilities of k-means. Each position is assigned to one cluster at a time, 
+   * so the memory is linear, but choosing the number of clusters tries up to one for every 
+   * few positions, so the time is quadratic. The assignment steps run in parallel on the 
+   * fork join pool the algorithm is called from, and dense dataset files are read a block at 
+   * a time. Other dataset files are loaded, so they are planned as if k-means did not stream.
+   * @return AlgorithmCapabilities - The capabilities of this algorithm.
+   */
+  @Override
+  public AlgorithmCapabilities getCapabilities() {
+    //The assignment of each position, and its copy from the previous iteration.
+    return new AlgorithmCapabilities(Complexity.LINEAR, 32, Complexity.QUADRATIC, 
+        Integer.MAX_VALUE, true);
+  }
   
   private Path outputData(Centroid[] clusters, int dataLength, String dataFile) {
     //The file name will be a combination of the algorithm name, 
     // and the time that it was completed.
-    LocalDateTime dateTime = LocalDateTime.now();
-    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyy_HH:mm:ss");
-    String completedTime = dateTime.format(dateFormatter);
-    completedTime = completedTime.replace(":", "");
-    String fileName = getName() + "-" + completedTime + ".tsv";
+    String completedTime = getCompletedTime();
     Path outputFile = null;
     try {
-      outputFile = Files.createFile(
-          Paths.get(outputDirectory.toString() + File.separator + fileName));
+      outputFile = DirectoryHelper.createOutputFile(outputDirectory, 
+          getName() + "-" + completedTime, ".tsv");
       BufferedWriter writeFile = new BufferedWriter(new FileWriter(outputFile.toFile()));
       String newLine = System.lineSeparator();
       char separator = '\t';
       
       //Output information on the data used and generated to the file.
-      writeFile.write("Type of clustering: K-Means Clustering" + newLine);
-      writeFile.write("Time Completed: " + completedTime + newLine);
-      writeFile.write("Number of clusters generated: " + clusters.length + newLine);
-      writeFile.write("Number of data points used: " + dataLength + newLine);
-      writeFile.write("File used: " + dataFile + newLine);
-      writeFile.write("Clusters" + newLine);
-      writeFile.write("Cluster ID\tNum of assigned positions\tLocation" + newLine);
+      writeHeader(writeFile, completedTime, clusters.length, dataLength, dataFile);
       
-      //Add each of the clusters to the output
+      //Add each of the clusters to the output, counting the original positions 
+      //that weighted positions stand for.
       for (Centroid cluster : clusters) {
-        writeFile.write(cluster.getID() + separator + cluster.getAssignedPositions().size() 
+        int assignedCount = 0;
+        for (Position pos : cluster.getAssignedPositions()) {
+          assignedCount += WeightedPosition.getMemberIDs(pos).length;
+        }
+        writeFile.write(cluster.getID() + separator + assignedCount 
             + separator + Arrays.toString(cluster.getLocation().getComponents()) + newLine);
       }
       
@@ -135,10 +589,14 @@ public class KMeansClustering implements ClusteringAlgorithm {
       writeFile.write("Position ID\tAssigned Cluster\tLocation" + newLine);
       
       //Run through all of the positions from each cluster.
+      //A weighted position is output once for each of the positions it stands for.
       for (Centroid cluster : clusters) {
         for (Position pos : cluster.getAssignedPositions()) {
-          writeFile.write(pos.getID() + separator + cluster.getID() + separator 
-              + Arrays.toString(pos.getComponents()) + newLine);
+          String location = Arrays.toString(pos.getComponents());
+          for (String memberId : WeightedPosition.getMemberIDs(pos)) {
+            writeFile.write(memberId + separator + cluster.getID() + separator 
+                + location + newLine);
+          }
         }
       }
       
@@ -149,6 +607,262 @@ public class KMeansClustering implements ClusteringAlgorithm {
     return outputFile;
   }
   
+  /**
+   * Outputs the result of clustering a dataset file, reading the rows a block at a time 
+   * to output the cluster each is assigned to.
+   * @param clusters - The resulting clusters.
+   * @param sums - The sums of the clusters, with the number of rows assigned last.
+   * @param columns - The columns of the dataset file.
+   * @param centres - The locations of the clusters.
+   * @param dataFile - The name of the file the data is from.
+   * @return - Path for the output file.
+   * @throws IOException - Thrown if the dataset file cannot be read or the output written.
+   */
+  private Path outputFileData(Centroid[] clusters, double[][] sums, 
+      DatasetFile.Columns columns, double[][] centres, String dataFile) throws IOException {
+    String completedTime = getCompletedTime();
+    Path outputFile = DirectoryHelper.createOutputFile(outputDirectory, 
+        getName() + "-" + completedTime, ".tsv");
+    int dimensions = columns.getWidth();
+    Iterator<String> ids = columns.readIDs();
+    try (BufferedWriter writeFile = Files.newBufferedWriter(outputFile)) {
+      String newLine = System.lineSeparator();
+      char separator = '\t';
+      writeHeader(writeFile, completedTime, clusters.length, columns.getRows(), dataFile);
+      for (int i = 0; i < clusters.length; i++) {
+        writeFile.write(clusters[i].getID() + separator + (long) sums[i][dimensions] 
+            + separator + Arrays.toString(clusters[i].getLocation().getComponents()) + newLine);
+      }
+      writeFile.write("Data Points Used" + newLine);
+      writeFile.write("Position ID\tAssigned Cluster\tLocation" + newLine);
+      
+      double[] row = new double[dimensions];
+      for (int start = 0; start < columns.getRows(); start += BLOCK_ROWS) {
+        int end = Math.min(columns.getRows(), start + BLOCK_ROWS);
+        DoubleBuffer[] block = columns.mapBlock(start, end);
+        for (int i = 0; i < end - start; i++) {
+          for (int j = 0; j < dimensions; j++) {
+            row[j] = block[j].get(i);
+          }
+          writeFile.write(ids.next() + separator + clusters[getClosestCentre(row, centres)].getID() 
+              + separator + Arrays.toString(row) + newLine);
+        }
+      }
+    }
+    return outputFile;
+  }
+  
+  /**
+   * Outputs the result of clustering a source, copying the cluster each Position was 
+   * assigned to from the temporary file they were written to.
+   * @param clusters - The resulting clusters.
+   * @param assigned - The number of Positions assigned to each cluster.
+   * @param dataLength - The number of Positions in the source.
+   * @param assignments - The temporary file of the cluster of each Position.
+   * @param dataFile - The name of the file the data is from.
+   * @return - Path for the output file.
+   * @throws IOException - Thrown if the temporary file cannot be read or the output written.
+   */
+  private Path outputStreamedData(Centroid[] clusters, long[] assigned, int dataLength, 
+      Path assignments, String dataFile) throws IOException {
+    String completedTime = getCompletedTime();
+    Path outputFile = DirectoryHelper.createOutputFile(outputDirectory, 
+        getName() + "-" + completedTime, ".tsv");
+    try (BufferedWriter writeFile = Files.newBufferedWriter(outputFile);
+        BufferedReader readAssignments = Files.newBufferedReader(assignments)) {
+      String newLine = System.lineSeparator();
+      char separator = '\t';
+      writeHeader(writeFile, completedTime, clusters.length, dataLength, dataFile);
+      for (int i = 0; i < clusters.length; i++) {
+        writeFile.write(clusters[i].getID() + separator + assigned[i] 
+            + separator + Arrays.toString(clusters[i].getLocation().getComponents()) + newLine);
+      }
+      writeFile.write("Data Points Used" + newLine);
+      writeFile.write("Position ID\tAssigned Cluster\tLocation" + newLine);
+      readAssignments.transferTo(writeFile);
+    }
+    return outputFile;
+  }
+  
+  /**
+   * Writes the information on the data used and generated to the start of an output file.
+   * @param writeFile - The writer of the output file.
+   * @param completedTime - The time clustering was completed.
+   * @param numClusters - The number of clusters generated.
+   * @param dataLength - The number of data points used.
+   * @param dataFile - The name of the file the data is from.
+   * @throws IOException - Thrown if the output file cannot be written to.
+   */
+  private void writeHeader(BufferedWriter writeFile, String completedTime, int numClusters, 
+      int dataLength, String dataFile) throws IOException {
+    String newLine = System.lineSeparator();
+    writeFile.write("Type of clustering: K-Means Clustering" + newLine);
+    writeFile.write("Time Completed: " + completedTime + newLine);
+    writeFile.write("Number of clusters generated: " + numClusters + newLine);
+    writeFile.write("Number of data points used: " + dataLength + newLine);
+    writeFile.write("File used: " + dataFile + newLine);
+    writeFile.write("Clusters" + newLine);
+    writeFile.write("Cluster ID\tNum of assigned positions\tLocation" + newLine);
+  }
+  
+  /**
+   * Returns the current time in the format used for output file names.
+   * @return - The current time without colons.
+   */
+  private String getCompletedTime() {
+    LocalDateTime dateTime = LocalDateTime.now();
+    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyy_HH:mm:ss");
+    return dateTime.format(dateFormatter).replace(":", "");
+  }
+  
+  /**
+   * Reads an evenly spaced sample of the rows of a dataset file.
+   * @param columns - The columns of the dataset file.
+   * @return - The sampled rows as Positions.
+   * @throws IOException - Thrown if the dataset file cannot be read.
+   */
+  private Position[] sampleRows(DatasetFile.Columns columns) throws IOException {
+    Position[] sample = new Position[SAMPLE_ROWS];
+    double step = (double) columns.getRows() / SAMPLE_ROWS;
+    int sampled = 0;
+    //Map each block containing a sampled row once, as the rows are in order.
+    for (int start = 0; sampled < SAMPLE_ROWS; start += BLOCK_ROWS) {
+      int end = Math.min(columns.getRows(), start + BLOCK_ROWS);
+      DoubleBuffer[] block = null;
+      for (int row = (int) (sampled * step); row < end && sampled < SAMPLE_ROWS; 
+          row = (int) (sampled * step)) {
+        if (block == null) {
+          block = columns.mapBlock(start, end);
+        }
+        Double[] components = new Double[block.length];
+        for (int j = 0; j < block.length; j++) {
+          components[j] = block[j].get(row - start);
+        }
+        sample[sampled++] = new Position("Sample-" + row, components);
+      }
+    }
+    return sample;
+  }
+  
+  /**
+   * Runs the assignment step of an iteration over a dataset file. The blocks of rows are 
+   * split evenly between threads, and each thread adds its rows to its own sums, 
+   * which are then added together in order.
+   * @param columns - The columns of the dataset file.
+   * @param centres - The locations of the clusters.
+   * @return - The sum of the rows assigned to each cluster, with the number of rows last.
+   * @throws IOException - Thrown if the dataset file cannot be read.
+   */
+  private double[][] sumFileClusters(DatasetFile.Columns columns, double[][] centres) 
+      throws IOException {
+    int blocks = (columns.getRows() + BLOCK_ROWS - 1) / BLOCK_ROWS;
+    //Split the blocks between the threads of the pool this is running in, if there is one.
+    int parallelism = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool().getParallelism() 
+        : Runtime.getRuntime().availableProcessors();
+    int threads = Math.min(blocks, parallelism);
+    List<double[][]> threadSums;
+    try {
+      threadSums = IntStream.range(0, threads).parallel()
+          .mapToObj(thread -> sumBlocks(columns, centres, blocks * thread / threads, 
+              blocks * (thread + 1) / threads))
+          .collect(Collectors.toList());
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+    double[][] sums = threadSums.get(0);
+    for (int thread = 1; thread < threads; thread++) {
+      for (int i = 0; i < sums.length; i++) {
+        for (int j = 0; j < sums[i].length; j++) {
+          sums[i][j] += threadSums.get(thread)[i][j];
+        }
+      }
+    }
+    return sums;
+  }
+  
+  /**
+   * Adds each row in a range of blocks of a dataset file to the sum of its closest cluster.
+   * @param columns - The columns of the dataset file.
+   * @param centres - The locations of the clusters.
+   * @param firstBlock - The first block to read.
+   * @param endBlock - The block after the last block to read.
+   * @return - The sum of the rows assigned to each cluster, with the number of rows last.
+   */
+  private double[][] sumBlocks(DatasetFile.Columns columns, double[][] centres, 
+      int firstBlock, int endBlock) {
+    int dimensions = columns.getWidth();
+    double[][] sums = new double[centres.length][dimensions + 1];
+    double[] row = new double[dimensions];
+    for (int blockIndex = firstBlock; blockIndex < endBlock; blockIndex++) {
+      int start = blockIndex * BLOCK_ROWS;
+      int end = Math.min(columns.getRows(), start + BLOCK_ROWS);
+      DoubleBuffer[] block;
+      try {
+        block = columns.mapBlock(start, end);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      for (int i = 0; i < end - start; i++) {
+        for (int j = 0; j < dimensions; j++) {
+          row[j] = block[j].get(i);
+        }
+        double[] sum = sums[getClosestCentre(row, centres)];
+        for (int j = 0; j < dimensions; j++) {
+          sum[j] += row[j];
+        }
+        sum[dimensions]++;
+      }
+    }
+    return sums;
+  }
+  
+  /**
+   * Sets the new location of each cluster to the mean of the rows assigned to it.
+   * A cluster with no rows keeps its location.
+   * @param sums - The sum of the rows assigned to each cluster, with the number of rows last.
+   * @param centres - The current locations of the clusters.
+   * @return - The new locations of the clusters.
+   */
+  private double[][] getFileCentres(double[][] sums, double[][] centres) {
+    double[][] next = new double[centres.length][];
+    for (int i = 0; i < centres.length; i++) {
+      double count = sums[i][centres[i].length];
+      if (count == 0) {
+        next[i] = centres[i];
+        continue;
+      }
+      next[i] = new double[centres[i].length];
+      for (int j = 0; j < next[i].length; j++) {
+        next[i][j] = sums[i][j] / count;
+      }
+    }
+    return next;
+  }
+  
+  /**
+   * Returns the index of the closest centre to a row, picking the first if two are 
+   * the same distance, as with assignPosition.
+   * @param row - The components of the row.
+   * @param centres - The locations of the clusters.
+   * @return - The index of the closest centre.
+   */
+  private int getClosestCentre(double[] row, double[][] centres) {
+    int closest = 0;
+    double smallestDistance = Double.MAX_VALUE;
+    for (int i = 0; i < centres.length; i++) {
+      double distance = 0;
+      for (int j = 0; j < row.length; j++) {
+        double difference = row[j] - centres[i][j];
+        distance += difference * difference;
+      }
+      if (distance < smallestDistance) {
+        smallestDistance = distance;
+        closest = i;
+      }
+    }
+    return closest;
+  }
+  
   /**
    * Method that assigns a specified position to the closest cluster
    * in an array of clusters.
@@ -192,6 +906,12 @@ public class KMeansClustering implements ClusteringAlgorithm {
   public int getNumOfClusters(Position[] data) {
     Double bestChScore = Double.MIN_VALUE;
     int bestNum = -1;
+    //Weighted positions count as many positions as their weight in the CH score.
+    double totalWeight = 0.0;
+    for (Position pos : data) {
+      totalWeight += WeightedPosition.getWeight(pos);
+    }
+    int numPositions = (int) Math.round(totalWeight);
     //This will use random initialisation
     //This will be calculated by starting with 2, then increasing the number of clusters by 1.5x, 
     //until the max number is reached. 
@@ -210,7 +930,7 @@ public class KMeansClustering implements ClusteringAlgorithm {
               .forEach(currPos -> assignPosition(currPos, clusterArr));
       
       //Then calculate the ch value
-      Double chScore = metrics.calinskiHarabasz(clusterArr, data.length);
+      Double chScore = metrics.calinskiHarabasz(clusterArr, numPositions);
       if (chScore > bestChScore) {
         bestChScore = chScore;
         bestNum = numClusters;
@@ -256,9 +976,8 @@ public class KMeansClustering implements ClusteringAlgorithm {
     Centroid[] best = new Centroid[numOfClusters];
     Double minValue = Double.MAX_VALUE;
     Random random = new Random();
-    //This currently operates using a fixed number of iterations,
-    //However, this could be updated to a custom value.
-    for (int i = 0; i < 100; i++) {
+    //This tries the number of restarts set, 100 unless it was given.
+    for (int i = 0; i < restarts; i++) {
       //Setup a new list that uses the data, and a new array to store the current clusters.
       ArrayList<Position> posList = new ArrayList<>(Arrays.asList(data));
       Centroid[] currClusters = new Centroid[numOfClusters];
@@ -298,8 +1017,9 @@ public class KMeansClustering implements ClusteringAlgorithm {
   public boolean hasConverged(Centroid[] before, Centroid[] current) {
     //Go through each of the items, see if it is in the current assigned positions.
     //If not, then add one to count of different.
-    int totalChanged = 0;
-    int dataSize = 0;
+    //Weighted positions count as many positions as their weight.
+    double totalChanged = 0;
+    double dataSize = 0;
     //Convert current to hash map to allow for the order to change.
     HashMap<String, Centroid> currentMap = new HashMap<>();
     for (Centroid cluster : current) {
@@ -307,16 +1027,17 @@ public class KMeansClustering implements ClusteringAlgorithm {
     }
     for (int i = 0; i < before.length; i++) {
       for (Position pos : before[i].getAssignedPositions()) {
-        dataSize++;
+        double weight = WeightedPosition.getWeight(pos);
+        dataSize += weight;
         if (!currentMap.get(before[i].getID()).getAssignedPositions().contains(pos)) {
-          totalChanged++;
+          totalChanged += weight;
         }
       }
     }
     if (dataSize < 20) {
       return totalChanged == 0;
     } else {
-      return totalChanged < (0.05 * dataSize);      
+      return totalChanged == 0 || totalChanged < (tolerance * dataSize);      
     }
   }
   
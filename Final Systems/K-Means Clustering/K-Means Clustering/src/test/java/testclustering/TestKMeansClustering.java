@@ -7,10 +7,17 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import clustering.KMeansClustering;
+import extensibleclustering.dependencies.AlgorithmCapabilities;
+import extensibleclustering.dependencies.AlgorithmCapabilities.Complexity;
 import extensibleclustering.dependencies.Centroid;
 import extensibleclustering.dependencies.ClusteringAlgorithm;
+import extensibleclustering.dependencies.DatasetFile;
 import extensibleclustering.dependencies.Metrics;
+import extensibleclustering.dependencies.Parameter;
 import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.PositionSource;
+import extensibleclustering.dependencies.SketchPosition;
+import extensibleclustering.dependencies.WeightedPosition;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -18,6 +25,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Scanner;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -714,6 +726,253 @@ public class TestKMeansClustering {
         testClustering.getDescription());
   }
   
+  /**
+   * Test to try and get the capabilities of k-means, which has linear memory, uses as many
+   * threads as it is given and can read a dataset file without loading it.
+   */
+  @Test
+  public void testGetCapabilities() {
+    AlgorithmCapabilities capabilities = testClustering.getCapabilities();
+    assertEquals("Could not get linear memory", Complexity.LINEAR,
+        capabilities.getMemoryComplexity());
+    assertEquals("Could not use as many threads as given", Integer.MAX_VALUE,
+        capabilities.getMaxThreads());
+    assertTrue("Could not stream dataset files", capabilities.isStreaming());
+  }
+
+  /**
+   * Test to try and get the parameters of k-means, which should default to choosing the
+   * number of clusters with the CH index.
+   */
+  @Test
+  public void testGetParameters() {
+    Map<String, Object> defaults = Parameter.resolve(testClustering.getParameters(), null);
+    assertEquals("Could not choose the number of clusters by default", 0,
+        defaults.get("clusters"));
+    assertEquals("Could not get the default number of restarts", 100, defaults.get("restarts"));
+    assertEquals("Could not get the default tolerance", 0.05, defaults.get("tolerance"));
+  }
+
+  /**
+   * Test to try and cluster data into a fixed number of clusters on a fixed number of
+   * threads. The number of clusters should not be chosen by the CH index.
+   */
+  @Test
+  public void testClusterFixedClusters() {
+    Position[] posArr = new Position[] {testPosition1dA, testPosition1dB, testPosition1dC,
+        testPosition1dD, testPosition1dE};
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("clusters", 4);
+    parameters.put("restarts", 5);
+    parameters.put("threads", 1);
+    Centroid[] clusters = testClustering.clusterData(posArr, "", parameters);
+    assertEquals("Could not use the number of clusters given", 4, clusters.length);
+    int assigned = 0;
+    for (Centroid cluster : clusters) {
+      assigned += cluster.getAssignedPositions().size();
+    }
+    assertEquals("Could not assign each of the positions", posArr.length, assigned);
+  }
+
+  /**
+   * Test to try and cluster a dataset file read a block at a time into a fixed number
+   * of clusters with an iteration cap.
+   * @throws IOException - Thrown if the dataset file cannot be written or read.
+   */
+  @Test
+  public void testClusterDatasetFileFixedClusters() throws IOException {
+    Random random = new Random(7);
+    Position[] posArr = new Position[4800];
+    for (int i = 0; i < posArr.length; i++) {
+      posArr[i] = new Position(String.valueOf(i), new Double[] {random.nextGaussian()});
+    }
+    Path datasetFile = Paths.get("target" + File.separator + "TestKMeansClustering.ecds");
+    try {
+      DatasetFile.write(datasetFile, posArr, "");
+      Map<String, Object> parameters = new HashMap<>();
+      parameters.put("clusters", 12);
+      parameters.put("maxIterations", 2);
+      assertEquals("Could not use the number of clusters given", 12,
+          testClustering.clusterDatasetFile(datasetFile, "Example.txt", parameters).length);
+    } finally {
+      Files.deleteIfExists(datasetFile);
+    }
+  }
+
+  /**
+   * Test to try and cluster data into more clusters than there are positions.
+   * This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testClusterTooManyClusters() {
+    Position[] posArr = new Position[] {testPosition1dA, testPosition1dB, testPosition1dC};
+    testClustering.clusterData(posArr, "", Collections.singletonMap("clusters", 4));
+  }
+
+  /**
+   * Test to try and cluster sketches, whose components are hashes rather than coordinates.
+   * This should throw an exception.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testClusterSketches() {
+    Position[] posArr = new Position[] {new SketchPosition("A", new long[] {1, 2, 3}, 21),
+        new SketchPosition("B", new long[] {1, 2, 4}, 21),
+        new SketchPosition("C", new long[] {5, 6, 7}, 21)};
+    testClustering.clusterData(posArr, "", Collections.singletonMap("clusters", 2));
+  }
+
+  /**
+   * Test to try and cluster a dataset file containing sketches.
+   * This should throw an exception.
+   * @throws IOException - Thrown if the dataset file cannot be written or read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testClusterDatasetFileSketches() throws IOException {
+    Position[] posArr = new Position[] {new SketchPosition("A", new long[] {1, 2, 3}, 21),
+        new SketchPosition("B", new long[] {1, 2, 4}, 21),
+        new SketchPosition("C", new long[] {5, 6, 7}, 21)};
+    Path datasetFile = Paths.get("target" + File.separator + "TestKMeansClustering.ecds");
+    try {
+      DatasetFile.write(datasetFile, posArr, "");
+      testClustering.clusterDatasetFile(datasetFile, "Example.txt");
+    } finally {
+      Files.deleteIfExists(datasetFile);
+    }
+  }
+
+  /**
+   * Test to try and cluster weighted positions, which should be output with the IDs of the
+   * positions they stand for.
+   * @throws IOException - Thrown if the output file cannot be read.
+   */
+  @Test
+  public void testClusterWeightedPositions() throws IOException {
+    Position[] posArr = new Position[] {
+        new WeightedPosition(testPosition1dA, 2.0, new String[] {"1dA", "1dA-Copy"}),
+        testPosition1dB, testPosition1dC};
+    testClustering.clusterData(posArr, "");
+    String output = new String(Files.readAllBytes(testClustering.getLastOutputFile()));
+    assertTrue("Could not count the positions the weighted position stands for",
+        output.contains("Number of data points used: 4"));
+    assertTrue("Could not output the ID of each position the weighted position stands for",
+        output.contains("1dA\t") && output.contains("1dA-Copy\t"));
+  }
+  
+  /**
+   * Test to try and cluster a dataset file too large to sample in full, which is read a 
+   * block at a time. Each cluster should only contain positions from one of the groups.
+   * @throws IOException - Thrown if the dataset file cannot be written or read.
+   */
+  @Test
+  public void testClusterDatasetFile() throws IOException {
+    Random random = new Random(7);
+    Position[] posArr = new Position[7200];
+    for (int i = 0; i < posArr.length; i++) {
+      int group = i % 3;
+      posArr[i] = new Position("Group" + group + "-" + i, new Double[] {
+          group * 100.0 + random.nextGaussian(), (group == 2 ? 100.0 : 0.0) 
+          + random.nextGaussian()});
+    }
+    Path datasetFile = Paths.get("target" + File.separator + "TestKMeansClustering.ecds");
+    try {
+      DatasetFile.write(datasetFile, posArr, "");
+      Centroid[] clusters = testClustering.clusterDatasetFile(datasetFile, "Example.txt");
+      assertTrue("Could not generate the clusters", clusters.length >= 3);
+      
+      List<String> lines = Files.readAllLines(testClustering.getLastOutputFile());
+      assertEquals("Could not count the positions in the file", 
+          "Number of data points used: 7200", lines.get(3));
+      int dataStart = lines.indexOf("Data Points Used") + 2;
+      assertEquals("Could not output each of the positions", 
+          dataStart + posArr.length, lines.size());
+      Map<String, String> clusterGroups = new HashMap<>();
+      for (int i = 0; i < posArr.length; i++) {
+        String[] line = lines.get(dataStart + i).split("\t");
+        assertEquals("Could not output the positions in order", posArr[i].getID(), line[0]);
+        String group = line[0].substring(0, line[0].indexOf('-'));
+        assertEquals("Could not keep the groups apart", 
+            group, clusterGroups.computeIfAbsent(line[1], cluster -> group));
+      }
+    } finally {
+      Files.deleteIfExists(datasetFile);
+    }
+  }
+  
+  /**
+   * Test to try and cluster a source larger than one chunk, which is clustered a chunk at 
+   * a time. Each cluster should only contain positions from one of the groups.
+   * @throws IOException - Thrown if the output file cannot be read.
+   */
+  @Test
+  public void testClusterSource() throws IOException {
+    Random random = new Random(7);
+    Position[] posArr = new Position[7200];
+    for (int i = 0; i < posArr.length; i++) {
+      int group = i % 3;
+      posArr[i] = new Position("Group" + group + "-" + i, new Double[] {
+          group * 100.0 + random.nextGaussian(), (group == 2 ? 100.0 : 0.0) 
+          + random.nextGaussian()});
+    }
+    Centroid[] clusters = testClustering.clusterSource(PositionSource.of(posArr), 
+        "Example.txt");
+    assertTrue("Could not generate the clusters", clusters.length >= 3);
+    
+    List<String> lines = Files.readAllLines(testClustering.getLastOutputFile());
+    assertEquals("Could not count the positions in the source", 
+        "Number of data points used: 7200", lines.get(3));
+    int dataStart = lines.indexOf("Data Points Used") + 2;
+    assertEquals("Could not output each of the positions", 
+        dataStart + posArr.length, lines.size());
+    Map<String, String> clusterGroups = new HashMap<>();
+    for (int i = 0; i < posArr.length; i++) {
+      String[] line = lines.get(dataStart + i).split("\t");
+      assertEquals("Could not output the positions in order", posArr[i].getID(), line[0]);
+      String group = line[0].substring(0, line[0].indexOf('-'));
+      assertEquals("Could not keep the groups apart", 
+          group, clusterGroups.computeIfAbsent(line[1], cluster -> group));
+    }
+  }
+  
+  /**
+   * Test to try and cluster a source no larger than one chunk, which is clustered 
+   * with clusterData.
+   */
+  @Test
+  public void testClusterSmallSource() {
+    Position[] posArr = new Position[] {testPosition1dA, testPosition1dB, testPosition1dC, 
+        testPosition1dD, testPosition1dE};
+    Centroid[] clusters = testClustering.clusterSource(PositionSource.of(posArr), 
+        "Example.txt");
+    int assigned = 0;
+    for (Centroid cluster : clusters) {
+      assigned += cluster.getAssignedPositions().size();
+    }
+    assertEquals("Could not assign each of the positions", posArr.length, assigned);
+  }
+  
+  /**
+   * Test to try and cluster a small dataset file, which is loaded and clustered 
+   * with clusterData.
+   * @throws IOException - Thrown if the dataset file cannot be written or read.
+   */
+  @Test
+  public void testClusterSmallDatasetFile() throws IOException {
+    Position[] posArr = new Position[] {testPosition1dA, testPosition1dB, testPosition1dC, 
+        testPosition1dD, testPosition1dE};
+    Path datasetFile = Paths.get("target" + File.separator + "TestKMeansClustering.ecds");
+    try {
+      DatasetFile.write(datasetFile, posArr, "");
+      Centroid[] clusters = testClustering.clusterDatasetFile(datasetFile, "Example.txt");
+      int assigned = 0;
+      for (Centroid cluster : clusters) {
+        assigned += cluster.getAssignedPositions().size();
+      }
+      assertEquals("Could not assign each of the positions", posArr.length, assigned);
+    } finally {
+      Files.deleteIfExists(datasetFile);
+    }
+  }
+  
   /**
    * Test to try and cluster data where there is less than 2 positions given.
    */
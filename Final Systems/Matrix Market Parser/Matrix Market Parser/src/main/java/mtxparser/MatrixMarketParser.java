@@ -0,0 +1,433 @@
+package mtxparser;
+
+import extensibleclustering.dependencies.DoubleTokenParser;
+import extensibleclustering.dependencies.Parameter;
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SparsePosition;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implements a parser for sparse matrices stored in the Matrix Market coordinate format (.mtx),
+ * e.g. the gene by cell count matrices of single-cell experiments.
+ * Each row of the matrix becomes a SparsePosition, or each column if the matrix is set to be
+ * read by column, so the memory used is proportional to the number of non-zero entries.
+ * Real, integer and pattern matrices are supported, with general or symmetric layouts.
+ * The IDs of the Positions are their row (or column) numbers, starting at 1, unless an ID
+ * file is given, e.g. the barcodes.tsv file that accompanies a single-cell matrix.
+ * @author David Cook
+ */
+public class MatrixMarketParser implements Parser {
+
+  /**
+   * The size of the buffer the entries are read through.
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * What becomes a Position, as the options of the positions parameter.
+   */
+  private static final String ROWS = "Rows";
+  private static final String COLUMNS = "Columns";
+
+  /**
+   * The parameters the parser can be given, matching the setters of the same settings.
+   */
+  private static final List<Parameter> PARAMETERS = Collections.unmodifiableList(Arrays.asList(
+      Parameter.ofEnum("positions", "Whether each row or each column of the matrix becomes a "
+          + "Position, e.g. Columns for the cells of a single-cell matrix", ROWS, ROWS, COLUMNS),
+      Parameter.ofText("idFile", "The file of IDs, one per line, e.g. barcodes.tsv, relative "
+          + "to the folder of the matrix, or empty to use the row or column numbers", "")));
+
+  private boolean positionsAreColumns = false;
+  private File idFile = null;
+
+  /**
+   * Sets whether each column of the matrix becomes a Position, rather than each row.
+   * For example, single-cell matrices store one cell per column.
+   * @param positionsAreColumns - True to create a Position for each column.
+   */
+  public void setPositionsAreColumns(boolean positionsAreColumns) {
+    this.positionsAreColumns = positionsAreColumns;
+  }
+
+  /**
+   * Sets the file containing the IDs of the Positions, with one ID per line in the order
+   * of the rows (or columns). Only the text before the first tab of each line is used.
+   * @param idFile - The file of IDs, or null to use the row (or column) numbers.
+   */
+  public void setIdFile(File idFile) {
+    this.idFile = idFile;
+  }
+
+  /**
+   * Parses a file with values for whether the Positions are columns and the ID file, which 
+   * replace the settings of the parser. A relative ID file is found from the folder of the 
+   * matrix, so the files that accompany a single-cell matrix can be given by name.
+   * @param file - The file to parse the data from.
+   * @param parameters - The values of the parameters, see getParameters.
+   * @return Position[] - The Positions parsed from the file.
+   * @throws FileNotFoundException - Thrown if the file given cannot be located.
+   * @throws IOException - Thrown if there is an error when parsing data from the file.
+   */
+  @Override
+  public Position[] parseFile(File file, Map<String, Object> parameters) 
+      throws FileNotFoundException, IOException {
+    Map<String, Object> values = Parameter.resolve(PARAMETERS, parameters);
+    setPositionsAreColumns(COLUMNS.equals(values.get("positions")));
+    String idPath = (String) values.get("idFile");
+    File ids = idPath.trim().isEmpty() ? null : new File(idPath.trim());
+    if (ids != null && !ids.isAbsolute() && file != null) {
+      ids = new File(file.getAbsoluteFile().getParentFile(), ids.getPath());
+    }
+    setIdFile(ids);
+    return parseFile(file);
+  }
+
+  @Override
+  public Position[] parseFile(File file) throws FileNotFoundException, IOException {
+    //Check that the file is not null before using it.
+    if (file == null) {
+      throw new IllegalArgumentException("File provided was null");
+    }
+
+    //Get and check the file extension.
+    String extension = "";
+    String fileName = file.getName();
+    int lastDot = fileName.lastIndexOf('.');
+    if (lastDot != -1) {
+      extension = fileName.substring(lastDot + 1);
+    }
+
+    if (!extension.equals("mtx")) {
+      throw new IllegalArgumentException("File type is not supported");
+    }
+
+    if (!file.exists()) {
+      throw new FileNotFoundException();
+    }
+
+    try (InputStream input = Files.newInputStream(file.toPath())) {
+      EntryReader reader = new EntryReader(input);
+
+      //The banner gives the format, field type and symmetry of the matrix.
+      String bannerLine = reader.readLine();
+      String[] banner = bannerLine == null ? new String[0]
+          : bannerLine.trim().toLowerCase().split("\\s+");
+      if (banner.length < 5 || !banner[0].equals("%%matrixmarket")
+          || !banner[1].equals("matrix")) {
+        throw new IllegalArgumentException("The file given is not in the Matrix Market format");
+      }
+      if (!banner[2].equals("coordinate")) {
+        throw new IllegalArgumentException("Only coordinate matrices are supported");
+      }
+      boolean pattern = banner[3].equals("pattern");
+      if (!pattern && !banner[3].equals("real") && !banner[3].equals("integer")) {
+        throw new IllegalArgumentException("Only real, integer and pattern matrices "
+            + "are supported");
+      }
+      boolean symmetric = banner[4].equals("symmetric");
+      if (!symmetric && !banner[4].equals("general")) {
+        throw new IllegalArgumentException("Only general and symmetric matrices are supported");
+      }
+
+      //Skip the comments to the size line.
+      String sizeLine = reader.readLine();
+      while (sizeLine != null && (sizeLine.startsWith("%") || sizeLine.trim().isEmpty())) {
+        sizeLine = reader.readLine();
+      }
+      String[] size = sizeLine == null ? new String[0] : sizeLine.trim().split("\\s+");
+      if (size.length < 3) {
+        throw new IllegalArgumentException("The file does not contain the size of the matrix");
+      }
+      int rows = Integer.parseInt(size[0]);
+      int columns = Integer.parseInt(size[1]);
+      long entries = Long.parseLong(size[2]);
+      long stored = symmetric ? entries * 2 : entries;
+      if (rows < 0 || columns < 0 || entries < 0 || stored > Integer.MAX_VALUE - 8) {
+        throw new IllegalArgumentException("The size of the matrix is not supported");
+      }
+
+      //Read the entries into parallel arrays, so the memory is proportional to the entries.
+      int[] positionIndices = new int[(int) stored];
+      int[] componentIndices = new int[(int) stored];
+      double[] values = new double[(int) stored];
+      int count = 0;
+      for (long entry = 0; entry < entries; entry++) {
+        int row = (int) reader.readLong(1, rows) - 1;
+        int column = (int) reader.readLong(1, columns) - 1;
+        double value = pattern ? 1.0 : reader.readDouble();
+        positionIndices[count] = positionsAreColumns ? column : row;
+        componentIndices[count] = positionsAreColumns ? row : column;
+        values[count++] = value;
+        //Only one half of a symmetric matrix is stored, so mirror the other half.
+        if (symmetric && row != column) {
+          positionIndices[count] = positionsAreColumns ? row : column;
+          componentIndices[count] = positionsAreColumns ? column : row;
+          values[count++] = value;
+        }
+      }
+
+      int positionCount = positionsAreColumns ? columns : rows;
+      int dimensions = positionsAreColumns ? rows : columns;
+      return toPositions(positionIndices, componentIndices, values, count, positionCount,
+          dimensions, readIds(positionCount));
+    }
+  }
+
+  /**
+   * Groups the entries into a SparsePosition for each row (or column).
+   * The entries are sorted by two stable counting sorts, first by component then by
+   * Position, so each Position's components are in ascending order without comparisons.
+   * Entries repeated for the same row and column are added together.
+   * @param positionIndices - The Position of each entry.
+   * @param componentIndices - The component of each entry.
+   * @param values - The value of each entry.
+   * @param count - The number of entries.
+   * @param positionCount - The number of Positions.
+   * @param dimensions - The number of components of each Position.
+   * @param ids - The IDs of the Positions.
+   * @return - The Positions, in order.
+   */
+  private Position[] toPositions(int[] positionIndices, int[] componentIndices,
+      double[] values, int count, int positionCount, int dimensions, String[] ids) {
+    int[] byComponent = countingSort(componentIndices, count, dimensions, null);
+    int[] order = countingSort(positionIndices, count, positionCount, byComponent);
+
+    Position[] positions = new Position[positionCount];
+    int next = 0;
+    for (int position = 0; position < positionCount; position++) {
+      int end = next;
+      while (end < count && positionIndices[order[end]] == position) {
+        end++;
+      }
+      int[] indices = new int[end - next];
+      double[] positionValues = new double[end - next];
+      int nonZero = 0;
+      for (int i = next; i < end; i++) {
+        int entry = order[i];
+        if (nonZero > 0 && indices[nonZero - 1] == componentIndices[entry]) {
+          positionValues[nonZero - 1] += values[entry];
+        } else {
+          indices[nonZero] = componentIndices[entry];
+          positionValues[nonZero++] = values[entry];
+        }
+      }
+      positions[position] = new SparsePosition(ids[position], dimensions,
+          Arrays.copyOf(indices, nonZero), Arrays.copyOf(positionValues, nonZero));
+      next = end;
+    }
+    return positions;
+  }
+
+  /**
+   * Stable counting sort of the entries by a key.
+   * @param keys - The key of each entry.
+   * @param count - The number of entries.
+   * @param keyCount - The number of possible keys.
+   * @param order - The order to visit the entries in, or null for their original order.
+   * @return - The entries ordered by their key.
+   */
+  private int[] countingSort(int[] keys, int count, int keyCount, int[] order) {
+    int[] starts = new int[keyCount + 1];
+    for (int i = 0; i < count; i++) {
+      starts[keys[i] + 1]++;
+    }
+    for (int key = 0; key < keyCount; key++) {
+      starts[key + 1] += starts[key];
+    }
+    int[] sorted = new int[count];
+    for (int i = 0; i < count; i++) {
+      int entry = order == null ? i : order[i];
+      sorted[starts[keys[entry]]++] = entry;
+    }
+    return sorted;
+  }
+
+  /**
+   * Reads the IDs of the Positions from the ID file if one has been set.
+   * @param positionCount - The number of Positions.
+   * @return - The ID of each Position.
+   * @throws IOException - Thrown if the ID file cannot be read.
+   */
+  private String[] readIds(int positionCount) throws IOException {
+    String[] ids = new String[positionCount];
+    if (idFile == null) {
+      for (int i = 0; i < positionCount; i++) {
+        ids[i] = String.valueOf(i + 1);
+      }
+      return ids;
+    }
+
+    if (!idFile.exists()) {
+      throw new FileNotFoundException();
+    }
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(idFile.toPath())) {
+      String line = reader.readLine();
+      while (line != null) {
+        if (!line.trim().isEmpty()) {
+          int tab = line.indexOf('\t');
+          lines.add((tab < 0 ? line : line.substring(0, tab)).trim());
+        }
+        line = reader.readLine();
+      }
+    }
+    if (lines.size() != positionCount) {
+      throw new IllegalArgumentException("The ID file has " + lines.size()
+          + " IDs, but the matrix has " + positionCount);
+    }
+    return lines.toArray(ids);
+  }
+
+  @Override
+  public String getName() {
+    return "Matrix Market Sparse Matrix";
+  }
+
+  @Override
+  public String getDescription() {
+    return "Parses sparse matrices in the Matrix Market coordinate format into sparse Positions";
+  }
+
+  @Override
+  public ArrayList<String> getSupportedFileExtensions() {
+    return new ArrayList<String>(Arrays.asList(
+        "Matrix Market Files (*.mtx)",
+        "*.mtx"
+        ));
+  }
+
+  @Override
+  public List<Parameter> getParameters() {
+    return PARAMETERS;
+  }
+
+  /**
+   * Reads the lines and whitespace separated tokens of the file through a byte buffer,
+   * so the entries can be parsed without creating a String for each one.
+   */
+  private static final class EntryReader {
+
+    private final InputStream input;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private byte[] token = new byte[64];
+    private int position = 0;
+    private int limit = 0;
+
+    /**
+     * Creates a reader of the given stream.
+     * @param input - The stream to read from.
+     */
+    EntryReader(InputStream input) {
+      this.input = input;
+    }
+
+    /**
+     * Reads the next byte of the file.
+     * @return - The next byte, or -1 at the end of the file.
+     * @throws IOException - Thrown if the file cannot be read.
+     */
+    private int read() throws IOException {
+      if (position == limit) {
+        limit = input.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+          limit = 0;
+          return -1;
+        }
+      }
+      return buffer[position++];
+    }
+
+    /**
+     * Reads the next line of the file, used for the banner, comments and size.
+     * @return - The line without its line ending, or null at the end of the file.
+     * @throws IOException - Thrown if the file cannot be read.
+     */
+    String readLine() throws IOException {
+      StringBuilder line = new StringBuilder();
+      int current = read();
+      if (current < 0) {
+        return null;
+      }
+      while (current >= 0 && current != '\n') {
+        if (current != '\r') {
+          line.append((char) (current & 0xff));
+        }
+        current = read();
+      }
+      return line.toString();
+    }
+
+    /**
+     * Reads the next token into the token buffer.
+     * @return - The length of the token.
+     * @throws IOException - Thrown if the file cannot be read, or has no more tokens.
+     */
+    private int readToken() throws IOException {
+      int current = read();
+      while (current == ' ' || current == '\t' || current == '\n' || current == '\r') {
+        current = read();
+      }
+      if (current < 0) {
+        throw new IOException("The file ended before all of the entries were read");
+      }
+      int length = 0;
+      while (current >= 0 && current != ' ' && current != '\t' && current != '\n'
+          && current != '\r') {
+        if (length == token.length) {
+          token = Arrays.copyOf(token, length * 2);
+        }
+        token[length++] = (byte) current;
+        current = read();
+      }
+      return length;
+    }
+
+    /**
+     * Reads the next token as a whole number within the given range.
+     * @param min - The smallest value allowed.
+     * @param max - The largest value allowed.
+     * @return - The number that was read.
+     * @throws IOException - Thrown if the file cannot be read, or has no more tokens.
+     */
+    long readLong(long min, long max) throws IOException {
+      int length = readToken();
+      long value = 0;
+      for (int i = 0; i < length; i++) {
+        if (token[i] < '0' || token[i] > '9' || value > max) {
+          throw new IllegalArgumentException("The entry index '"
+              + new String(token, 0, length, StandardCharsets.US_ASCII) + "' is not valid");
+        }
+        value = value * 10 + (token[i] - '0');
+      }
+      if (value < min || value > max) {
+        throw new IllegalArgumentException("The entry index " + value
+            + " is outside the size of the matrix");
+      }
+      return value;
+    }
+
+    /**
+     * Reads the next token as a number.
+     * @return - The number that was read.
+     * @throws IOException - Thrown if the file cannot be read, or has no more tokens.
+     */
+    double readDouble() throws IOException {
+      int length = readToken();
+      return DoubleTokenParser.parse(token, 0, length);
+    }
+  }
+}
@@ -0,0 +1,260 @@
+package testmtxparser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import extensibleclustering.dependencies.Parser;
+import extensibleclustering.dependencies.Position;
+import extensibleclustering.dependencies.SparsePosition;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import mtxparser.MatrixMarketParser;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for testing and development of the Matrix Market Parser.
+ * @author David Cook
+ */
+public class TestMatrixMarketParser {
+
+  private String rootTestResources;
+  private MatrixMarketParser testParser;
+
+  /**
+   * Creates the parser before each test.
+   */
+  @Before
+  public void setUp() {
+    rootTestResources = "src" + File.separator + "test" + File.separator + "resources"
+        + File.separator;
+    testParser = new MatrixMarketParser();
+  }
+
+  /**
+   * Returns a file in the test resources.
+   * @param name - The name of the file.
+   * @return - The file in the test resources.
+   */
+  private File getResource(String name) {
+    return new File(rootTestResources + name);
+  }
+
+  /**
+   * Test to try and get an instance of the Matrix Market Parser.
+   * This should implement the Parser Interface from the extensible clustering dependencies.
+   */
+  @Test
+  public void testImplementsParserInterface() {
+    assertTrue("The Matrix Market Parser does not implement the Parser interface",
+        testParser instanceof Parser);
+  }
+
+  /**
+   * Test to try and get the name, description and file extensions of the parser.
+   */
+  @Test
+  public void testGetParserDetails() {
+    assertEquals("Could not get the expected name of the parser",
+        "Matrix Market Sparse Matrix", testParser.getName());
+    assertEquals("Could not get the expected description of the parser",
+        "Parses sparse matrices in the Matrix Market coordinate format into sparse Positions",
+        testParser.getDescription());
+    List<String> extensions = testParser.getSupportedFileExtensions();
+    assertEquals("Could not get the expected description of the supported files",
+        "Matrix Market Files (*.mtx)", extensions.get(0));
+    assertTrue("Could not get the expected supported extension", extensions.contains("*.mtx"));
+  }
+
+  /**
+   * Test to try and parse a real matrix with a Position for each row.
+   * The entries are not in order, so should be sorted into each row.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseRows() throws IOException {
+    Position[] result = testParser.parseFile(getResource("Sample.mtx"));
+    Position[] expected = new Position[] {
+        new Position("1", new Double[] {1.5, 0.0, 20.0, 0.0}),
+        new Position("2", new Double[] {0.0, 4.0, 0.0, 0.0}),
+        new Position("3", new Double[] {1.0, 0.0, 0.0, -2.0})
+    };
+    assertArrayEquals("Could not get the expected Positions for each row", expected, result);
+    assertTrue("Could not get sparse Positions", result[0] instanceof SparsePosition);
+    assertEquals("Could not store only the non-zero entries",
+        2, ((SparsePosition) result[0]).getNonZeroCount());
+  }
+
+  /**
+   * Test to try and parse a matrix with a Position for each column, with IDs from a file.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseColumnsWithIds() throws IOException {
+    testParser.setPositionsAreColumns(true);
+    testParser.setIdFile(getResource("Barcodes.tsv"));
+    Position[] expected = new Position[] {
+        new Position("CELL-A", new Double[] {1.5, 0.0, 1.0}),
+        new Position("CELL-B", new Double[] {0.0, 4.0, 0.0}),
+        new Position("CELL-C", new Double[] {20.0, 0.0, 0.0}),
+        new Position("CELL-D", new Double[] {0.0, 0.0, -2.0})
+    };
+    assertArrayEquals("Could not get the expected Positions for each column",
+        expected, testParser.parseFile(getResource("Sample.mtx")));
+  }
+
+  /**
+   * Test to try and parse a matrix with values for the parameters of the parser instead of
+   * its settings. The ID file is given by name, so it is found next to the matrix.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseWithParameters() throws IOException {
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("positions", "Columns");
+    parameters.put("idFile", "Barcodes.tsv");
+    Position[] result = testParser.parseFile(getResource("Sample.mtx"), parameters);
+    assertEquals("Could not get a Position for each column", 4, result.length);
+    assertEquals("Could not get the IDs from the ID file", "CELL-D", result[3].getID());
+    assertEquals("Could not get the parameters of the parser", 2,
+        testParser.getParameters().size());
+  }
+
+  /**
+   * Test to try and parse a symmetric integer matrix.
+   * The entries below the diagonal should be mirrored above it.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseSymmetric() throws IOException {
+    Position[] expected = new Position[] {
+        new Position("1", new Double[] {2.0, 0.0, 5.0}),
+        new Position("2", new Double[] {0.0, 0.0, 7.0}),
+        new Position("3", new Double[] {5.0, 7.0, 0.0})
+    };
+    assertArrayEquals("Could not get the expected Positions of a symmetric matrix",
+        expected, testParser.parseFile(getResource("Symmetric.mtx")));
+  }
+
+  /**
+   * Test to try and parse a pattern matrix with Windows line endings.
+   * Each entry should have a value of 1.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParsePattern() throws IOException {
+    Position[] expected = new Position[] {
+        new Position("1", new Double[] {0.0, 1.0, 0.0}),
+        new Position("2", new Double[] {1.0, 0.0, 1.0})
+    };
+    assertArrayEquals("Could not get the expected Positions of a pattern matrix",
+        expected, testParser.parseFile(getResource("Pattern.mtx")));
+  }
+
+  /**
+   * Test to try and parse a matrix with a repeated entry, which should be added together.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test
+  public void testParseDuplicates() throws IOException {
+    Position[] expected = new Position[] {
+        new Position("1", new Double[] {3.5, 0.0}),
+        new Position("2", new Double[] {0.0, 3.0})
+    };
+    assertArrayEquals("Could not add the repeated entries together",
+        expected, testParser.parseFile(getResource("Duplicates.mtx")));
+  }
+
+  /**
+   * Test to try and parse a dense array matrix. This should throw an exception.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseArray() throws IOException {
+    testParser.parseFile(getResource("Array.mtx"));
+  }
+
+  /**
+   * Test to try and parse a complex matrix. This should throw an exception.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseComplex() throws IOException {
+    testParser.parseFile(getResource("Complex.mtx"));
+  }
+
+  /**
+   * Test to try and parse an entry outside the size of the matrix.
+   * This should throw an exception.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseOutOfRange() throws IOException {
+    testParser.parseFile(getResource("OutOfRange.mtx"));
+  }
+
+  /**
+   * Test to try and parse a file with fewer entries than its size line gives.
+   * This should throw an IOException.
+   * @throws IOException - Thrown as the file ends early.
+   */
+  @Test (expected = IOException.class)
+  public void testParseTruncated() throws IOException {
+    testParser.parseFile(getResource("Truncated.mtx"));
+  }
+
+  /**
+   * Test to try and parse a .mtx file that is not in the Matrix Market format.
+   * This should throw an exception.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseNotMatrixMarket() throws IOException {
+    testParser.parseFile(getResource("NotMatrixMarket.mtx"));
+  }
+
+  /**
+   * Test to try and use an ID file with the wrong number of IDs.
+   * This should throw an exception.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testWrongNumberOfIds() throws IOException {
+    testParser.setIdFile(getResource("Barcodes.tsv"));
+    testParser.parseFile(getResource("Sample.mtx"));
+  }
+
+  /**
+   * Test to try and parse a file type that is not supported.
+   * This should throw an IllegalArgumentException.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseUnsupportedFile() throws IOException {
+    testParser.parseFile(getResource("empty-pdf.pdf"));
+  }
+
+  /**
+   * Test to try and parse a file that does not exist.
+   * This should throw a FileNotFoundException.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = FileNotFoundException.class)
+  public void testParseMissingFile() throws IOException {
+    testParser.parseFile(getResource("Missing.mtx"));
+  }
+
+  /**
+   * Test to try and parse a null file. This should throw an IllegalArgumentException.
+   * @throws IOException - Thrown if the file cannot be read.
+   */
+  @Test (expected = IllegalArgumentException.class)
+  public void testParseNullFile() throws IOException {
+    testParser.parseFile(null);
+  }
+}